@@ -1215,4 +1215,77 @@ class CopyTaskIntegrationSpec extends AbstractIntegrationSpec {
         "fileMode"           | "0600"                       | "0644"
         "filteringCharset"   | "'iso8859-1'"                | "'utf-8'"
     }
+
+    def "copies all files when a source file changes and the spec has a filter"() {
+        given:
+        file('files/a.txt') << 'a $version'
+        file('files/b.txt') << 'b $version'
+        file('version.txt') << '1'
+        buildScript """
+            task (copy, type:Copy) {
+               from 'files'
+               into 'dest'
+               expand(version: file('version.txt').text)
+            }
+        """
+        run 'copy'
+
+        when:
+        file('version.txt').text = '2'
+        file('files/a.txt').text = 'changed a $version'
+        run 'copy'
+
+        then:
+        file('dest/a.txt').text == 'changed a 2'
+        file('dest/b.txt').text == 'b 2'
+    }
+
+    def "copies the file that another file hid when that file is removed"() {
+        given:
+        file('first/a.txt') << 'first'
+        file('second/a.txt') << 'second'
+        buildScript """
+            task (copy, type:Copy) {
+               from 'first'
+               from 'second'
+               into 'dest'
+               duplicatesStrategy = 'include'
+            }
+        """
+        run 'copy'
+
+        when:
+        file('second/a.txt').delete()
+        run 'copy'
+
+        then:
+        file('dest/a.txt').text == 'first'
+    }
+
+    def "calls copy() of a subclass that overrides it when a source file changes"() {
+        given:
+        file('files/a.txt') << 'a'
+        buildScript """
+            class CustomCopy extends Copy {
+                protected void copy() {
+                    super.copy()
+                    println "custom copy"
+                }
+            }
+
+            task (copy, type:CustomCopy) {
+               from 'files'
+               into 'dest'
+            }
+        """
+        run 'copy'
+
+        when:
+        file('files/a.txt').text = 'changed a'
+        run 'copy'
+
+        then:
+        file('dest/a.txt').text == 'changed a'
+        outputContains("custom copy")
+    }
 }
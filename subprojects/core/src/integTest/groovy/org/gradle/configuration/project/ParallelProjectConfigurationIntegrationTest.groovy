@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.execution.ParallelProjectConfigurer
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+
+    @Rule
+    public final BlockingHttpServer blockingServer = new BlockingHttpServer()
+
+    def setup() {
+        blockingServer.start()
+
+        settingsFile << 'include "a", "b", "c"'
+
+        buildFile << """
+            allprojects {
+                ext.ping = { String call ->
+                    URL url = new URL("http://localhost:${blockingServer.port}/" + call)
+                    url.openConnection().getHeaderField('RESPONSE')
+                }
+            }
+        """
+
+        executer.withArguments("--parallel", "--max-workers=3", "-D${ParallelProjectConfigurer.PARALLEL_CONFIGURATION_PROPERTY}=true", "--info")
+    }
+
+    def "configures the projects of a plain multi-project build concurrently"() {
+        given:
+        ["a", "b", "c"].each { name ->
+            file("$name/build.gradle") << """
+                apply plugin: 'java'
+
+                dependencies {
+                    compile 'org.test:lib:1.0'
+                }
+                group = 'org.test'
+                version = '1.0'
+
+                ping(path)
+            """
+        }
+
+        expect:
+        blockingServer.expectConcurrentExecution(":a", ":b", ":c")
+
+        run "help"
+        !output.contains("Remaining projects will be configured sequentially")
+    }
+
+    def "configures the remaining projects sequentially when a project reaches into another project"() {
+        given:
+        file("b/build.gradle") << """
+            rootProject.ext.fromB = true
+        """
+
+        when:
+        run "help"
+
+        then:
+        output.contains("Remaining projects will be configured sequentially")
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipEntry;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares writing a deflated archive with the Ant {@link ZipOutputStream} and with the {@link ParallelZipWriter}.
+ */
+@State(Scope.Benchmark)
+public class ParallelZipWriterBenchmark {
+    private static final String[] WORDS = {"class", "public", "private", "static", "final", "return", "import", "void", "new", "int"};
+
+    @Param({"200"})
+    int entryCount;
+
+    @Param({"4096", "1048576"})
+    int entrySize;
+
+    @Param({"4"})
+    int parallelism;
+
+    byte[] content;
+    File archive;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        StringBuilder builder = new StringBuilder(entrySize + 16);
+        while (builder.length() < entrySize) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(100) == 0 ? '\n' : ' ');
+        }
+        content = builder.substring(0, entrySize).getBytes("UTF-8");
+        archive = File.createTempFile("jmh", ".zip");
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        archive.delete();
+    }
+
+    @Benchmark
+    public void antZipOutputStream() throws IOException {
+        ZipOutputStream outputStream = new ZipOutputStream(archive);
+        try {
+            outputStream.setMethod(ZipOutputStream.DEFLATED);
+            for (int i = 0; i < entryCount; i++) {
+                outputStream.putNextEntry(new ZipEntry("entry" + i));
+                outputStream.write(content);
+                outputStream.closeEntry();
+            }
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @Benchmark
+    public void parallelZipWriter() throws IOException {
+        ParallelZipWriter writer = new ParallelZipWriter(archive, new ExecutorQueue(), parallelism * 4, false, "UTF-8");
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                writer.putFile("entry" + i, 0, 0100644, new Action<OutputStream>() {
+                    @Override
+                    public void execute(OutputStream outputStream) {
+                        try {
+                            outputStream.write(content);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private class ExecutorQueue implements BuildOperationQueue<ParallelZipWriter.DeflateChunk> {
+        @Override
+        public void add(ParallelZipWriter.DeflateChunk operation) {
+            executor.execute(operation);
+        }
+
+        @Override
+        public void cancel() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void waitForCompletion() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLogLocation(String logLocation) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
@@ -69,6 +70,11 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
 
     protected abstract ImmutableSortedMap<String, FileCollectionSnapshot> getPrevious();
 
+    /**
+     * Returns the hashes of the previous snapshots, or null if not known.
+     */
+    protected abstract ImmutableSortedMap<String, HashCode> getPreviousHashes();
+
     protected abstract void saveCurrent();
 
     protected FileCollectionSnapshotterRegistry getSnapshotterRegistry() {
@@ -96,8 +102,25 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
 
     @Override
     public Iterator<TaskStateChange> iterator() {
+        ImmutableSortedMap<String, HashCode> previousHashes = getPreviousHashes();
+        if (previousHashes != null && previousHashes.keySet().equals(getCurrent().keySet())) {
+            // Only load and compare the snapshots of properties whose hash has changed
+            List<String> changedProperties = Lists.newArrayList();
+            for (Map.Entry<String, FileCollectionSnapshot> entry : getCurrent().entrySet()) {
+                if (!entry.getValue().getHash().equals(previousHashes.get(entry.getKey()))) {
+                    changedProperties.add(entry.getKey());
+                }
+            }
+            if (changedProperties.isEmpty()) {
+                return Iterators.emptyIterator();
+            }
+            if (getPrevious() == null) {
+                return historyNotAvailable();
+            }
+            return iterateContentChanges(changedProperties);
+        }
         if (getPrevious() == null) {
-            return Iterators.<TaskStateChange>singletonIterator(new DescriptiveChange(title + " file history is not available."));
+            return historyNotAvailable();
         }
         final List<TaskStateChange> propertyChanges = Lists.newLinkedList();
         DiffUtil.diff(getCurrent().keySet(), getPrevious().keySet(), new ChangeListener<String>() {
@@ -120,11 +143,18 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
         if (!propertyChanges.isEmpty()) {
             return propertyChanges.iterator();
         }
-        return Iterators.concat(Iterables.transform(getCurrent().entrySet(), new Function<Map.Entry<String, FileCollectionSnapshot>, Iterator<TaskStateChange>>() {
+        return iterateContentChanges(getCurrent().keySet());
+    }
+
+    private Iterator<TaskStateChange> historyNotAvailable() {
+        return Iterators.<TaskStateChange>singletonIterator(new DescriptiveChange(title + " file history is not available."));
+    }
+
+    private Iterator<TaskStateChange> iterateContentChanges(Iterable<String> propertyNames) {
+        return Iterators.concat(Iterables.transform(propertyNames, new Function<String, Iterator<TaskStateChange>>() {
             @Override
-            public Iterator<TaskStateChange> apply(Map.Entry<String, FileCollectionSnapshot> entry) {
-                String propertyName = entry.getKey();
-                FileCollectionSnapshot currentSnapshot = entry.getValue();
+            public Iterator<TaskStateChange> apply(String propertyName) {
+                FileCollectionSnapshot currentSnapshot = getCurrent().get(propertyName);
                 FileCollectionSnapshot previousSnapshot = getPrevious().get(propertyName);
                 String propertyTitle = title + " property '" + propertyName + "'";
                 return currentSnapshot.iterateContentChangesSince(previousSnapshot, propertyTitle);
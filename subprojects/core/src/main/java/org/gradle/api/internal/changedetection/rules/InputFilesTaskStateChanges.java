@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.rules;
 
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
@@ -35,6 +36,11 @@ public class InputFilesTaskStateChanges extends AbstractNamedFileSnapshotTaskSta
         return previous.getInputFilesSnapshot();
     }
 
+    @Override
+    protected ImmutableSortedMap<String, HashCode> getPreviousHashes() {
+        return previous.getInputFilesSnapshotHashes();
+    }
+
     @Override
     public void saveCurrent() {
         // Inputs have already been saved in constructor
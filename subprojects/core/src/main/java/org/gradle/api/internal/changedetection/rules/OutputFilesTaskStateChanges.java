@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.rules;
 
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
@@ -42,6 +43,11 @@ public class OutputFilesTaskStateChanges extends AbstractNamedFileSnapshotTaskSt
         return previous.getOutputFilesSnapshot();
     }
 
+    @Override
+    protected ImmutableSortedMap<String, HashCode> getPreviousHashes() {
+        return previous.getOutputFilesSnapshotHashes();
+    }
+
     @Override
     public void saveCurrent() {
         final ImmutableSortedMap<String, FileCollectionSnapshot> outputFilesAfter = buildSnapshots(getTaskName(), getSnapshotterRegistry(), getTitle(), getFileProperties());
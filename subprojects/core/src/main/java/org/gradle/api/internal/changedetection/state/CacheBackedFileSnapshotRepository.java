@@ -15,31 +15,81 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.cache.PersistentIndexedCache;
-import org.gradle.internal.id.IdGenerator;
-import org.gradle.internal.id.RandomLongIdGenerator;
+import org.gradle.caching.internal.BuildCacheHasher;
+import org.gradle.caching.internal.DefaultBuildCacheHasher;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Serializer;
 
+import java.util.Map;
+
+/**
+ * Stores snapshots by their content, so that identical snapshots added by different tasks or executions are stored once.
+ * Each stored snapshot has a reference count, and is discarded when the last reference to it is removed. A snapshot and its
+ * reference count are always updated while holding the lock on the store, so that they are persisted together.
+ */
 public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository {
+    private final TaskHistoryStore cacheAccess;
     private final PersistentIndexedCache<Long, FileCollectionSnapshot> cache;
-    private IdGenerator<Long> idGenerator = new RandomLongIdGenerator();
+    private final PersistentIndexedCache<Long, Integer> referenceCounts;
 
-    public CacheBackedFileSnapshotRepository(TaskHistoryStore cacheAccess, Serializer<FileCollectionSnapshot> serializer, IdGenerator<Long> idGenerator) {
-        this.idGenerator = idGenerator;
+    public CacheBackedFileSnapshotRepository(TaskHistoryStore cacheAccess, Serializer<FileCollectionSnapshot> serializer) {
+        this.cacheAccess = cacheAccess;
         cache = cacheAccess.createCache("fileSnapshots", Long.class, serializer, 12000, false);
+        referenceCounts = cacheAccess.createCache("fileSnapshotReferences", Long.class, BaseSerializerFactory.INTEGER_SERIALIZER, 12000, false);
     }
 
-    public Long add(FileCollectionSnapshot snapshot) {
-        Long id = idGenerator.generateId();
-        cache.put(id, snapshot);
+    public synchronized Long add(final FileCollectionSnapshot snapshot) {
+        final Long id = contentId(snapshot);
+        cacheAccess.useCache(new Runnable() {
+            @Override
+            public void run() {
+                // The snapshot and its reference count are updated together, so the count alone tells whether the snapshot is stored.
+                // This avoids loading the snapshot just to add a reference to it
+                Integer count = referenceCounts.get(id);
+                if (count == null) {
+                    cache.put(id, snapshot);
+                    referenceCounts.put(id, 1);
+                } else {
+                    referenceCounts.put(id, count + 1);
+                }
+            }
+        });
         return id;
     }
 
+    @Nullable
     public FileCollectionSnapshot get(Long id) {
         return cache.get(id);
     }
 
-    public void remove(Long id) {
-        cache.remove(id);
+    public synchronized void remove(final Long id) {
+        cacheAccess.useCache(new Runnable() {
+            @Override
+            public void run() {
+                Integer count = referenceCounts.get(id);
+                if (count == null || count <= 1) {
+                    // Snapshots without a reference count were stored by id, and have a single reference
+                    cache.remove(id);
+                    referenceCounts.remove(id);
+                } else {
+                    referenceCounts.put(id, count - 1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Calculates an id from everything that is persisted for the snapshot, including the absolute paths that the normalized hash ignores.
+     */
+    private static Long contentId(FileCollectionSnapshot snapshot) {
+        BuildCacheHasher hasher = new DefaultBuildCacheHasher();
+        hasher.putBytes(snapshot.getHash().asBytes());
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : snapshot.getSnapshots().entrySet()) {
+            hasher.putString(entry.getKey());
+            entry.getValue().appendToHasher(hasher);
+        }
+        return hasher.hash().asLong();
     }
 }
@@ -25,6 +25,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec;
@@ -231,7 +232,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
     private static class LazyTaskExecution extends TaskExecution {
         private ImmutableSortedMap<String, Long> inputFilesSnapshotIds;
+        private ImmutableSortedMap<String, HashCode> inputFilesSnapshotHashes;
         private ImmutableSortedMap<String, Long> outputFilesSnapshotIds;
+        private ImmutableSortedMap<String, HashCode> outputFilesSnapshotHashes;
         private Long discoveredFilesSnapshotId;
         private FileSnapshotRepository snapshotRepository;
         private ImmutableSortedMap<String, FileCollectionSnapshot> inputFilesSnapshot;
@@ -249,7 +252,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             setOutputPropertyNamesForCacheKey(taskExecutionSnapshot.getCacheableOutputProperties());
             setDeclaredOutputFilePaths(taskExecutionSnapshot.getDeclaredOutputFilePaths());
             inputFilesSnapshotIds = taskExecutionSnapshot.getInputFilesSnapshotIds();
+            inputFilesSnapshotHashes = taskExecutionSnapshot.getInputFilesSnapshotHashes();
             outputFilesSnapshotIds = taskExecutionSnapshot.getOutputFilesSnapshotIds();
+            outputFilesSnapshotHashes = taskExecutionSnapshot.getOutputFilesSnapshotHashes();
             discoveredFilesSnapshotId = taskExecutionSnapshot.getDiscoveredFilesSnapshotId();
         }
 
@@ -259,11 +264,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public ImmutableSortedMap<String, FileCollectionSnapshot> getInputFilesSnapshot() {
             if (inputFilesSnapshot == null) {
-                ImmutableSortedMap.Builder<String, FileCollectionSnapshot> builder = ImmutableSortedMap.naturalOrder();
-                for (Map.Entry<String, Long> entry : inputFilesSnapshotIds.entrySet()) {
-                    builder.put(entry.getKey(), snapshotRepository.get(entry.getValue()));
-                }
-                inputFilesSnapshot = builder.build();
+                inputFilesSnapshot = loadSnapshots(inputFilesSnapshotIds);
             }
             return inputFilesSnapshot;
         }
@@ -272,6 +273,15 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void setInputFilesSnapshot(ImmutableSortedMap<String, FileCollectionSnapshot> inputFilesSnapshot) {
             this.inputFilesSnapshot = inputFilesSnapshot;
             this.inputFilesSnapshotIds = null;
+            this.inputFilesSnapshotHashes = null;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, HashCode> getInputFilesSnapshotHashes() {
+            if (inputFilesSnapshotHashes == null && inputFilesSnapshot != null) {
+                inputFilesSnapshotHashes = hashesOf(inputFilesSnapshot);
+            }
+            return inputFilesSnapshotHashes;
         }
 
         @Override
@@ -291,20 +301,48 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public ImmutableSortedMap<String, FileCollectionSnapshot> getOutputFilesSnapshot() {
             if (outputFilesSnapshot == null) {
-                ImmutableSortedMap.Builder<String, FileCollectionSnapshot> builder = ImmutableSortedMap.naturalOrder();
-                for (Map.Entry<String, Long> entry : outputFilesSnapshotIds.entrySet()) {
-                    String propertyName = entry.getKey();
-                    builder.put(propertyName, snapshotRepository.get(entry.getValue()));
-                }
-                outputFilesSnapshot = builder.build();
+                outputFilesSnapshot = loadSnapshots(outputFilesSnapshotIds);
             }
             return outputFilesSnapshot;
         }
 
+        /**
+         * Loads the snapshots with the given ids, returning null when any of them is no longer stored.
+         */
+        @Nullable
+        private ImmutableSortedMap<String, FileCollectionSnapshot> loadSnapshots(ImmutableSortedMap<String, Long> snapshotIds) {
+            ImmutableSortedMap.Builder<String, FileCollectionSnapshot> builder = ImmutableSortedMap.naturalOrder();
+            for (Map.Entry<String, Long> entry : snapshotIds.entrySet()) {
+                FileCollectionSnapshot snapshot = snapshotRepository.get(entry.getValue());
+                if (snapshot == null) {
+                    return null;
+                }
+                builder.put(entry.getKey(), snapshot);
+            }
+            return builder.build();
+        }
+
         @Override
         public void setOutputFilesSnapshot(ImmutableSortedMap<String, FileCollectionSnapshot> outputFilesSnapshot) {
             this.outputFilesSnapshot = outputFilesSnapshot;
             outputFilesSnapshotIds = null;
+            outputFilesSnapshotHashes = null;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, HashCode> getOutputFilesSnapshotHashes() {
+            if (outputFilesSnapshotHashes == null && outputFilesSnapshot != null) {
+                outputFilesSnapshotHashes = hashesOf(outputFilesSnapshot);
+            }
+            return outputFilesSnapshotHashes;
+        }
+
+        private static ImmutableSortedMap<String, HashCode> hashesOf(ImmutableSortedMap<String, FileCollectionSnapshot> snapshots) {
+            ImmutableSortedMap.Builder<String, HashCode> builder = ImmutableSortedMap.naturalOrder();
+            for (Map.Entry<String, FileCollectionSnapshot> entry : snapshots.entrySet()) {
+                builder.put(entry.getKey(), entry.getValue().getHash());
+            }
+            return builder.build();
         }
 
         public TaskExecutionSnapshot snapshot() {
@@ -316,8 +354,10 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 getTaskActionsClassLoaderHashes(),
                 getInputProperties(),
                 inputFilesSnapshotIds,
+                getInputFilesSnapshotHashes(),
                 discoveredFilesSnapshotId,
-                outputFilesSnapshotIds);
+                outputFilesSnapshotIds,
+                getOutputFilesSnapshotHashes());
         }
 
         static class TaskExecutionSnapshotSerializer implements Serializer<TaskExecutionSnapshot> {
@@ -331,7 +371,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
             public TaskExecutionSnapshot read(Decoder decoder) throws Exception {
                 ImmutableSortedMap<String, Long> inputFilesSnapshotIds = readSnapshotIds(decoder);
+                ImmutableSortedMap<String, HashCode> inputFilesSnapshotHashes = readSnapshotHashes(decoder);
                 ImmutableSortedMap<String, Long> outputFilesSnapshotIds = readSnapshotIds(decoder);
+                ImmutableSortedMap<String, HashCode> outputFilesSnapshotHashes = readSnapshotHashes(decoder);
                 Long discoveredFilesSnapshotId = decoder.readLong();
                 String taskClass = decoder.readString();
 
@@ -375,14 +417,18 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     taskActionsClassLoaderHashes,
                     inputProperties,
                     inputFilesSnapshotIds,
+                    inputFilesSnapshotHashes,
                     discoveredFilesSnapshotId,
-                    outputFilesSnapshotIds
+                    outputFilesSnapshotIds,
+                    outputFilesSnapshotHashes
                 );
             }
 
             public void write(Encoder encoder, TaskExecutionSnapshot execution) throws Exception {
                 writeSnapshotIds(encoder, execution.getInputFilesSnapshotIds());
+                writeSnapshotHashes(encoder, execution.getInputFilesSnapshotHashes());
                 writeSnapshotIds(encoder, execution.getOutputFilesSnapshotIds());
+                writeSnapshotHashes(encoder, execution.getOutputFilesSnapshotHashes());
                 encoder.writeLong(execution.getDiscoveredFilesSnapshotId());
                 encoder.writeString(execution.getTaskClass());
                 HashCode classLoaderHash = execution.getTaskClassLoaderHash();
@@ -430,6 +476,25 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     encoder.writeLong(entry.getValue());
                 }
             }
+
+            private static ImmutableSortedMap<String, HashCode> readSnapshotHashes(Decoder decoder) throws IOException {
+                int count = decoder.readSmallInt();
+                ImmutableSortedMap.Builder<String, HashCode> builder = ImmutableSortedMap.naturalOrder();
+                for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
+                    String property = decoder.readString();
+                    HashCode hash = HashCode.fromBytes(decoder.readBinary());
+                    builder.put(property, hash);
+                }
+                return builder.build();
+            }
+
+            private static void writeSnapshotHashes(Encoder encoder, Map<String, HashCode> hashes) throws IOException {
+                encoder.writeSmallInt(hashes.size());
+                for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().asBytes());
+                }
+            }
         }
     }
 }
@@ -18,14 +18,18 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.caching.internal.BuildCacheHasher;
+import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
 
 import java.io.File;
 import java.util.Iterator;
@@ -36,6 +40,10 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
     private final Map<String, NormalizedFileSnapshot> snapshots;
     private final TaskFilePropertyCompareStrategy compareStrategy;
     private final boolean pathIsAbsolute;
+    // The directory hashes persisted with the snapshot, if it has been read from the history
+    private final List<HashCode> directoryHashes;
+    private HashCode hash;
+    private MerkleDirectoryTree directoryTree;
     private final Factory<List<File>> cachedElementsFactory = Factories.softReferenceCache(new Factory<List<File>>() {
         @Override
         public List<File> create() {
@@ -50,9 +58,14 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
     });
 
     public DefaultFileCollectionSnapshot(Map<String, NormalizedFileSnapshot> snapshots, TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute) {
+        this(snapshots, compareStrategy, pathIsAbsolute, null);
+    }
+
+    private DefaultFileCollectionSnapshot(Map<String, NormalizedFileSnapshot> snapshots, TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute, @Nullable List<HashCode> directoryHashes) {
         this.snapshots = snapshots;
         this.compareStrategy = compareStrategy;
         this.pathIsAbsolute = pathIsAbsolute;
+        this.directoryHashes = directoryHashes;
     }
 
     @Override
@@ -67,14 +80,60 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
 
     @Override
     public Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, String fileType) {
+        if (canCompareAsTrees(oldSnapshot)) {
+            Iterator<TaskStateChange> trivialResult = TaskFilePropertyCompareStrategy.compareTrivialSnapshots(snapshots, oldSnapshot.getSnapshots(), fileType, compareStrategy.isIncludeAdded());
+            if (trivialResult != null) {
+                return trivialResult;
+            }
+            MerkleDirectoryTree previousTree = ((DefaultFileCollectionSnapshot) oldSnapshot).getDirectoryTree();
+            return getDirectoryTree().iterateChangesSince(previousTree, fileType, compareStrategy.isIncludeAdded());
+        }
         return compareStrategy.iterateContentChangesSince(snapshots, oldSnapshot.getSnapshots(), fileType, pathIsAbsolute);
     }
 
+    private boolean canCompareAsTrees(FileCollectionSnapshot oldSnapshot) {
+        if (!isHierarchical() || !(oldSnapshot instanceof DefaultFileCollectionSnapshot)) {
+            return false;
+        }
+        DefaultFileCollectionSnapshot other = (DefaultFileCollectionSnapshot) oldSnapshot;
+        return other.isHierarchical() && other.compareStrategy == compareStrategy;
+    }
+
+    /**
+     * Order insensitive snapshots with absolute paths can be compared directory by directory, skipping the directories that have not changed.
+     */
+    private boolean isHierarchical() {
+        return pathIsAbsolute && compareStrategy != TaskFilePropertyCompareStrategy.ORDERED;
+    }
+
+    private MerkleDirectoryTree getDirectoryTree() {
+        if (directoryTree == null) {
+            directoryTree = directoryHashes == null ? MerkleDirectoryTree.of(snapshots) : MerkleDirectoryTree.of(snapshots, directoryHashes);
+        }
+        return directoryTree;
+    }
+
+    private List<HashCode> getDirectoryHashes() {
+        return directoryHashes == null ? getDirectoryTree().getDirectoryHashes() : directoryHashes;
+    }
+
     @Override
     public void appendToHasher(BuildCacheHasher hasher) {
         compareStrategy.appendToHasher(hasher, snapshots);
     }
 
+    @Override
+    public HashCode getHash() {
+        if (hash == null) {
+            DefaultBuildCacheHasher hasher = new DefaultBuildCacheHasher();
+            hasher.putInt(compareStrategy.ordinal());
+            hasher.putBoolean(pathIsAbsolute);
+            compareStrategy.appendToHasher(hasher, snapshots);
+            hash = hasher.hash();
+        }
+        return hash;
+    }
+
     @Override
     public List<File> getElements() {
         return cachedElementsFactory.create();
@@ -105,6 +164,7 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
 
     public static class SerializerImpl extends AbstractSerializer<DefaultFileCollectionSnapshot> {
         private final SnapshotMapSerializer snapshotMapSerializer;
+        private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
 
         public SerializerImpl(StringInterner stringInterner) {
             this.snapshotMapSerializer = new SnapshotMapSerializer(stringInterner);
@@ -114,13 +174,28 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
             TaskFilePropertyCompareStrategy compareStrategy = TaskFilePropertyCompareStrategy.values()[decoder.readSmallInt()];
             Map<String, NormalizedFileSnapshot> snapshots = snapshotMapSerializer.read(decoder);
             boolean pathIsUnique = decoder.readBoolean();
-            return new DefaultFileCollectionSnapshot(snapshots, compareStrategy, pathIsUnique);
+            List<HashCode> directoryHashes = null;
+            if (pathIsUnique && compareStrategy != TaskFilePropertyCompareStrategy.ORDERED) {
+                int directoryCount = decoder.readSmallInt();
+                directoryHashes = Lists.newArrayListWithCapacity(directoryCount);
+                for (int i = 0; i < directoryCount; i++) {
+                    directoryHashes.add(hashCodeSerializer.read(decoder));
+                }
+            }
+            return new DefaultFileCollectionSnapshot(snapshots, compareStrategy, pathIsUnique, directoryHashes);
         }
 
         public void write(Encoder encoder, DefaultFileCollectionSnapshot value) throws Exception {
             encoder.writeSmallInt(value.compareStrategy.ordinal());
             snapshotMapSerializer.write(encoder, value.snapshots);
             encoder.writeBoolean(value.pathIsAbsolute);
+            if (value.isHierarchical()) {
+                List<HashCode> directoryHashes = value.getDirectoryHashes();
+                encoder.writeSmallInt(directoryHashes.size());
+                for (HashCode directoryHash : directoryHashes) {
+                    hashCodeSerializer.write(encoder, directoryHash);
+                }
+            }
         }
 
         @Override
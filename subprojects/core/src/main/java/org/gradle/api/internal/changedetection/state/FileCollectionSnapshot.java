@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 
 import java.io.File;
@@ -39,6 +40,11 @@ public interface FileCollectionSnapshot extends Snapshot {
      */
     Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, String title);
 
+    /**
+     * Returns a hash of the normalized contents of this snapshot. When two snapshots have the same hash, there are no content changes between them.
+     */
+    HashCode getHash();
+
     /**
      * Returns the elements of this snapshot, including regular files, directories and missing files
      */
@@ -15,7 +15,13 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
+
 public interface FileSnapshotRepository {
+    /**
+     * Returns the snapshot with the given id, or null when it is no longer stored.
+     */
+    @Nullable
     FileCollectionSnapshot get(Long id);
 
     Long add(FileCollectionSnapshot snapshot);
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.changedetection.rules.ChangeType;
+import org.gradle.api.internal.changedetection.rules.FileChange;
+import org.gradle.api.internal.changedetection.rules.TaskStateChange;
+import org.gradle.caching.internal.BuildCacheHasher;
+import org.gradle.caching.internal.DefaultBuildCacheHasher;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A hierarchical view of the entries of a snapshot that uses absolute paths. Each directory node carries a hash of its own
+ * content and of all its descendents, so that two trees can be compared by only visiting the subtrees whose hashes differ.
+ *
+ * <p>A node without children uses the content hash of its entry, so only the directory hashes need to be calculated. These are
+ * persisted with the snapshot, so that a tree read back from the history does not need to be hashed again.</p>
+ */
+class MerkleDirectoryTree {
+    private final Node root;
+
+    private MerkleDirectoryTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a tree from the given snapshots, keyed by absolute path, and calculates the hashes of its directories.
+     */
+    static MerkleDirectoryTree of(Map<String, NormalizedFileSnapshot> snapshots) {
+        Node root = createNodes(snapshots);
+        for (Node child : root.children.values()) {
+            child.calculateHash();
+        }
+        return new MerkleDirectoryTree(root);
+    }
+
+    /**
+     * Creates a tree from the given snapshots, keyed by absolute path, using the directory hashes previously returned by {@link #getDirectoryHashes()}.
+     */
+    static MerkleDirectoryTree of(Map<String, NormalizedFileSnapshot> snapshots, List<HashCode> directoryHashes) {
+        Node root = createNodes(snapshots);
+        Iterator<HashCode> hashes = directoryHashes.iterator();
+        for (Node child : root.children.values()) {
+            child.assignHash(hashes);
+        }
+        if (hashes.hasNext()) {
+            throw new IllegalArgumentException("More directory hashes were provided than there are directories in the snapshot.");
+        }
+        return new MerkleDirectoryTree(root);
+    }
+
+    private static Node createNodes(Map<String, NormalizedFileSnapshot> snapshots) {
+        Node root = new Node(null);
+        Map<String, Node> nodes = new HashMap<String, Node>(snapshots.size() * 2);
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : snapshots.entrySet()) {
+            nodeFor(entry.getKey(), nodes, root).snapshot = entry.getValue().getSnapshot();
+        }
+        return root;
+    }
+
+    private static Node nodeFor(String path, Map<String, Node> nodes, Node root) {
+        Node node = nodes.get(path);
+        if (node == null) {
+            node = new Node(path);
+            nodes.put(path, node);
+            int separator = path.lastIndexOf(File.separatorChar);
+            Node parent = separator < 0 ? root : nodeFor(path.substring(0, separator), nodes, root);
+            parent.children.put(path.substring(separator + 1), node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the hashes of the directories of this tree, in a stable order that only depends on the paths of the snapshot.
+     */
+    List<HashCode> getDirectoryHashes() {
+        List<HashCode> hashes = Lists.newArrayList();
+        for (Node child : root.children.values()) {
+            child.collectDirectoryHashes(hashes);
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the changes since the given tree, in the same order as the flat comparison: modified, then removed, then added files.
+     */
+    Iterator<TaskStateChange> iterateChangesSince(MerkleDirectoryTree previous, String fileType, boolean includeAdded) {
+        Changes changes = new Changes(fileType);
+        compareChildren(root, previous.root, changes);
+        if (includeAdded) {
+            return Iterators.concat(changes.modified.iterator(), changes.removed.iterator(), changes.added.iterator());
+        }
+        return Iterators.concat(changes.modified.iterator(), changes.removed.iterator());
+    }
+
+    private static void compare(Node current, Node previous, Changes changes) {
+        if (current.hash.equals(previous.hash)) {
+            return;
+        }
+        if (current.snapshot != null) {
+            if (previous.snapshot == null) {
+                changes.added.add(changes.change(current.path, ChangeType.ADDED));
+            } else if (!current.snapshot.isContentUpToDate(previous.snapshot)) {
+                changes.modified.add(changes.change(current.path, ChangeType.MODIFIED));
+            }
+        } else if (previous.snapshot != null) {
+            changes.removed.add(changes.change(previous.path, ChangeType.REMOVED));
+        }
+        compareChildren(current, previous, changes);
+    }
+
+    private static void compareChildren(Node current, Node previous, Changes changes) {
+        for (Map.Entry<String, Node> entry : current.children.entrySet()) {
+            Node previousChild = previous.children.get(entry.getKey());
+            if (previousChild == null) {
+                collect(entry.getValue(), ChangeType.ADDED, changes.added, changes);
+            } else {
+                compare(entry.getValue(), previousChild, changes);
+            }
+        }
+        for (Map.Entry<String, Node> entry : previous.children.entrySet()) {
+            if (!current.children.containsKey(entry.getKey())) {
+                collect(entry.getValue(), ChangeType.REMOVED, changes.removed, changes);
+            }
+        }
+    }
+
+    private static void collect(Node node, ChangeType type, List<TaskStateChange> result, Changes changes) {
+        if (node.snapshot != null) {
+            result.add(changes.change(node.path, type));
+        }
+        for (Node child : node.children.values()) {
+            collect(child, type, result, changes);
+        }
+    }
+
+    private static class Node {
+        private final String path;
+        private final Map<String, Node> children = new TreeMap<String, Node>();
+        private FileContentSnapshot snapshot;
+        private HashCode hash;
+
+        Node(String path) {
+            this.path = path;
+        }
+
+        void calculateHash() {
+            if (children.isEmpty()) {
+                hash = snapshot.getContentMd5();
+                return;
+            }
+            BuildCacheHasher hasher = new DefaultBuildCacheHasher();
+            if (snapshot != null) {
+                hasher.putBoolean(true);
+                hasher.putBytes(snapshot.getContentMd5().asBytes());
+            } else {
+                hasher.putBoolean(false);
+            }
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                Node child = entry.getValue();
+                child.calculateHash();
+                hasher.putString(entry.getKey());
+                hasher.putBytes(child.hash.asBytes());
+            }
+            hash = hasher.hash();
+        }
+
+        void assignHash(Iterator<HashCode> hashes) {
+            if (children.isEmpty()) {
+                hash = snapshot.getContentMd5();
+                return;
+            }
+            if (!hashes.hasNext()) {
+                throw new IllegalArgumentException("Fewer directory hashes were provided than there are directories in the snapshot.");
+            }
+            hash = hashes.next();
+            for (Node child : children.values()) {
+                child.assignHash(hashes);
+            }
+        }
+
+        void collectDirectoryHashes(List<HashCode> hashes) {
+            if (children.isEmpty()) {
+                return;
+            }
+            hashes.add(hash);
+            for (Node child : children.values()) {
+                child.collectDirectoryHashes(hashes);
+            }
+        }
+    }
+
+    private static class Changes {
+        private final String fileType;
+        private final List<TaskStateChange> modified = Lists.newArrayList();
+        private final List<TaskStateChange> removed = Lists.newArrayList();
+        private final List<TaskStateChange> added = Lists.newArrayList();
+
+        Changes(String fileType) {
+            this.fileType = fileType;
+        }
+
+        TaskStateChange change(String path, ChangeType type) {
+            return new FileChange(path, type, fileType);
+        }
+    }
+}
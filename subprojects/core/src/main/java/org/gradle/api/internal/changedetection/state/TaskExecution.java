@@ -95,16 +95,37 @@ public abstract class TaskExecution {
     }
 
     /**
-     * @return May return null.
+     * Returns the output file snapshots, by property name.
+     *
+     * @return May return null, for example when the snapshots of a previous execution are no longer stored.
      */
     public abstract ImmutableSortedMap<String, FileCollectionSnapshot> getOutputFilesSnapshot();
 
     public abstract void setOutputFilesSnapshot(ImmutableSortedMap<String, FileCollectionSnapshot> outputFilesSnapshot);
 
+    /**
+     * Returns the hash of each output file snapshot, by property name. Does not require the snapshots to be loaded.
+     *
+     * @return May return null.
+     */
+    public abstract ImmutableSortedMap<String, HashCode> getOutputFilesSnapshotHashes();
+
+    /**
+     * Returns the input file snapshots, by property name.
+     *
+     * @return May return null, for example when the snapshots of a previous execution are no longer stored.
+     */
     public abstract ImmutableSortedMap<String, FileCollectionSnapshot> getInputFilesSnapshot();
 
     public abstract void setInputFilesSnapshot(ImmutableSortedMap<String, FileCollectionSnapshot> inputFilesSnapshot);
 
+    /**
+     * Returns the hash of each input file snapshot, by property name. Does not require the snapshots to be loaded.
+     *
+     * @return May return null.
+     */
+    public abstract ImmutableSortedMap<String, HashCode> getInputFilesSnapshotHashes();
+
     public abstract FileCollectionSnapshot getDiscoveredInputFilesSnapshot();
 
     public abstract void setDiscoveredInputFilesSnapshot(FileCollectionSnapshot inputFilesSnapshot);
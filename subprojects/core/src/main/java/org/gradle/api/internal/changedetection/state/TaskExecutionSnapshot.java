@@ -34,10 +34,12 @@ public class TaskExecutionSnapshot {
     private final ImmutableSortedSet<String> cacheableOutputProperties;
     private final ImmutableSet<String> declaredOutputFilePaths;
     private final ImmutableSortedMap<String, Long> inputFilesSnapshotIds;
+    private final ImmutableSortedMap<String, HashCode> inputFilesSnapshotHashes;
     private final ImmutableSortedMap<String, Long> outputFilesSnapshotIds;
+    private final ImmutableSortedMap<String, HashCode> outputFilesSnapshotHashes;
     private final Long discoveredFilesSnapshotId;
 
-    public TaskExecutionSnapshot(String taskClass, ImmutableSortedSet<String> cacheableOutputProperties, ImmutableSet<String> declaredOutputFilePaths, HashCode taskClassLoaderHash, List<HashCode> taskActionsClassLoaderHashes, ImmutableSortedMap<String, ValueSnapshot> inputProperties, ImmutableSortedMap<String, Long> inputFilesSnapshotIds, Long discoveredFilesSnapshotId, ImmutableSortedMap<String, Long> outputFilesSnapshotIds) {
+    public TaskExecutionSnapshot(String taskClass, ImmutableSortedSet<String> cacheableOutputProperties, ImmutableSet<String> declaredOutputFilePaths, HashCode taskClassLoaderHash, List<HashCode> taskActionsClassLoaderHashes, ImmutableSortedMap<String, ValueSnapshot> inputProperties, ImmutableSortedMap<String, Long> inputFilesSnapshotIds, ImmutableSortedMap<String, HashCode> inputFilesSnapshotHashes, Long discoveredFilesSnapshotId, ImmutableSortedMap<String, Long> outputFilesSnapshotIds, ImmutableSortedMap<String, HashCode> outputFilesSnapshotHashes) {
         this.taskClass = taskClass;
         this.cacheableOutputProperties = cacheableOutputProperties;
         this.declaredOutputFilePaths = declaredOutputFilePaths;
@@ -45,8 +47,10 @@ public class TaskExecutionSnapshot {
         this.taskActionsClassLoaderHashes = taskActionsClassLoaderHashes;
         this.inputProperties = inputProperties;
         this.inputFilesSnapshotIds = inputFilesSnapshotIds;
+        this.inputFilesSnapshotHashes = inputFilesSnapshotHashes;
         this.discoveredFilesSnapshotId = discoveredFilesSnapshotId;
         this.outputFilesSnapshotIds = outputFilesSnapshotIds;
+        this.outputFilesSnapshotHashes = outputFilesSnapshotHashes;
     }
 
     public ImmutableSortedSet<String> getCacheableOutputProperties() {
@@ -65,6 +69,10 @@ public class TaskExecutionSnapshot {
         return inputFilesSnapshotIds;
     }
 
+    public ImmutableSortedMap<String, HashCode> getInputFilesSnapshotHashes() {
+        return inputFilesSnapshotHashes;
+    }
+
     public ImmutableSortedMap<String, ValueSnapshot> getInputProperties() {
         return inputProperties;
     }
@@ -73,6 +81,10 @@ public class TaskExecutionSnapshot {
         return outputFilesSnapshotIds;
     }
 
+    public ImmutableSortedMap<String, HashCode> getOutputFilesSnapshotHashes() {
+        return outputFilesSnapshotHashes;
+    }
+
     public List<HashCode> getTaskActionsClassLoaderHashes() {
         return taskActionsClassLoaderHashes;
     }
@@ -50,6 +50,10 @@ public enum TaskFilePropertyCompareStrategy {
         return delegate.iterateContentChangesSince(current, previous, fileType, pathIsAbsolute);
     }
 
+    boolean isIncludeAdded() {
+        return delegate.isIncludeAdded();
+    }
+
     public void appendToHasher(BuildCacheHasher hasher, Map<String, NormalizedFileSnapshot> snapshots) {
         delegate.appendToHasher(hasher, snapshots);
     }
@@ -29,4 +29,11 @@ public interface TaskHistoryStore {
      * @param cacheInMemoryForShortLivedProcesses When true, entries are cached in memory. When false, entries are cached in memory only when it possible that another build will be run in this process.
      */
     <K, V> PersistentIndexedCache<K, V> createCache(String name, Class<K> keyType, Serializer<V> valueSerializer, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses);
+
+    /**
+     * Runs the given action while holding the lock on this store, so that updates the action makes to several caches of this store are applied together.
+     *
+     * See {@link org.gradle.cache.CacheAccess#useCache(Runnable)} for more details.
+     */
+    void useCache(Runnable action);
 }
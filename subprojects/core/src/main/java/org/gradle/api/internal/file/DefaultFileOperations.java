@@ -17,6 +17,7 @@ package org.gradle.api.internal.file;
 
 import org.gradle.api.Action;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Nullable;
 import org.gradle.api.PathValidation;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.ConfigurableFileTree;
@@ -26,6 +27,7 @@ import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.ProcessOperations;
 import org.gradle.api.internal.file.archive.TarFileTree;
 import org.gradle.api.internal.file.archive.ZipFileTree;
+import org.gradle.api.internal.file.archive.ZipIndexCache;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileCollection;
 import org.gradle.api.internal.file.collections.DefaultConfigurableFileTree;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
@@ -63,9 +65,16 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
     private final FileCopier fileCopier;
     private final FileSystem fileSystem;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final ZipIndexCache zipIndexCache;
+    private FileResolutionListener fileResolutionListener;
 
     public DefaultFileOperations(FileResolver fileResolver, TaskResolver taskResolver, TemporaryFileProvider temporaryFileProvider, Instantiator instantiator, FileLookup fileLookup, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(fileResolver, taskResolver, temporaryFileProvider, instantiator, fileLookup, directoryFileTreeFactory, null);
+    }
+
+    public DefaultFileOperations(FileResolver fileResolver, TaskResolver taskResolver, TemporaryFileProvider temporaryFileProvider, Instantiator instantiator, FileLookup fileLookup, DirectoryFileTreeFactory directoryFileTreeFactory, @Nullable ZipIndexCache zipIndexCache) {
         this.fileResolver = fileResolver;
+        this.zipIndexCache = zipIndexCache;
         this.taskResolver = taskResolver;
         this.temporaryFileProvider = temporaryFileProvider;
         this.instantiator = instantiator;
@@ -76,12 +85,26 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
         this.deleter = new Deleter(fileResolver, fileSystem);
     }
 
+    /**
+     * Sets the listener to notify of each file resolved through {@link #file(Object)}. Should be set before build logic uses these operations.
+     */
+    public void setFileResolutionListener(@Nullable FileResolutionListener fileResolutionListener) {
+        this.fileResolutionListener = fileResolutionListener;
+    }
+
     public File file(Object path) {
-        return fileResolver.resolve(path);
+        return resolved(fileResolver.resolve(path));
     }
 
     public File file(Object path, PathValidation validation) {
-        return fileResolver.resolve(path, validation);
+        return resolved(fileResolver.resolve(path, validation));
+    }
+
+    private File resolved(File file) {
+        if (fileResolutionListener != null) {
+            fileResolutionListener.fileResolved(file);
+        }
+        return file;
     }
 
     public URI uri(Object path) {
@@ -101,7 +124,7 @@ public class DefaultFileOperations implements FileOperations, ProcessOperations
     }
 
     public FileTree zipTree(Object zipPath) {
-        return new FileTreeAdapter(new ZipFileTree(file(zipPath), getExpandDir(), fileSystem, directoryFileTreeFactory));
+        return new FileTreeAdapter(new ZipFileTree(file(zipPath), getExpandDir(), fileSystem, directoryFileTreeFactory, zipIndexCache));
     }
 
     public FileTree tarTree(Object tarPath) {
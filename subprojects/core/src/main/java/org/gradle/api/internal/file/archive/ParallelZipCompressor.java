@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes archives using a {@link ParallelZipWriter}, which deflates the entries as build operations.
+ */
+public class ParallelZipCompressor {
+    private static final int PENDING_CHUNKS_PER_WORKER = 4;
+
+    private final boolean allowZip64;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final int maxPendingChunks;
+
+    public ParallelZipCompressor(boolean allowZip64, BuildOperationProcessor buildOperationProcessor, int maxWorkerCount) {
+        this.allowZip64 = allowZip64;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.maxPendingChunks = maxWorkerCount * PENDING_CHUNKS_PER_WORKER;
+    }
+
+    /**
+     * Writes an archive to the given file, running the action on the calling thread to add its entries. When anything fails, the partially
+     * written archive is deleted and the failure is rethrown unchanged.
+     */
+    public void writeArchive(final File destination, final String encoding, final Action<? super ParallelZipWriter> action) {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        buildOperationProcessor.run(new Action<BuildOperationQueue<ParallelZipWriter.DeflateChunk>>() {
+            @Override
+            public void execute(BuildOperationQueue<ParallelZipWriter.DeflateChunk> queue) {
+                try {
+                    write(destination, encoding, queue, action);
+                } catch (Throwable throwable) {
+                    failure.set(throwable);
+                }
+            }
+        });
+        if (failure.get() != null) {
+            GFileUtils.deleteQuietly(destination);
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+    }
+
+    private void write(File destination, String encoding, BuildOperationQueue<ParallelZipWriter.DeflateChunk> queue, Action<? super ParallelZipWriter> action) throws IOException {
+        ParallelZipWriter writer;
+        try {
+            writer = new ParallelZipWriter(destination, queue, maxPendingChunks, allowZip64, encoding);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not create ZIP '%s'.", destination), e);
+        }
+        try {
+            action.execute(writer);
+        } catch (Throwable throwable) {
+            writer.abort();
+            throw throwable;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
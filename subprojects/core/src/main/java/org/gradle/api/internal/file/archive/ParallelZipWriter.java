@@ -0,0 +1,577 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipEncoding;
+import org.apache.tools.zip.ZipEncodingHelper;
+import org.apache.tools.zip.ZipEntry;
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a ZIP archive whose entries are deflated by build operations.
+ *
+ * <p>The content of each entry is written by the calling thread and split into chunks, which are deflated concurrently. Each chunk
+ * is deflated with the tail of the previous chunk as its dictionary and flushed to a byte boundary, so that the chunks of an entry
+ * concatenate into a single deflate stream. Entries and chunks are written to the archive in the order they were added, and only a
+ * bounded number of chunks is held in memory at any time.</p>
+ *
+ * <p>The headers are laid out exactly as the Ant {@code ZipOutputStream} lays them out when writing DEFLATED entries to a file, and
+ * entries that fit in a single chunk are deflated to the same bytes. Larger entries decompress to the same content but are deflated
+ * to different bytes, as each chunk ends with a sync flush.</p>
+ */
+public class ParallelZipWriter implements Closeable {
+    static final int CHUNK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int INITIAL_VERSION = 10;
+    private static final int DATA_DESCRIPTOR_VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int LOCAL_ZIP64_EXTRA_LENGTH = 20;
+    private static final long DOS_TIME_BEFORE_1980 = (1 << 21) | (1 << 16);
+
+    private final RandomAccessFile file;
+    private final BuildOperationQueue<DeflateChunk> queue;
+    private final int maxPendingChunks;
+    private final boolean allowZip64;
+    private final ZipEncoding zipEncoding;
+    private final int generalPurposeFlags;
+    private final Calendar calendar = Calendar.getInstance();
+    private final Deque<Entry> pendingEntries = new ArrayDeque<Entry>();
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private int pendingChunks;
+    private long written;
+    private boolean hasUsedZip64;
+    private boolean failed;
+
+    /**
+     * @param queue the queue that the chunks are deflated on. Must only be used by the calling thread.
+     * @param maxPendingChunks the number of chunks that may be waiting to be written before the calling thread blocks.
+     */
+    public ParallelZipWriter(File destination, BuildOperationQueue<DeflateChunk> queue, int maxPendingChunks, boolean allowZip64, String encoding) throws IOException {
+        this.queue = queue;
+        this.maxPendingChunks = maxPendingChunks;
+        this.allowZip64 = allowZip64;
+        String charset = encoding == null ? Charset.defaultCharset().name() : encoding;
+        this.zipEncoding = ZipEncodingHelper.getZipEncoding(charset);
+        this.generalPurposeFlags = Charset.forName(charset).name().equals("UTF-8") ? UTF8_FLAG : 0;
+        this.file = new RandomAccessFile(destination, "rw");
+        file.setLength(0);
+    }
+
+    /**
+     * Adds a directory entry. As with the Ant stream, the entry is deflated like an empty file.
+     */
+    public void putDirectory(String name, long time, int unixMode) throws IOException {
+        putFile(name, time, unixMode, new Action<OutputStream>() {
+            @Override
+            public void execute(OutputStream outputStream) {
+            }
+        });
+    }
+
+    /**
+     * Adds a deflated file entry. The content is written to the given stream by the calling thread.
+     */
+    public void putFile(String name, long time, int unixMode, Action<? super OutputStream> content) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setUnixMode(unixMode);
+        Entry entry = new Entry(zipEntry, toDosTime(time));
+        add(entry);
+        ChunkingOutputStream outputStream = new ChunkingOutputStream(entry);
+        try {
+            content.execute(outputStream);
+            outputStream.finish();
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+        if (!allowZip64 && entry.size >= ZIP64_MAGIC) {
+            failed = true;
+            throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", name));
+        }
+        writeCompleted(maxPendingChunks);
+    }
+
+    /**
+     * Closes the file without completing the archive.
+     */
+    public void abort() throws IOException {
+        failed = true;
+        file.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!failed) {
+                writeCompleted(0);
+                writeCentralDirectory();
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private void add(Entry entry) throws IOException {
+        if (!allowZip64 && entries.size() == ZIP64_MAGIC_SHORT) {
+            failed = true;
+            throw new Zip64RequiredException("archive contains more than 65535 entries.");
+        }
+        entries.add(entry);
+        pendingEntries.add(entry);
+    }
+
+    private void submit(Entry entry, byte[] data, int length, byte[] previous, boolean last) throws IOException {
+        DeflateChunk chunk = new DeflateChunk(entry.zipEntry.getName(), data, length, previous, last);
+        entry.chunks.add(chunk);
+        queue.add(chunk);
+        pendingChunks++;
+        writeCompleted(maxPendingChunks);
+    }
+
+    private static byte[] deflate(byte[] data, int length, byte[] previous, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (previous != null) {
+                deflater.setDictionary(previous, previous.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    result.write(buffer, 0, count);
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    result.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes entries and chunks in order, for as long as they are available. Blocks while more than the given number of chunks are pending.
+     */
+    private void writeCompleted(int maxPending) throws IOException {
+        while (!pendingEntries.isEmpty()) {
+            Entry entry = pendingEntries.peekFirst();
+            if (entry.localHeaderOffset < 0) {
+                writeLocalFileHeader(entry);
+            }
+            while (entry.writtenChunks < entry.chunks.size()) {
+                DeflateChunk chunk = entry.chunks.get(entry.writtenChunks);
+                if (pendingChunks <= maxPending && !chunk.isDone()) {
+                    return;
+                }
+                byte[] compressed = chunk.get();
+                file.write(compressed);
+                written += compressed.length;
+                entry.compressedSize += compressed.length;
+                entry.chunks.set(entry.writtenChunks, null);
+                entry.writtenChunks++;
+                pendingChunks--;
+            }
+            if (!entry.complete) {
+                return;
+            }
+            finishEntry(entry);
+            pendingEntries.removeFirst();
+        }
+    }
+
+    private void writeLocalFileHeader(Entry entry) throws IOException {
+        entry.localHeaderOffset = written;
+        HeaderBuffer header = new HeaderBuffer();
+        header.putInt(LOCAL_FILE_HEADER_SIG);
+        header.putShort(allowZip64 ? ZIP64_VERSION : INITIAL_VERSION);
+        header.putShort(generalPurposeFlags);
+        header.putShort(ZipEntry.DEFLATED);
+        header.putInt(entry.dosTime);
+        // CRC and sizes are filled in when the entry is complete
+        header.putInt(0);
+        header.putInt(0);
+        header.putInt(0);
+        header.putShort(entry.name.length);
+        header.putShort(allowZip64 ? LOCAL_ZIP64_EXTRA_LENGTH : 0);
+        header.putBytes(entry.name);
+        if (allowZip64) {
+            header.putShort(ZIP64_EXTRA_FIELD_ID);
+            header.putShort(16);
+            header.putLong(0);
+            header.putLong(0);
+        }
+        write(header);
+    }
+
+    private void finishEntry(Entry entry) throws IOException {
+        boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            failed = true;
+            throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", entry.zipEntry.getName()));
+        }
+        hasUsedZip64 |= zip64;
+        HeaderBuffer sizes = new HeaderBuffer();
+        sizes.putInt(entry.crc);
+        sizes.putInt(zip64 ? ZIP64_MAGIC : entry.compressedSize);
+        sizes.putInt(zip64 ? ZIP64_MAGIC : entry.size);
+        if (allowZip64 && !zip64) {
+            // The zip64 extra field stays in place, as the Ant stream leaves it, but the entry does not need a zip64 aware reader
+            HeaderBuffer version = new HeaderBuffer();
+            version.putShort(INITIAL_VERSION);
+            file.seek(entry.localHeaderOffset + 4);
+            file.write(version.bytes(), 0, version.size());
+        }
+        file.seek(entry.localHeaderOffset + 14);
+        file.write(sizes.bytes(), 0, sizes.size());
+        if (allowZip64) {
+            HeaderBuffer extra = new HeaderBuffer();
+            extra.putLong(entry.size);
+            extra.putLong(entry.compressedSize);
+            file.seek(entry.localHeaderOffset + 30 + entry.name.length + 4);
+            file.write(extra.bytes(), 0, extra.size());
+        }
+        file.seek(written);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = written;
+        for (Entry entry : entries) {
+            writeCentralFileHeader(entry);
+        }
+        long centralDirectoryLength = written - centralDirectoryOffset;
+        boolean zip64 = entries.size() >= ZIP64_MAGIC_SHORT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectoryLength >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+        }
+        HeaderBuffer end = new HeaderBuffer();
+        if (zip64) {
+            long zip64EndOffset = written;
+            end.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIG);
+            end.putLong(44);
+            end.putShort(ZIP64_VERSION);
+            end.putShort(ZIP64_VERSION);
+            end.putInt(0);
+            end.putInt(0);
+            end.putLong(entries.size());
+            end.putLong(entries.size());
+            end.putLong(centralDirectoryLength);
+            end.putLong(centralDirectoryOffset);
+            end.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG);
+            end.putInt(0);
+            end.putLong(zip64EndOffset);
+            end.putInt(1);
+        }
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIG);
+        end.putShort(0);
+        end.putShort(0);
+        end.putShort(Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putShort(Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putInt(Math.min(centralDirectoryLength, ZIP64_MAGIC));
+        end.putInt(Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        end.putShort(0);
+        write(end);
+    }
+
+    private void writeCentralFileHeader(Entry entry) throws IOException {
+        boolean sizesTooLarge = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+        boolean offsetTooLarge = entry.localHeaderOffset >= ZIP64_MAGIC;
+        if (offsetTooLarge && !allowZip64) {
+            throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+        }
+        hasUsedZip64 |= offsetTooLarge;
+        HeaderBuffer extra = new HeaderBuffer();
+        if (sizesTooLarge || offsetTooLarge) {
+            extra.putShort(ZIP64_EXTRA_FIELD_ID);
+            extra.putShort((sizesTooLarge ? 16 : 0) + (offsetTooLarge ? 8 : 0));
+            if (sizesTooLarge) {
+                extra.putLong(entry.size);
+                extra.putLong(entry.compressedSize);
+            }
+            if (offsetTooLarge) {
+                extra.putLong(entry.localHeaderOffset);
+            }
+        }
+
+        HeaderBuffer header = new HeaderBuffer();
+        header.putInt(CENTRAL_FILE_HEADER_SIG);
+        header.putShort((entry.zipEntry.getPlatform() << 8) | (hasUsedZip64 ? ZIP64_VERSION : DATA_DESCRIPTOR_VERSION));
+        header.putShort(sizesTooLarge || offsetTooLarge ? ZIP64_VERSION : INITIAL_VERSION);
+        header.putShort(generalPurposeFlags);
+        header.putShort(ZipEntry.DEFLATED);
+        header.putInt(entry.dosTime);
+        header.putInt(entry.crc);
+        header.putInt(sizesTooLarge ? ZIP64_MAGIC : entry.compressedSize);
+        header.putInt(sizesTooLarge ? ZIP64_MAGIC : entry.size);
+        header.putShort(entry.name.length);
+        header.putShort(extra.size());
+        header.putShort(0);
+        header.putShort(0);
+        header.putShort(0);
+        header.putInt(entry.zipEntry.getExternalAttributes());
+        header.putInt(offsetTooLarge ? ZIP64_MAGIC : entry.localHeaderOffset);
+        header.putBytes(entry.name);
+        header.putBytes(extra.bytes(), extra.size());
+        write(header);
+    }
+
+    private void write(HeaderBuffer buffer) throws IOException {
+        file.write(buffer.bytes(), 0, buffer.size());
+        written += buffer.size();
+    }
+
+    private long toDosTime(long time) {
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return DOS_TIME_BEFORE_1980;
+        }
+        return ((year - 1980) << 25)
+            | ((calendar.get(Calendar.MONTH) + 1) << 21)
+            | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+            | (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+            | (calendar.get(Calendar.MINUTE) << 5)
+            | (calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    private byte[] encode(String name) throws IOException {
+        ByteBuffer encoded = zipEncoding.encode(name);
+        byte[] result = new byte[encoded.limit() - encoded.position()];
+        System.arraycopy(encoded.array(), encoded.arrayOffset() + encoded.position(), result, 0, result.length);
+        return result;
+    }
+
+    private class Entry {
+        final ZipEntry zipEntry;
+        final byte[] name;
+        final long dosTime;
+        final List<DeflateChunk> chunks = new ArrayList<DeflateChunk>();
+        int writtenChunks;
+        boolean complete;
+        long localHeaderOffset = -1;
+        long crc;
+        long size;
+        long compressedSize;
+
+        Entry(ZipEntry zipEntry, long dosTime) throws IOException {
+            this.zipEntry = zipEntry;
+            this.name = encode(zipEntry.getName());
+            this.dosTime = dosTime;
+        }
+    }
+
+    /**
+     * Deflates a single chunk of an entry. Failures are held until the chunk is written, so that they are reported by the calling thread.
+     */
+    public static class DeflateChunk implements RunnableBuildOperation {
+        private final String entryName;
+        private final byte[] data;
+        private final int length;
+        private final byte[] previous;
+        private final boolean last;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private byte[] result;
+        private Throwable failure;
+
+        DeflateChunk(String entryName, byte[] data, int length, byte[] previous, boolean last) {
+            this.entryName = entryName;
+            this.data = data;
+            this.length = length;
+            this.previous = previous;
+            this.last = last;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = deflate(data, length, previous, last);
+            } catch (Throwable throwable) {
+                failure = throwable;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        byte[] get() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            return result;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Deflate " + length + " bytes of " + entryName;
+        }
+    }
+
+    /**
+     * Splits the content of an entry into chunks, and submits each chunk for compression.
+     */
+    private class ChunkingOutputStream extends OutputStream {
+        private final Entry entry;
+        private final CRC32 crc = new CRC32();
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private byte[] previous;
+        private int count;
+
+        ChunkingOutputStream(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == chunk.length) {
+                submitChunk(false);
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunk.length) {
+                    submitChunk(false);
+                }
+                int length = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, length);
+                count += length;
+                off += length;
+                len -= length;
+            }
+        }
+
+        private void submitChunk(boolean last) throws IOException {
+            crc.update(chunk, 0, count);
+            entry.size += count;
+            submit(entry, chunk, count, previous, last);
+            previous = count == CHUNK_SIZE ? chunk : null;
+            chunk = new byte[CHUNK_SIZE];
+            count = 0;
+        }
+
+        void finish() throws IOException {
+            // Mark the entry complete before submitting the last chunk, so that it can be written out as soon as that chunk is done
+            crc.update(chunk, 0, count);
+            entry.crc = crc.getValue();
+            entry.size += count;
+            entry.complete = true;
+            submit(entry, chunk, count, previous, true);
+            chunk = null;
+        }
+    }
+
+    private static class HeaderBuffer {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void putShort(int value) {
+            ensureCapacity(2);
+            bytes[size++] = (byte) value;
+            bytes[size++] = (byte) (value >> 8);
+        }
+
+        void putInt(long value) {
+            ensureCapacity(4);
+            for (int i = 0; i < 4; i++) {
+                bytes[size++] = (byte) (value >> (8 * i));
+            }
+        }
+
+        void putLong(long value) {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[size++] = (byte) (value >> (8 * i));
+            }
+        }
+
+        void putBytes(byte[] value) {
+            putBytes(value, value.length);
+        }
+
+        void putBytes(byte[] value, int length) {
+            ensureCapacity(length);
+            System.arraycopy(value, 0, bytes, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > bytes.length) {
+                byte[] newBytes = new byte[Math.max(bytes.length * 2, size + length)];
+                System.arraycopy(bytes, 0, newBytes, 0, size);
+                bytes = newBytes;
+            }
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
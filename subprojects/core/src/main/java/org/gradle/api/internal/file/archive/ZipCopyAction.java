@@ -21,6 +21,7 @@ import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileCopyDetails;
 import org.gradle.api.internal.DocumentationRegistry;
@@ -36,6 +37,7 @@ import org.gradle.internal.IoActions;
 import org.gradle.util.GUtil;
 
 import java.io.File;
+import java.io.OutputStream;
 
 public class ZipCopyAction implements CopyAction {
     private final File zipFile;
@@ -43,30 +45,32 @@ public class ZipCopyAction implements CopyAction {
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    private final ParallelZipCompressor parallelCompressor;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+        this(zipFile, compressor, null, documentationRegistry, encoding, preserveFileTimestamps);
+    }
+
+    /**
+     * @param parallelCompressor when not null, used in place of {@code compressor} to deflate the entries of the archive concurrently. Must only be
+     * given when {@code compressor} is a {@link org.gradle.api.internal.file.copy.DefaultZipCompressor} for DEFLATED entries.
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, @Nullable ParallelZipCompressor parallelCompressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
         this.zipFile = zipFile;
         this.compressor = compressor;
+        this.parallelCompressor = parallelCompressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
-        final ZipOutputStream zipOutStr;
-
         try {
-            zipOutStr = compressor.createArchiveOutputStream(zipFile);
-        } catch (Exception e) {
-            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
-        }
-
-        try {
-            IoActions.withResource(zipOutStr, new Action<ZipOutputStream>() {
-                public void execute(ZipOutputStream outputStream) {
-                    stream.process(new StreamAction(outputStream, encoding));
-                }
-            });
+            if (parallelCompressor != null) {
+                executeParallel(stream);
+            } else {
+                executeSerial(stream);
+            }
         } catch (UncheckedIOException e) {
             if (e.getCause() instanceof Zip64RequiredException) {
                 throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
@@ -78,6 +82,30 @@ public class ZipCopyAction implements CopyAction {
         return new SimpleWorkResult(true);
     }
 
+    private void executeSerial(final CopyActionProcessingStream stream) {
+        final ZipOutputStream zipOutStr;
+
+        try {
+            zipOutStr = compressor.createArchiveOutputStream(zipFile);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+
+        IoActions.withResource(zipOutStr, new Action<ZipOutputStream>() {
+            public void execute(ZipOutputStream outputStream) {
+                stream.process(new StreamAction(outputStream, encoding));
+            }
+        });
+    }
+
+    private void executeParallel(final CopyActionProcessingStream stream) {
+        parallelCompressor.writeArchive(zipFile, encoding, new Action<ParallelZipWriter>() {
+            public void execute(ParallelZipWriter writer) {
+                stream.process(new ParallelStreamAction(writer));
+            }
+        });
+    }
+
     private class StreamAction implements CopyActionProcessingStreamAction {
         private final ZipOutputStream zipOutStr;
 
@@ -123,6 +151,47 @@ public class ZipCopyAction implements CopyAction {
         }
     }
 
+    private class ParallelStreamAction implements CopyActionProcessingStreamAction {
+        private final ParallelZipWriter writer;
+
+        public ParallelStreamAction(ParallelZipWriter writer) {
+            this.writer = writer;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            if (details.isDirectory()) {
+                visitDir(details);
+            } else {
+                visitFile(details);
+            }
+        }
+
+        private void visitFile(final FileCopyDetails fileDetails) {
+            try {
+                writer.putFile(fileDetails.getRelativePath().getPathString(), getArchiveTimeFor(fileDetails), UnixStat.FILE_FLAG | fileDetails.getMode(), new Action<OutputStream>() {
+                    public void execute(OutputStream outputStream) {
+                        fileDetails.copyTo(outputStream);
+                    }
+                });
+            } catch (Zip64RequiredException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) {
+            try {
+                // Trailing slash in name indicates that entry is a directory
+                writer.putDirectory(dirDetails.getRelativePath().getPathString() + '/', getArchiveTimeFor(dirDetails), UnixStat.DIR_FLAG | dirDetails.getMode());
+            } catch (Zip64RequiredException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
+            }
+        }
+    }
+
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : GUtil.CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
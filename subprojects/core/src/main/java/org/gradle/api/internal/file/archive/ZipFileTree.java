@@ -19,6 +19,7 @@ import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -30,13 +31,12 @@ import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
+import java.nio.charset.Charset;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree {
@@ -44,11 +44,17 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     private final Chmod chmod;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final File tmpDir;
+    private final ZipIndexCache indexCache;
 
     public ZipFileTree(File zipFile, File tmpDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(zipFile, tmpDir, chmod, directoryFileTreeFactory, null);
+    }
+
+    public ZipFileTree(File zipFile, File tmpDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory, @Nullable ZipIndexCache indexCache) {
         this.zipFile = zipFile;
         this.chmod = chmod;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.indexCache = indexCache;
         String expandDirName = zipFile.getName() + "_" + HashUtil.createCompactMD5(zipFile.getAbsolutePath());
         this.tmpDir = new File(tmpDir, expandDirName);
     }
@@ -72,27 +78,20 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         AtomicBoolean stopFlag = new AtomicBoolean();
 
         try {
-            ZipFile zip = new ZipFile(zipFile);
+            ZipIndex index = indexCache != null ? indexCache.getIndex(zipFile) : ZipIndex.read(zipFile);
+            EntryContents contents = new EntryContents();
             try {
-                // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
-                // to us. So, collect the entries in a map and iterate over them in alphabetical order.
-                Map<String, ZipEntry> entriesByName = new TreeMap<String, ZipEntry>();
-                Enumeration entries = zip.getEntries();
-                while (entries.hasMoreElements()) {
-                    ZipEntry entry = (ZipEntry) entries.nextElement();
-                    entriesByName.put(entry.getName(), entry);
-                }
-                Iterator<ZipEntry> sortedEntries = entriesByName.values().iterator();
+                Iterator<ZipIndex.Entry> sortedEntries = index.getEntries().iterator();
                 while (!stopFlag.get() && sortedEntries.hasNext()) {
-                    ZipEntry entry = sortedEntries.next();
+                    ZipIndex.Entry entry = sortedEntries.next();
                     if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitDir(new DetailsImpl(entry, contents, stopFlag, chmod));
                     } else {
-                        visitor.visitFile(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitFile(new DetailsImpl(entry, contents, stopFlag, chmod));
                     }
                 }
             } finally {
-                zip.close();
+                contents.close();
             }
         } catch (Exception e) {
             throw new GradleException(String.format("Could not expand %s.", getDisplayName()), e);
@@ -103,16 +102,59 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         return zipFile;
     }
 
+    /**
+     * Opens the content of entries, only opening the ZIP file once some content is requested. Uses the JDK {@link java.util.zip.ZipFile},
+     * which does not read the local headers of all entries when opened, and falls back to the Ant {@link ZipFile} for entries it cannot find.
+     */
+    private class EntryContents implements Closeable {
+        private java.util.zip.ZipFile jdkZip;
+        private ZipFile antZip;
+
+        InputStream open(String name) throws IOException {
+            if (antZip == null) {
+                try {
+                    if (jdkZip == null) {
+                        jdkZip = new java.util.zip.ZipFile(zipFile, Charset.defaultCharset());
+                    }
+                    java.util.zip.ZipEntry entry = jdkZip.getEntry(name);
+                    if (entry != null) {
+                        return jdkZip.getInputStream(entry);
+                    }
+                } catch (java.util.zip.ZipException e) {
+                    // Not readable by the JDK, fall back to Ant
+                }
+                antZip = new ZipFile(zipFile);
+            }
+            ZipEntry entry = antZip.getEntry(name);
+            if (entry == null) {
+                throw new IOException(String.format("Entry %s not found in %s.", name, getDisplayName()));
+            }
+            return antZip.getInputStream(entry);
+        }
+
+        public void close() throws IOException {
+            try {
+                if (jdkZip != null) {
+                    jdkZip.close();
+                }
+            } finally {
+                if (antZip != null) {
+                    antZip.close();
+                }
+            }
+        }
+    }
+
     private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
-        private final ZipEntry entry;
-        private final ZipFile zip;
+        private final ZipIndex.Entry entry;
+        private final EntryContents contents;
         private final AtomicBoolean stopFlag;
         private File file;
 
-        public DetailsImpl(ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
+        public DetailsImpl(ZipIndex.Entry entry, EntryContents contents, AtomicBoolean stopFlag, Chmod chmod) {
             super(chmod);
             this.entry = entry;
-            this.zip = zip;
+            this.contents = contents;
             this.stopFlag = stopFlag;
         }
 
@@ -149,7 +191,7 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         public InputStream open() {
             try {
-                return zip.getInputStream(entry);
+                return contents.open(entry.getName());
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
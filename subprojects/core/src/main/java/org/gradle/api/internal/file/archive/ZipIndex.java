@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.tools.zip.ZipEntry;
+import org.apache.tools.zip.ZipFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The entries of a ZIP file, as read from its central directory, in alphabetical order.
+ */
+public class ZipIndex {
+    private final ImmutableList<Entry> entries;
+
+    private ZipIndex(ImmutableList<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static ZipIndex read(File zipFile) throws IOException {
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
+            // to us. So, collect the entries in a map and iterate over them in alphabetical order.
+            Map<String, Entry> entriesByName = new TreeMap<String, Entry>();
+            Enumeration<ZipEntry> entries = zip.getEntries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                entriesByName.put(entry.getName(), new Entry(entry.getName(), entry.isDirectory(), entry.getTime(), entry.getSize(), entry.getUnixMode()));
+            }
+            return new ZipIndex(ImmutableList.copyOf(entriesByName.values()));
+        } finally {
+            zip.close();
+        }
+    }
+
+    public ImmutableList<Entry> getEntries() {
+        return entries;
+    }
+
+    public static class Entry {
+        private final String name;
+        private final boolean directory;
+        private final long time;
+        private final long size;
+        private final int unixMode;
+
+        Entry(String name, boolean directory, long time, long size, int unixMode) {
+            this.name = name;
+            this.directory = directory;
+            this.time = time;
+            this.size = size;
+            this.unixMode = unixMode;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getUnixMode() {
+            return unixMode;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.Transformer;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCache;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
+import org.gradle.api.internal.hash.FileHasher;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Retains the {@link ZipIndex} of ZIP files across builds, keyed by the hash of the ZIP file content.
+ */
+public class ZipIndexCache {
+    private final CrossBuildInMemoryCache<HashCode, ZipIndex> indexes;
+    private final FileHasher hasher;
+
+    public ZipIndexCache(FileHasher hasher, CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.hasher = hasher;
+        this.indexes = cacheFactory.newCache();
+    }
+
+    public ZipIndex getIndex(final File zipFile) {
+        return indexes.get(hasher.hash(zipFile), new Transformer<ZipIndex, HashCode>() {
+            @Override
+            public ZipIndex transform(HashCode hashCode) {
+                try {
+                    return ZipIndex.read(zipFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 
 import java.io.*;
@@ -49,6 +50,14 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         return specResolver.getIncludeEmptyDirs();
     }
 
+    public boolean isConcurrentCopySupported() {
+        return !filterChain.hasFilters() && getSourceFile() != null;
+    }
+
+    public File getSourceFile() {
+        return fileDetails instanceof DefaultFileTreeElement && !fileDetails.isDirectory() ? fileDetails.getFile() : null;
+    }
+
     public String getDisplayName() {
         return fileDetails.toString();
     }
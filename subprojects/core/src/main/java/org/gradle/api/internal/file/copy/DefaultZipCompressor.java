@@ -25,13 +25,23 @@ import java.io.IOException;
 
 public class DefaultZipCompressor implements ZipCompressor {
     private final int entryCompressionMethod;
+    private final boolean allowZip64Mode;
     private final Zip64Mode zip64Mode;
 
     public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod) {
         this.entryCompressionMethod = entryCompressionMethod;
+        this.allowZip64Mode = allowZip64Mode;
         zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
     }
 
+    public int getEntryCompressionMethod() {
+        return entryCompressionMethod;
+    }
+
+    public boolean isAllowZip64Mode() {
+        return allowZip64Mode;
+    }
+
     public ZipOutputStream createArchiveOutputStream(File destination) throws IOException {
         ZipOutputStream outStream = new ZipOutputStream(destination);
         try {
@@ -15,25 +15,62 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class FileCopyAction implements CopyAction {
+    private static final int FILES_PER_BATCH = 16;
+    private static final int MAX_PENDING_BATCHES = 32;
 
     private final PathToFileResolver fileResolver;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null);
+    }
+
+    /**
+     * @param buildOperationProcessor when not null, used to copy batches of plain files concurrently once there are more files than fit in a single batch.
+     */
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.fileResolver = fileResolver;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
-    public WorkResult execute(CopyActionProcessingStream stream) {
-        FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
-        stream.process(action);
-        return new SimpleWorkResult(action.didWork);
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        if (buildOperationProcessor == null) {
+            FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
+            stream.process(action);
+            return new SimpleWorkResult(action.didWork);
+        }
+
+        final ConcurrentFileCopyDetailsInternalAction action = new ConcurrentFileCopyDetailsInternalAction();
+        buildOperationProcessor.run(new Action<BuildOperationQueue<CopyBatch>>() {
+            @Override
+            public void execute(BuildOperationQueue<CopyBatch> queue) {
+                action.process(stream, queue);
+            }
+        });
+        action.rethrowFailure();
+        return new SimpleWorkResult(action.didWork.get());
     }
 
     private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
@@ -47,4 +84,134 @@ public class FileCopyAction implements CopyAction {
             }
         }
     }
+
+    /**
+     * Collects plain files into batches that are copied as build operations, and copies everything else on the calling thread.
+     * The last batch, and so any copy of fewer files than fit in a batch, is copied on the calling thread. Copies to the same target
+     * are applied in the order they are processed, so the last duplicate still wins. Failures are rethrown unchanged once all
+     * submitted batches have completed.
+     */
+    private class ConcurrentFileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+        private final ConcurrentMap<File, CopyBatch> batchesByTarget = new ConcurrentHashMap<File, CopyBatch>();
+        private final AtomicBoolean didWork = new AtomicBoolean();
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private BuildOperationQueue<CopyBatch> queue;
+        private CopyBatch currentBatch = new CopyBatch(this);
+
+        void process(CopyActionProcessingStream stream, BuildOperationQueue<CopyBatch> queue) {
+            this.queue = queue;
+            try {
+                stream.process(this);
+                runCurrentBatch();
+            } catch (Throwable throwable) {
+                failure.compareAndSet(null, throwable);
+            }
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            rethrowFailure();
+            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            CopyBatch previous = batchesByTarget.get(target);
+            boolean concurrent = details.isConcurrentCopySupported();
+            if (previous == currentBatch) {
+                if (!concurrent) {
+                    runCurrentBatch();
+                }
+            } else if (previous != null) {
+                previous.waitForCompletion();
+                rethrowFailure();
+            }
+            if (!concurrent) {
+                copied(details.copyTo(target));
+                return;
+            }
+            currentBatch.add(details, target);
+            batchesByTarget.put(target, currentBatch);
+            if (currentBatch.isFull()) {
+                pendingBatches.acquireUninterruptibly();
+                queue.add(currentBatch);
+                currentBatch = new CopyBatch(this);
+            }
+        }
+
+        private void runCurrentBatch() {
+            CopyBatch batch = currentBatch;
+            currentBatch = new CopyBatch(this);
+            pendingBatches.acquireUninterruptibly();
+            batch.run();
+            rethrowFailure();
+        }
+
+        void copied(boolean copied) {
+            if (copied) {
+                didWork.set(true);
+            }
+        }
+
+        void failed(Throwable throwable) {
+            failure.compareAndSet(null, throwable);
+        }
+
+        void completed(CopyBatch batch) {
+            for (File target : batch.targets) {
+                batchesByTarget.remove(target, batch);
+            }
+            pendingBatches.release();
+        }
+
+        void rethrowFailure() {
+            Throwable throwable = failure.get();
+            if (throwable != null) {
+                throw UncheckedException.throwAsUncheckedException(throwable);
+            }
+        }
+    }
+
+    private static class CopyBatch implements RunnableBuildOperation {
+        private final ConcurrentFileCopyDetailsInternalAction action;
+        private final List<FileCopyDetailsInternal> details = new ArrayList<FileCopyDetailsInternal>(FILES_PER_BATCH);
+        private final List<File> targets = new ArrayList<File>(FILES_PER_BATCH);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        CopyBatch(ConcurrentFileCopyDetailsInternalAction action) {
+            this.action = action;
+        }
+
+        void add(FileCopyDetailsInternal fileDetails, File target) {
+            details.add(fileDetails);
+            targets.add(target);
+        }
+
+        boolean isFull() {
+            return details.size() >= FILES_PER_BATCH;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < details.size(); i++) {
+                    action.copied(details.get(i).copyTo(targets.get(i)));
+                }
+            } catch (Throwable throwable) {
+                action.failed(throwable);
+            } finally {
+                completed.countDown();
+                action.completed(this);
+            }
+        }
+
+        void waitForCompletion() {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "Copy " + details.size() + " file(s)";
+        }
+    }
 }
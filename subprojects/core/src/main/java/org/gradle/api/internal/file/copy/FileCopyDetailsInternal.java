@@ -16,10 +16,24 @@
 
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCopyDetails;
 
+import java.io.File;
+
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
+    /**
+     * Returns true when this file can be copied to its target concurrently with other files, as the copy does not run any build logic.
+     */
+    boolean isConcurrentCopySupported();
+
+    /**
+     * Returns the regular file this file is copied from, or null when it is not copied from a regular file on the file system, for example when it is an entry of an archive.
+     */
+    @Nullable
+    File getSourceFile();
+
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.api.tasks.incremental.InputFileDetails;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Only passes on the files whose source has changed since the previous execution. Directories, and files that do not come
+ * from a plain source file, are always passed on.
+ *
+ * <p>When several files are copied to the same path, as happens with {@link org.gradle.api.file.DuplicatesStrategy#INCLUDE}, every file is passed on,
+ * including the files that were held back before the first duplicate was found. The result is then the same as for a full copy.</p>
+ */
+public class IncrementalCopyActionDecorator implements CopyAction {
+    private final Set<File> changedSourceFiles;
+    private final CopyAction delegate;
+
+    public IncrementalCopyActionDecorator(Set<File> changedSourceFiles, CopyAction delegate) {
+        this.changedSourceFiles = changedSourceFiles;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Collects the added and modified input files. Returns null when an input file has been removed, as a removed file may have
+     * hidden another file copied to the same path, so all files need to be copied.
+     */
+    @Nullable
+    public static Set<File> getOutOfDateFiles(IncrementalTaskInputs inputs) {
+        final Set<File> outOfDate = new HashSet<File>();
+        inputs.outOfDate(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                outOfDate.add(details.getFile());
+            }
+        });
+        final AtomicBoolean removed = new AtomicBoolean();
+        inputs.removed(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                removed.set(true);
+            }
+        });
+        return removed.get() ? null : outOfDate;
+    }
+
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        return delegate.execute(new CopyActionProcessingStream() {
+            public void process(final CopyActionProcessingStreamAction action) {
+                stream.process(new CopyActionProcessingStreamAction() {
+                    private final Set<RelativePath> visitedFiles = new HashSet<RelativePath>();
+                    private List<FileCopyDetailsInternal> unchangedFiles = new ArrayList<FileCopyDetailsInternal>();
+
+                    public void processFile(FileCopyDetailsInternal details) {
+                        if (unchangedFiles != null && !details.isDirectory()) {
+                            if (!visitedFiles.add(details.getRelativePath())) {
+                                // Copy everything from now on, including the files held back so far. These all have a plain source file,
+                                // so can still be copied after the fact, and none of them shares its path with a file copied since.
+                                for (FileCopyDetailsInternal unchangedFile : unchangedFiles) {
+                                    action.processFile(unchangedFile);
+                                }
+                                unchangedFiles = null;
+                            } else {
+                                File sourceFile = details.getSourceFile();
+                                if (sourceFile != null && !changedSourceFiles.contains(sourceFile)) {
+                                    unchangedFiles.add(details);
+                                    return;
+                                }
+                            }
+                        }
+                        action.processFile(details);
+                    }
+                });
+            }
+        });
+    }
+}
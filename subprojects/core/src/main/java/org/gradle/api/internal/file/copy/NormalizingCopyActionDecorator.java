@@ -118,6 +118,14 @@ public class NormalizingCopyActionDecorator implements CopyAction {
             return includeEmptyDirs;
         }
 
+        public boolean isConcurrentCopySupported() {
+            return false;
+        }
+
+        public File getSourceFile() {
+            return null;
+        }
+
         @Override
         public String getDisplayName() {
             return path.toString();
@@ -73,6 +73,7 @@ import org.gradle.api.resources.ResourceHandler;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.configuration.project.ProjectConfigurationActionContainer;
+import org.gradle.configuration.project.CoordinatingProjectEvaluator;
 import org.gradle.configuration.project.ProjectEvaluator;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Actions;
@@ -114,6 +115,7 @@ import javax.inject.Inject;
 import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -205,7 +207,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         this.classLoaderScope = selfClassLoaderScope;
         this.baseClassLoaderScope = baseClassLoaderScope;
         assert name != null;
-        this.rootProject = parent != null ? parent.getRootProject() : this;
+        this.rootProject = parent != null ? parent.getRawRootProject() : this;
         this.projectDir = projectDir;
         this.parent = parent;
         this.name = name;
@@ -322,6 +324,11 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public ProjectInternal getRootProject() {
+        return accessed(rootProject);
+    }
+
+    @Override
+    public ProjectInternal getRawRootProject() {
         return rootProject;
     }
 
@@ -330,6 +337,20 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         return gradle;
     }
 
+    private ProjectInternal accessed(ProjectInternal project) {
+        if (project != this && getProjectEvaluator() instanceof CoordinatingProjectEvaluator) {
+            ((CoordinatingProjectEvaluator) getProjectEvaluator()).projectAccessed(project);
+        }
+        return project;
+    }
+
+    private <T extends Collection<? extends Project>> T accessedAll(T projects) {
+        for (Project project : projects) {
+            accessed((ProjectInternal) project);
+        }
+        return projects;
+    }
+
     public ProjectEvaluator getProjectEvaluator() {
         if (projectEvaluator == null) {
             projectEvaluator = services.get(ProjectEvaluator.class);
@@ -371,6 +392,11 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public ProjectInternal getParent() {
+        return parent == null ? null : accessed(parent);
+    }
+
+    @Override
+    public ProjectInternal getRawParent() {
         return parent;
     }
 
@@ -411,7 +437,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         } else if (this == rootProject) {
             return "";
         }
-        group = rootProject.getName() + (getParent() == rootProject ? "" : "." + getParent().getPath().substring(1).replace(':', '.'));
+        group = rootProject.getName() + (parent == rootProject ? "" : "." + parent.getPath().substring(1).replace(':', '.'));
         return group;
     }
 
@@ -442,6 +468,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public Map<String, Project> getChildProjects() {
+        accessedAll(childProjects.values());
         return childProjects;
     }
 
@@ -595,17 +622,18 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
-        return getProjectRegistry().getProject(absoluteProjectPath(path));
+        ProjectInternal project = getProjectRegistry().getProject(absoluteProjectPath(path));
+        return project == null ? null : accessed(project);
     }
 
     @Override
     public Set<Project> getAllprojects() {
-        return new TreeSet<Project>(getProjectRegistry().getAllProjects(getPath()));
+        return accessedAll(new TreeSet<Project>(getProjectRegistry().getAllProjects(getPath())));
     }
 
     @Override
     public Set<Project> getSubprojects() {
-        return new TreeSet<Project>(getProjectRegistry().getSubProjects(getPath()));
+        return accessedAll(new TreeSet<Project>(getProjectRegistry().getSubProjects(getPath())));
     }
 
     @Override
@@ -724,7 +752,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().getExecuting()) {
+        if (projectToEvaluate.getState().isExecutingOnCurrentThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
@@ -1270,7 +1298,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     public void model(Closure<?> modelRules) {
         ModelRegistry modelRegistry = getModelRegistry();
         if (TransformedModelDslBacking.isTransformedBlock(modelRules)) {
-            ClosureBackedAction.execute(new TransformedModelDslBacking(modelRegistry, this.getRootProject().getFileResolver()), modelRules);
+            ClosureBackedAction.execute(new TransformedModelDslBacking(modelRegistry, rootProject.getFileResolver()), modelRules);
         } else {
             new NonTransformedModelDslBacking(modelRegistry).configure(modelRules);
         }
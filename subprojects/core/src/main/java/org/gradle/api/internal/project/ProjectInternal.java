@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.project;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.Project;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.UnknownProjectException;
@@ -51,6 +52,19 @@ public interface ProjectInternal extends Project, ProjectIdentifier, FileOperati
 
     ProjectInternal getRootProject();
 
+    /**
+     * Returns the parent of this project, for use by Gradle's own lookups. Unlike {@link #getParent()}, this is not treated
+     * as the configuration of this project reaching into the configuration of its parent.
+     */
+    @Nullable
+    ProjectInternal getRawParent();
+
+    /**
+     * Returns the root project of this project's hierarchy, for use by Gradle's own lookups. Unlike {@link #getRootProject()}, this
+     * is not treated as the configuration of this project reaching into the configuration of the root project.
+     */
+    ProjectInternal getRawRootProject();
+
     Project evaluate();
 
     ProjectInternal bindAllModelRules();
@@ -18,6 +18,7 @@ package org.gradle.api.tasks;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.Task;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.CopySpec;
@@ -38,12 +39,16 @@ import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.CopySpecResolver;
 import org.gradle.api.internal.file.copy.CopySpecSource;
 import org.gradle.api.internal.file.copy.DefaultCopySpec;
+import org.gradle.api.internal.file.copy.IncrementalCopyActionDecorator;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.util.DeprecationLogger;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.FilterReader;
 import java.util.Map;
 import java.util.Set;
@@ -59,6 +64,7 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
 
     private final CopySpecInternal rootSpec;
     private final CopySpecInternal mainSpec;
+    private Set<File> changedSourceFiles;
 
     protected AbstractCopyTask() {
         this.rootSpec = createRootSpec();
@@ -178,6 +184,39 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Runs {@link #copy()}, so that subclasses overriding it without {@code @TaskAction} still take part. While it runs, {@link #getChangedSourceFiles()}
+     * returns the source files that changed when only those files need to be copied. This is not the case when the spec has custom actions,
+     * such as filters, expansions or renames, as what they produce can change without any of the inputs changing, nor when a source file was removed.
+     */
+    void copyIncrementally(IncrementalTaskInputs inputs) {
+        changedSourceFiles = inputs.isIncremental() && !rootSpec.hasCustomActions() ? IncrementalCopyActionDecorator.getOutOfDateFiles(inputs) : null;
+        try {
+            copy();
+        } finally {
+            changedSourceFiles = null;
+        }
+    }
+
+    /**
+     * Returns the source files that changed since the previous execution, or null when all files need to be copied.
+     */
+    @Nullable
+    Set<File> getChangedSourceFiles() {
+        return changedSourceFiles;
+    }
+
+    /**
+     * Returns the processor used to copy files concurrently, or null when the build runs with a single worker.
+     */
+    @Nullable
+    BuildOperationProcessor getBuildOperationProcessor() {
+        if (getProject().getGradle().getStartParameter().getMaxWorkerCount() < 2) {
+            return null;
+        }
+        return getServices().get(BuildOperationProcessor.class);
+    }
+
     @TaskAction
     protected void copy() {
         CopyActionExecuter copyActionExecuter = createCopyActionExecuter();
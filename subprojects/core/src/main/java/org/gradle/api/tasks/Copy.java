@@ -22,9 +22,12 @@ import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.IncrementalCopyActionDecorator;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
+import java.util.Set;
 
 /**
  * Copies files into a destination directory. This task can also rename and filter files as it copies. The task
@@ -69,13 +72,26 @@ import java.io.File;
  */
 public class Copy extends AbstractCopyTask {
 
+    /**
+     * Copies only the files whose source has been added or modified when the previous execution is known to be otherwise
+     * unchanged, and copies all files otherwise. Files are not removed from the destination directory when their source is removed.
+     * All files are copied when the spec has filters, expansions, renames or {@code eachFile} actions, as these are not tracked as inputs,
+     * and when a source file has been removed. The copy is performed by {@link #copy()}, so subclasses that override it are still called.
+     */
+    @TaskAction
+    protected void copy(IncrementalTaskInputs inputs) {
+        copyIncrementally(inputs);
+    }
+
     @Override
     protected CopyAction createCopyAction() {
         File destinationDir = getDestinationDir();
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        CopyAction copyAction = new FileCopyAction(getFileLookup().getFileResolver(destinationDir), getBuildOperationProcessor());
+        Set<File> changedSourceFiles = getChangedSourceFiles();
+        return changedSourceFiles == null ? copyAction : new IncrementalCopyActionDecorator(changedSourceFiles, copyAction);
     }
 
     @Override
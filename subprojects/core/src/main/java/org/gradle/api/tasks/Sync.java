@@ -24,12 +24,15 @@ import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.IncrementalCopyActionDecorator;
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
+import java.util.Set;
 
 /**
  * Synchronizes the contents of a destination directory with some source directories and files.
@@ -68,13 +71,29 @@ public class Sync extends AbstractCopyTask {
 
     private final PatternFilterable preserveInDestination = new PatternSet();
 
+    /**
+     * Copies only the files whose source has been added or modified when the previous execution is known to be otherwise
+     * unchanged, and copies all files otherwise. In both cases, files that are no longer copied are removed from the destination directory.
+     * All files are copied when the spec has filters, expansions, renames or {@code eachFile} actions, as these are not tracked as inputs,
+     * and when a source file has been removed. The copy is performed by {@link #copy()}, so subclasses that override it are still called.
+     */
+    @TaskAction
+    protected void copy(IncrementalTaskInputs inputs) {
+        copyIncrementally(inputs);
+    }
+
     @Override
     protected CopyAction createCopyAction() {
         File destinationDir = getDestinationDir();
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new SyncCopyActionDecorator(destinationDir, new FileCopyAction(getFileLookup().getFileResolver(destinationDir)), preserveInDestination, getDirectoryFileTreeFactory());
+        CopyAction copyAction = new FileCopyAction(getFileLookup().getFileResolver(destinationDir), getBuildOperationProcessor());
+        Set<File> changedSourceFiles = getChangedSourceFiles();
+        if (changedSourceFiles != null) {
+            copyAction = new IncrementalCopyActionDecorator(changedSourceFiles, copyAction);
+        }
+        return new SyncCopyActionDecorator(destinationDir, copyAction, preserveInDestination, getDirectoryFileTreeFactory());
     }
 
     @Override
@@ -18,7 +18,9 @@ package org.gradle.api.tasks.bundling;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.ParallelZipCompressor;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
@@ -26,6 +28,7 @@ import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.internal.operations.BuildOperationProcessor;
 
 import java.nio.charset.Charset;
 
@@ -39,6 +42,7 @@ public class Zip extends AbstractArchiveTask {
     private ZipEntryCompression entryCompression = ZipEntryCompression.DEFLATED;
     private boolean allowZip64;
     private String metadataCharset;
+    private boolean parallelCompression;
 
     public Zip() {
         setExtension(ZIP_EXTENSION);
@@ -60,7 +64,28 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
+        ZipCompressor compressor = getCompressor();
+        return new ZipCopyAction(getArchivePath(), compressor, getParallelCompressor(compressor), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
+    }
+
+    /**
+     * Returns a compressor that deflates entries concurrently, or null when parallel compression is disabled, entries are stored, only a
+     * single worker is available, or {@link #getCompressor()} has been overridden to return a compressor of another type.
+     */
+    @Nullable
+    private ParallelZipCompressor getParallelCompressor(ZipCompressor compressor) {
+        if (!parallelCompression || compressor.getClass() != DefaultZipCompressor.class) {
+            return null;
+        }
+        DefaultZipCompressor defaultCompressor = (DefaultZipCompressor) compressor;
+        if (defaultCompressor.getEntryCompressionMethod() != ZipOutputStream.DEFLATED) {
+            return null;
+        }
+        int maxWorkerCount = getProject().getGradle().getStartParameter().getMaxWorkerCount();
+        if (maxWorkerCount < 2) {
+            return null;
+        }
+        return new ParallelZipCompressor(defaultCompressor.isAllowZip64Mode(), getServices().get(BuildOperationProcessor.class), maxWorkerCount);
     }
 
     /**
@@ -111,6 +136,31 @@ public class Zip extends AbstractArchiveTask {
         return allowZip64;
     }
 
+    /**
+     * Whether the entries of the archive are deflated on several worker threads. Defaults to {@code false}.
+     * <p>
+     * Entries larger than 128KB are compressed in separate chunks, so their compressed bytes differ from those written without this option.
+     * The content of the entries is the same either way. Has no effect when the entries are stored or when the build uses a single worker.
+     *
+     * @since 4.0
+     */
+    @Input
+    @Incubating
+    public boolean isParallelCompression() {
+        return parallelCompression;
+    }
+
+    /**
+     * Sets whether the entries of the archive are deflated on several worker threads.
+     *
+     * @see #isParallelCompression()
+     * @since 4.0
+     */
+    @Incubating
+    public void setParallelCompression(boolean parallelCompression) {
+        this.parallelCompression = parallelCompression;
+    }
+
     /**
      * The character set used to encode ZIP metadata like file names.
      * Defaults to the platform's default character set.
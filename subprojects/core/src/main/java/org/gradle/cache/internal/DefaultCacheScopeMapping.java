@@ -19,6 +19,7 @@ package org.gradle.cache.internal;
 import org.gradle.api.Nullable;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.util.GradleVersion;
 
@@ -63,11 +64,11 @@ public class DefaultCacheScopeMapping implements CacheScopeMapping {
         }
         if (scope instanceof Project) {
             Project project = (Project) scope;
-            return getBuildCacheDir(project.getRootProject());
+            return getBuildCacheDir(rootProjectOf(project));
         }
         if (scope instanceof Task) {
             Task task = (Task) scope;
-            return getBuildCacheDir(task.getProject().getRootProject());
+            return getBuildCacheDir(rootProjectOf(task.getProject()));
         }
         throw new IllegalArgumentException(String.format("Don't know how to determine the cache directory for scope of type %s.", scope.getClass().getSimpleName()));
     }
@@ -83,6 +84,14 @@ public class DefaultCacheScopeMapping implements CacheScopeMapping {
         }
     }
 
+    private static Project rootProjectOf(Project project) {
+        // Not a reference handed out to the configuration of the project, so should not be treated as one during parallel configuration
+        if (project instanceof ProjectInternal) {
+            return ((ProjectInternal) project).getRawRootProject();
+        }
+        return project.getRootProject();
+    }
+
     private File getBuildCacheDir(Project rootProject) {
         if (projectCacheDir != null) {
             return projectCacheDir;
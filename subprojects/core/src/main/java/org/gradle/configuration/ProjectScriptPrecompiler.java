@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.groovy.scripts.ScriptCompilationException;
+import org.gradle.groovy.scripts.ScriptCompiler;
+import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptRunner;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.gradle.plugin.management.internal.PluginRequests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles the build scripts of the projects of a build concurrently, before the projects are configured.
+ *
+ * <p>Pass 1 of every build script is compiled against the base class loader shared by all projects, so it is
+ * always the class that configuration will use. Pass 2 is compiled against the same class loader only when neither
+ * the project nor any of its ancestors declares a buildscript {} or plugins {} block, which is when the project's
+ * class loader is the base class loader. In other cases pass 2 is compiled when the project is configured.</p>
+ *
+ * <p>Scripts that fail to compile are skipped here, and the failure is reported when the project is configured. Such a script is
+ * compiled a second time then, which is why precompiling is only enabled by {@link #PRECOMPILE_PROPERTY}. Any other failure
+ * fails the build.</p>
+ */
+public class ProjectScriptPrecompiler {
+    /**
+     * Enables precompiling the build scripts of all projects before they are configured.
+     */
+    public static final String PRECOMPILE_PROPERTY = "org.gradle.internal.precompile.scripts";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectScriptPrecompiler.class);
+
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final DocumentationRegistry documentationRegistry;
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public ProjectScriptPrecompiler(ScriptCompilerFactory scriptCompilerFactory, DocumentationRegistry documentationRegistry, BuildOperationProcessor buildOperationProcessor) {
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.documentationRegistry = documentationRegistry;
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
+
+    public void precompile(ProjectInternal rootProject, ClassLoaderScope baseScope) {
+        final List<ProjectInternal> projects = new ArrayList<ProjectInternal>();
+        for (Project project : rootProject.getAllprojects()) {
+            ProjectInternal projectInternal = (ProjectInternal) project;
+            if (isGroovyBuildScript(projectInternal)) {
+                projects.add(projectInternal);
+            }
+        }
+        if (projects.size() < 2) {
+            return;
+        }
+
+        final ClassLoader baseClassLoader = baseScope.getExportClassLoader();
+        final Set<ProjectInternal> withoutClasspath = Collections.newSetFromMap(new ConcurrentHashMap<ProjectInternal, Boolean>());
+        buildOperationProcessor.run(new Action<BuildOperationQueue<CompileBuildScript>>() {
+            @Override
+            public void execute(BuildOperationQueue<CompileBuildScript> queue) {
+                for (ProjectInternal project : projects) {
+                    queue.add(new CompileBuildScript(project, baseClassLoader, true, withoutClasspath));
+                }
+            }
+        });
+
+        buildOperationProcessor.run(new Action<BuildOperationQueue<CompileBuildScript>>() {
+            @Override
+            public void execute(BuildOperationQueue<CompileBuildScript> queue) {
+                for (ProjectInternal project : projects) {
+                    if (usesBaseClassLoader(project, withoutClasspath)) {
+                        queue.add(new CompileBuildScript(project, baseClassLoader, false, withoutClasspath));
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean isGroovyBuildScript(ProjectInternal project) {
+        return project.getBuildFile().isFile() && project.getBuildScriptSource().getFileName().endsWith(".gradle");
+    }
+
+    private static boolean usesBaseClassLoader(ProjectInternal project, Set<ProjectInternal> withoutClasspath) {
+        for (ProjectInternal current = project; current != null; current = current.getRawParent()) {
+            if (isGroovyBuildScript(current) && !withoutClasspath.contains(current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class CompileBuildScript implements RunnableBuildOperation {
+        private final ProjectInternal project;
+        private final ClassLoader classLoader;
+        private final boolean initialPass;
+        private final Set<ProjectInternal> withoutClasspath;
+
+        CompileBuildScript(ProjectInternal project, ClassLoader classLoader, boolean initialPass, Set<ProjectInternal> withoutClasspath) {
+            this.project = project;
+            this.classLoader = classLoader;
+            this.initialPass = initialPass;
+            this.withoutClasspath = withoutClasspath;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Precompile " + project.getBuildScriptSource().getDisplayName();
+        }
+
+        @Override
+        public void run() {
+            ScriptSource source = project.getBuildScriptSource();
+            ScriptTarget target = new ProjectScriptTarget(project);
+            try {
+                ScriptCompiler compiler = scriptCompilerFactory.createCompiler(source);
+                if (initialPass) {
+                    ScriptRunner<?, PluginRequests> runner = compiler.compile(target.getScriptClass(), DefaultScriptPluginFactory.initialPassOperation(source, target, documentationRegistry), classLoader, Actions.doNothing());
+                    if (!runner.getRunDoesSomething() && runner.getData().isEmpty()) {
+                        withoutClasspath.add(project);
+                    }
+                } else {
+                    compiler.compile(target.getScriptClass(), DefaultScriptPluginFactory.secondPassOperation(source, target), classLoader, ClosureCreationInterceptingVerifier.INSTANCE);
+                }
+            } catch (ScriptCompilationException e) {
+                LOGGER.debug("Could not precompile {}.", source.getDisplayName(), e);
+            }
+        }
+    }
+}
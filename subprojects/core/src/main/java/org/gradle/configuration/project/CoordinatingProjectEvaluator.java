@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resources.ResourceLock;
+import org.gradle.internal.work.WorkerLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coordinates the evaluation of projects by multiple threads while projects are being configured in parallel.
+ *
+ * <p>Each project is evaluated by a single thread, which holds the project's lock while doing so. A thread that requests
+ * a project that another thread is evaluating waits for that evaluation to complete.</p>
+ *
+ * <p>The configuration of a project must not reach into the configuration of another project while projects are configured
+ * concurrently. When a thread evaluating a project evaluates another project or obtains a reference to another project, for example
+ * through {@code rootProject}, {@code parent} or {@code project(path)}, this is recorded so that the caller stops starting projects
+ * in parallel. The thread then waits until every other thread has either finished its evaluation or is waiting in the same way, and
+ * continues alone. From then on, the threads run one at a time, so the remaining configuration happens sequentially.</p>
+ *
+ * <p>Only references obtained through {@link #projectAccessed(ProjectInternal)} and evaluation requests are detected. Configuration
+ * that reaches another project in some other way, for example through an object shared by the projects, is not detected.</p>
+ *
+ * <p>Outside of parallel configuration, evaluation is passed straight to the delegate.</p>
+ */
+public class CoordinatingProjectEvaluator implements ProjectEvaluator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoordinatingProjectEvaluator.class);
+
+    private final ProjectEvaluator delegate;
+    private final WorkerLeaseService workerLeaseService;
+    private final Object lock = new Object();
+    private final Map<ProjectInternal, Thread> evaluatingThreads = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waitingThreads = new HashMap<Thread, ProjectInternal>();
+    private final Set<Thread> concurrentThreads = new HashSet<Thread>();
+    private Thread exclusiveThread;
+    private volatile boolean parallel;
+    private volatile boolean crossProjectEvaluationDetected;
+
+    public CoordinatingProjectEvaluator(ProjectEvaluator delegate, WorkerLeaseService workerLeaseService) {
+        this.delegate = delegate;
+        this.workerLeaseService = workerLeaseService;
+    }
+
+    /**
+     * Starts coordinating evaluation between threads.
+     */
+    public void startParallelConfiguration() {
+        crossProjectEvaluationDetected = false;
+        parallel = true;
+    }
+
+    /**
+     * Stops coordinating evaluation between threads. Must only be called once all threads have finished evaluating projects.
+     */
+    public void finishParallelConfiguration() {
+        parallel = false;
+    }
+
+    /**
+     * Returns true when the evaluation of some project has required another project since parallel configuration was started.
+     */
+    public boolean isCrossProjectEvaluationDetected() {
+        return crossProjectEvaluationDetected;
+    }
+
+    /**
+     * Called before the project being evaluated by the current thread hands out a reference to the given project. When the given project is
+     * not being evaluated by the current thread, waits until the current thread can continue without any other thread evaluating a project
+     * at the same time.
+     */
+    public void projectAccessed(ProjectInternal project) {
+        if (!parallel) {
+            return;
+        }
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            if (!evaluatingThreads.containsValue(currentThread) || evaluatingThreads.get(project) == currentThread) {
+                return;
+            }
+            crossProjectEvaluationDetected(project);
+            awaitExclusive(currentThread);
+        }
+    }
+
+    @Override
+    public void evaluate(final ProjectInternal project, final ProjectStateInternal state) {
+        if (!parallel) {
+            delegate.evaluate(project, state);
+            return;
+        }
+
+        Thread currentThread = Thread.currentThread();
+        boolean outermost = startEvaluation(currentThread);
+        try {
+            if (!claim(project, state)) {
+                // Already being evaluated by this thread, or already evaluated
+                delegate.evaluate(project, state);
+                return;
+            }
+
+            try {
+                workerLeaseService.withLocks(projectLock(project)).execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        delegate.evaluate(project, state);
+                    }
+                });
+            } finally {
+                synchronized (lock) {
+                    evaluatingThreads.remove(project);
+                    lock.notifyAll();
+                }
+            }
+        } finally {
+            if (outermost) {
+                finishEvaluation(currentThread);
+            }
+        }
+    }
+
+    /**
+     * Registers the current thread as evaluating projects, if it is not already.
+     *
+     * @return true if the current thread was not already evaluating a project.
+     */
+    private boolean startEvaluation(Thread currentThread) {
+        synchronized (lock) {
+            if (evaluatingThreads.containsValue(currentThread)) {
+                return false;
+            }
+            if (crossProjectEvaluationDetected) {
+                awaitExclusive(currentThread);
+            } else {
+                concurrentThreads.add(currentThread);
+            }
+            return true;
+        }
+    }
+
+    private void finishEvaluation(Thread currentThread) {
+        synchronized (lock) {
+            concurrentThreads.remove(currentThread);
+            if (exclusiveThread == currentThread) {
+                exclusiveThread = null;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until no other thread is evaluating the given project, then makes the current thread responsible for evaluating it, if required.
+     *
+     * @return true if the current thread should evaluate the project.
+     */
+    private boolean claim(ProjectInternal project, ProjectStateInternal state) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            Thread owner = evaluatingThreads.get(project);
+            boolean crossProject = owner != currentThread && evaluatingThreads.containsValue(currentThread);
+            while (owner != null && owner != currentThread) {
+                if (isWaitingFor(owner, currentThread)) {
+                    throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+                }
+                crossProjectEvaluationDetected(project);
+                crossProject = true;
+                // Let the owner, and any other thread, continue while waiting
+                concurrentThreads.remove(currentThread);
+                if (exclusiveThread == currentThread) {
+                    exclusiveThread = null;
+                }
+                lock.notifyAll();
+                waitingThreads.put(currentThread, project);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } finally {
+                    waitingThreads.remove(currentThread);
+                }
+                owner = evaluatingThreads.get(project);
+            }
+            if (crossProject) {
+                crossProjectEvaluationDetected(project);
+                awaitExclusive(currentThread);
+            }
+            if (owner == currentThread || state.getExecuted()) {
+                return false;
+            }
+            evaluatingThreads.put(project, currentThread);
+            return true;
+        }
+    }
+
+    /**
+     * Waits until no other thread is evaluating projects concurrently, then lets the current thread continue alone until it has finished evaluating.
+     */
+    // Caller must be holding lock
+    private void awaitExclusive(Thread currentThread) {
+        if (exclusiveThread == currentThread) {
+            return;
+        }
+        concurrentThreads.remove(currentThread);
+        lock.notifyAll();
+        while (exclusiveThread != null || !concurrentThreads.isEmpty()) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        exclusiveThread = currentThread;
+    }
+
+    // Caller must be holding lock
+    private boolean isWaitingFor(Thread owner, Thread currentThread) {
+        Thread thread = owner;
+        while (thread != null) {
+            if (thread == currentThread) {
+                return true;
+            }
+            ProjectInternal awaited = waitingThreads.get(thread);
+            thread = awaited == null ? null : evaluatingThreads.get(awaited);
+        }
+        return false;
+    }
+
+    // Caller must be holding lock
+    private void crossProjectEvaluationDetected(ProjectInternal project) {
+        if (!crossProjectEvaluationDetected) {
+            LOGGER.info("{} was requested while configuring another project in parallel. Remaining projects will be configured sequentially.", project);
+            crossProjectEvaluationDetected = true;
+        }
+    }
+
+    private ResourceLock projectLock(ProjectInternal project) {
+        GradleInternal gradle = project.getGradle();
+        return workerLeaseService.getProjectLock(gradle.getIdentityPath().toString(), project.getIdentityPath().toString());
+    }
+}
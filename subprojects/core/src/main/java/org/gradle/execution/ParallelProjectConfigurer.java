@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.configuration.project.CoordinatingProjectEvaluator;
+import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.util.SingleMessageLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Configures the projects of a hierarchy in parallel. The root project is configured first, then the remaining projects
+ * one level of the hierarchy at a time, so that a project is always configured after its parent.
+ *
+ * <p>When the configuration of a project requires another project, for example through {@code evaluationDependsOn()},
+ * by resolving a project dependency or by using {@code rootProject}, {@code parent} or {@code project(path)}, the remaining projects
+ * are configured sequentially. See {@link CoordinatingProjectEvaluator} for which accesses are detected.
+ * Configuration failures are reported in the same order as when the projects are configured sequentially.</p>
+ */
+public class ParallelProjectConfigurer extends TaskPathProjectEvaluator {
+    /**
+     * Enables parallel configuration, when parallel execution is also enabled.
+     */
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.parallel.configuration";
+
+    private final CoordinatingProjectEvaluator projectEvaluator;
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public ParallelProjectConfigurer(BuildCancellationToken cancellationToken, CoordinatingProjectEvaluator projectEvaluator, BuildOperationProcessor buildOperationProcessor) {
+        super(cancellationToken);
+        this.projectEvaluator = projectEvaluator;
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        configure(project);
+        if (project.getSubprojects().size() > 1) {
+            SingleMessageLogger.incubatingFeatureUsed("Parallel project configuration");
+            configureInParallel(project);
+        }
+        for (Project sub : project.getSubprojects()) {
+            ProjectInternal subproject = (ProjectInternal) sub;
+            configure(subproject);
+            subproject.getState().rethrowFailure();
+        }
+    }
+
+    private void configureInParallel(ProjectInternal project) {
+        Map<Integer, List<ProjectInternal>> levels = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project sub : project.getSubprojects()) {
+            List<ProjectInternal> level = levels.get(sub.getDepth());
+            if (level == null) {
+                level = new ArrayList<ProjectInternal>();
+                levels.put(sub.getDepth(), level);
+            }
+            level.add((ProjectInternal) sub);
+        }
+
+        projectEvaluator.startParallelConfiguration();
+        try {
+            for (final List<ProjectInternal> level : levels.values()) {
+                if (projectEvaluator.isCrossProjectEvaluationDetected()) {
+                    return;
+                }
+                buildOperationProcessor.run(new Action<BuildOperationQueue<ConfigureProject>>() {
+                    @Override
+                    public void execute(BuildOperationQueue<ConfigureProject> queue) {
+                        for (ProjectInternal subproject : level) {
+                            queue.add(new ConfigureProject(subproject));
+                        }
+                    }
+                });
+                if (hasFailure(level)) {
+                    return;
+                }
+            }
+        } finally {
+            projectEvaluator.finishParallelConfiguration();
+        }
+    }
+
+    private static boolean hasFailure(List<ProjectInternal> projects) {
+        for (ProjectInternal project : projects) {
+            if (project.getState().hasFailure()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class ConfigureProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        ConfigureProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Configure " + project.getDisplayName();
+        }
+
+        @Override
+        public void run() {
+            if (projectEvaluator.isCrossProjectEvaluationDetected()) {
+                return;
+            }
+            try {
+                configure(project);
+            } catch (RuntimeException e) {
+                // Reported when the hierarchy is walked sequentially
+            }
+        }
+    }
+}
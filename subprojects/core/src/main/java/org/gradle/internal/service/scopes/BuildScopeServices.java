@@ -85,14 +85,16 @@ import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
 import org.gradle.configuration.DefaultScriptPluginFactory;
 import org.gradle.configuration.ImportsReader;
+import org.gradle.configuration.ProjectScriptPrecompiler;
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.configuration.ScriptPluginFactorySelector;
 import org.gradle.configuration.project.BuildScriptProcessor;
 import org.gradle.configuration.project.ConfigureActionsProjectEvaluator;
+import org.gradle.configuration.project.CoordinatingProjectEvaluator;
 import org.gradle.configuration.project.DelayedConfigurationActions;
 import org.gradle.configuration.project.LifecycleProjectEvaluator;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
-import org.gradle.configuration.project.ProjectEvaluator;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
@@ -104,6 +106,7 @@ import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
 import org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory;
 import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.initialization.BuildScriptPrecompilingBuildLoader;
 import org.gradle.initialization.BuildLoader;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.initialization.ClassLoaderRegistry;
@@ -144,6 +147,7 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory;
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -157,6 +161,7 @@ import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.time.TimeProvider;
 import org.gradle.internal.time.TrueTimeProvider;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.repository.internal.PluginRepositoryFactory;
 import org.gradle.plugin.repository.internal.PluginRepositoryRegistry;
@@ -225,18 +230,27 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     }
 
     protected BuildLoader createBuildLoader() {
-        return new ProjectPropertySettingBuildLoader(
+        BuildLoader buildLoader = new ProjectPropertySettingBuildLoader(
             get(IGradlePropertiesLoader.class),
             new InstantiatingBuildLoader(get(IProjectFactory.class)));
+        if (!Boolean.getBoolean(ProjectScriptPrecompiler.PRECOMPILE_PROPERTY)) {
+            return buildLoader;
+        }
+        return new BuildScriptPrecompilingBuildLoader(
+            buildLoader,
+            new ProjectScriptPrecompiler(
+                get(ScriptCompilerFactory.class),
+                get(DocumentationRegistry.class),
+                get(BuildOperationProcessor.class)));
     }
 
-    protected ProjectEvaluator createProjectEvaluator(ProjectConfigurator projectConfigurator, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory) {
+    protected CoordinatingProjectEvaluator createProjectEvaluator(ProjectConfigurator projectConfigurator, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory, WorkerLeaseService workerLeaseService) {
         ConfigureActionsProjectEvaluator withActionsEvaluator = new ConfigureActionsProjectEvaluator(
             PluginsProjectConfigureActions.from(cachingServiceLocator),
             new BuildScriptProcessor(scriptPluginFactory),
             new DelayedConfigurationActions()
         );
-        return new LifecycleProjectEvaluator(projectConfigurator, withActionsEvaluator);
+        return new CoordinatingProjectEvaluator(new LifecycleProjectEvaluator(projectConfigurator, withActionsEvaluator), workerLeaseService);
     }
 
     protected TaskClassValidatorExtractor createTaskClassValidatorExtractor(List<PropertyAnnotationHandler> annotationHandlers) {
@@ -379,7 +393,10 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, StartParameter startParameter, CoordinatingProjectEvaluator projectEvaluator, BuildOperationProcessor buildOperationProcessor) {
+        if (startParameter.isParallelProjectExecutionEnabled() && Boolean.getBoolean(ParallelProjectConfigurer.PARALLEL_CONFIGURATION_PROPERTY)) {
+            return new ParallelProjectConfigurer(cancellationToken, projectEvaluator, buildOperationProcessor);
+        }
         return new TaskPathProjectEvaluator(cancellationToken);
     }
 
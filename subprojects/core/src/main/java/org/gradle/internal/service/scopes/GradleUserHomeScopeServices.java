@@ -37,6 +37,7 @@ import org.gradle.api.internal.changedetection.state.GlobalScopeFileTimeStampIns
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
 import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
 import org.gradle.api.internal.changedetection.state.ValueSnapshotter;
+import org.gradle.api.internal.file.archive.ZipIndexCache;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.DefaultFileHasher;
 import org.gradle.api.internal.hash.FileHasher;
@@ -103,6 +104,10 @@ public class GradleUserHomeScopeServices {
         return new CrossBuildInMemoryCachingScriptClassCache(hasher, cacheFactory);
     }
 
+    ZipIndexCache createZipIndexCache(FileHasher hasher, CrossBuildInMemoryCacheFactory cacheFactory) {
+        return new ZipIndexCache(hasher, cacheFactory);
+    }
+
     ValueSnapshotter createValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
         return new ValueSnapshotter(classLoaderHierarchyHasher);
     }
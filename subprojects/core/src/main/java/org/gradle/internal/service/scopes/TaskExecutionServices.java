@@ -92,7 +92,6 @@ import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
-import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -215,8 +214,7 @@ public class TaskExecutionServices {
 
         TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess,
             new CacheBackedFileSnapshotRepository(cacheAccess,
-                serializerRegistry.build(FileCollectionSnapshot.class),
-                new RandomLongIdGenerator()),
+                serializerRegistry.build(FileCollectionSnapshot.class)),
             stringInterner);
 
         return new ShortCircuitTaskArtifactStateRepository(
@@ -31,6 +31,7 @@ import org.gradle.api.internal.changedetection.state.DefaultFileSystemSnapshotte
 import org.gradle.api.internal.changedetection.state.DefaultGenericFileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.DefaultTaskHistoryStore
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
+import org.gradle.api.internal.changedetection.state.FileSnapshotRepository
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory
 import org.gradle.api.internal.changedetection.state.OutputFilesSnapshotter
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository
@@ -45,7 +46,6 @@ import org.gradle.cache.internal.DefaultCacheRepository
 import org.gradle.caching.internal.tasks.TaskCacheKeyCalculator
 import org.gradle.internal.classloader.ConfigurableClassLoaderHierarchyHasher
 import org.gradle.internal.event.DefaultListenerManager
-import org.gradle.internal.id.RandomLongIdGenerator
 import org.gradle.internal.reflect.DirectInstantiator
 import org.gradle.internal.serialize.DefaultSerializerRegistry
 import org.gradle.internal.serialize.SerializerRegistry
@@ -79,6 +79,7 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
     DefaultTaskArtifactStateRepository repository
     DefaultFileSystemMirror fileSystemMirror
     TaskCacheKeyCalculator cacheKeyCalculator = Mock(TaskCacheKeyCalculator)
+    boolean snapshotsLost
 
     def setup() {
         gradle = project.getGradle()
@@ -96,7 +97,17 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
         }
         SerializerRegistry serializerRegistry = new DefaultSerializerRegistry();
         fileCollectionSnapshotter.registerSerializers(serializerRegistry);
-        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(FileCollectionSnapshot), new RandomLongIdGenerator()), stringInterner)
+        def snapshotRepository = new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(FileCollectionSnapshot))
+        def lostSnapshotsRepository = [
+            get: { Long id ->
+                // Discovered input snapshots are always loaded, so only lose the snapshots of input and output files
+                def snapshot = snapshotRepository.get(id)
+                snapshotsLost && !snapshot.elements.empty ? null : snapshot
+            },
+            add: { FileCollectionSnapshot snapshot -> snapshotRepository.add(snapshot) },
+            remove: { Long id -> snapshotRepository.remove(id) }
+        ] as FileSnapshotRepository
+        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, lostSnapshotsRepository, stringInterner)
         repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, new DefaultFileCollectionSnapshotterRegistry([fileCollectionSnapshotter]), TestFiles.fileCollectionFactory(), classLoaderHierarchyHasher, cacheKeyCalculator, new ValueSnapshotter())
     }
 
@@ -105,6 +116,29 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
         outOfDate(task)
     }
 
+    def artifactsAreUpToDateWithoutLoadingSnapshotsOfPreviousExecutionWhenNothingHasChanged() {
+        given:
+        execute(task)
+
+        when:
+        snapshotsLost = true
+
+        then:
+        upToDate task
+    }
+
+    def artifactsAreNotUpToDateWhenAnyInputFileHasChangedAndSnapshotsOfPreviousExecutionAreNoLongerStored() {
+        given:
+        execute(task)
+
+        when:
+        snapshotsLost = true
+        inputFile.write("some new content")
+
+        then:
+        outOfDate task
+    }
+
     def artifactsAreNotUpToDateWhenAnyOutputFileNoLongerExists() {
         given:
         execute(task)
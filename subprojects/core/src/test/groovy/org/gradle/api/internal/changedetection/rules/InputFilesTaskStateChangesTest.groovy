@@ -16,7 +16,10 @@
 
 package org.gradle.api.internal.changedetection.rules
 
+import com.google.common.collect.ImmutableSortedMap
+import com.google.common.hash.HashCode
 import org.gradle.api.UncheckedIOException
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotterRegistry
 import org.gradle.api.internal.changedetection.state.GenericFileCollectionSnapshotter
@@ -49,4 +52,51 @@ class InputFilesTaskStateChangesTest extends AbstractTaskStateChangesTest {
         e.message.contains("input")
         e.cause == cause
     }
+
+    def "does not load previous snapshots when hashes are unchanged"() {
+        def snapshotter = Stub(FileCollectionSnapshotter)
+        def registry = Stub(FileCollectionSnapshotterRegistry) {
+            getSnapshotter(GenericFileCollectionSnapshotter) >> snapshotter
+        }
+        def previous = Mock(TaskExecution)
+        mockInputs.getFileProperties() >> fileProperties(a: "a", b: "b")
+        snapshotter.snapshot(_, _, _) >> Stub(FileCollectionSnapshot) { getHash() >> HashCode.fromInt(1) }
+
+        when:
+        def changes = new InputFilesTaskStateChanges(previous, Mock(TaskExecution), stubTask, registry).iterator().toList()
+
+        then:
+        changes.empty
+
+        and:
+        1 * previous.getInputFilesSnapshotHashes() >> ImmutableSortedMap.of("a", HashCode.fromInt(1), "b", HashCode.fromInt(1))
+        0 * previous.getInputFilesSnapshot()
+    }
+
+    def "compares only the properties whose hash has changed"() {
+        def snapshotA = Mock(FileCollectionSnapshot) { getHash() >> HashCode.fromInt(1) }
+        def snapshotB = Mock(FileCollectionSnapshot) { getHash() >> HashCode.fromInt(2) }
+        def previousB = Stub(FileCollectionSnapshot)
+        def change = Stub(TaskStateChange)
+        def snapshotter = Stub(FileCollectionSnapshotter)
+        def registry = Stub(FileCollectionSnapshotterRegistry) {
+            getSnapshotter(GenericFileCollectionSnapshotter) >> snapshotter
+        }
+        def previous = Stub(TaskExecution) {
+            getInputFilesSnapshotHashes() >> ImmutableSortedMap.of("a", HashCode.fromInt(1), "b", HashCode.fromInt(3))
+            getInputFilesSnapshot() >> ImmutableSortedMap.of("a", Stub(FileCollectionSnapshot), "b", previousB)
+        }
+        mockInputs.getFileProperties() >> fileProperties(a: "a", b: "b")
+        snapshotter.snapshot(_, _, _) >>> [snapshotA, snapshotB]
+
+        when:
+        def changes = new InputFilesTaskStateChanges(previous, Mock(TaskExecution), stubTask, registry).iterator().toList()
+
+        then:
+        changes == [change]
+
+        and:
+        0 * snapshotA.iterateContentChangesSince(_, _)
+        1 * snapshotB.iterateContentChangesSince(previousB, "Input property 'b'") >> [change].iterator()
+    }
 }
@@ -15,33 +15,76 @@
  */
 package org.gradle.api.internal.changedetection.state
 
+import com.google.common.hash.HashCode
 import org.gradle.cache.PersistentIndexedCache
-import org.gradle.internal.id.IdGenerator
 import org.gradle.internal.serialize.Serializer
 import spock.lang.Specification
 
+import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.UNORDERED
+
 class CacheBackedFileSnapshotRepositoryTest extends Specification {
     final TaskHistoryStore cacheAccess = Mock()
     final PersistentIndexedCache<Object, Object> indexedCache = Mock()
-    final IdGenerator<Long> idGenerator = Mock()
+    final PersistentIndexedCache<Object, Object> referenceCounts = Mock()
     final Serializer<FileCollectionSnapshot> serializer = Mock()
     FileSnapshotRepository repository
 
     def setup() {
         1 * cacheAccess.createCache("fileSnapshots", _, _, _, _) >> indexedCache
-        repository = new CacheBackedFileSnapshotRepository(cacheAccess, serializer, idGenerator)
+        1 * cacheAccess.createCache("fileSnapshotReferences", _, _, _, _) >> referenceCounts
+        repository = new CacheBackedFileSnapshotRepository(cacheAccess, serializer)
     }
 
-    def "assigns an id when a snapshot is added"() {
-        FileCollectionSnapshot snapshot = Mock()
+    def "stores a snapshot the first time it is added"() {
+        def snapshot = snapshot("file1.txt": 123)
+
+        when:
+        repository.add(snapshot)
+
+        then:
+        1 * cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        1 * referenceCounts.get(_) >> null
+        1 * indexedCache.put(_, snapshot)
+        1 * referenceCounts.put(_, 1)
+        0 * _._
+    }
+
+    def "increments reference count without loading the stored snapshot when an identical snapshot is added"() {
+        when:
+        def id1 = repository.add(snapshot("file1.txt": 123))
+        def id2 = repository.add(snapshot("file1.txt": 123))
+
+        then:
+        id1 == id2
+        1 * cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        1 * referenceCounts.get(_) >> null
+        1 * indexedCache.put(_, _)
+        1 * referenceCounts.put(_, 1)
+
+        then:
+        1 * cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        1 * referenceCounts.get(_) >> 1
+        1 * referenceCounts.put(_, 2)
+        0 * _._
+    }
+
+    def "snapshots with different contents or paths have different ids"() {
+        given:
+        cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        referenceCounts.get(_) >> null
+
+        expect:
+        repository.add(snapshot("file1.txt": 123)) != repository.add(snapshot("file1.txt": 234))
+        repository.add(snapshot("file1.txt": 123)) != repository.add(snapshot("file2.txt": 123))
+    }
 
+    def "returns null for a snapshot that is no longer stored"() {
         when:
-        def id = repository.add(snapshot)
+        def result = repository.get(4)
 
         then:
-        id == 15
-        1 * idGenerator.generateId() >> 15L
-        1 * indexedCache.put(15, snapshot)
+        result == null
+        1 * indexedCache.get(4) >> null
         0 * _._
     }
 
@@ -57,12 +100,37 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
         0 * _._
     }
 
-    def "can delete a snapshot by id"() {
+    def "decrements reference count when a shared snapshot is removed"() {
         when:
         repository.remove(4)
 
         then:
+        1 * cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        1 * referenceCounts.get(4) >> 2
+        1 * referenceCounts.put(4, 1)
+        0 * _._
+    }
+
+    def "deletes a snapshot when its last reference is removed"() {
+        when:
+        repository.remove(4)
+
+        then:
+        1 * cacheAccess.useCache(_) >> { Runnable action -> action.run() }
+        1 * referenceCounts.get(4) >> count
         1 * indexedCache.remove(4)
+        1 * referenceCounts.remove(4)
         0 * _._
+
+        where:
+        count << [1, null]
+    }
+
+    private static FileCollectionSnapshot snapshot(Map<String, Integer> files) {
+        Map<String, NormalizedFileSnapshot> snapshots = [:]
+        files.each { path, hash ->
+            snapshots.put(path, new NonNormalizedFileSnapshot(path, new FileHashSnapshot(HashCode.fromInt(hash))))
+        }
+        return new DefaultFileCollectionSnapshot(snapshots, UNORDERED, true)
     }
 }
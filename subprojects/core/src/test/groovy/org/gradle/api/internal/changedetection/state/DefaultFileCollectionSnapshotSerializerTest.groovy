@@ -17,11 +17,13 @@
 package org.gradle.api.internal.changedetection.state
 
 import com.google.common.base.Charsets
+import com.google.common.hash.HashCode
 import com.google.common.hash.Hashing
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.internal.serialize.SerializerSpec
 
 import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.ORDERED
+import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.OUTPUT
 import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.UNORDERED
 
 class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
@@ -62,4 +64,28 @@ class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
         then:
         out.snapshots.keySet() as List == ['/3', '/2', '/1']
     }
+
+    def "persists the directory hashes of snapshots with absolute paths"() {
+        def root = new File("root").absolutePath
+        def file1 = new File(root, "dir/file1").absolutePath
+        def file2 = new File(root, "dir/file2").absolutePath
+        def snapshot = new DefaultFileCollectionSnapshot([
+            (root): new NonNormalizedFileSnapshot(root, DirSnapshot.getInstance()),
+            (file1): new NonNormalizedFileSnapshot(file1, new FileHashSnapshot(HashCode.fromInt(1))),
+            (file2): new NonNormalizedFileSnapshot(file2, new FileHashSnapshot(HashCode.fromInt(2)))
+        ], OUTPUT, true)
+        def current = new DefaultFileCollectionSnapshot([
+            (root): new NonNormalizedFileSnapshot(root, DirSnapshot.getInstance()),
+            (file1): new NonNormalizedFileSnapshot(file1, new FileHashSnapshot(HashCode.fromInt(1))),
+            (file2): new NonNormalizedFileSnapshot(file2, new FileHashSnapshot(HashCode.fromInt(3)))
+        ], OUTPUT, true)
+
+        when:
+        DefaultFileCollectionSnapshot out = serialize(snapshot, serializer)
+
+        then:
+        out.getDirectoryHashes() == snapshot.getDirectoryHashes()
+        !out.getDirectoryHashes().empty
+        current.iterateContentChangesSince(out, "Output").collect { it.path } == [file2]
+    }
 }
@@ -82,4 +82,28 @@ class DefaultFileCollectionSnapshotTest extends Specification {
         1 * hasher.putBytes(HashCode.fromInt(123).asBytes())
         0 * _
     }
+
+    def "snapshots with the same content have the same hash"() {
+        def snapshot = new DefaultFileCollectionSnapshot([
+            "file1.txt": new DefaultNormalizedFileSnapshot("file1.txt", new FileHashSnapshot(HashCode.fromInt(123))),
+            "file2.txt": new DefaultNormalizedFileSnapshot("file2.txt", new FileHashSnapshot(HashCode.fromInt(234))),
+        ], UNORDERED, false)
+        def reordered = new DefaultFileCollectionSnapshot([
+            "file2.txt": new DefaultNormalizedFileSnapshot("file2.txt", new FileHashSnapshot(HashCode.fromInt(234))),
+            "file1.txt": new DefaultNormalizedFileSnapshot("file1.txt", new FileHashSnapshot(HashCode.fromInt(123))),
+        ], UNORDERED, false)
+        def modified = new DefaultFileCollectionSnapshot([
+            "file1.txt": new DefaultNormalizedFileSnapshot("file1.txt", new FileHashSnapshot(HashCode.fromInt(123))),
+            "file2.txt": new DefaultNormalizedFileSnapshot("file2.txt", new FileHashSnapshot(HashCode.fromInt(345))),
+        ], UNORDERED, false)
+        def ordered = new DefaultFileCollectionSnapshot([
+            "file1.txt": new DefaultNormalizedFileSnapshot("file1.txt", new FileHashSnapshot(HashCode.fromInt(123))),
+            "file2.txt": new DefaultNormalizedFileSnapshot("file2.txt", new FileHashSnapshot(HashCode.fromInt(234))),
+        ], ORDERED, false)
+
+        expect:
+        snapshot.hash == reordered.hash
+        snapshot.hash != modified.hash
+        snapshot.hash != ordered.hash
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import com.google.common.hash.HashCode
+import spock.lang.Specification
+
+class MerkleDirectoryTreeTest extends Specification {
+    def root = new File("root").absolutePath
+
+    def "trees with the same entries have the same directory hashes regardless of order"() {
+        def tree1 = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 2))
+        def tree2 = tree(file("sub/b", 2), dir(""), file("a", 1), dir("sub"))
+
+        expect:
+        tree1.directoryHashes == tree2.directoryHashes
+        tree1.directoryHashes != tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 3)).directoryHashes
+    }
+
+    def "compares trees created from persisted directory hashes"() {
+        def previousSnapshots = snapshots(dir(""), file("a", 1), dir("sub"), file("sub/b", 2), dir("other"), file("other/c", 3))
+        def previous = MerkleDirectoryTree.of(previousSnapshots, MerkleDirectoryTree.of(previousSnapshots).directoryHashes)
+        def current = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 4), dir("other"), file("other/c", 3))
+
+        expect:
+        previous.directoryHashes == MerkleDirectoryTree.of(previousSnapshots).directoryHashes
+        changes(current, previous) == ["${path("sub/b")} MODIFIED"] as Set
+    }
+
+    def "persisted directory hashes must match the directories of the snapshot"() {
+        def snapshots = snapshots(dir(""), file("a", 1), dir("sub"), file("sub/b", 2))
+        def directoryHashes = MerkleDirectoryTree.of(snapshots).directoryHashes
+
+        when:
+        MerkleDirectoryTree.of(snapshots, directoryHashes.subList(1, directoryHashes.size()))
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        MerkleDirectoryTree.of(snapshots, directoryHashes + [HashCode.fromInt(1)])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "reports no changes for identical trees"() {
+        def previous = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 2))
+        def current = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 2))
+
+        expect:
+        changes(current, previous).empty
+    }
+
+    def "reports modified, removed and added files in nested directories"() {
+        def previous = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 2), file("sub/c", 3), dir("gone"), file("gone/d", 4))
+        def current = tree(dir(""), file("a", 1), dir("sub"), file("sub/b", 5), file("sub/e", 6), dir("new"), file("new/f", 7))
+
+        expect:
+        changes(current, previous) == [
+            "${path("sub/b")} MODIFIED",
+            "${path("sub/c")} REMOVED",
+            "${path("gone")} REMOVED",
+            "${path("gone/d")} REMOVED",
+            "${path("sub/e")} ADDED",
+            "${path("new")} ADDED",
+            "${path("new/f")} ADDED"
+        ] as Set
+        changes(current, previous, false) == [
+            "${path("sub/b")} MODIFIED",
+            "${path("sub/c")} REMOVED",
+            "${path("gone")} REMOVED",
+            "${path("gone/d")} REMOVED"
+        ] as Set
+    }
+
+    def "reports file that has become a directory as modified"() {
+        def previous = tree(dir(""), file("a", 1))
+        def current = tree(dir(""), dir("a"), file("a/b", 2))
+
+        expect:
+        changes(current, previous) == ["${path("a")} MODIFIED", "${path("a/b")} ADDED"] as Set
+    }
+
+    def "reports modifications before removals and additions"() {
+        def previous = tree(file("a", 1), file("b", 2))
+        def current = tree(file("b", 3), file("c", 4))
+
+        expect:
+        changes(current, previous).toList() == ["${path("b")} MODIFIED", "${path("a")} REMOVED", "${path("c")} ADDED"]
+    }
+
+    private static Set<String> changes(MerkleDirectoryTree current, MerkleDirectoryTree previous, boolean includeAdded = true) {
+        def result = [] as LinkedHashSet
+        current.iterateChangesSince(previous, "test", includeAdded).each { result << "${it.path} ${it.type}".toString() }
+        return result
+    }
+
+    private static MerkleDirectoryTree tree(Map.Entry<String, NormalizedFileSnapshot>... entries) {
+        return MerkleDirectoryTree.of(snapshots(entries))
+    }
+
+    private static Map<String, NormalizedFileSnapshot> snapshots(Map.Entry<String, NormalizedFileSnapshot>... entries) {
+        def snapshots = new LinkedHashMap<String, NormalizedFileSnapshot>()
+        entries.each { snapshots.put(it.key, it.value) }
+        return snapshots
+    }
+
+    private Map.Entry<String, NormalizedFileSnapshot> file(String relativePath, int hash) {
+        return entry(relativePath, new FileHashSnapshot(HashCode.fromInt(hash)))
+    }
+
+    private Map.Entry<String, NormalizedFileSnapshot> dir(String relativePath) {
+        return entry(relativePath, DirSnapshot.getInstance())
+    }
+
+    private Map.Entry<String, NormalizedFileSnapshot> entry(String relativePath, FileContentSnapshot snapshot) {
+        def path = path(relativePath)
+        return new AbstractMap.SimpleEntry<String, NormalizedFileSnapshot>(path, new NonNormalizedFileSnapshot(path, snapshot))
+    }
+
+    private String path(String relativePath) {
+        return relativePath.empty ? root : new File(root, relativePath).absolutePath
+    }
+}
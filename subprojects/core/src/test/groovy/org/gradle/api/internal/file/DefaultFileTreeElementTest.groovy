@@ -19,6 +19,8 @@ import org.gradle.api.file.FileTreeElement
 import org.gradle.internal.nativeintegration.filesystem.Chmod
 import org.gradle.internal.nativeintegration.filesystem.Stat
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
 import org.junit.Rule
 import spock.lang.Specification
 
@@ -36,4 +38,33 @@ class DefaultFileTreeElementTest extends Specification {
         expect:
         e.mode == 0644
     }
+
+    def "copies file content to target"() {
+        def chmod = Mock(Chmod)
+        def f = tmpDir.createFile("f")
+        f.bytes = (0..<300000).collect { (byte) (it % 251) } as byte[]
+        def target = tmpDir.file("out/f")
+        def e = new DefaultFileTreeElement(f, null, chmod, Stub(Stat) { getUnixMode(f) >> 0644 })
+
+        when:
+        e.copyTo(target)
+
+        then:
+        target.bytes == f.bytes
+        1 * chmod.chmod(target, 0644)
+    }
+
+    @Requires(TestPrecondition.LINUX)
+    def "copies content of file that reports a size of 0"() {
+        def f = new File("/proc/self/status")
+        def target = tmpDir.file("out/status")
+        def e = new DefaultFileTreeElement(f, null, Stub(Chmod), Stub(Stat))
+        assert f.length() == 0
+
+        when:
+        e.copyTo(target)
+
+        then:
+        target.text.startsWith("Name:")
+    }
 }
@@ -24,6 +24,8 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -32,6 +34,8 @@ import org.junit.Test
 import spock.lang.Specification
 
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+import java.util.zip.ZipFile
+
 import static org.hamcrest.Matchers.equalTo
 
 class ZipCopyActionTest extends Specification {
@@ -42,6 +46,11 @@ class ZipCopyActionTest extends Specification {
     ZipCopyAction visitor
     TestFile zipFile
     def encoding = 'UTF-8'
+    def buildOperationProcessor = Stub(BuildOperationProcessor) {
+        run(_) >> { args ->
+            args[0].execute([add: { it.run() }] as BuildOperationQueue)
+        }
+    }
 
     def setup() {
         zipFile = tmpDir.getTestDirectory().file("test.zip")
@@ -144,6 +153,68 @@ class ZipCopyActionTest extends Specification {
         e.cause.is(failure)
     }
 
+    def "creates deflated zip file using concurrent compression"() {
+        given:
+        def largeContent = (1..50000).collect { "line $it of a large file" }.join("\n")
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new ParallelZipCompressor(false, buildOperationProcessor, 4), new DocumentationRegistry(), encoding, false)
+
+        when:
+        zip(dir("dir"), file("dir/file1"), file("file2"), file("large", largeContent), file("empty", ""))
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries().collect { it.name } == ["dir/", "dir/file1", "file2", "large", "empty"]
+            assert zip.getInputStream(zip.getEntry("dir/file1")).text == "contents of dir/file1"
+            assert zip.getInputStream(zip.getEntry("large")).text == largeContent
+            assert zip.getInputStream(zip.getEntry("empty")).text == ""
+            assert zip.getEntry("large").method == java.util.zip.ZipEntry.DEFLATED
+            assert zip.getEntry("large").compressedSize < largeContent.length() / 2
+        } finally {
+            zip.close()
+        }
+
+        and:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.assertFileMode("dir/", 2)
+        zipFixture.assertFileMode("file2", 1)
+    }
+
+    def "wraps failure to add element when using concurrent compression"() {
+        given:
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file1", failure)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new ParallelZipCompressor(false, buildOperationProcessor, 4), new DocumentationRegistry(), encoding, false)
+
+        when:
+        visit(visitor, file("file2"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !zipFile.exists()
+    }
+
+    def "concurrent compression writes the same bytes as the ant stream for entries that fit in a single chunk"() {
+        given:
+        def content = (1..5000).collect { "line $it" }.join("\n")
+        def files = [dir("dir"), file("dir/file1"), file("content", content), file("empty", "")] as FileCopyDetailsInternal[]
+        def antZipFile = tmpDir.getTestDirectory().file("ant.zip")
+
+        when:
+        visitor = new ZipCopyAction(antZipFile, new DefaultZipCompressor(allowZip64, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+        zip(files)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(allowZip64, ZipOutputStream.DEFLATED), new ParallelZipCompressor(allowZip64, buildOperationProcessor, 4), new DocumentationRegistry(), encoding, false)
+        zip(files)
+
+        then:
+        zipFile.bytes == antZipFile.bytes
+
+        where:
+        allowZip64 << [false, true]
+    }
+
     private void zip(final FileCopyDetailsInternal... files) {
         visitor.execute(new CopyActionProcessingStream() {
             void process(CopyActionProcessingStreamAction action) {
@@ -154,14 +225,14 @@ class ZipCopyActionTest extends Specification {
         })
     }
 
-    private FileCopyDetailsInternal file(final String path) {
+    private FileCopyDetailsInternal file(final String path, final String content = "contents of $path") {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
         mock.getLastModified() >> 1000L
         mock.isDirectory() >> false
         mock.getMode() >> 1
         mock.copyTo(_ as OutputStream) >> { OutputStream out ->
-            out << "contents of $path"
+            out << content
         }
         mock
     }
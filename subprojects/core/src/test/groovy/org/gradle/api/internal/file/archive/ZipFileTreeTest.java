@@ -17,6 +17,9 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
+import org.gradle.api.internal.hash.DefaultFileHasher;
+import org.gradle.internal.event.DefaultListenerManager;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
@@ -32,6 +35,7 @@ import static org.gradle.api.internal.file.TestFiles.fileSystem;
 import static org.gradle.api.tasks.AntBuilderAwareUtil.assertSetContainsForAllTypes;
 import static org.gradle.util.WrapUtil.toList;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -58,6 +62,18 @@ public class ZipFileTreeTest {
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
     }
 
+    @Test
+    public void visitsContentsOfZipFileUsingCachedIndex() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("subdir2/file2.txt").write("content");
+        rootDir.zipTo(zipFile);
+        ZipIndexCache indexCache = new ZipIndexCache(new DefaultFileHasher(), new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()));
+        ZipFileTree cachingTree = new ZipFileTree(zipFile, expandDir, fileSystem(), directoryFileTreeFactory(), indexCache);
+
+        assertVisits(cachingTree, toList("subdir/file1.txt", "subdir2/file2.txt"), toList("subdir", "subdir2"));
+        assertThat(indexCache.getIndex(zipFile), sameInstance(indexCache.getIndex(zipFile)));
+    }
+
     @Test
     public void canStopVisitingFiles() {
         rootDir.file("subdir/file1.txt").write("content");
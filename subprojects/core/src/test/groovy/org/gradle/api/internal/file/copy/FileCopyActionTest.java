@@ -16,12 +16,23 @@
 
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.GradleException;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.TestFiles;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory;
+import org.gradle.internal.progress.TestBuildOperationExecutor;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.jmock.Expectations;
+import org.jmock.Sequence;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,13 +40,24 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 @RunWith(JMock.class)
 public class FileCopyActionTest {
     private File destDir;
-    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setThreadingPolicy(new Synchroniser());
+    }};
+
+    private DefaultWorkerLeaseService workerLeaseService;
+    private WorkerLeaseRegistry.WorkerLeaseCompletion workerLease;
+    private DefaultBuildOperationProcessor buildOperationProcessor;
 
     @Rule
     public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
@@ -43,6 +65,16 @@ public class FileCopyActionTest {
     @Before
     public void setUp() throws IOException {
         destDir = tmpDir.getTestDirectory().file("dest");
+        workerLeaseService = new DefaultWorkerLeaseService(new DefaultResourceLockCoordinationService(), true, 4);
+        buildOperationProcessor = new DefaultBuildOperationProcessor(new TestBuildOperationExecutor(), new DefaultBuildOperationQueueFactory(workerLeaseService), new DefaultExecutorFactory(), 4);
+        workerLease = workerLeaseService.getWorkerLease().start();
+    }
+
+    @After
+    public void tearDown() {
+        workerLease.leaseFinish();
+        buildOperationProcessor.stop();
+        workerLeaseService.stop();
     }
 
     @Test
@@ -54,12 +86,117 @@ public class FileCopyActionTest {
         );
     }
 
+    @Test
+    public void concurrentCopy() {
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor);
+        visit(visitor,
+                file(new RelativePath(true, "rootfile.txt"), new File(destDir, "rootfile.txt"), true),
+                file(new RelativePath(true, "filtered.txt"), new File(destDir, "filtered.txt"), false),
+                file(new RelativePath(true, "subdir", "anotherfile.txt"), new File(destDir, "subdir/anotherfile.txt"), true)
+        );
+    }
+
+    @Test
+    public void concurrentCopyOfManyFiles() {
+        List<FileCopyDetailsInternal> details = new ArrayList<FileCopyDetailsInternal>();
+        for (int i = 0; i < 40; i++) {
+            details.add(file(new RelativePath(true, "file" + i + ".txt"), new File(destDir, "file" + i + ".txt"), i % 10 != 0));
+        }
+        visit(new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor), details);
+    }
+
+    @Test
+    public void concurrentCopyAppliesDuplicatesInDifferentBatchesInOrder() {
+        final File targetFile = new File(destDir, "duplicate.txt");
+        final FileCopyDetailsInternal first = context.mock(FileCopyDetailsInternal.class, "first");
+        final FileCopyDetailsInternal second = context.mock(FileCopyDetailsInternal.class, "second");
+        final Sequence sequence = context.sequence("copies");
+        context.checking(new Expectations() {{
+            allowing(first).getRelativePath();
+            will(returnValue(new RelativePath(true, "duplicate.txt")));
+            allowing(first).isConcurrentCopySupported();
+            will(returnValue(true));
+            one(first).copyTo(targetFile);
+            inSequence(sequence);
+            will(returnValue(true));
+            allowing(second).getRelativePath();
+            will(returnValue(new RelativePath(true, "duplicate.txt")));
+            allowing(second).isConcurrentCopySupported();
+            will(returnValue(true));
+            one(second).copyTo(targetFile);
+            inSequence(sequence);
+            will(returnValue(true));
+        }});
+
+        List<FileCopyDetailsInternal> details = new ArrayList<FileCopyDetailsInternal>();
+        details.add(first);
+        for (int i = 0; i < 20; i++) {
+            details.add(file(new RelativePath(true, "file" + i + ".txt"), new File(destDir, "file" + i + ".txt"), true));
+        }
+        details.add(second);
+        visit(new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor), details);
+    }
+
+    @Test
+    public void concurrentCopyAppliesDuplicatesInOrder() {
+        final File targetFile = new File(destDir, "duplicate.txt");
+        final FileCopyDetailsInternal first = context.mock(FileCopyDetailsInternal.class, "first");
+        final FileCopyDetailsInternal second = context.mock(FileCopyDetailsInternal.class, "second");
+        final Sequence sequence = context.sequence("copies");
+        context.checking(new Expectations() {{
+            allowing(first).getRelativePath();
+            will(returnValue(new RelativePath(true, "duplicate.txt")));
+            allowing(first).isConcurrentCopySupported();
+            will(returnValue(true));
+            one(first).copyTo(targetFile);
+            inSequence(sequence);
+            will(returnValue(true));
+            allowing(second).getRelativePath();
+            will(returnValue(new RelativePath(true, "duplicate.txt")));
+            allowing(second).isConcurrentCopySupported();
+            will(returnValue(true));
+            one(second).copyTo(targetFile);
+            inSequence(sequence);
+            will(returnValue(true));
+        }});
+
+        visit(new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor), first, second);
+    }
+
+    @Test
+    public void concurrentCopyRethrowsFailure() {
+        final GradleException failure = new GradleException("broken");
+        final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class);
+        context.checking(new Expectations() {{
+            allowing(details).getRelativePath();
+            will(returnValue(new RelativePath(true, "broken.txt")));
+            allowing(details).isConcurrentCopySupported();
+            will(returnValue(true));
+            one(details).copyTo(new File(destDir, "broken.txt"));
+            will(throwException(failure));
+        }});
+
+        try {
+            visit(new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor), details);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e, sameInstance(failure));
+        }
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
+        return file(relativePath, targetFile, false);
+    }
+
+    private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile, final boolean concurrent) {
         final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class, relativePath.getPathString());
         context.checking(new Expectations() {{
             allowing(details).getRelativePath();
             will(returnValue(relativePath));
+            allowing(details).isConcurrentCopySupported();
+            will(returnValue(concurrent));
             one(details).copyTo(targetFile);
+            will(returnValue(true));
         }});
         return details;
     }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.Action
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.tasks.SimpleWorkResult
+import org.gradle.api.tasks.WorkResult
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import spock.lang.Specification
+
+class IncrementalCopyActionDecoratorTest extends Specification {
+    def processed = []
+    def delegate = new CopyAction() {
+        WorkResult execute(CopyActionProcessingStream stream) {
+            stream.process({ FileCopyDetailsInternal details -> processed << details.relativePath.pathString } as CopyActionProcessingStreamAction)
+            return new SimpleWorkResult(true)
+        }
+    }
+
+    def "passes on changed files, directories and files that are not copied from a regular file"() {
+        def changed = new File("changed.txt")
+        def decorator = new IncrementalCopyActionDecorator([changed] as Set, delegate)
+
+        when:
+        copy(decorator,
+            details("dir", null, true),
+            details("dir/changed.txt", changed),
+            details("dir/unchanged.txt", new File("unchanged.txt")),
+            details("dir/entry.txt", null))
+
+        then:
+        processed == ["dir", "dir/changed.txt", "dir/entry.txt"]
+    }
+
+    def "passes on every file once a file is copied to the same path as another"() {
+        def changed = new File("changed.txt")
+        def decorator = new IncrementalCopyActionDecorator([changed] as Set, delegate)
+
+        when:
+        copy(decorator,
+            details("changed.txt", changed),
+            details("first.txt", new File("unchanged-1.txt")),
+            details("second.txt", new File("unchanged-2.txt")),
+            details("second.txt", new File("unchanged-3.txt")),
+            details("third.txt", new File("unchanged-4.txt")))
+
+        then:
+        processed == ["changed.txt", "first.txt", "second.txt", "second.txt", "third.txt"]
+    }
+
+    def "collects added and modified files"() {
+        def added = new File("added.txt")
+        def modified = new File("modified.txt")
+        def inputs = Stub(IncrementalTaskInputs) {
+            outOfDate(_) >> { Action<InputFileDetails> action ->
+                action.execute(Stub(InputFileDetails) { getFile() >> added })
+                action.execute(Stub(InputFileDetails) { getFile() >> modified })
+            }
+        }
+
+        expect:
+        IncrementalCopyActionDecorator.getOutOfDateFiles(inputs) == [added, modified] as Set
+    }
+
+    def "collects no files when a file has been removed"() {
+        def inputs = Stub(IncrementalTaskInputs) {
+            outOfDate(_) >> { Action<InputFileDetails> action ->
+                action.execute(Stub(InputFileDetails) { getFile() >> new File("modified.txt") })
+            }
+            removed(_) >> { Action<InputFileDetails> action ->
+                action.execute(Stub(InputFileDetails) { getFile() >> new File("removed.txt") })
+            }
+        }
+
+        expect:
+        IncrementalCopyActionDecorator.getOutOfDateFiles(inputs) == null
+    }
+
+    private static void copy(CopyAction action, FileCopyDetailsInternal... files) {
+        action.execute(new CopyActionProcessingStream() {
+            void process(CopyActionProcessingStreamAction streamAction) {
+                files.each { streamAction.processFile(it) }
+            }
+        })
+    }
+
+    private FileCopyDetailsInternal details(String path, File sourceFile, boolean directory = false) {
+        Stub(FileCopyDetailsInternal) {
+            getRelativePath() >> RelativePath.parse(!directory, path)
+            isDirectory() >> directory
+            getSourceFile() >> sourceFile
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configuration
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptCompilationException
+import org.gradle.groovy.scripts.ScriptCompiler
+import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.ScriptRunner
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.plugin.management.internal.PluginRequests
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ProjectScriptPrecompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def scriptCompilerFactory = Mock(ScriptCompilerFactory)
+    def buildOperationProcessor = Stub(BuildOperationProcessor) {
+        run(_) >> { args ->
+            def operations = []
+            args[0].execute([add: { operations << it }] as BuildOperationQueue)
+            operations*.run()
+        }
+    }
+    def baseClassLoader = new URLClassLoader([] as URL[])
+    def baseScope = Stub(ClassLoaderScope) {
+        getExportClassLoader() >> baseClassLoader
+    }
+    def precompiler = new ProjectScriptPrecompiler(scriptCompilerFactory, new DocumentationRegistry(), buildOperationProcessor)
+
+    def "compiles both passes of scripts that do not change the classpath"() {
+        def root = project("root", null)
+        def child = project("child", root)
+        def rootCompiler = Mock(ScriptCompiler)
+        def childCompiler = Mock(ScriptCompiler)
+        _ * root.allprojects >> ([root, child] as Set)
+        _ * scriptCompilerFactory.createCompiler(root.buildScriptSource) >> rootCompiler
+        _ * scriptCompilerFactory.createCompiler(child.buildScriptSource) >> childCompiler
+
+        when:
+        precompiler.precompile(root, baseScope)
+
+        then:
+        1 * rootCompiler.compile(_, { it.id == "cp_proj" }, baseClassLoader, _) >> runner(false)
+        1 * childCompiler.compile(_, { it.id == "cp_proj" }, baseClassLoader, _) >> runner(false)
+
+        then:
+        1 * rootCompiler.compile(_, { it.id == "proj" }, baseClassLoader, _)
+        1 * childCompiler.compile(_, { it.id == "proj" }, baseClassLoader, _)
+        0 * _.compile(*_)
+    }
+
+    def "does not compile second pass of scripts whose project or ancestors change the classpath"() {
+        def root = project("root", null)
+        def child = project("child", root)
+        def other = project("other", root)
+        def grandChild = project("grandChild", child)
+        def compilers = [root, child, other, grandChild].collectEntries { [it, Mock(ScriptCompiler)] }
+        _ * root.allprojects >> ([root, child, other, grandChild] as Set)
+        _ * scriptCompilerFactory.createCompiler(_) >> { ScriptSource source -> compilers.find { it.key.buildScriptSource == source }.value }
+
+        when:
+        precompiler.precompile(root, baseScope)
+
+        then:
+        1 * compilers[root].compile(_, { it.id == "cp_proj" }, _, _) >> runner(false)
+        1 * compilers[child].compile(_, { it.id == "cp_proj" }, _, _) >> runner(true)
+        1 * compilers[other].compile(_, { it.id == "cp_proj" }, _, _) >> runner(false, false)
+        1 * compilers[grandChild].compile(_, { it.id == "cp_proj" }, _, _) >> runner(false)
+
+        then:
+        1 * compilers[root].compile(_, { it.id == "proj" }, _, _)
+        0 * _.compile(*_)
+    }
+
+    def "ignores script compilation failures"() {
+        def root = project("root", null)
+        def child = project("child", root)
+        def rootCompiler = Mock(ScriptCompiler)
+        def childCompiler = Mock(ScriptCompiler)
+        _ * root.allprojects >> ([root, child] as Set)
+        _ * scriptCompilerFactory.createCompiler(root.buildScriptSource) >> rootCompiler
+        _ * scriptCompilerFactory.createCompiler(child.buildScriptSource) >> childCompiler
+
+        when:
+        precompiler.precompile(root, baseScope)
+
+        then:
+        1 * rootCompiler.compile(_, { it.id == "cp_proj" }, _, _) >> { throw new ScriptCompilationException("broken", null, root.buildScriptSource, 1) }
+        1 * childCompiler.compile(_, { it.id == "cp_proj" }, _, _) >> runner(false)
+        0 * _.compile(*_)
+    }
+
+    def "propagates other failures"() {
+        def root = project("root", null)
+        def child = project("child", root)
+        def failure = new RuntimeException("broken")
+        _ * root.allprojects >> ([root, child] as Set)
+        _ * scriptCompilerFactory.createCompiler(_) >> Stub(ScriptCompiler) {
+            compile(*_) >> { throw failure }
+        }
+
+        when:
+        precompiler.precompile(root, baseScope)
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+    }
+
+    def "does nothing for a single build script"() {
+        def root = project("root", null)
+        def child = project("child", null, false)
+        _ * root.allprojects >> ([root, child] as Set)
+
+        when:
+        precompiler.precompile(root, baseScope)
+
+        then:
+        0 * scriptCompilerFactory._
+    }
+
+    private ProjectInternal project(String name, ProjectInternal parent, boolean hasBuildFile = true) {
+        def buildFile = tmpDir.file(name, "build.gradle")
+        if (hasBuildFile) {
+            buildFile.text = "println 'hello'"
+        }
+        def source = Stub(ScriptSource) {
+            getFileName() >> buildFile.path
+            getDisplayName() >> "build file '$buildFile'"
+        }
+        def project = Mock(ProjectInternal)
+        _ * project.buildFile >> buildFile
+        _ * project.buildScriptSource >> source
+        _ * project.rawParent >> parent
+        return project
+    }
+
+    private ScriptRunner runner(boolean runDoesSomething, boolean noPluginRequests = true) {
+        return Stub(ScriptRunner) {
+            getRunDoesSomething() >> runDoesSomething
+            getData() >> Stub(PluginRequests) {
+                isEmpty() >> noPluginRequests
+            }
+        }
+    }
+}
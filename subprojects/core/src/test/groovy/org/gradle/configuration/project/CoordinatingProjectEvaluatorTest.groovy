@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.internal.resources.ResourceLock
+import org.gradle.internal.work.WorkerLeaseService
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.Path
+
+import java.util.concurrent.Executor
+
+class CoordinatingProjectEvaluatorTest extends ConcurrentSpec {
+    def delegate = Mock(ProjectEvaluator)
+    def workerLeaseService = Mock(WorkerLeaseService)
+    def evaluator = new CoordinatingProjectEvaluator(delegate, workerLeaseService)
+    def gradle = Stub(GradleInternal) {
+        getIdentityPath() >> Path.ROOT
+    }
+    def lock = Stub(ResourceLock)
+    def project1 = project(":p1")
+    def project2 = project(":p2")
+    def project3 = project(":p3")
+    def state1 = Stub(ProjectStateInternal)
+    def state2 = Stub(ProjectStateInternal)
+
+    def "delegates evaluation when not configuring in parallel"() {
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1)
+        0 * workerLeaseService._
+        !evaluator.crossProjectEvaluationDetected
+    }
+
+    def "evaluates project while holding its lock when configuring in parallel"() {
+        given:
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * workerLeaseService.getProjectLock(":", ":p1") >> lock
+        1 * workerLeaseService.withLocks(lock) >> directExecutor()
+
+        then:
+        1 * delegate.evaluate(project1, state1)
+        !evaluator.crossProjectEvaluationDetected
+    }
+
+    def "does not take project lock for a project that has already been evaluated"() {
+        given:
+        state1.executed >> true
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1)
+        0 * workerLeaseService._
+    }
+
+    def "detects evaluation of another project while evaluating a project"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1) >> { evaluator.evaluate(project2, state2) }
+        1 * delegate.evaluate(project2, state2)
+        evaluator.crossProjectEvaluationDetected
+    }
+
+    def "does not detect nested evaluation of the same project"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1) >> { evaluator.evaluate(project1, state1) }
+        1 * delegate.evaluate(project1, state1)
+        !evaluator.crossProjectEvaluationDetected
+    }
+
+    def "detects access to another project while evaluating a project"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1) >> { evaluator.projectAccessed(project2) }
+        evaluator.crossProjectEvaluationDetected
+    }
+
+    def "does not detect access to the project being evaluated or access from outside evaluation"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        evaluator.startParallelConfiguration()
+
+        when:
+        evaluator.projectAccessed(project2)
+        evaluator.evaluate(project1, state1)
+
+        then:
+        1 * delegate.evaluate(project1, state1) >> { evaluator.projectAccessed(project1) }
+        !evaluator.crossProjectEvaluationDetected
+    }
+
+    def "access to another project waits until other threads have finished evaluating"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        delegate.evaluate(project1, state1) >> {
+            instant.project1Started
+            thread.blockUntil.accessRequested
+            thread.block()
+            instant.project1Finished
+        }
+        delegate.evaluate(project2, state2) >> {
+            thread.blockUntil.project1Started
+            instant.accessRequested
+            evaluator.projectAccessed(project3)
+            instant.accessed
+        }
+        evaluator.startParallelConfiguration()
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project1, state1)
+            }
+            start {
+                evaluator.evaluate(project2, state2)
+            }
+        }
+
+        then:
+        instant.accessed > instant.project1Finished
+        evaluator.crossProjectEvaluationDetected
+    }
+
+    def "threads that access other projects continue one at a time"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        delegate.evaluate(project1, state1) >> {
+            instant.project1Started
+            thread.blockUntil.project2Started
+            evaluator.projectAccessed(project3)
+            instant.project1Accessed
+            thread.block()
+            instant.project1Finished
+        }
+        delegate.evaluate(project2, state2) >> {
+            instant.project2Started
+            thread.blockUntil.project1Started
+            evaluator.projectAccessed(project3)
+            instant.project2Accessed
+            thread.block()
+            instant.project2Finished
+        }
+        evaluator.startParallelConfiguration()
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project1, state1)
+            }
+            start {
+                evaluator.evaluate(project2, state2)
+            }
+        }
+
+        then:
+        instant.project1Accessed > instant.project2Finished || instant.project2Accessed > instant.project1Finished
+    }
+
+    def "resets detection when parallel configuration is started again"() {
+        given:
+        workerLeaseService.getProjectLock(_, _) >> lock
+        workerLeaseService.withLocks(_) >> directExecutor()
+        delegate.evaluate(project1, state1) >> { evaluator.evaluate(project2, state2) }
+        evaluator.startParallelConfiguration()
+        evaluator.evaluate(project1, state1)
+        evaluator.finishParallelConfiguration()
+
+        when:
+        evaluator.startParallelConfiguration()
+
+        then:
+        !evaluator.crossProjectEvaluationDetected
+    }
+
+    private ProjectInternal project(String path) {
+        return Stub(ProjectInternal) {
+            getGradle() >> gradle
+            getIdentityPath() >> Path.path(path)
+        }
+    }
+
+    private static Executor directExecutor() {
+        return new Executor() {
+            @Override
+            void execute(Runnable runnable) {
+                runnable.run()
+            }
+        }
+    }
+}
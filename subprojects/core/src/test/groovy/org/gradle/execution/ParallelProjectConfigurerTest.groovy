@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.configuration.project.CoordinatingProjectEvaluator
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
+import spock.lang.Specification
+
+class ParallelProjectConfigurerTest extends Specification {
+    def cancellationToken = Stub(BuildCancellationToken)
+    def projectEvaluator = Mock(CoordinatingProjectEvaluator)
+    def buildOperationProcessor = Stub(BuildOperationProcessor) {
+        run(_) >> { args ->
+            def operations = []
+            args[0].execute([add: { operations << it }] as BuildOperationQueue)
+            operations*.run()
+        }
+    }
+    def configurer = new ParallelProjectConfigurer(cancellationToken, projectEvaluator, buildOperationProcessor)
+    def configured = [] as LinkedHashSet
+    def root = project(0)
+
+    def "configures root project before subprojects, one level at a time"() {
+        def grandChild = project(2)
+        def child1 = project(1)
+        def child2 = project(1)
+
+        given:
+        root.subprojects >> ([grandChild, child1, child2] as LinkedHashSet)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured as List == [root, child1, child2, grandChild]
+
+        and:
+        1 * projectEvaluator.startParallelConfiguration()
+        1 * projectEvaluator.finishParallelConfiguration()
+    }
+
+    def "configures remaining projects sequentially when cross project evaluation is detected"() {
+        def child1 = project(1)
+        def child2 = project(1)
+        def grandChild = project(2)
+
+        given:
+        root.subprojects >> ([child1, child2, grandChild] as LinkedHashSet)
+        projectEvaluator.crossProjectEvaluationDetected >> true
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured as List == [root, child1, child2, grandChild]
+    }
+
+    def "rethrows the first failure in hierarchy order and does not configure the next level in parallel"() {
+        def failure = new RuntimeException("broken")
+        def child1 = project(1, Stub(ProjectStateInternal) {
+            hasFailure() >> true
+            rethrowFailure() >> { throw failure }
+        })
+        def child2 = project(1)
+        def grandChild = project(2)
+
+        given:
+        root.subprojects >> ([child1, child2, grandChild] as LinkedHashSet)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+
+        and:
+        configured as List == [root, child1, child2]
+    }
+
+    def "does not use parallel configuration for a single subproject"() {
+        def child = project(1)
+
+        given:
+        root.subprojects >> ([child] as LinkedHashSet)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured as List == [root, child]
+        0 * projectEvaluator._
+    }
+
+    private ProjectInternal project(int depth, ProjectStateInternal state = Stub(ProjectStateInternal)) {
+        def project = Mock(ProjectInternal)
+        project.depth >> depth
+        project.state >> state
+        project.evaluate() >> { configured << project; project }
+        return project
+    }
+}
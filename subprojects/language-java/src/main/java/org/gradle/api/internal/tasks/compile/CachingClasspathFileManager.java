@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.io.CharStreams;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A file manager that lists the jars on the compile classpath using the indexes kept by a {@link ClasspathArchiveCache}, instead of letting javac
+ * read every jar again. Directories on the classpath are listed directly. Everything else is handled by the standard file manager.
+ */
+class CachingClasspathFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final ClasspathArchiveCache archiveCache;
+    private final Charset charset;
+    private final Map<File, ClasspathArchive> archives = new HashMap<File, ClasspathArchive>();
+    private final Map<File, ZipFile> openArchives = new HashMap<File, ZipFile>();
+
+    CachingClasspathFileManager(StandardJavaFileManager fileManager, ClasspathArchiveCache archiveCache, Charset charset) {
+        super(fileManager);
+        this.archiveCache = archiveCache;
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        Iterable<? extends File> classpath = location == StandardLocation.CLASS_PATH ? fileManager.getLocation(location) : null;
+        if (classpath == null) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+
+        List<JavaFileObject> result = new ArrayList<JavaFileObject>();
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                listDirectory(new File(entry, packageName.replace('.', File.separatorChar)), kinds, recurse, result);
+            } else if (entry.isFile()) {
+                ClasspathArchive archive = getArchive(entry);
+                if (archive == null) {
+                    // Could not read the jar, let javac deal with the whole classpath
+                    return super.list(location, packageName, kinds, recurse);
+                }
+                listArchive(archive, packageName, kinds, recurse, result);
+            }
+        }
+        return result;
+    }
+
+    private ClasspathArchive getArchive(File file) {
+        ClasspathArchive archive = archives.get(file);
+        if (archive == null) {
+            try {
+                archive = archiveCache.get(file);
+            } catch (IOException e) {
+                archiveCache.invalidate(file);
+                return null;
+            }
+            archives.put(file, archive);
+        }
+        return archive;
+    }
+
+    private void listDirectory(File dir, Set<JavaFileObject.Kind> kinds, boolean recurse, List<JavaFileObject> result) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (recurse) {
+                    listDirectory(file, kinds, true, result);
+                }
+            } else if (kinds.contains(kindOf(file.getName()))) {
+                for (JavaFileObject fileObject : fileManager.getJavaFileObjects(file)) {
+                    result.add(fileObject);
+                }
+            }
+        }
+    }
+
+    private void listArchive(ClasspathArchive archive, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse, List<JavaFileObject> result) {
+        addEntries(archive, packageName, kinds, result);
+        if (recurse) {
+            String prefix = packageName.length() == 0 ? "" : packageName + ".";
+            for (String candidate : archive.getPackages()) {
+                if (candidate.length() > prefix.length() && candidate.startsWith(prefix)) {
+                    addEntries(archive, candidate, kinds, result);
+                }
+            }
+        }
+    }
+
+    private void addEntries(ClasspathArchive archive, String packageName, Set<JavaFileObject.Kind> kinds, List<JavaFileObject> result) {
+        for (String entryName : archive.getEntries(packageName)) {
+            JavaFileObject.Kind kind = kindOf(entryName);
+            if (kinds.contains(kind)) {
+                result.add(new ArchiveEntryFileObject(archive, entryName, kind));
+            }
+        }
+    }
+
+    private static JavaFileObject.Kind kindOf(String name) {
+        for (JavaFileObject.Kind kind : JavaFileObject.Kind.values()) {
+            if (kind != JavaFileObject.Kind.OTHER && name.endsWith(kind.extension)) {
+                return kind;
+            }
+        }
+        return JavaFileObject.Kind.OTHER;
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof ArchiveEntryFileObject) {
+            return ((ArchiveEntryFileObject) file).getBinaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof ArchiveEntryFileObject || b instanceof ArchiveEntryFileObject) {
+            return a.equals(b);
+        }
+        return super.isSameFile(a, b);
+    }
+
+    private InputStream openEntry(ClasspathArchive archive, String entryName) throws IOException {
+        ZipFile zipFile = openArchives.get(archive.getFile());
+        if (zipFile == null) {
+            zipFile = new ZipFile(archive.getFile());
+            openArchives.put(archive.getFile(), zipFile);
+        }
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+            archiveCache.invalidate(archive.getFile());
+            throw new FileNotFoundException(String.format("Entry %s not found in %s.", entryName, archive.getFile()));
+        }
+        return zipFile.getInputStream(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (ZipFile zipFile : openArchives.values()) {
+                zipFile.close();
+            }
+            openArchives.clear();
+        } finally {
+            super.close();
+        }
+    }
+
+    private class ArchiveEntryFileObject extends SimpleJavaFileObject {
+        private final ClasspathArchive archive;
+        private final String entryName;
+
+        ArchiveEntryFileObject(ClasspathArchive archive, String entryName, Kind kind) {
+            super(URI.create("jar:" + archive.getFile().toURI() + "!/" + entryName), kind);
+            this.archive = archive;
+            this.entryName = entryName;
+        }
+
+        String getBinaryName() {
+            return entryName.substring(0, entryName.length() - kind.extension.length()).replace('/', '.');
+        }
+
+        @Override
+        public String getName() {
+            return archive.getFile().getPath() + "(" + entryName + ")";
+        }
+
+        @Override
+        public boolean isNameCompatible(String simpleName, Kind kind) {
+            return this.kind == kind && entryName.substring(entryName.lastIndexOf('/') + 1).equals(simpleName + kind.extension);
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            return openEntry(archive, entryName);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            InputStreamReader reader = new InputStreamReader(openInputStream(), charset);
+            try {
+                return CharStreams.toString(reader);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public long getLastModified() {
+            return archive.getLastModified();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ArchiveEntryFileObject)) {
+                return false;
+            }
+            ArchiveEntryFileObject other = (ArchiveEntryFileObject) obj;
+            return archive.getFile().equals(other.archive.getFile()) && entryName.equals(other.entryName);
+        }
+
+        @Override
+        public int hashCode() {
+            return archive.getFile().hashCode() ^ entryName.hashCode();
+        }
+    }
+}
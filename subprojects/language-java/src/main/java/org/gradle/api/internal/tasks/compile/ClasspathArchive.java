@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the entries of a jar on the compile classpath, grouped by package.
+ */
+class ClasspathArchive {
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private final ListMultimap<String, String> entriesByPackage;
+
+    private ClasspathArchive(File file, long length, long lastModified, ListMultimap<String, String> entriesByPackage) {
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.entriesByPackage = entriesByPackage;
+    }
+
+    static ClasspathArchive read(File file, long length, long lastModified) throws IOException {
+        ImmutableListMultimap.Builder<String, String> entries = ImmutableListMultimap.builder();
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = entry.getName();
+                int separator = name.lastIndexOf('/');
+                String packageName = separator < 0 ? "" : name.substring(0, separator).replace('/', '.');
+                entries.put(packageName, name);
+            }
+        } finally {
+            zipFile.close();
+        }
+        return new ClasspathArchive(file, length, lastModified, entries.build());
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    boolean isUpToDate(long length, long lastModified) {
+        return this.length == length && this.lastModified == lastModified;
+    }
+
+    Iterable<String> getPackages() {
+        return entriesByPackage.keySet();
+    }
+
+    /**
+     * Returns the names of the entries directly in the given package.
+     */
+    Iterable<String> getEntries(String packageName) {
+        return entriesByPackage.get(packageName);
+    }
+}
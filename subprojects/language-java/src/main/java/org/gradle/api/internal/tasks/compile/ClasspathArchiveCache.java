@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.concurrent.ThreadSafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the indexes of the jars on the compile classpath for the lifetime of the process, so that they do not need to be read again for every
+ * compilation. An index is read again when the length or the modification time of its jar has changed.
+ */
+public class ClasspathArchiveCache implements ThreadSafe {
+    private static final ClasspathArchiveCache INSTANCE = new ClasspathArchiveCache(2000);
+
+    private final Cache<File, ClasspathArchive> archives;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public static ClasspathArchiveCache getInstance() {
+        return INSTANCE;
+    }
+
+    ClasspathArchiveCache(int maxArchives) {
+        archives = CacheBuilder.newBuilder().maximumSize(maxArchives).build();
+    }
+
+    ClasspathArchive get(File file) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        ClasspathArchive archive = archives.getIfPresent(file);
+        if (archive != null && archive.isUpToDate(length, lastModified)) {
+            hits.incrementAndGet();
+            return archive;
+        }
+        misses.incrementAndGet();
+        archive = ClasspathArchive.read(file, length, lastModified);
+        archives.put(file, archive);
+        return archive;
+    }
+
+    void invalidate(File file) {
+        archives.invalidate(file);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -22,4 +22,9 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
+
+    /**
+     * Analyzes a class file whose content has already been read, for example to calculate its hash.
+     */
+    ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFileContent);
 }
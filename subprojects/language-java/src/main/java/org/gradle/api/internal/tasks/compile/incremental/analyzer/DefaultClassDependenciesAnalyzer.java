@@ -30,11 +30,20 @@ import java.io.InputStream;
 public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
 
     public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
-        ClassReader reader = new Java9ClassReader(ByteStreams.toByteArray(input));
+        return getClassAnalysis(ByteStreams.toByteArray(input));
+    }
+
+    private ClassAnalysis getClassAnalysis(byte[] classFileContent) {
+        ClassReader reader = new Java9ClassReader(classFileContent);
         String className = reader.getClassName().replace("/", ".");
         return ClassDependenciesVisitor.analyze(className, reader);
     }
 
+    @Override
+    public ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFileContent) {
+        return getClassAnalysis(classFileContent);
+    }
+
     @Override
     public ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile) {
         try {
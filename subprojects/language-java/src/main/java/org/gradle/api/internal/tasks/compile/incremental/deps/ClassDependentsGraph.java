@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Nullable;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable graph of the dependents of a set of classes. Each class name is stored once in a table and
+ * the dependents of a class are kept as indices into that table, in compressed sparse row form.
+ */
+public class ClassDependentsGraph {
+    static final byte NO_ENTRY = 0;
+    static final byte DEPENDENTS = 1;
+    static final byte DEPENDENCY_TO_ALL = 2;
+
+    final String[] classNames;
+    final byte[] kinds;
+    final int[] offsets;
+    final int[] dependents;
+    final Map<Integer, String> reasons;
+    private final Map<String, Integer> classIndex;
+
+    ClassDependentsGraph(String[] classNames, byte[] kinds, int[] offsets, int[] dependents, Map<Integer, String> reasons) {
+        this.classNames = classNames;
+        this.kinds = kinds;
+        this.offsets = offsets;
+        this.dependents = dependents;
+        this.reasons = reasons;
+        this.classIndex = new HashMap<String, Integer>(classNames.length * 4 / 3 + 1);
+        for (int i = 0; i < classNames.length; i++) {
+            classIndex.put(classNames[i], i);
+        }
+    }
+
+    public static ClassDependentsGraph of(Map<String, DependentsSet> dependentsMap) {
+        Map<String, Integer> indices = new LinkedHashMap<String, Integer>();
+        int edgeCount = 0;
+        for (Map.Entry<String, DependentsSet> entry : dependentsMap.entrySet()) {
+            intern(entry.getKey(), indices);
+            if (!entry.getValue().isDependencyToAll()) {
+                for (String dependent : entry.getValue().getDependentClasses()) {
+                    intern(dependent, indices);
+                    edgeCount++;
+                }
+            }
+        }
+
+        int classCount = indices.size();
+        String[] classNames = indices.keySet().toArray(new String[classCount]);
+        byte[] kinds = new byte[classCount];
+        int[] counts = new int[classCount];
+        Map<Integer, String> reasons = new HashMap<Integer, String>();
+        for (Map.Entry<String, DependentsSet> entry : dependentsMap.entrySet()) {
+            int index = indices.get(entry.getKey());
+            DependentsSet dependentsSet = entry.getValue();
+            if (dependentsSet.isDependencyToAll()) {
+                kinds[index] = DEPENDENCY_TO_ALL;
+                if (dependentsSet.getDescription() != null) {
+                    reasons.put(index, dependentsSet.getDescription());
+                }
+            } else {
+                kinds[index] = DEPENDENTS;
+                counts[index] = dependentsSet.getDependentClasses().size();
+            }
+        }
+
+        int[] offsets = new int[classCount + 1];
+        for (int i = 0; i < classCount; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        int[] dependents = new int[edgeCount];
+        for (Map.Entry<String, DependentsSet> entry : dependentsMap.entrySet()) {
+            if (!entry.getValue().isDependencyToAll()) {
+                int pos = offsets[indices.get(entry.getKey())];
+                for (String dependent : entry.getValue().getDependentClasses()) {
+                    dependents[pos++] = indices.get(dependent);
+                }
+            }
+        }
+        return new ClassDependentsGraph(classNames, kinds, offsets, dependents, reasons);
+    }
+
+    private static void intern(String className, Map<String, Integer> indices) {
+        if (!indices.containsKey(className)) {
+            indices.put(className, indices.size());
+        }
+    }
+
+    /**
+     * Returns the direct dependents of the given class, or null when nothing is known about the class.
+     */
+    @Nullable
+    public DependentsSet getDependents(String className) {
+        int index = indexOf(className);
+        if (index < 0 || kinds[index] == NO_ENTRY) {
+            return null;
+        }
+        if (kinds[index] == DEPENDENCY_TO_ALL) {
+            return new DependencyToAll(reasons.get(index));
+        }
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            builder.add(classNames[dependents[i]]);
+        }
+        return new DefaultDependentsSet(builder.build());
+    }
+
+    public boolean isDependencyToAll(String className) {
+        int index = indexOf(className);
+        return index >= 0 && kinds[index] == DEPENDENCY_TO_ALL;
+    }
+
+    /**
+     * Collects the transitive dependents of the given class into the given set of class indices.
+     * The class itself is not included, even when it depends on itself through a cycle.
+     * The traversal does not continue through classes that are a dependency to all.
+     */
+    void collectTransitiveDependents(int root, BitSet result) {
+        BitSet visited = new BitSet(classNames.length);
+        int[] queue = new int[classNames.length];
+        int head = 0;
+        int tail = 0;
+        for (int i = offsets[root]; i < offsets[root + 1]; i++) {
+            int dependent = dependents[i];
+            if (!visited.get(dependent)) {
+                visited.set(dependent);
+                queue[tail++] = dependent;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            if (kinds[current] != DEPENDENTS) {
+                continue;
+            }
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int dependent = dependents[i];
+                if (!visited.get(dependent)) {
+                    visited.set(dependent);
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+        visited.clear(root);
+        result.or(visited);
+    }
+
+    /**
+     * Converts a set of class indices into class names, leaving out inner classes.
+     */
+    Set<String> toTopLevelClassNames(BitSet classes) {
+        Set<String> result = new HashSet<String>(classes.cardinality() * 4 / 3 + 1);
+        for (int i = classes.nextSetBit(0); i >= 0; i = classes.nextSetBit(i + 1)) {
+            String className = classNames[i];
+            if (className.indexOf('$') < 0) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
+    int indexOf(String className) {
+        Integer index = classIndex.get(className);
+        return index == null ? -1 : index;
+    }
+
+    int size() {
+        return classNames.length;
+    }
+}
@@ -16,9 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.Sets;
-
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Set;
 
 public class ClassSetAnalysis {
@@ -30,69 +28,47 @@ public class ClassSetAnalysis {
     }
 
     public DependentsSet getRelevantDependents(Iterable<String> classes, Set<Integer> constants) {
-        Set<String> result = null;
+        ClassDependentsGraph graph = data.dependents;
+        BitSet result = null;
         for (String cls : classes) {
-            DependentsSet d = getRelevantDependents(cls, constants);
-            if (d.isDependencyToAll()) {
-                return d;
+            int index = graph.indexOf(cls);
+            if (index >= 0 && graph.kinds[index] == ClassDependentsGraph.DEPENDENCY_TO_ALL) {
+                return graph.getDependents(cls);
+            }
+            if (!constants.isEmpty()) {
+                return DependencyToAll.INSTANCE;
             }
-            Set<String> dependentClasses = d.getDependentClasses();
-            if (dependentClasses.isEmpty()) {
+            if (index < 0 || graph.kinds[index] == ClassDependentsGraph.NO_ENTRY) {
                 continue;
             }
             if (result == null) {
-                result = Sets.newLinkedHashSet();
+                result = new BitSet(graph.size());
             }
-            for (String dependentClass : dependentClasses) {
-                result.add(dependentClass);
-                Set<String> children = data.classesToChildren.get(dependentClass);
-                if (children != null && children.contains(cls)) {
-                    System.out.println("children = " + children);
-                }
-            }
-            result.addAll(dependentClasses);
+            graph.collectTransitiveDependents(index, result);
         }
-        return result == null ? DefaultDependentsSet.EMPTY : new DefaultDependentsSet(result);
+        return result == null ? DefaultDependentsSet.EMPTY : new DefaultDependentsSet(graph.toTopLevelClassNames(result));
     }
 
     public DependentsSet getRelevantDependents(String className, Set<Integer> constants) {
-        DependentsSet deps = data.getDependents(className);
-        if (deps != null && deps.isDependencyToAll()) {
-            return deps;
-        }
-        if (deps == null && constants.isEmpty()) {
-            return DefaultDependentsSet.EMPTY;
+        ClassDependentsGraph graph = data.dependents;
+        int index = graph.indexOf(className);
+        byte kind = index < 0 ? ClassDependentsGraph.NO_ENTRY : graph.kinds[index];
+        if (kind == ClassDependentsGraph.DEPENDENCY_TO_ALL) {
+            return graph.getDependents(className);
         }
         if (!constants.isEmpty()) {
             return DependencyToAll.INSTANCE;
         }
-        Set<String> result = new HashSet<String>();
-        if (deps != null && !deps.isDependencyToAll()) {
-            recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
+        if (kind == ClassDependentsGraph.NO_ENTRY) {
+            return DefaultDependentsSet.EMPTY;
         }
-        result.remove(className);
-        return new DefaultDependentsSet(result);
-
+        BitSet result = new BitSet(graph.size());
+        graph.collectTransitiveDependents(index, result);
+        return new DefaultDependentsSet(graph.toTopLevelClassNames(result));
     }
 
     public boolean isDependencyToAll(String className) {
-        DependentsSet deps = data.getDependents(className);
-        return deps != null && deps.isDependencyToAll();
-    }
-
-    private void recurseDependents(Set<String> visited, Set<String> result, Set<String> dependentClasses) {
-        for (String d : dependentClasses) {
-            if (!visited.add(d)) {
-                continue;
-            }
-            if (!d.contains("$")) { //filter out the inner classes
-                result.add(d);
-            }
-            DependentsSet currentDependents = data.getDependents(d);
-            if (currentDependents != null && !currentDependents.isDependencyToAll()) {
-                recurseDependents(visited, result, currentDependents.getDependentClasses());
-            }
-        }
+        return data.dependents.isDependencyToAll(className);
     }
 
     public ClassSetAnalysisData getData() {
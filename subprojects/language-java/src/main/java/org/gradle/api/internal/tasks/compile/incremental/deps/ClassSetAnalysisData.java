@@ -27,6 +27,7 @@ import org.gradle.internal.serialize.SetSerializer;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,16 +35,20 @@ import static org.gradle.internal.serialize.BaseSerializerFactory.INTEGER_SERIAL
 
 public class ClassSetAnalysisData {
     final Map<String, String> filePathToClassName;
-    final Map<String, DependentsSet> dependents;
+    final ClassDependentsGraph dependents;
     final Map<String, Set<Integer>> classesToConstants;
     final Map<Integer, Set<String>> literalsToClasses;
     final Map<String, Set<String>> classesToChildren;
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Multimap<String, Integer> classesToConstants, Multimap<Integer, String> literalsToClasses, Multimap<String, String> classesToChildren) {
-        this(filePathToClassName, dependents, asMap(classesToConstants), asMap(literalsToClasses), asMap(classesToChildren));
+        this(filePathToClassName, ClassDependentsGraph.of(dependents), asMap(classesToConstants), asMap(literalsToClasses), asMap(classesToChildren));
     }
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren) {
+        this(filePathToClassName, ClassDependentsGraph.of(dependents), classesToConstants, literalsToClasses, classesToChildren);
+    }
+
+    ClassSetAnalysisData(Map<String, String> filePathToClassName, ClassDependentsGraph dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren) {
         this.filePathToClassName = filePathToClassName;
         this.dependents = dependents;
         this.classesToConstants = classesToConstants;
@@ -64,7 +69,7 @@ public class ClassSetAnalysisData {
     }
 
     public DependentsSet getDependents(String className) {
-        return dependents.get(className);
+        return dependents.getDependents(className);
     }
 
     public Set<Integer> getConstants(String className) {
@@ -85,29 +90,27 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            // Class names are de-duplicated when encoded
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
+            // All class names are written once, up front, and referenced by index afterwards.
+            // The classes of the dependents graph come first so that its indices can be used as-is.
             int count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, String> filePathToClassNameBuilder = ImmutableMap.builder();
+            String[] classNames = new String[count];
             for (int i = 0; i < count; i++) {
-                String filePath = decoder.readString();
-                String className = readClassName(decoder, classNameMap);
-                filePathToClassNameBuilder.put(filePath, className);
+                classNames[i] = decoder.readString();
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
+            ImmutableMap.Builder<String, String> filePathToClassNameBuilder = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+                String filePath = decoder.readString();
+                filePathToClassNameBuilder.put(filePath, classNames[decoder.readSmallInt()]);
             }
 
+            ClassDependentsGraph dependents = readDependents(decoder, classNames);
+
             count = decoder.readSmallInt();
             ImmutableMap.Builder<String, Set<Integer>> classesToConstantsBuilder = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
+                String className = classNames[decoder.readSmallInt()];
                 Set<Integer> constants = INTEGER_SET_SERIALIZER.read(decoder);
                 classesToConstantsBuilder.put(className, constants);
             }
@@ -116,119 +119,140 @@ public class ClassSetAnalysisData {
             ImmutableMap.Builder<Integer, Set<String>> literalsToClassesBuilder = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
                 int literal = decoder.readInt();
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
-                }
-                literalsToClassesBuilder.put(literal, namesBuilder.build());
+                literalsToClassesBuilder.put(literal, readClassNames(decoder, classNames));
             }
 
             count = decoder.readSmallInt();
             ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
             for (int i = 0; i < count; i++) {
-                String parent = readClassName(decoder, classNameMap);
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
-                }
-                classNameToChildren.put(parent, namesBuilder.build());
+                String parent = classNames[decoder.readSmallInt()];
+                classNameToChildren.put(parent, readClassNames(decoder, classNames));
             }
 
-            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), literalsToClassesBuilder.build(), classNameToChildren.build());
+            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependents, classesToConstantsBuilder.build(), literalsToClassesBuilder.build(), classNameToChildren.build());
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            // Deduplicate class names when encoding.
-            // This would be more efficient with a better data structure in ClassSetAnalysisData
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
+            ClassDependentsGraph dependents = value.dependents;
+            Map<String, Integer> classNameMap = new LinkedHashMap<String, Integer>();
+            for (String className : dependents.classNames) {
+                classNameMap.put(className, classNameMap.size());
+            }
+            for (String className : value.filePathToClassName.values()) {
+                intern(className, classNameMap);
+            }
+            for (String className : value.classesToConstants.keySet()) {
+                intern(className, classNameMap);
+            }
+            for (Set<String> classNames : value.literalsToClasses.values()) {
+                for (String className : classNames) {
+                    intern(className, classNameMap);
+                }
+            }
+            for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
+                intern(entry.getKey(), classNameMap);
+                for (String className : entry.getValue()) {
+                    intern(className, classNameMap);
+                }
+            }
+
+            encoder.writeSmallInt(classNameMap.size());
+            for (String className : classNameMap.keySet()) {
+                encoder.writeString(className);
+            }
 
             encoder.writeSmallInt(value.filePathToClassName.size());
             for (Map.Entry<String, String> entry : value.filePathToClassName.entrySet()) {
                 encoder.writeString(entry.getKey());
-                writeClassName(entry.getValue(), classNameMap, encoder);
+                encoder.writeSmallInt(classNameMap.get(entry.getValue()));
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
-            }
+            writeDependents(encoder, dependents);
 
             encoder.writeSmallInt(value.classesToConstants.size());
             for (Map.Entry<String, Set<Integer>> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
+                encoder.writeSmallInt(classNameMap.get(entry.getKey()));
                 INTEGER_SET_SERIALIZER.write(encoder, entry.getValue());
             }
 
             encoder.writeSmallInt(value.literalsToClasses.size());
             for (Map.Entry<Integer, Set<String>> entry : value.literalsToClasses.entrySet()) {
                 encoder.writeInt(entry.getKey());
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+                writeClassNames(encoder, entry.getValue(), classNameMap);
             }
 
             encoder.writeSmallInt(value.classesToChildren.size());
             for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
+                encoder.writeSmallInt(classNameMap.get(entry.getKey()));
+                writeClassNames(encoder, entry.getValue(), classNameMap);
+            }
+        }
+
+        private ClassDependentsGraph readDependents(Decoder decoder, String[] classNames) throws IOException {
+            int classCount = decoder.readSmallInt();
+            String[] graphClassNames = new String[classCount];
+            System.arraycopy(classNames, 0, graphClassNames, 0, classCount);
+            byte[] kinds = new byte[classCount];
+            int[] offsets = new int[classCount + 1];
+            int[] dependents = new int[decoder.readSmallInt()];
+            Map<Integer, String> reasons = new HashMap<Integer, String>();
+            int pos = 0;
+            for (int i = 0; i < classCount; i++) {
+                kinds[i] = decoder.readByte();
+                if (kinds[i] == ClassDependentsGraph.DEPENDENCY_TO_ALL) {
+                    String reason = decoder.readNullableString();
+                    if (reason != null) {
+                        reasons.put(i, reason);
+                    }
+                } else if (kinds[i] == ClassDependentsGraph.DEPENDENTS) {
+                    int count = decoder.readSmallInt();
+                    for (int j = 0; j < count; j++) {
+                        dependents[pos++] = decoder.readSmallInt();
+                    }
                 }
+                offsets[i + 1] = pos;
             }
+            return new ClassDependentsGraph(graphClassNames, kinds, offsets, dependents, reasons);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return new DependencyToAll(decoder.readNullableString());
+        private void writeDependents(Encoder encoder, ClassDependentsGraph graph) throws IOException {
+            int classCount = graph.size();
+            encoder.writeSmallInt(classCount);
+            encoder.writeSmallInt(graph.dependents.length);
+            for (int i = 0; i < classCount; i++) {
+                byte kind = graph.kinds[i];
+                encoder.writeByte(kind);
+                if (kind == ClassDependentsGraph.DEPENDENCY_TO_ALL) {
+                    encoder.writeNullableString(graph.reasons.get(i));
+                } else if (kind == ClassDependentsGraph.DEPENDENTS) {
+                    encoder.writeSmallInt(graph.offsets[i + 1] - graph.offsets[i]);
+                    for (int j = graph.offsets[i]; j < graph.offsets[i + 1]; j++) {
+                        encoder.writeSmallInt(graph.dependents[j]);
+                    }
+                }
             }
+        }
+
+        private Set<String> readClassNames(Decoder decoder, String[] classNames) throws IOException {
             int count = decoder.readSmallInt();
             ImmutableSet.Builder<String> builder = ImmutableSet.builder();
             for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+                builder.add(classNames[decoder.readSmallInt()]);
             }
-            return new DefaultDependentsSet(builder.build());
+            return builder.build();
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+        private void writeClassNames(Encoder encoder, Set<String> classNames, Map<String, Integer> classNameMap) throws IOException {
+            encoder.writeSmallInt(classNames.size());
+            for (String className : classNames) {
+                encoder.writeSmallInt(classNameMap.get(className));
             }
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = decoder.readString();
-                classNameMap.put(id, className);
-                return className;
-            }
-            return classNameMap.get(id);
-        }
-
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
+        private static void intern(String className, Map<String, Integer> classNameMap) {
+            if (!classNameMap.containsKey(className)) {
+                classNameMap.put(className, classNameMap.size());
             }
         }
     }
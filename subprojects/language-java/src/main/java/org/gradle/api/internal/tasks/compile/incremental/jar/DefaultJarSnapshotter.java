@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 
 import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -25,6 +26,7 @@ import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenc
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
@@ -51,19 +53,10 @@ class DefaultJarSnapshotter {
                     return;
                 }
 
-                HashCode classFileHash;
-                InputStream inputStream = fileDetails.open();
-                try {
-                    classFileHash = hasher.hash(inputStream);
-                } finally {
-                    try {
-                        inputStream.close();
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }
-
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
+                // Read the class file once, then hash and analyze the same bytes
+                byte[] classFileContent = readContent(fileDetails);
+                HashCode classFileHash = hasher.hash(new ByteArrayInputStream(classFileContent));
+                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, classFileContent);
                 accumulator.addClass(analysis);
 
                 hashes.put(analysis.getClassName(), classFileHash);
@@ -72,4 +65,17 @@ class DefaultJarSnapshotter {
 
         return new JarSnapshot(new JarSnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
+
+    private static byte[] readContent(FileVisitDetails fileDetails) {
+        try {
+            InputStream inputStream = fileDetails.open();
+            try {
+                return ByteStreams.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
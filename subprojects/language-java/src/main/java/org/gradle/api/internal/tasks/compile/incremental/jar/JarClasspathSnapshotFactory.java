@@ -19,6 +19,10 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
+import org.gradle.api.Action;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
 import java.util.Map;
@@ -27,30 +31,75 @@ import java.util.Set;
 public class JarClasspathSnapshotFactory {
 
     private final JarSnapshotter jarSnapshotter;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter) {
+        this(jarSnapshotter, null);
+    }
+
+    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter, BuildOperationProcessor buildOperationProcessor) {
         this.jarSnapshotter = jarSnapshotter;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
-    JarClasspathSnapshot createSnapshot(Iterable<JarArchive> jarArchives) {
-        Map<File, JarSnapshot> jarSnapshots = Maps.newHashMap();
+    JarClasspathSnapshot createSnapshot(final Iterable<JarArchive> jarArchives) {
+        final Map<File, JarSnapshot> jarSnapshots = Maps.newConcurrentMap();
+        if (buildOperationProcessor == null) {
+            for (JarArchive jar : jarArchives) {
+                if (jar.file.exists()) {
+                    jarSnapshots.put(jar.file, jarSnapshotter.createSnapshot(jar));
+                }
+            }
+        } else {
+            // Snapshot the jars concurrently, the jar snapshotter and its caches are thread-safe
+            buildOperationProcessor.run(new Action<BuildOperationQueue<SnapshotJar>>() {
+                @Override
+                public void execute(BuildOperationQueue<SnapshotJar> queue) {
+                    for (JarArchive jar : jarArchives) {
+                        if (jar.file.exists()) {
+                            queue.add(new SnapshotJar(jar, jarSnapshots));
+                        }
+                    }
+                }
+            });
+        }
+
         Map<File, HashCode> jarHashes = Maps.newHashMap();
         Set<String> allClasses = Sets.newHashSet();
         Set<String> duplicateClasses = Sets.newHashSet();
-
         for (JarArchive jar : jarArchives) {
-            if (jar.file.exists()) {
-                JarSnapshot snapshot = jarSnapshotter.createSnapshot(jar);
-                jarSnapshots.put(jar.file, snapshot);
-                jarHashes.put(jar.file, snapshot.getHash());
-                for (String c : snapshot.getClasses()) {
-                    if (!allClasses.add(c)) {
-                        duplicateClasses.add(c);
-                    }
+            JarSnapshot snapshot = jarSnapshots.get(jar.file);
+            if (snapshot == null) {
+                continue;
+            }
+            jarHashes.put(jar.file, snapshot.getHash());
+            for (String c : snapshot.getClasses()) {
+                if (!allClasses.add(c)) {
+                    duplicateClasses.add(c);
                 }
             }
         }
         JarClasspathSnapshotData jarClasspathSnapshotData = new JarClasspathSnapshotData(jarHashes, duplicateClasses);
-        return new JarClasspathSnapshot(jarSnapshots, jarClasspathSnapshotData);
+        return new JarClasspathSnapshot(Maps.newHashMap(jarSnapshots), jarClasspathSnapshotData);
+    }
+
+    private class SnapshotJar implements RunnableBuildOperation {
+        private final JarArchive jar;
+        private final Map<File, JarSnapshot> jarSnapshots;
+
+        SnapshotJar(JarArchive jar, Map<File, JarSnapshot> jarSnapshots) {
+            this.jar = jar;
+            this.jarSnapshots = jarSnapshots;
+        }
+
+        @Override
+        public String getDescription() {
+            return "snapshotting jar " + jar.file.getName();
+        }
+
+        @Override
+        public void run() {
+            jarSnapshots.put(jar.file, jarSnapshotter.createSnapshot(jar));
+        }
     }
 }
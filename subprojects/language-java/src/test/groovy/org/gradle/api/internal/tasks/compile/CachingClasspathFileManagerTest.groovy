@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaFileObject
+import javax.tools.StandardLocation
+
+import static org.gradle.util.TestPrecondition.JDK8_OR_EARLIER
+
+@Requires(JDK8_OR_EARLIER)
+class CachingClasspathFileManagerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def archiveCache = new ClasspathArchiveCache(10)
+    def jar = tmpDir.file("lib.jar")
+    def classesDir = tmpDir.createDir("classes")
+
+    def setup() {
+        def jarContent = tmpDir.createDir("jarContent")
+        jarContent.file("org/gradle/A.class").text = "a"
+        jarContent.file("org/gradle/sub/B.class").text = "b"
+        jarContent.file("org/gradle/C.java").text = "class C {}"
+        jarContent.zipTo(jar)
+        classesDir.file("org/gradle/D.class").text = "d"
+    }
+
+    def "lists classes from jars and directories in classpath order"() {
+        def fileManager = fileManager()
+
+        when:
+        def classes = fileManager.list(StandardLocation.CLASS_PATH, "org.gradle", [JavaFileObject.Kind.CLASS] as Set, false).toList()
+
+        then:
+        classes.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } == ["org.gradle.A", "org.gradle.D"]
+        classes[0].openInputStream().text == "a"
+
+        when:
+        def all = fileManager.list(StandardLocation.CLASS_PATH, "org.gradle", [JavaFileObject.Kind.CLASS, JavaFileObject.Kind.SOURCE] as Set, true).toList()
+
+        then:
+        all.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } as Set == ["org.gradle.A", "org.gradle.C", "org.gradle.sub.B", "org.gradle.D"] as Set
+
+        cleanup:
+        fileManager?.close()
+    }
+
+    def "reuses jar index across file managers"() {
+        when:
+        list(fileManager())
+        list(fileManager())
+
+        then:
+        archiveCache.missCount == 1
+        archiveCache.hitCount == 1
+    }
+
+    def "reads jar index again when the jar has changed"() {
+        when:
+        list(fileManager())
+        jar.delete()
+        def jarContent = tmpDir.createDir("newJarContent")
+        jarContent.file("org/gradle/E.class").text = "e"
+        jarContent.zipTo(jar)
+        jar.setLastModified(jar.lastModified() + 2000)
+        def fileManager = fileManager()
+        def classes = list(fileManager)
+
+        then:
+        archiveCache.missCount == 2
+        classes.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } == ["org.gradle.E", "org.gradle.D"]
+    }
+
+    private CachingClasspathFileManager fileManager() {
+        def standardFileManager = JdkTools.current().systemJavaCompiler.getStandardFileManager(null, null, null)
+        standardFileManager.setLocation(StandardLocation.CLASS_PATH, [jar, classesDir])
+        return new CachingClasspathFileManager(standardFileManager, archiveCache, null)
+    }
+
+    private static List<JavaFileObject> list(CachingClasspathFileManager fileManager) {
+        try {
+            return fileManager.list(StandardLocation.CLASS_PATH, "org.gradle", [JavaFileObject.Kind.CLASS] as Set, false).toList()
+        } finally {
+            fileManager.close()
+        }
+    }
+}
@@ -181,6 +181,28 @@ class ClassSetAnalysisTest extends Specification {
         !a.isDependencyToAll("Unknown")
     }
 
+    def "does not recurse into dependents of a class that is a dependency to all"() {
+        def a = analysis([
+                "a": dependents("b"),
+                "b": dependentSet(true, []),
+                "c": dependents("d"),
+        ])
+        def deps = a.getRelevantDependents("a", [] as Set)
+
+        expect:
+        deps.dependentClasses == ["b"] as Set
+    }
+
+    def "includes input classes that are dependents of other input classes"() {
+        def a = analysis([
+                "A": dependents("B"), "B": dependents("A"),
+        ])
+        def deps = a.getRelevantDependents(["A", "B"], [] as Set)
+
+        expect:
+        deps.dependentClasses == ["A", "B"] as Set
+    }
+
     @NotYetImplemented
     //  Can re-enable with compiler plugins. See gradle/gradle#1474
     def "adds classes with literals as dependents"() {
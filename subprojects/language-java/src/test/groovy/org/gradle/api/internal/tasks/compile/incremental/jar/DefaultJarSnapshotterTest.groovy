@@ -71,11 +71,11 @@ class DefaultJarSnapshotterTest extends Specification {
             visitor.visitFile(new DefaultFileVisitDetails(f3, null, null))
         }
         1 * hasher.hash(_) >> f1Hash
-        1 * classDependenciesAnalyzer.getClassAnalysis(f1Hash, f1Details) >> Stub(ClassAnalysis) {
+        1 * classDependenciesAnalyzer.getClassAnalysis(f1Hash, _ as byte[]) >> Stub(ClassAnalysis) {
             getClassName() >> "Foo"
         }
         1 * hasher.hash(_) >> f2Hash
-        1 * classDependenciesAnalyzer.getClassAnalysis(f2Hash, f2Details) >> Stub(ClassAnalysis) {
+        1 * classDependenciesAnalyzer.getClassAnalysis(f2Hash, _ as byte[]) >> Stub(ClassAnalysis) {
             getClassName() >> "com.Foo2"
         }
         0 * _._
@@ -84,4 +84,28 @@ class DefaultJarSnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.analysis
     }
+
+    def "hashes and analyzes the same class file content"() {
+        def f1 = temp.createFile("foo/Foo.class")
+        f1.bytes = [1, 2, 3] as byte[]
+        def jarFileTree = Mock(FileTree)
+        def hashed = null
+        def analyzed = null
+
+        when:
+        snapshotter.createSnapshot(HashCode.fromInt(123), new JarArchive(temp.file("foo"), jarFileTree))
+
+        then:
+        1 * jarFileTree.visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        1 * hasher.hash(_ as InputStream) >> { InputStream input -> hashed = input.bytes; HashCode.fromInt(1) }
+        1 * classDependenciesAnalyzer.getClassAnalysis(HashCode.fromInt(1), _ as byte[]) >> { HashCode hash, byte[] content ->
+            analyzed = content
+            Stub(ClassAnalysis) { getClassName() >> "Foo" }
+        }
+        0 * _._
+
+        and:
+        hashed == [1, 2, 3] as byte[]
+        analyzed == [1, 2, 3] as byte[]
+    }
 }
@@ -18,6 +18,8 @@ package org.gradle.api.internal.tasks.compile.incremental.jar
 
 import com.google.common.hash.HashCode
 import org.gradle.api.file.FileTree
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -78,6 +80,33 @@ class JarClasspathSnapshotFactoryTest extends Specification {
         0 * snapshotter.createSnapshot(jar2)
     }
 
+    def "snapshots jars as build operations when build operation processor is available"() {
+        def operations = []
+        def buildOperationProcessor = Stub(BuildOperationProcessor) {
+            run(_) >> { args ->
+                args[0].execute([add: { operations << it }] as BuildOperationQueue)
+                operations*.run()
+            }
+        }
+        def factory = new JarClasspathSnapshotFactory(snapshotter, buildOperationProcessor)
+        def jar1 = stubArchive("f1"); def jar2 = stubArchive("f2"); def jar3 = stubArchive("f3", false)
+
+        def sn1 = Stub(JarSnapshot) { getHash() >> HashCode.fromString("1234"); getClasses() >> ["A", "B"] }
+        def sn2 = Stub(JarSnapshot) { getHash() >> HashCode.fromString("2345"); getClasses() >> ["B"] }
+
+        when:
+        def s = factory.createSnapshot([jar1, jar2, jar3])
+
+        then:
+        1 * snapshotter.createSnapshot(jar1) >> sn1
+        1 * snapshotter.createSnapshot(jar2) >> sn2
+        0 * snapshotter.createSnapshot(jar3)
+
+        operations.size() == 2
+        s.data.jarHashes.size() == 2
+        s.data.duplicateClasses == ["B"] as Set
+    }
+
     private JarArchive stubArchive(String name, boolean exists = true) {
         new JarArchive(new File(name) {
             boolean exists() { exists }
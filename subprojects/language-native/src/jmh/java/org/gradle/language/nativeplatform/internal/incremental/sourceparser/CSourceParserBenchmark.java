@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Compares finding the include directives of a set of source files with the {@link RegexBackedCSourceParser} and with the {@link ScanningCSourceParser}.
+ */
+@State(Scope.Benchmark)
+public class CSourceParserBenchmark {
+    private static final String[] STATEMENTS = {
+        "    int value = compute(left, right) * 2; // scale\n",
+        "    if (value > limit) {\n        return \"value is too large\";\n    }\n",
+        "    /* reset the counter\n       before the next pass */\n    counter = 0;\n",
+        "    printf(\"#include <not_a_directive.h>\\n\");\n",
+        "#define LONG_MACRO(a, b) \\\n    ((a) > (b) ? (a) : (b))\n",
+        "#ifdef DEBUG\n    log(\"debug\");\n#endif\n"
+    };
+
+    @Param({"500"})
+    int fileCount;
+
+    @Param({"200"})
+    int linesPerFile;
+
+    File sourceDir;
+    File[] sourceFiles;
+    CSourceParser regexBackedParser = new RegexBackedCSourceParser();
+    CSourceParser scanningParser = new ScanningCSourceParser();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        sourceDir = Files.createTempDir();
+        sourceFiles = new File[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            StringBuilder content = new StringBuilder();
+            content.append("#include <system").append(i % 10).append(".h>\n");
+            content.append("#include \"header").append(i).append(".h\"\n");
+            content.append("#  include   MACRO_HEADER  // configured header\n\n");
+            content.append("int function").append(i).append("(int left, int right) {\n");
+            for (int line = 0; line < linesPerFile; line++) {
+                content.append(STATEMENTS[random.nextInt(STATEMENTS.length)]);
+            }
+            content.append("}\n");
+            sourceFiles[i] = new File(sourceDir, "source" + i + ".cpp");
+            Files.write(content, sourceFiles[i], Charset.defaultCharset());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(sourceDir);
+    }
+
+    @Benchmark
+    public void regexBackedParser(Blackhole blackhole) {
+        parseAll(regexBackedParser, blackhole);
+    }
+
+    @Benchmark
+    public void scanningParser(Blackhole blackhole) {
+        parseAll(scanningParser, blackhole);
+    }
+
+    private void parseAll(CSourceParser parser, Blackhole blackhole) {
+        for (File sourceFile : sourceFiles) {
+            IncludeDirectives includeDirectives = parser.parseSource(sourceFile);
+            blackhole.consume(includeDirectives);
+        }
+    }
+}
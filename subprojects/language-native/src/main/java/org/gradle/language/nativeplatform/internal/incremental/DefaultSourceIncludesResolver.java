@@ -16,6 +16,7 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import com.google.common.collect.Sets;
+import org.gradle.api.Nullable;
 import org.gradle.internal.FileUtils;
 import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
@@ -27,9 +28,15 @@ import java.util.Set;
 
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private final List<File> includePaths;
+    private final IncludeDirectoryListingCache directoryListingCache;
 
     public DefaultSourceIncludesResolver(List<File> includePaths) {
+        this(includePaths, null);
+    }
+
+    public DefaultSourceIncludesResolver(List<File> includePaths, @Nullable IncludeDirectoryListingCache directoryListingCache) {
         this.includePaths = includePaths;
+        this.directoryListingCache = directoryListingCache;
     }
 
     @Override
@@ -60,6 +67,11 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private void searchForDependency(List<File> searchPath, String include, BuildableResolvedSourceIncludes dependencies) {
         for (File searchDir : searchPath) {
             File candidate = new File(searchDir, include);
+            if (directoryListingCache != null && !directoryListingCache.mayExist(searchDir, include)) {
+                // Nothing exists at the candidate location, so there is no need to check it
+                dependencies.searched(candidate);
+                continue;
+            }
             // TODO: SLG This isn't correct, we need to consider directories too
             // If a source file is #include <type_trait>
             // and includePath = [ A, B ]
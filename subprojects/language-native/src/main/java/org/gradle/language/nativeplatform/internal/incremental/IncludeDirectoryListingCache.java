@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.tasks.TaskOutputs;
+import org.gradle.api.tasks.TaskState;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the names of the entries of the directories searched for include files, so that each directory is listed once per build
+ * instead of being probed for every include of every source file of every compile task.
+ *
+ * The listings of directories that a task may write to are discarded both before and after the task executes: those overlapping the declared
+ * outputs of the task, or all of them when the task has actions but no declared outputs. Discarding them again afterwards drops any listing
+ * taken by a task running in parallel while the outputs were being written.
+ */
+public class IncludeDirectoryListingCache implements TaskExecutionListener {
+    private final ConcurrentMap<File, Set<String>> listings = new ConcurrentHashMap<File, Set<String>>();
+    private final boolean caseSensitive;
+    private final Object lock = new Object();
+    private final Set<PendingListing> pendingListings = new HashSet<PendingListing>();
+
+    public IncludeDirectoryListingCache(FileSystem fileSystem) {
+        this.caseSensitive = fileSystem.isCaseSensitive();
+    }
+
+    /**
+     * Returns false when there is definitely no file or directory at the given path relative to the given directory.
+     */
+    public boolean mayExist(File directory, String path) {
+        File current = directory;
+        int start = 0;
+        while (start <= path.length()) {
+            int end = nextSeparator(path, start);
+            String name = path.substring(start, end);
+            if (name.isEmpty() || name.equals(".") || name.equals("..") || (!caseSensitive && !isAscii(name))) {
+                // Cannot tell without following the path
+                return true;
+            }
+            if (!getListing(current).contains(normalize(name))) {
+                return false;
+            }
+            current = new File(current, name);
+            start = end + 1;
+        }
+        return true;
+    }
+
+    private static int nextSeparator(String path, int start) {
+        for (int i = start; i < path.length(); i++) {
+            char ch = path.charAt(i);
+            if (ch == '/' || ch == File.separatorChar) {
+                return i;
+            }
+        }
+        return path.length();
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String normalize(String name) {
+        return caseSensitive ? name : name.toLowerCase(Locale.US);
+    }
+
+    private Set<String> getListing(File directory) {
+        Set<String> listing = listings.get(directory);
+        if (listing == null) {
+            PendingListing pendingListing = new PendingListing(directory);
+            synchronized (lock) {
+                pendingListings.add(pendingListing);
+            }
+            String[] names = directory.list();
+            if (names == null) {
+                listing = ImmutableSet.of();
+            } else {
+                ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+                for (String name : names) {
+                    builder.add(normalize(name));
+                }
+                listing = builder.build();
+            }
+            synchronized (lock) {
+                pendingListings.remove(pendingListing);
+                // Do not keep a listing taken while the directory was being written to, as it may be out of date
+                if (!pendingListing.discarded) {
+                    listings.put(directory, listing);
+                }
+            }
+        }
+        return listing;
+    }
+
+    @Override
+    public void beforeExecute(Task task) {
+        discardOutputListings(task);
+    }
+
+    @Override
+    public void afterExecute(Task task, TaskState state) {
+        discardOutputListings(task);
+    }
+
+    private void discardOutputListings(Task task) {
+        if (task.getActions().isEmpty()) {
+            return;
+        }
+        TaskOutputs outputs = task.getOutputs();
+        if (!outputs.getHasOutput()) {
+            synchronized (lock) {
+                listings.clear();
+                for (PendingListing pendingListing : pendingListings) {
+                    pendingListing.discarded = true;
+                }
+            }
+            return;
+        }
+        List<String> outputPaths = new ArrayList<String>();
+        for (File output : outputs.getFiles()) {
+            outputPaths.add(normalize(output.getAbsolutePath()));
+        }
+        synchronized (lock) {
+            for (String outputPath : outputPaths) {
+                invalidate(outputPath);
+            }
+        }
+    }
+
+    private void invalidate(String outputPath) {
+        for (Iterator<File> iterator = listings.keySet().iterator(); iterator.hasNext();) {
+            if (overlaps(outputPath, iterator.next())) {
+                iterator.remove();
+            }
+        }
+        for (PendingListing pendingListing : pendingListings) {
+            if (overlaps(outputPath, pendingListing.directory)) {
+                pendingListing.discarded = true;
+            }
+        }
+    }
+
+    private boolean overlaps(String outputPath, File directory) {
+        String directoryPath = normalize(directory.getAbsolutePath());
+        return isSameOrAncestor(outputPath, directoryPath) || isSameOrAncestor(directoryPath, outputPath);
+    }
+
+    private static boolean isSameOrAncestor(String path, String descendantPath) {
+        return descendantPath.startsWith(path)
+            && (descendantPath.length() == path.length() || descendantPath.charAt(path.length()) == File.separatorChar || path.endsWith(File.separator));
+    }
+
+    private static class PendingListing {
+        private final File directory;
+        private boolean discarded;
+
+        PendingListing(File directory) {
+            this.directory = directory;
+        }
+    }
+}
@@ -18,8 +18,13 @@ package org.gradle.language.nativeplatform.internal.incremental;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.cache.PersistentStateCache;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,23 +39,36 @@ import java.util.Set;
 
 public class IncrementalCompileProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalCompileProcessor.class);
+    private static final int FILES_PER_OPERATION = 16;
 
     private final PersistentStateCache<CompilationState> previousCompileStateCache;
     private final SourceIncludesParser sourceIncludesParser;
     private final SourceIncludesResolver sourceIncludesResolver;
     private final FileHasher hasher;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, SourceIncludesResolver sourceIncludesResolver, SourceIncludesParser sourceIncludesParser, FileHasher hasher) {
+        this(previousCompileStateCache, sourceIncludesResolver, sourceIncludesParser, hasher, null);
+    }
+
+    /**
+     * @param buildOperationProcessor when not null, used to hash, parse and resolve the includes of independent files concurrently.
+     */
+    public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, SourceIncludesResolver sourceIncludesResolver, SourceIncludesParser sourceIncludesParser, FileHasher hasher, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.previousCompileStateCache = previousCompileStateCache;
         this.sourceIncludesResolver = sourceIncludesResolver;
         this.sourceIncludesParser = sourceIncludesParser;
         this.hasher = hasher;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public IncrementalCompilation processSourceFiles(Collection<File> sourceFiles) {
         CompilationState previousCompileState = previousCompileStateCache.get();
         final IncrementalCompileFiles result = new IncrementalCompileFiles(previousCompileState);
 
+        if (buildOperationProcessor != null) {
+            result.analyzeConcurrently(sourceFiles);
+        }
         for (File sourceFile : sourceFiles) {
             result.processSource(sourceFile);
         }
@@ -64,6 +82,7 @@ public class IncrementalCompileProcessor {
         private final BuildableCompilationState current = new BuildableCompilationState();
 
         private final Map<File, Boolean> processed = new HashMap<File, Boolean>();
+        private final Map<File, FileAnalysis> analyzed = new HashMap<File, FileAnalysis>();
         private final List<File> toRecompile = new ArrayList<File>();
         private final Set<File> discoveredInputs = Sets.newHashSet();
 
@@ -93,18 +112,16 @@ public class IncrementalCompileProcessor {
             processed.put(file, false);
 
             CompilationFileState previousState = previous.getState(file);
-            HashCode newHash = hasher.hash(file);
-
-            IncludeDirectives includeDirectives;
-            if (!sameHash(previousState, newHash)) {
+            FileAnalysis analysis = analyzed.remove(file);
+            if (analysis == null) {
+                analysis = analyze(file);
+            }
+            if (analysis.hashChanged) {
                 changed = true;
-                includeDirectives = sourceIncludesParser.parseIncludes(file);
-            } else {
-                includeDirectives = previousState.getIncludeDirectives();
             }
-            SourceIncludesResolver.ResolvedSourceIncludes resolutionResult = resolveIncludes(file, includeDirectives);
+            SourceIncludesResolver.ResolvedSourceIncludes resolutionResult = analysis.resolutionResult;
 
-            CompilationFileState newState = new CompilationFileState(newHash, includeDirectives, ImmutableSet.copyOf(resolutionResult.getResolvedIncludes()));
+            CompilationFileState newState = new CompilationFileState(analysis.hash, analysis.includeDirectives, ImmutableSet.copyOf(resolutionResult.getResolvedIncludes()));
 
             discoveredInputs.addAll(resolutionResult.getCheckedLocations());
 
@@ -130,6 +147,86 @@ public class IncrementalCompileProcessor {
             return changed;
         }
 
+        /**
+         * Hashes, parses and resolves the includes of a file. Does not change any state, so can be called concurrently.
+         */
+        private FileAnalysis analyze(File file) {
+            CompilationFileState previousState = previous.getState(file);
+            HashCode newHash = hasher.hash(file);
+
+            IncludeDirectives includeDirectives;
+            boolean hashChanged = !sameHash(previousState, newHash);
+            if (hashChanged) {
+                includeDirectives = sourceIncludesParser.parseIncludes(file);
+            } else {
+                includeDirectives = previousState.getIncludeDirectives();
+            }
+            return new FileAnalysis(newHash, hashChanged, includeDirectives, resolveIncludes(file, includeDirectives));
+        }
+
+        /**
+         * Analyzes the given source files and the files they include, one level of includes at a time, analyzing the files
+         * of each level concurrently.
+         */
+        public void analyzeConcurrently(Collection<File> sourceFiles) {
+            Set<File> seen = Sets.newHashSet();
+            List<File> level = new ArrayList<File>();
+            for (File sourceFile : sourceFiles) {
+                if (seen.add(sourceFile) && sourceFile.exists()) {
+                    level.add(sourceFile);
+                }
+            }
+            while (!level.isEmpty()) {
+                final List<AnalyzeFiles> operations = new ArrayList<AnalyzeFiles>();
+                final List<File> currentLevel = level;
+                buildOperationProcessor.run(new Action<BuildOperationQueue<AnalyzeFiles>>() {
+                    @Override
+                    public void execute(BuildOperationQueue<AnalyzeFiles> queue) {
+                        for (int start = 0; start < currentLevel.size(); start += FILES_PER_OPERATION) {
+                            AnalyzeFiles operation = new AnalyzeFiles(currentLevel.subList(start, Math.min(start + FILES_PER_OPERATION, currentLevel.size())));
+                            operations.add(operation);
+                            queue.add(operation);
+                        }
+                    }
+                });
+                List<File> nextLevel = new ArrayList<File>();
+                for (AnalyzeFiles operation : operations) {
+                    for (int i = 0; i < operation.files.size(); i++) {
+                        FileAnalysis analysis = operation.results[i];
+                        analyzed.put(operation.files.get(i), analysis);
+                        for (ResolvedInclude include : analysis.resolutionResult.getResolvedIncludes()) {
+                            if (!include.isUnknown() && seen.add(include.getFile()) && include.getFile().exists()) {
+                                nextLevel.add(include.getFile());
+                            }
+                        }
+                    }
+                }
+                level = nextLevel;
+            }
+        }
+
+        private class AnalyzeFiles implements RunnableBuildOperation {
+            private final List<File> files;
+            private final FileAnalysis[] results;
+
+            AnalyzeFiles(List<File> files) {
+                this.files = files;
+                this.results = new FileAnalysis[files.size()];
+            }
+
+            @Override
+            public void run() {
+                for (int i = 0; i < files.size(); i++) {
+                    results[i] = analyze(files.get(i));
+                }
+            }
+
+            @Override
+            public String getDescription() {
+                return "Analyze includes of " + files.size() + " file(s)";
+            }
+        }
+
         private boolean sameHash(CompilationFileState previousState, HashCode newHash) {
             return previousState != null && newHash.equals(previousState.getHash());
         }
@@ -160,4 +257,18 @@ public class IncrementalCompileProcessor {
             return discoveredInputs;
         }
     }
+
+    private static class FileAnalysis {
+        private final HashCode hash;
+        private final boolean hashChanged;
+        private final IncludeDirectives includeDirectives;
+        private final SourceIncludesResolver.ResolvedSourceIncludes resolutionResult;
+
+        FileAnalysis(HashCode hash, boolean hashChanged, IncludeDirectives includeDirectives, SourceIncludesResolver.ResolvedSourceIncludes resolutionResult) {
+            this.hash = hash;
+            this.hashChanged = hashChanged;
+            this.includeDirectives = includeDirectives;
+            this.resolutionResult = resolutionResult;
+        }
+    }
 }
@@ -15,9 +15,11 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.StartParameter;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
@@ -26,14 +28,24 @@ public class IncrementalCompilerBuilder {
     private final FileHasher hasher;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final IncludeDirectivesCache includeDirectivesCache;
+    private final IncludeDirectoryListingCache directoryListingCache;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final StartParameter startParameter;
 
-    public IncrementalCompilerBuilder(FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalCompilerBuilder(FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory,
+                                      IncludeDirectivesCache includeDirectivesCache, IncludeDirectoryListingCache directoryListingCache, BuildOperationProcessor buildOperationProcessor, StartParameter startParameter) {
         this.hasher = hasher;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.includeDirectivesCache = includeDirectivesCache;
+        this.directoryListingCache = directoryListingCache;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.startParameter = startParameter;
     }
 
     public <T extends NativeCompileSpec> Compiler<T> createIncrementalCompiler(TaskInternal task, Compiler<T> compiler, NativeToolChain toolchain) {
-        return new IncrementalNativeCompiler<T>(task, hasher, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory);
+        return new IncrementalNativeCompiler<T>(task, hasher, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory,
+            includeDirectivesCache, directoryListingCache, startParameter.getMaxWorkerCount() > 1 ? buildOperationProcessor : null);
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileVisitDetails;
@@ -28,11 +29,13 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.cache.PersistentStateCache;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.RegexBackedCSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.ScanningCSourceParser;
 import org.gradle.nativeplatform.toolchain.Clang;
 import org.gradle.nativeplatform.toolchain.Gcc;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
@@ -40,6 +43,7 @@ import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
 
@@ -51,16 +55,27 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     private final FileHasher hasher;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
+    private final IncludeDirectoryListingCache directoryListingCache;
+    private final BuildOperationProcessor buildOperationProcessor;
 
-    private final CSourceParser sourceParser = new RegexBackedCSourceParser();
+    private final CSourceParser sourceParser;
 
     public IncrementalNativeCompiler(TaskInternal task, FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(task, hasher, compilationStateCacheFactory, delegateCompiler, toolChain, directoryFileTreeFactory, null, null, null);
+    }
+
+    public IncrementalNativeCompiler(TaskInternal task, FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory,
+                                     @Nullable IncludeDirectivesCache includeDirectivesCache, @Nullable IncludeDirectoryListingCache directoryListingCache, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.task = task;
         this.hasher = hasher;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.delegateCompiler = delegateCompiler;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.importsAreIncludes = Clang.class.isAssignableFrom(toolChain.getClass()) || Gcc.class.isAssignableFrom(toolChain.getClass());
+        this.directoryListingCache = directoryListingCache;
+        this.buildOperationProcessor = buildOperationProcessor;
+        CSourceParser parser = ScanningCSourceParser.supportsCharset(Charset.defaultCharset()) ? new ScanningCSourceParser() : new RegexBackedCSourceParser();
+        this.sourceParser = includeDirectivesCache == null ? parser : includeDirectivesCache.createParser(parser, hasher);
     }
 
     @Override
@@ -159,8 +174,8 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     }
 
     private IncrementalCompileProcessor createProcessor(PersistentStateCache<CompilationState> compileStateCache, SourceIncludesParser sourceIncludesParser, Iterable<File> includes) {
-        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes));
+        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes), directoryListingCache);
 
-        return new IncrementalCompileProcessor(compileStateCache, dependencyParser, sourceIncludesParser, hasher);
+        return new IncrementalCompileProcessor(compileStateCache, dependencyParser, sourceIncludesParser, hasher, buildOperationProcessor);
     }
 }
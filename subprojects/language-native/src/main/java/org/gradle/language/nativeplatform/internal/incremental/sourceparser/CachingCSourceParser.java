@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCache;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+
+import java.io.File;
+
+/**
+ * A {@link CSourceParser} that reuses the directives parsed from any file with the same content, so that a header included by several
+ * source files, or by the sources of several tasks or builds, is parsed only once.
+ */
+public class CachingCSourceParser implements CSourceParser {
+    private final CSourceParser delegate;
+    private final FileHasher hasher;
+    private final CrossBuildInMemoryCache<HashCode, IncludeDirectives> cache;
+
+    public CachingCSourceParser(CSourceParser delegate, FileHasher hasher, CrossBuildInMemoryCache<HashCode, IncludeDirectives> cache) {
+        this.delegate = delegate;
+        this.hasher = hasher;
+        this.cache = cache;
+    }
+
+    @Override
+    public IncludeDirectives parseSource(File sourceFile) {
+        HashCode hash = hasher.hash(sourceFile);
+        IncludeDirectives includeDirectives = cache.get(hash);
+        if (includeDirectives == null) {
+            includeDirectives = delegate.parseSource(sourceFile);
+            cache.put(hash, includeDirectives);
+        }
+        return includeDirectives;
+    }
+}
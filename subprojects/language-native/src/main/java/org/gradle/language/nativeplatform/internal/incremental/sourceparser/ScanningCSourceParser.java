@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.gradle.language.nativeplatform.internal.IncludeType;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Finds the include and import directives of a source file in a single pass over its bytes.
+ *
+ * Recognizes the same directives as {@link RegexBackedCSourceParser}: comments and line continuations are handled as by {@link PreprocessingReader},
+ * only lines whose first non-whitespace character is '#' are kept, and those lines are matched by hand instead of with a regular expression.
+ * No objects are created per line, only per include found. Requires a default charset in which every byte below 0x80 encodes the corresponding
+ * ASCII character wherever it appears, as is the case for UTF-8 and the ISO-8859 charsets. Multi-byte charsets such as Shift_JIS, GBK or Big5 may
+ * use a byte such as 0x5C, a backslash in ASCII, as the second byte of a character, so use {@link #supportsCharset(Charset)} to decide whether this parser can be used.
+ */
+public class ScanningCSourceParser implements CSourceParser {
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] INCLUDE = {'i', 'n', 'c', 'l', 'u', 'd', 'e'};
+    private static final byte[] IMPORT = {'i', 'm', 'p', 'o', 'r', 't'};
+
+    /**
+     * Returns true when the given charset encodes every ASCII character as the single corresponding byte, and never uses a byte below 0x80 as part of
+     * another character.
+     */
+    public static boolean supportsCharset(Charset charset) {
+        if (!charset.equals(UTF_8) && charset.newEncoder().maxBytesPerChar() > 1) {
+            return false;
+        }
+        byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        String decoded = new String(ascii, charset);
+        if (decoded.length() != ascii.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length; i++) {
+            if (decoded.charAt(i) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public IncludeDirectives parseSource(File sourceFile) {
+        List<Include> includes = Lists.newArrayList();
+        try {
+            InputStream inputStream = new FileInputStream(sourceFile);
+            try {
+                new Scanner(inputStream, includes).scan();
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new DefaultIncludeDirectives(includes);
+    }
+
+    /**
+     * Holds the state of scanning a single file. Not threadsafe.
+     */
+    private static class Scanner {
+        private final InputStream inputStream;
+        private final List<Include> includes;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+        private int readAhead1 = -1;
+        private int readAhead2 = -1;
+        private boolean inString;
+        private boolean quoted;
+        private byte[] line = new byte[256];
+        private int lineLength;
+
+        Scanner(InputStream inputStream, List<Include> includes) {
+            this.inputStream = inputStream;
+            this.includes = includes;
+        }
+
+        void scan() throws IOException {
+            int ch = read();
+            while (ch != -1) {
+                // Leading whitespace is ignored, as is any line that does not start with '#'
+                while (ch != -1 && ch != '\n' && ch != '\r' && ch <= ' ') {
+                    ch = read();
+                }
+                if (ch == '#') {
+                    lineLength = 0;
+                    while (ch != -1 && ch != '\n' && ch != '\r') {
+                        append(ch);
+                        ch = read();
+                    }
+                    parseDirective();
+                } else {
+                    while (ch != -1 && ch != '\n' && ch != '\r') {
+                        ch = read();
+                    }
+                }
+                if (ch == '\r') {
+                    ch = read();
+                    if (ch == '\n') {
+                        ch = read();
+                    }
+                } else if (ch == '\n') {
+                    ch = read();
+                }
+            }
+        }
+
+        private void append(int ch) {
+            if (lineLength == line.length) {
+                byte[] newLine = new byte[line.length * 2];
+                System.arraycopy(line, 0, newLine, 0, lineLength);
+                line = newLine;
+            }
+            line[lineLength++] = (byte) ch;
+        }
+
+        /**
+         * Matches the current line, which starts with '#', against {@code #\s*(include|import)\s*((<[^>]+>)|("[^"]+")|(\w+))} ignoring trailing whitespace.
+         */
+        private void parseDirective() {
+            int end = lineLength;
+            while (end > 0 && (line[end - 1] & 0xff) <= ' ') {
+                end--;
+            }
+            int pos = skipWhitespace(1, end);
+            boolean isImport;
+            if (matchesIgnoreCase(INCLUDE, pos, end)) {
+                isImport = false;
+                pos += INCLUDE.length;
+            } else if (matchesIgnoreCase(IMPORT, pos, end)) {
+                isImport = matches(IMPORT, pos);
+                pos += IMPORT.length;
+            } else {
+                return;
+            }
+            pos = skipWhitespace(pos, end);
+            if (pos >= end) {
+                return;
+            }
+            byte first = line[pos];
+            if (first == '<' || first == '"') {
+                int close = indexOf(first == '<' ? '>' : '"', pos + 1, end);
+                if (close == end - 1 && close > pos + 1) {
+                    includes.add(new DefaultInclude(new String(line, pos + 1, close - pos - 1, CHARSET), isImport, first == '<' ? IncludeType.SYSTEM : IncludeType.QUOTED));
+                }
+            } else {
+                for (int i = pos; i < end; i++) {
+                    if (!isWordCharacter(line[i])) {
+                        return;
+                    }
+                }
+                includes.add(new DefaultInclude(new String(line, pos, end - pos, CHARSET), isImport, IncludeType.MACRO));
+            }
+        }
+
+        private int skipWhitespace(int pos, int end) {
+            while (pos < end && isWhitespace(line[pos])) {
+                pos++;
+            }
+            return pos;
+        }
+
+        private int indexOf(char ch, int pos, int end) {
+            for (int i = pos; i < end; i++) {
+                if (line[i] == ch) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matches(byte[] keyword, int pos) {
+            for (int i = 0; i < keyword.length; i++) {
+                if (line[pos + i] != keyword[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matchesIgnoreCase(byte[] keyword, int pos, int end) {
+            if (end - pos < keyword.length) {
+                return false;
+            }
+            for (int i = 0; i < keyword.length; i++) {
+                int ch = line[pos + i];
+                if (ch >= 'A' && ch <= 'Z') {
+                    ch += 'a' - 'A';
+                }
+                if (ch != keyword[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isWhitespace(byte ch) {
+            return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+        }
+
+        private static boolean isWordCharacter(byte ch) {
+            return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+        }
+
+        /**
+         * Returns the next character with comments replaced by a single space and line continuations removed, in the same way as {@link PreprocessingReader#read()}.
+         */
+        private int read() throws IOException {
+            int ch = next();
+            while (ch == '\\' && discardNewLine()) {
+                ch = next();
+            }
+
+            if (ch == '"' && !quoted) {
+                inString = !inString;
+                quoted = false;
+            } else if (ch == '\\') {
+                quoted = !quoted;
+            } else {
+                quoted = false;
+                if (!inString && ch == '/') {
+                    ch = next();
+                    if (ch == '/') {
+                        while (ch != '\n' && ch != -1 && ch != '\r') {
+                            ch = next();
+                        }
+                    } else if (ch == '*') {
+                        while (ch != -1) {
+                            ch = next();
+                            if (ch == '*') {
+                                ch = next();
+                                while (ch == '*') {
+                                    ch = next();
+                                }
+                                if (ch == '/') {
+                                    ch = ' ';
+                                    break;
+                                }
+                            }
+                        }
+                    } else {
+                        pushBack(ch);
+                        ch = '/';
+                    }
+                }
+            }
+            return ch;
+        }
+
+        private boolean discardNewLine() throws IOException {
+            int nextChar = next();
+            if (nextChar == '\n') {
+                return true;
+            } else if (nextChar == '\r') {
+                int followingChar = next();
+                if (followingChar == '\n') {
+                    return true;
+                }
+                pushBack(nextChar);
+                pushBack(followingChar);
+                return false;
+            } else {
+                pushBack(nextChar);
+                return false;
+            }
+        }
+
+        private int next() throws IOException {
+            if (readAhead1 != -1) {
+                int ch = readAhead1;
+                readAhead1 = readAhead2;
+                readAhead2 = -1;
+                return ch;
+            }
+            if (position == limit) {
+                limit = inputStream.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private void pushBack(int ch) {
+            if (readAhead2 != -1) {
+                throw new IllegalStateException();
+            }
+            if (readAhead1 != -1) {
+                readAhead2 = ch;
+            } else {
+                readAhead1 = ch;
+            }
+        }
+    }
+}
@@ -16,14 +16,19 @@
 
 package org.gradle.language.nativeplatform.internal.registry;
 
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultCompilationStateCacheFactory;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectivesCache;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectoryListingCache;
 import org.gradle.language.nativeplatform.internal.incremental.IncrementalCompilerBuilder;
 
 public class NativeLanguageServices implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
+        registration.add(IncludeDirectivesCache.class);
     }
 
     @Override
@@ -37,10 +42,19 @@ public class NativeLanguageServices implements PluginServiceRegistry {
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
         registration.add(DefaultCompilationStateCacheFactory.class);
+        registration.addProvider(new NativeGradleScopeServices());
     }
 
     @Override
     public void registerProjectServices(ServiceRegistration registration) {
         registration.add(IncrementalCompilerBuilder.class);
     }
+
+    private static class NativeGradleScopeServices {
+        IncludeDirectoryListingCache createIncludeDirectoryListingCache(FileSystem fileSystem, ListenerManager listenerManager) {
+            IncludeDirectoryListingCache cache = new IncludeDirectoryListingCache(fileSystem);
+            listenerManager.addListener(cache);
+            return cache;
+        }
+    }
 }
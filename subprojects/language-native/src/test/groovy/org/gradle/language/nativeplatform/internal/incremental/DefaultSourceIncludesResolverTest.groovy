@@ -46,12 +46,16 @@ class DefaultSourceIncludesResolverTest extends Specification {
         sourceDirectory.file('source.c')
     }
 
+    protected SourceIncludesResolver createResolver() {
+        return new DefaultSourceIncludesResolver(includePaths)
+    }
+
     def getDependencies() {
-        return new DefaultSourceIncludesResolver(includePaths).resolveIncludes(sourceFile, includes).getResolvedIncludes() as List
+        return createResolver().resolveIncludes(sourceFile, includes).getResolvedIncludes() as List
     }
 
     def getCandidates() {
-        return new DefaultSourceIncludesResolver(includePaths).resolveIncludes(sourceFile, includes).getCheckedLocations() as List
+        return createResolver().resolveIncludes(sourceFile, includes).getCheckedLocations() as List
     }
 
     def "handles source file with no includes"() {
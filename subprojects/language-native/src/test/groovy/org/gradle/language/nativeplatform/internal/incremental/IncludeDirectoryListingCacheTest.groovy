@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.api.Action
+import org.gradle.api.Task
+import org.gradle.api.file.FileCollection
+import org.gradle.api.tasks.TaskOutputs
+import org.gradle.api.tasks.TaskState
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncludeDirectoryListingCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def fileSystem = Stub(FileSystem) {
+        isCaseSensitive() >> true
+    }
+    def cache = new IncludeDirectoryListingCache(fileSystem)
+    def includeDir = tmpDir.createDir("include")
+
+    def "finds files and directories that exist"() {
+        given:
+        includeDir.createFile("test.h")
+        includeDir.createFile("sys/types.h")
+
+        expect:
+        cache.mayExist(includeDir, "test.h")
+        cache.mayExist(includeDir, "sys")
+        cache.mayExist(includeDir, "sys/types.h")
+        !cache.mayExist(includeDir, "other.h")
+        !cache.mayExist(includeDir, "sys/other.h")
+        !cache.mayExist(includeDir, "other/types.h")
+        !cache.mayExist(includeDir, "test.h/types.h")
+        !cache.mayExist(tmpDir.file("missing"), "test.h")
+    }
+
+    def "cannot tell whether paths with relative segments exist"() {
+        expect:
+        cache.mayExist(includeDir, "../test.h")
+        cache.mayExist(includeDir, "./test.h")
+        cache.mayExist(includeDir, "sys//test.h")
+    }
+
+    def "lists each directory once"() {
+        given:
+        includeDir.createFile("test.h")
+        cache.mayExist(includeDir, "test.h")
+        includeDir.createFile("added.h")
+
+        expect:
+        !cache.mayExist(includeDir, "added.h")
+    }
+
+    def "ignores case when file system is case insensitive"() {
+        given:
+        def fileSystem = Stub(FileSystem) {
+            isCaseSensitive() >> false
+        }
+        def cache = new IncludeDirectoryListingCache(fileSystem)
+        includeDir.createFile("Sys/Types.h")
+
+        expect:
+        cache.mayExist(includeDir, "sys/types.h")
+        cache.mayExist(includeDir, "SYS/TYPES.H")
+        !cache.mayExist(includeDir, "sys/other.h")
+    }
+
+    def "discards listings of directories overlapping the outputs of a task about to execute"() {
+        given:
+        def nestedDir = includeDir.createDir("nested")
+        def siblingDir = tmpDir.createDir("include2")
+        [includeDir, nestedDir, siblingDir].each { dir ->
+            cache.mayExist(dir, "test.h")
+            dir.createFile("test.h")
+        }
+
+        when:
+        cache.beforeExecute(task(siblingDir))
+
+        then:
+        !cache.mayExist(includeDir, "test.h")
+        !cache.mayExist(nestedDir, "test.h")
+        cache.mayExist(siblingDir, "test.h")
+
+        when:
+        cache.beforeExecute(task(nestedDir.file("generated")))
+
+        then:
+        cache.mayExist(includeDir, "test.h")
+        cache.mayExist(nestedDir, "test.h")
+    }
+
+    def "discards listings taken while a task producing into the directory executes"() {
+        given:
+        def generatedDir = tmpDir.createDir("generated")
+        def producer = task(generatedDir)
+
+        when:
+        cache.beforeExecute(producer)
+        // Listed by a task running in parallel before the header is written
+        def seenWhileRunning = cache.mayExist(generatedDir, "generated.h")
+        generatedDir.createFile("generated.h")
+        cache.afterExecute(producer, Stub(TaskState))
+
+        then:
+        !seenWhileRunning
+        cache.mayExist(generatedDir, "generated.h")
+    }
+
+    def "discards all listings when a task without declared outputs is about to execute"() {
+        given:
+        cache.mayExist(includeDir, "test.h")
+        includeDir.createFile("test.h")
+
+        when:
+        cache.beforeExecute(task())
+
+        then:
+        cache.mayExist(includeDir, "test.h")
+    }
+
+    def "keeps listings when a task without actions is about to execute"() {
+        given:
+        cache.mayExist(includeDir, "test.h")
+        includeDir.createFile("test.h")
+
+        when:
+        cache.beforeExecute(Stub(Task) {
+            getActions() >> []
+        })
+
+        then:
+        !cache.mayExist(includeDir, "test.h")
+    }
+
+    def task(File... outputFiles) {
+        def outputs = Stub(TaskOutputs) {
+            getHasOutput() >> (outputFiles.length > 0)
+            getFiles() >> Stub(FileCollection) {
+                iterator() >> { (outputFiles as List).iterator() }
+            }
+        }
+        return Stub(Task) {
+            getActions() >> [Stub(Action)]
+            getOutputs() >> outputs
+        }
+    }
+}
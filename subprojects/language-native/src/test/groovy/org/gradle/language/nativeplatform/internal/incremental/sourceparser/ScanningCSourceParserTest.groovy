@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser
+
+import spock.lang.Unroll
+
+import java.nio.charset.Charset
+
+class ScanningCSourceParserTest extends RegexBackedCSourceParserTest {
+    def setup() {
+        parser = new ScanningCSourceParser()
+    }
+
+    def "finds includes in file with windows line endings"() {
+        when:
+        sourceFile << "#include \"test1\"\r\n#include <system1>\r\n\r\n#import \\\r\nMACRO\r\n"
+
+        then:
+        includes == ['"test1"', '<system1>'].collect { include(it) }
+        imports == ['MACRO'].collect { include(it, true) }
+    }
+
+    def "finds include longer than initial line buffer"() {
+        def name = "dir/" * 200 + "test.h"
+
+        when:
+        sourceFile << """
+#include "${name}"
+"""
+
+        then:
+        found == [name]
+    }
+
+    def "finds includes spanning read buffer boundary"() {
+        when:
+        sourceFile << ("// filler\n" * 819) + "#include \"test1\"\n#include <system1>\n"
+
+        then:
+        found == ['test1', 'system1']
+    }
+
+    @Unroll
+    def "supportsCharset is #supported for #charset"() {
+        expect:
+        ScanningCSourceParser.supportsCharset(Charset.forName(charset)) == supported
+
+        where:
+        charset       | supported
+        "UTF-8"       | true
+        "US-ASCII"    | true
+        "ISO-8859-1"  | true
+        "ISO-8859-15" | true
+        "Shift_JIS"   | false
+        "windows-31j" | false
+        "GBK"         | false
+        "Big5"        | false
+        "UTF-16"      | false
+        "IBM037"      | false
+    }
+}
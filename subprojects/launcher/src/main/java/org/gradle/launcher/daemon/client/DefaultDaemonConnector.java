@@ -31,12 +31,11 @@ import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.remote.internal.ConnectException;
 import org.gradle.internal.remote.internal.OutgoingConnector;
 import org.gradle.internal.remote.internal.RemoteConnection;
-import org.gradle.internal.serialize.Serializers;
 import org.gradle.launcher.daemon.context.DaemonConnectDetails;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
-import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
+import org.gradle.launcher.daemon.protocol.CompactDaemonMessageSerializer;
 import org.gradle.launcher.daemon.protocol.Message;
 import org.gradle.launcher.daemon.registry.DaemonInfo;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
@@ -252,7 +251,7 @@ public class DefaultDaemonConnector implements DaemonConnector {
             .start("Connecting to Gradle Daemon", "Connecting to Daemon");
         RemoteConnection<Message> connection;
         try {
-            connection = connector.connect(daemon.getAddress()).create(Serializers.stateful(DaemonMessageSerializer.create()));
+            connection = connector.connect(daemon.getAddress()).create(CompactDaemonMessageSerializer.create());
         } catch (ConnectException e) {
             staleAddressDetector.maybeStaleAddress(e);
             throw e;
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.protocol;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OperationIdentifier;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.ProgressCompleteEvent;
+import org.gradle.internal.logging.events.ProgressEvent;
+import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.logging.events.StyledTextOutputEvent;
+import org.gradle.internal.logging.text.StyledTextOutput;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.gradle.tooling.internal.provider.BuildActionResult;
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A versioned serializer for daemon messages. Each connection starts with a format byte written by the sending side, so that a receiver can read
+ * either format regardless of how it is configured itself.
+ *
+ * <p>In the compact format, the high volume messages (log and progress events and build results) are written with a per-connection string table
+ * for categories, delta encoded timestamps and operation ids. All other messages are delegated to the plain message serializer.</p>
+ */
+public class CompactDaemonMessageSerializer implements StatefulSerializer<Message> {
+    public static final String COMPACT_PROTOCOL_PROPERTY = "org.gradle.daemon.compact-protocol";
+
+    static final byte PLAIN_FORMAT = 0;
+    static final byte COMPACT_FORMAT_V1 = 1;
+
+    private static final byte OTHER = 0;
+    private static final byte LOG_EVENT = 1;
+    private static final byte STYLED_TEXT_EVENT = 2;
+    private static final byte PROGRESS_START_EVENT = 3;
+    private static final byte PROGRESS_EVENT = 4;
+    private static final byte PROGRESS_COMPLETE_EVENT = 5;
+    private static final byte BUILD_RESULT = 6;
+
+    private static final int MAX_STRING_TABLE_SIZE = 10000;
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int UNSHARED_STRING = 2;
+    private static final int FIRST_STRING_REF = 3;
+
+    private final Serializer<Message> delegate;
+    private final boolean compact;
+    private final Serializer<LogLevel> logLevelSerializer;
+    private final Serializer<StyledTextOutput.Style> styleSerializer;
+    private final Serializer<Throwable> throwableSerializer;
+    private final Serializer<Object> headerSerializer = new DefaultSerializer<Object>();
+
+    /**
+     * Creates a serializer that uses the compact format for outgoing messages only when the {@value #COMPACT_PROTOCOL_PROPERTY} system property is set.
+     */
+    public static CompactDaemonMessageSerializer create() {
+        return new CompactDaemonMessageSerializer(DaemonMessageSerializer.create(), Boolean.getBoolean(COMPACT_PROTOCOL_PROPERTY));
+    }
+
+    public CompactDaemonMessageSerializer(Serializer<Message> delegate, boolean compact) {
+        this.delegate = delegate;
+        this.compact = compact;
+        BaseSerializerFactory factory = new BaseSerializerFactory();
+        this.logLevelSerializer = factory.getSerializerFor(LogLevel.class);
+        this.styleSerializer = factory.getSerializerFor(StyledTextOutput.Style.class);
+        this.throwableSerializer = factory.getSerializerFor(Throwable.class);
+    }
+
+    @Override
+    public ObjectReader<Message> newReader(Decoder decoder) {
+        return new MessageReader(decoder);
+    }
+
+    @Override
+    public ObjectWriter<Message> newWriter(Encoder encoder) {
+        return new MessageWriter(encoder);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private class MessageWriter implements ObjectWriter<Message> {
+        private final Encoder encoder;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private boolean headerWritten;
+        private long lastTimestamp;
+        private long lastOperationId;
+
+        MessageWriter(Encoder encoder) {
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void write(Message message) throws Exception {
+            if (!headerWritten) {
+                encoder.writeByte(compact ? COMPACT_FORMAT_V1 : PLAIN_FORMAT);
+                headerWritten = true;
+            }
+            if (!compact) {
+                delegate.write(encoder, message);
+                return;
+            }
+            if (message instanceof OutputMessage) {
+                OutputEvent event = ((OutputMessage) message).getEvent();
+                if (event.getClass() == LogEvent.class) {
+                    encoder.writeByte(LOG_EVENT);
+                    writeLogEvent((LogEvent) event);
+                    return;
+                }
+                if (event.getClass() == StyledTextOutputEvent.class) {
+                    encoder.writeByte(STYLED_TEXT_EVENT);
+                    writeStyledTextEvent((StyledTextOutputEvent) event);
+                    return;
+                }
+                if (event.getClass() == ProgressStartEvent.class) {
+                    encoder.writeByte(PROGRESS_START_EVENT);
+                    writeProgressStartEvent((ProgressStartEvent) event);
+                    return;
+                }
+                if (event.getClass() == ProgressEvent.class) {
+                    encoder.writeByte(PROGRESS_EVENT);
+                    writeProgressEvent((ProgressEvent) event);
+                    return;
+                }
+                if (event.getClass() == ProgressCompleteEvent.class) {
+                    encoder.writeByte(PROGRESS_COMPLETE_EVENT);
+                    writeProgressCompleteEvent((ProgressCompleteEvent) event);
+                    return;
+                }
+            } else if (message.getClass() == Success.class && ((Success) message).getValue() instanceof BuildActionResult) {
+                encoder.writeByte(BUILD_RESULT);
+                BuildActionResult result = (BuildActionResult) ((Success) message).getValue();
+                writePayload(result.result);
+                writePayload(result.failure);
+                return;
+            }
+            encoder.writeByte(OTHER);
+            delegate.write(encoder, message);
+        }
+
+        private void writeLogEvent(LogEvent event) throws Exception {
+            writeTimestamp(event.getTimestamp());
+            writeSharedString(event.getCategory());
+            logLevelSerializer.write(encoder, event.getLogLevel());
+            encoder.writeString(event.getMessage());
+            throwableSerializer.write(encoder, event.getThrowable());
+        }
+
+        private void writeStyledTextEvent(StyledTextOutputEvent event) throws Exception {
+            writeTimestamp(event.getTimestamp());
+            writeSharedString(event.getCategory());
+            if (event.getLogLevel() == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                logLevelSerializer.write(encoder, event.getLogLevel());
+            }
+            List<StyledTextOutputEvent.Span> spans = event.getSpans();
+            encoder.writeSmallInt(spans.size());
+            for (StyledTextOutputEvent.Span span : spans) {
+                styleSerializer.write(encoder, span.getStyle());
+                encoder.writeString(span.getText());
+            }
+        }
+
+        private void writeProgressStartEvent(ProgressStartEvent event) throws Exception {
+            writeOperationId(event.getOperationId());
+            if (event.getParentId() == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                encoder.writeSmallLong(zigZag(event.getOperationId().getId() - event.getParentId().getId()));
+            }
+            writeTimestamp(event.getTimestamp());
+            writeSharedString(event.getCategory());
+            encoder.writeString(event.getDescription());
+            writeSharedString(event.getShortDescription());
+            writeSharedString(event.getLoggingHeader());
+            encoder.writeString(event.getStatus());
+        }
+
+        private void writeProgressEvent(ProgressEvent event) throws Exception {
+            writeOperationId(event.getOperationId());
+            writeTimestamp(event.getTimestamp());
+            writeSharedString(event.getCategory());
+            encoder.writeString(event.getStatus());
+        }
+
+        private void writeProgressCompleteEvent(ProgressCompleteEvent event) throws Exception {
+            writeOperationId(event.getOperationId());
+            writeTimestamp(event.getTimestamp());
+            writeSharedString(event.getCategory());
+            encoder.writeString(event.getDescription());
+            encoder.writeString(event.getStatus());
+        }
+
+        private void writePayload(SerializedPayload payload) throws Exception {
+            if (payload == null) {
+                encoder.writeBoolean(false);
+                return;
+            }
+            encoder.writeBoolean(true);
+            headerSerializer.write(encoder, payload.getHeader());
+            List<byte[]> model = payload.getSerializedModel();
+            encoder.writeSmallInt(model.size());
+            for (byte[] bytes : model) {
+                encoder.writeBinary(bytes);
+            }
+        }
+
+        private void writeTimestamp(long timestamp) throws IOException {
+            encoder.writeSmallLong(zigZag(timestamp - lastTimestamp));
+            lastTimestamp = timestamp;
+        }
+
+        private void writeOperationId(OperationIdentifier operationId) throws IOException {
+            encoder.writeSmallLong(zigZag(operationId.getId() - lastOperationId));
+            lastOperationId = operationId.getId();
+        }
+
+        private void writeSharedString(String value) throws IOException {
+            if (value == null) {
+                encoder.writeSmallInt(NULL_STRING);
+                return;
+            }
+            Integer id = strings.get(value);
+            if (id != null) {
+                encoder.writeSmallInt(FIRST_STRING_REF + id);
+            } else if (strings.size() < MAX_STRING_TABLE_SIZE) {
+                strings.put(value, strings.size());
+                encoder.writeSmallInt(NEW_STRING);
+                encoder.writeString(value);
+            } else {
+                encoder.writeSmallInt(UNSHARED_STRING);
+                encoder.writeString(value);
+            }
+        }
+    }
+
+    private class MessageReader implements ObjectReader<Message> {
+        private final Decoder decoder;
+        private final List<String> strings = new ArrayList<String>();
+        private boolean headerRead;
+        private boolean compactInput;
+        private long lastTimestamp;
+        private long lastOperationId;
+
+        MessageReader(Decoder decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public Message read() throws Exception {
+            if (!headerRead) {
+                byte format = decoder.readByte();
+                if (format != PLAIN_FORMAT && format != COMPACT_FORMAT_V1) {
+                    throw new IllegalArgumentException(String.format("Unexpected daemon message format %s.", format));
+                }
+                compactInput = format == COMPACT_FORMAT_V1;
+                headerRead = true;
+            }
+            if (!compactInput) {
+                return delegate.read(decoder);
+            }
+            byte tag = decoder.readByte();
+            switch (tag) {
+                case OTHER:
+                    return delegate.read(decoder);
+                case LOG_EVENT:
+                    return new OutputMessage(readLogEvent());
+                case STYLED_TEXT_EVENT:
+                    return new OutputMessage(readStyledTextEvent());
+                case PROGRESS_START_EVENT:
+                    return new OutputMessage(readProgressStartEvent());
+                case PROGRESS_EVENT:
+                    return new OutputMessage(readProgressEvent());
+                case PROGRESS_COMPLETE_EVENT:
+                    return new OutputMessage(readProgressCompleteEvent());
+                case BUILD_RESULT:
+                    SerializedPayload result = readPayload();
+                    SerializedPayload failure = readPayload();
+                    return new Success(new BuildActionResult(result, failure));
+                default:
+                    throw new IllegalArgumentException(String.format("Unexpected daemon message tag %s.", tag));
+            }
+        }
+
+        private LogEvent readLogEvent() throws Exception {
+            long timestamp = readTimestamp();
+            String category = readSharedString();
+            LogLevel logLevel = logLevelSerializer.read(decoder);
+            String message = decoder.readString();
+            Throwable throwable = throwableSerializer.read(decoder);
+            return new LogEvent(timestamp, category, logLevel, message, throwable);
+        }
+
+        private StyledTextOutputEvent readStyledTextEvent() throws Exception {
+            long timestamp = readTimestamp();
+            String category = readSharedString();
+            LogLevel logLevel = decoder.readBoolean() ? logLevelSerializer.read(decoder) : null;
+            int count = decoder.readSmallInt();
+            List<StyledTextOutputEvent.Span> spans = new ArrayList<StyledTextOutputEvent.Span>(count);
+            for (int i = 0; i < count; i++) {
+                StyledTextOutput.Style style = styleSerializer.read(decoder);
+                spans.add(new StyledTextOutputEvent.Span(style, decoder.readString()));
+            }
+            return new StyledTextOutputEvent(timestamp, category, logLevel, spans);
+        }
+
+        private ProgressStartEvent readProgressStartEvent() throws Exception {
+            OperationIdentifier id = readOperationId();
+            OperationIdentifier parentId = decoder.readBoolean() ? new OperationIdentifier(id.getId() - unZigZag(decoder.readSmallLong())) : null;
+            long timestamp = readTimestamp();
+            String category = readSharedString();
+            String description = decoder.readString();
+            String shortDescription = readSharedString();
+            String loggingHeader = readSharedString();
+            String status = decoder.readString();
+            return new ProgressStartEvent(id, parentId, timestamp, category, description, shortDescription, loggingHeader, status);
+        }
+
+        private ProgressEvent readProgressEvent() throws Exception {
+            OperationIdentifier id = readOperationId();
+            long timestamp = readTimestamp();
+            String category = readSharedString();
+            String status = decoder.readString();
+            return new ProgressEvent(id, timestamp, category, status);
+        }
+
+        private ProgressCompleteEvent readProgressCompleteEvent() throws Exception {
+            OperationIdentifier id = readOperationId();
+            long timestamp = readTimestamp();
+            String category = readSharedString();
+            String description = decoder.readString();
+            String status = decoder.readString();
+            return new ProgressCompleteEvent(id, timestamp, category, description, status);
+        }
+
+        private SerializedPayload readPayload() throws Exception {
+            if (!decoder.readBoolean()) {
+                return null;
+            }
+            Object header = headerSerializer.read(decoder);
+            int count = decoder.readSmallInt();
+            List<byte[]> model = new ArrayList<byte[]>(count);
+            for (int i = 0; i < count; i++) {
+                model.add(decoder.readBinary());
+            }
+            return new SerializedPayload(header, model);
+        }
+
+        private long readTimestamp() throws IOException {
+            lastTimestamp += unZigZag(decoder.readSmallLong());
+            return lastTimestamp;
+        }
+
+        private OperationIdentifier readOperationId() throws IOException {
+            lastOperationId += unZigZag(decoder.readSmallLong());
+            return new OperationIdentifier(lastOperationId);
+        }
+
+        private String readSharedString() throws IOException {
+            int code = decoder.readSmallInt();
+            switch (code) {
+                case NULL_STRING:
+                    return null;
+                case NEW_STRING:
+                    String value = decoder.readString();
+                    strings.add(value);
+                    return value;
+                case UNSHARED_STRING:
+                    return decoder.readString();
+                default:
+                    return strings.get(code - FIRST_STRING_REF);
+            }
+        }
+    }
+}
@@ -20,8 +20,7 @@ import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.id.UUIDGenerator;
-import org.gradle.internal.serialize.Serializers;
-import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
+import org.gradle.launcher.daemon.protocol.CompactDaemonMessageSerializer;
 import org.gradle.launcher.daemon.protocol.Message;
 import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.ConnectionAcceptor;
@@ -70,7 +69,7 @@ public class DaemonTcpServerConnector implements DaemonServerConnector {
                 public void execute(ConnectCompletion completion) {
                     RemoteConnection<Message> remoteConnection;
                     try {
-                        remoteConnection = completion.create(Serializers.stateful(DaemonMessageSerializer.create()));
+                        remoteConnection = completion.create(CompactDaemonMessageSerializer.create());
                     } catch (UncheckedIOException e) {
                         connectionErrorHandler.run();
                         throw e;
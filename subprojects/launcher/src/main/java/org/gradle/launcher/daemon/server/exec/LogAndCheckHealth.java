@@ -52,7 +52,12 @@ public class LogAndCheckHealth implements DaemonCommandAction {
         }
 
         logger.logHealth(stats, LOG);
-        execution.proceed();
+        stats.buildStarted();
+        try {
+            execution.proceed();
+        } finally {
+            logger.logBuildProfile(stats.buildFinished(), LOG);
+        }
 
         // Execute the health check that should send out a DaemonExpiration event
         // if the daemon is unhealthy
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.health;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.internal.util.NumberUtil;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Memory allocated and garbage collection activity during a single build, and the tenured space retained at the end of it.
+ */
+public class BuildMemoryProfile {
+    private final long gcCount;
+    private final long gcTime;
+    private final long tenuredUsedAfterGc;
+    private final long tenuredMax;
+    private final long allocatedBytes;
+    private final Map<String, Long> phaseAllocatedBytes;
+
+    public BuildMemoryProfile(long gcCount, long gcTime, long tenuredUsedAfterGc, long tenuredMax) {
+        this(gcCount, gcTime, tenuredUsedAfterGc, tenuredMax, -1, ImmutableMap.<String, Long>of());
+    }
+
+    public BuildMemoryProfile(long gcCount, long gcTime, long tenuredUsedAfterGc, long tenuredMax, long allocatedBytes, Map<String, Long> phaseAllocatedBytes) {
+        this.gcCount = gcCount;
+        this.gcTime = gcTime;
+        this.tenuredUsedAfterGc = tenuredUsedAfterGc;
+        this.tenuredMax = tenuredMax;
+        this.allocatedBytes = allocatedBytes;
+        this.phaseAllocatedBytes = ImmutableMap.copyOf(phaseAllocatedBytes);
+    }
+
+    /**
+     * The approximate number of bytes allocated during the build, or -1 if not known.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * The approximate number of bytes allocated during each phase of the build, such as "Configure build" or "Run tasks", in the order the phases
+     * started. Empty if not known.
+     */
+    public Map<String, Long> getPhaseAllocatedBytes() {
+        return phaseAllocatedBytes;
+    }
+
+    /**
+     * The number of garbage collections during the build.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * The approximate time spent in garbage collection during the build, in milliseconds.
+     */
+    public long getGcTime() {
+        return gcTime;
+    }
+
+    /**
+     * The tenured space in use after the most recent collection of the tenured space, or -1 if not known.
+     */
+    public long getTenuredUsedAfterGc() {
+        return tenuredUsedAfterGc;
+    }
+
+    /**
+     * The maximum size of the tenured space, or -1 if not known.
+     */
+    public long getTenuredMax() {
+        return tenuredMax;
+    }
+
+    public boolean hasTenuredUsage() {
+        return tenuredUsedAfterGc >= 0 && tenuredMax > 0;
+    }
+
+    @Override
+    public String toString() {
+        String message = format("Build memory profile [GC count: %s, GC time: %s ms", gcCount, gcTime);
+        if (allocatedBytes >= 0) {
+            message += format(", allocated: %s", NumberUtil.formatBytes(allocatedBytes));
+            for (Map.Entry<String, Long> phase : phaseAllocatedBytes.entrySet()) {
+                message += format(", %s: %s", phase.getKey(), NumberUtil.formatBytes(phase.getValue()));
+            }
+        }
+        if (hasTenuredUsage()) {
+            message += format(", tenured heap retained: %s%% of %s", NumberUtil.percentOf(tenuredUsedAfterGc, tenuredMax), NumberUtil.formatBytes(tenuredMax));
+        }
+        return message + "]";
+    }
+}
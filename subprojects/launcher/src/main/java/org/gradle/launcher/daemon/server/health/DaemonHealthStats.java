@@ -20,21 +20,46 @@ import com.google.common.annotations.VisibleForTesting;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.concurrent.StoppableScheduledExecutor;
+import org.gradle.internal.progress.BuildOperationInternal;
+import org.gradle.internal.progress.BuildOperationListener;
+import org.gradle.internal.progress.OperationResult;
+import org.gradle.internal.progress.OperationStartEvent;
 import org.gradle.internal.util.NumberUtil;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionInfo;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionMonitor;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats;
+import org.gradle.launcher.exec.RunAsBuildOperationBuildActionRunner;
+
+import java.lang.management.MemoryUsage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static java.lang.String.format;
 
-public class DaemonHealthStats implements Stoppable {
+public class DaemonHealthStats implements Stoppable, BuildOperationListener {
+    private static final int MAX_BUILD_PROFILES = 20;
 
     private final DaemonRunningStats runningStats;
     private final StoppableScheduledExecutor scheduler;
     private final GarbageCollectionInfo gcInfo;
     private final GarbageCollectionMonitor gcMonitor;
+    private final Deque<BuildMemoryProfile> buildProfiles = new ArrayDeque<BuildMemoryProfile>();
+    private final Object phaseLock = new Object();
+    private final Set<Object> buildOperations = new HashSet<Object>();
+    private final Map<Object, Long> phaseStartAllocatedBytes = new HashMap<Object, Long>();
+    private final Map<String, Long> phaseAllocatedBytes = new LinkedHashMap<String, Long>();
+    private long buildStartGcCount;
+    private long buildStartGcTime;
+    private long buildStartAllocatedBytes;
 
     public DaemonHealthStats(DaemonRunningStats runningStats, ExecutorFactory executorFactory) {
         this.runningStats = runningStats;
@@ -62,6 +87,110 @@ public class DaemonHealthStats implements Stoppable {
         return gcMonitor;
     }
 
+    /**
+     * Marks the start of a build, for the memory profile of that build.
+     */
+    public void buildStarted() {
+        buildStartGcCount = gcInfo.getCollectionCount();
+        buildStartGcTime = gcInfo.getCollectionTime();
+        buildStartAllocatedBytes = gcInfo.getAllocatedBytes();
+        synchronized (phaseLock) {
+            phaseAllocatedBytes.clear();
+        }
+    }
+
+    /**
+     * Marks the end of a build, and returns the memory profile of that build.
+     */
+    public BuildMemoryProfile buildFinished() {
+        long gcCount = gcInfo.getCollectionCount() - buildStartGcCount;
+        long gcTime = gcInfo.getCollectionTime() - buildStartGcTime;
+        long allocatedBytes = allocatedSince(buildStartAllocatedBytes);
+        Map<String, Long> phases;
+        synchronized (phaseLock) {
+            phases = new LinkedHashMap<String, Long>(phaseAllocatedBytes);
+        }
+        MemoryUsage tenuredUsage = gcInfo.getCollectionUsage(gcMonitor.getGcStrategy().getTenuredPoolName());
+        BuildMemoryProfile profile;
+        if (tenuredUsage == null) {
+            profile = new BuildMemoryProfile(gcCount, gcTime, -1, -1, allocatedBytes, phases);
+        } else {
+            profile = new BuildMemoryProfile(gcCount, gcTime, tenuredUsage.getUsed(), tenuredUsage.getMax(), allocatedBytes, phases);
+        }
+        synchronized (buildProfiles) {
+            buildProfiles.addLast(profile);
+            if (buildProfiles.size() > MAX_BUILD_PROFILES) {
+                buildProfiles.removeFirst();
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Records the bytes allocated by each phase of a build, that is, each build operation started directly by the "Run build" operation.
+     */
+    @Override
+    public void started(BuildOperationInternal buildOperation, OperationStartEvent startEvent) {
+        if (buildOperation.getParentId() == null && buildOperation.getDisplayName().equals(RunAsBuildOperationBuildActionRunner.BUILD_OPERATION_DISPLAY_NAME)) {
+            synchronized (phaseLock) {
+                buildOperations.add(buildOperation.getId());
+            }
+            return;
+        }
+        synchronized (phaseLock) {
+            if (!buildOperations.contains(buildOperation.getParentId())) {
+                return;
+            }
+        }
+        long allocatedBytes = gcInfo.getAllocatedBytes();
+        synchronized (phaseLock) {
+            phaseStartAllocatedBytes.put(buildOperation.getId(), allocatedBytes);
+        }
+    }
+
+    @Override
+    public void finished(BuildOperationInternal buildOperation, OperationResult finishEvent) {
+        Long startAllocatedBytes;
+        synchronized (phaseLock) {
+            if (buildOperations.remove(buildOperation.getId())) {
+                return;
+            }
+            startAllocatedBytes = phaseStartAllocatedBytes.remove(buildOperation.getId());
+        }
+        if (startAllocatedBytes == null) {
+            return;
+        }
+        long allocatedBytes = allocatedSince(startAllocatedBytes);
+        if (allocatedBytes < 0) {
+            return;
+        }
+        synchronized (phaseLock) {
+            Long previous = phaseAllocatedBytes.get(buildOperation.getDisplayName());
+            phaseAllocatedBytes.put(buildOperation.getDisplayName(), previous == null ? allocatedBytes : previous + allocatedBytes);
+        }
+    }
+
+    private long allocatedSince(long startAllocatedBytes) {
+        if (startAllocatedBytes < 0) {
+            return -1;
+        }
+        long allocatedBytes = gcInfo.getAllocatedBytes();
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        // Threads that stop take their allocations with them
+        return Math.max(0, allocatedBytes - startAllocatedBytes);
+    }
+
+    /**
+     * Returns the memory profiles of the most recent builds, oldest first.
+     */
+    List<BuildMemoryProfile> getBuildMemoryProfiles() {
+        synchronized (buildProfiles) {
+            return new ArrayList<BuildMemoryProfile>(buildProfiles);
+        }
+    }
+
     /**
      * elegant description of daemon's health
      */
@@ -34,6 +34,9 @@ public class DaemonMemoryStatus {
     public static final String TENURED_RATE_EXPIRE_AT = "org.gradle.daemon.performance.tenured-rate-expire-at";
     public static final String PERMGEN_USAGE_EXPIRE_AT = "org.gradle.daemon.performance.permgen-usage-expire-at";
     public static final String THRASHING_EXPIRE_AT = "org.gradle.daemon.performance.thrashing-expire-at";
+    public static final String TENURED_GROWTH_BUILDS_AHEAD = "org.gradle.daemon.performance.tenured-growth-builds-ahead";
+
+    private static final int DEFAULT_TENURED_GROWTH_BUILDS_AHEAD = 0;
 
     private static final String TENURED = "tenured";
     private static final String PERMGEN = "perm gen";
@@ -44,6 +47,7 @@ public class DaemonMemoryStatus {
     private final double tenuredRateThreshold;
     private final int permgenUsageThreshold;
     private final double thrashingThreshold;
+    private final int tenuredGrowthBuildsAhead;
 
     public DaemonMemoryStatus(DaemonHealthStats stats) {
         this.stats = stats;
@@ -52,6 +56,7 @@ public class DaemonMemoryStatus {
         this.tenuredRateThreshold = parseValue(TENURED_RATE_EXPIRE_AT, strategy.getGcRateThreshold());
         this.permgenUsageThreshold = parseValue(PERMGEN_USAGE_EXPIRE_AT, strategy.getPermGenUsageThreshold());
         this.thrashingThreshold = parseValue(THRASHING_EXPIRE_AT, strategy.getThrashingThreshold());
+        this.tenuredGrowthBuildsAhead = parseValue(TENURED_GROWTH_BUILDS_AHEAD, DEFAULT_TENURED_GROWTH_BUILDS_AHEAD);
     }
 
     public boolean isTenuredSpaceExhausted() {
@@ -97,6 +102,27 @@ public class DaemonMemoryStatus {
         });
     }
 
+    /**
+     * Returns true when the tenured space retained after each build keeps growing, and is predicted to exceed the usage threshold within a few more builds.
+     * Disabled unless {@link #TENURED_GROWTH_BUILDS_AHEAD} is set to the number of builds to look ahead.
+     */
+    public boolean isTenuredSpaceGrowing() {
+        if (!isEnabled()
+            || strategy == GarbageCollectorMonitoringStrategy.UNKNOWN
+            || tenuredUsageThreshold == 0
+            || tenuredGrowthBuildsAhead == 0) {
+            return false;
+        }
+
+        TenuredGrowthTrend trend = new TenuredGrowthTrend(stats.getBuildMemoryProfiles());
+        if (!trend.isGrowing()) {
+            return false;
+        }
+        int predictedUsage = trend.getPredictedUsage(tenuredGrowthBuildsAhead);
+        LOGGER.debug(String.format("Tenured growth: %.0f bytes/build, predicted %s usage after %s builds: %s%%", trend.getGrowthPerBuild(), TENURED, tenuredGrowthBuildsAhead, predictedUsage));
+        return predictedUsage >= tenuredUsageThreshold;
+    }
+
     private boolean exceedsThreshold(String pool, GarbageCollectionStats gcStats, Spec<GarbageCollectionStats> spec) {
         if (isEnabled()
             && strategy != GarbageCollectorMonitoringStrategy.UNKNOWN
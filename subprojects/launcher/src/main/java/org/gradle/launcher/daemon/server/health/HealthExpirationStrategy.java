@@ -29,6 +29,7 @@ public class HealthExpirationStrategy implements DaemonExpirationStrategy {
         this.strategy = new AnyDaemonExpirationStrategy(ImmutableList.of(
             new GcThrashingDaemonExpirationStrategy(memoryStatus),
             new LowTenuredSpaceDaemonExpirationStrategy(memoryStatus),
+            new TenuredGrowthDaemonExpirationStrategy(memoryStatus),
             new LowPermGenDaemonExpirationStrategy(memoryStatus)
         ));
     }
@@ -30,4 +30,12 @@ public class HealthLogger {
             logger.info(stats.getHealthInfo());
         }
     }
+
+    public void logBuildProfile(BuildMemoryProfile profile, Logger logger) {
+        if (Boolean.getBoolean(HEALTH_MESSAGE_PROPERTY)) {
+            logger.lifecycle(profile.toString());
+        } else {
+            logger.info(profile.toString());
+        }
+    }
 }
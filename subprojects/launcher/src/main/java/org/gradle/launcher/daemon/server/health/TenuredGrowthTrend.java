@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.internal.util.NumberUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The trend of the tenured space retained at the end of each build. Steady growth across builds points to a leak, which will eventually cause the
+ * daemon to run out of memory or start thrashing.
+ */
+public class TenuredGrowthTrend {
+    static final int MIN_BUILDS = 5;
+    static final int MAX_BUILDS = 10;
+    private static final double MIN_INCREASING_FRACTION = 0.75;
+
+    private final List<BuildMemoryProfile> profiles;
+
+    public TenuredGrowthTrend(List<BuildMemoryProfile> buildProfiles) {
+        List<BuildMemoryProfile> profiles = new ArrayList<BuildMemoryProfile>();
+        for (BuildMemoryProfile profile : buildProfiles) {
+            if (profile.hasTenuredUsage()) {
+                profiles.add(profile);
+            }
+        }
+        this.profiles = profiles.subList(Math.max(0, profiles.size() - MAX_BUILDS), profiles.size());
+    }
+
+    /**
+     * Returns true when there are enough builds to tell, and the retained tenured space has been growing steadily across them.
+     */
+    public boolean isGrowing() {
+        if (profiles.size() < MIN_BUILDS) {
+            return false;
+        }
+        int increases = 0;
+        for (int i = 1; i < profiles.size(); i++) {
+            if (profiles.get(i).getTenuredUsedAfterGc() > profiles.get(i - 1).getTenuredUsedAfterGc()) {
+                increases++;
+            }
+        }
+        return increases >= MIN_INCREASING_FRACTION * (profiles.size() - 1) && getGrowthPerBuild() > 0;
+    }
+
+    /**
+     * The average growth of the retained tenured space per build, using a least squares fit over the recent builds.
+     */
+    public double getGrowthPerBuild() {
+        int count = profiles.size();
+        if (count < 2) {
+            return 0;
+        }
+        double meanX = (count - 1) / 2.0;
+        double meanY = 0;
+        for (BuildMemoryProfile profile : profiles) {
+            meanY += profile.getTenuredUsedAfterGc();
+        }
+        meanY /= count;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < count; i++) {
+            double dx = i - meanX;
+            covariance += dx * (profiles.get(i).getTenuredUsedAfterGc() - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+    /**
+     * Returns the predicted usage of the tenured space after the given number of further builds, as a percentage of its maximum size, or -1 if there is
+     * not enough data.
+     */
+    public int getPredictedUsage(int buildsAhead) {
+        if (profiles.size() < MIN_BUILDS) {
+            return -1;
+        }
+        BuildMemoryProfile latest = profiles.get(profiles.size() - 1);
+        long predicted = latest.getTenuredUsedAfterGc() + (long) (getGrowthPerBuild() * buildsAhead);
+        return NumberUtil.percentOf(Math.max(predicted, 0), latest.getTenuredMax());
+    }
+}
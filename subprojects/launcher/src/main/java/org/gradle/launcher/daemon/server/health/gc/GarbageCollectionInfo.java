@@ -16,8 +16,13 @@
 
 package org.gradle.launcher.daemon.server.health.gc;
 
+import org.gradle.api.Nullable;
+
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
 
 public class GarbageCollectionInfo {
     /**
@@ -33,4 +38,61 @@ public class GarbageCollectionInfo {
         }
         return garbageCollectionTime;
     }
+
+    /**
+     * Total number of collections that have occurred. See {@link GarbageCollectorMXBean}
+     */
+    public long getCollectionCount() {
+        long garbageCollectionCount = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long count = gc.getCollectionCount();
+            if (count >= 0) {
+                garbageCollectionCount += count;
+            }
+        }
+        return garbageCollectionCount;
+    }
+
+    /**
+     * Memory usage of the given pool after the most recent collection of that pool, or null if not known. See {@link MemoryPoolMXBean#getCollectionUsage()}
+     */
+    @Nullable
+    public MemoryUsage getCollectionUsage(@Nullable String memoryPoolName) {
+        if (memoryPoolName == null) {
+            return null;
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals(memoryPoolName)) {
+                return pool.getCollectionUsage();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Approx. number of bytes allocated so far by the live threads of this JVM, or -1 if not known. Allocations made by threads that have since
+     * stopped are not included. See {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long[])}
+     */
+    public long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+                return -1;
+            }
+        } catch (NoClassDefFoundError e) {
+            // Not a HotSpot based JVM
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported() || !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long allocatedBytes = 0;
+        for (long threadAllocatedBytes : allocationMXBean.getThreadAllocatedBytes(allocationMXBean.getAllThreadIds())) {
+            if (threadAllocatedBytes > 0) {
+                allocatedBytes += threadAllocatedBytes;
+            }
+        }
+        return allocatedBytes;
+    }
 }
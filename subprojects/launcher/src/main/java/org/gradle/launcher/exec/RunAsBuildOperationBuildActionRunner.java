@@ -27,6 +27,8 @@ import org.gradle.internal.progress.BuildOperationExecutor;
  * An {@link BuildActionRunner} that wraps all work in a build operation.
  */
 public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
+    public static final String BUILD_OPERATION_DISPLAY_NAME = "Run build";
+
     private final BuildActionRunner delegate;
     private final BuildOperationExecutor buildOperationExecutor;
 
@@ -37,7 +39,7 @@ public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
 
     @Override
     public void run(final BuildAction action, final BuildController buildController) {
-        buildOperationExecutor.run("Run build", new Action<BuildOperationContext>() {
+        buildOperationExecutor.run(BUILD_OPERATION_DISPLAY_NAME, new Action<BuildOperationContext>() {
             @Override
             public void execute(BuildOperationContext buildOperationContext) {
                 delegate.run(action, buildController);
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.protocol
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.OperationIdentifier
+import org.gradle.internal.logging.events.ProgressCompleteEvent
+import org.gradle.internal.logging.events.ProgressEvent
+import org.gradle.internal.logging.events.ProgressStartEvent
+import org.gradle.internal.logging.events.StyledTextOutputEvent
+import org.gradle.internal.logging.text.StyledTextOutput
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.tooling.internal.provider.BuildActionResult
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
+import spock.lang.Specification
+
+class CompactDaemonMessageSerializerTest extends Specification {
+    def compact = new CompactDaemonMessageSerializer(DaemonMessageSerializer.create(), true)
+    def plain = new CompactDaemonMessageSerializer(DaemonMessageSerializer.create(), false)
+
+    def "can round trip output events in compact format"() {
+        def messages = [
+            new OutputMessage(new LogEvent(1234, "category", LogLevel.LIFECYCLE, "message", null)),
+            new OutputMessage(new StyledTextOutputEvent(1230, "category", LogLevel.QUIET, new StyledTextOutputEvent.Span(StyledTextOutput.Style.Error, "error"))),
+            new OutputMessage(new ProgressStartEvent(new OperationIdentifier(12), new OperationIdentifier(10), 1240, "progress", "description", "short", "header", "status")),
+            new OutputMessage(new ProgressEvent(new OperationIdentifier(12), 1250, "progress", "running")),
+            new OutputMessage(new ProgressCompleteEvent(new OperationIdentifier(12), 1260, "progress", "description", "done"))
+        ]
+
+        when:
+        def result = roundTrip(compact, compact, messages)
+
+        then:
+        def log = result[0].event
+        log instanceof LogEvent
+        log.timestamp == 1234
+        log.category == "category"
+        log.logLevel == LogLevel.LIFECYCLE
+        log.message == "message"
+        log.throwable == null
+
+        def styled = result[1].event
+        styled instanceof StyledTextOutputEvent
+        styled.timestamp == 1230
+        styled.logLevel == LogLevel.QUIET
+        styled.spans[0].style == StyledTextOutput.Style.Error
+        styled.spans[0].text == "error"
+
+        def start = result[2].event
+        start instanceof ProgressStartEvent
+        start.operationId.id == 12
+        start.parentId.id == 10
+        start.timestamp == 1240
+        start.category == "progress"
+        start.description == "description"
+        start.shortDescription == "short"
+        start.loggingHeader == "header"
+        start.status == "status"
+
+        def progress = result[3].event
+        progress instanceof ProgressEvent
+        progress.operationId.id == 12
+        progress.timestamp == 1250
+        progress.status == "running"
+
+        def complete = result[4].event
+        complete instanceof ProgressCompleteEvent
+        complete.operationId.id == 12
+        complete.timestamp == 1260
+        complete.description == "description"
+        complete.status == "done"
+    }
+
+    def "can round trip build results and other messages in compact format"() {
+        def payload = new SerializedPayload("header", [[1, 2, 3] as byte[]])
+        def messages = [new Success(new BuildActionResult(payload, null)), new Success("value"), new CloseInput()]
+
+        when:
+        def result = roundTrip(compact, compact, messages)
+
+        then:
+        result[0] instanceof Success
+        result[0].value.result.header == "header"
+        result[0].value.result.serializedModel[0] == [1, 2, 3] as byte[]
+        result[0].value.failure == null
+        result[1].value == "value"
+        result[2] instanceof CloseInput
+    }
+
+    def "reader accepts either format"() {
+        def messages = [new OutputMessage(new LogEvent(1234, "category", LogLevel.LIFECYCLE, "message", null))]
+
+        expect:
+        roundTrip(compact, plain, messages)[0].event.message == "message"
+        roundTrip(plain, compact, messages)[0].event.message == "message"
+    }
+
+    def "compact format uses fewer bytes for repeated events"() {
+        def messages = (1..100).collect {
+            new OutputMessage(new ProgressEvent(new OperationIdentifier(10000 + it), 1492000000000L + it, "org.gradle.internal.progress.BuildProgressLogger", "status"))
+        }
+
+        expect:
+        toBytes(compact, messages).length < toBytes(plain, messages).length / 2
+    }
+
+    private static byte[] toBytes(CompactDaemonMessageSerializer serializer, List<Message> messages) {
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(bytes)
+        def writer = serializer.newWriter(encoder)
+        messages.each { writer.write(it) }
+        encoder.flush()
+        return bytes.toByteArray()
+    }
+
+    private static List<Message> roundTrip(CompactDaemonMessageSerializer writeWith, CompactDaemonMessageSerializer readWith, List<Message> messages) {
+        def reader = readWith.newReader(new KryoBackedDecoder(new ByteArrayInputStream(toBytes(writeWith, messages))))
+        return messages.collect { reader.read() }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.launcher.daemon.server.exec
 
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
+import org.gradle.launcher.daemon.server.health.BuildMemoryProfile
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats
 import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus
@@ -48,4 +49,21 @@ class LogAndCheckHealthTest extends Specification {
         then:
         1 * healthCheck.executeHealthCheck()
     }
+
+    def "records memory profile of build"() {
+        def profile = new BuildMemoryProfile(1, 2, 3, 4)
+
+        when:
+        tracker.execute(exec)
+
+        then:
+        1 * stats.buildStarted()
+
+        then:
+        1 * exec.proceed()
+
+        then:
+        1 * stats.buildFinished() >> profile
+        1 * logger.logBuildProfile(profile, _)
+    }
 }
@@ -17,12 +17,16 @@
 package org.gradle.launcher.daemon.server.health
 
 import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.internal.progress.BuildOperationInternal
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionInfo
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionMonitor
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats
 import spock.lang.Specification
 
+import java.lang.management.MemoryUsage
+
 class DaemonHealthStatsTest extends Specification {
 
     def listenerManager = new DefaultListenerManager()
@@ -76,4 +80,78 @@ class DaemonHealthStatsTest extends Specification {
         healthStats.healthInfo == "Starting 2nd build in daemon [uptime: 3 mins, performance: 98%, no major garbage collections]"
     }
 
+    def "records memory profile of each build"() {
+        def tenuredUsage = new MemoryUsage(0, 300, 400, 1000)
+        gcMonitor.getGcStrategy() >> GarbageCollectorMonitoringStrategy.ORACLE_PARALLEL_CMS
+        gcInfo.getCollectionUsage("PS Old Gen") >> tenuredUsage
+        gcInfo.getCollectionCount() >>> [10, 14]
+        gcInfo.getCollectionTime() >>> [100, 250]
+        gcInfo.getAllocatedBytes() >> -1
+
+        when:
+        healthStats.buildStarted()
+        def profile = healthStats.buildFinished()
+
+        then:
+        profile.gcCount == 4
+        profile.gcTime == 150
+        profile.tenuredUsedAfterGc == 300
+        profile.tenuredMax == 1000
+        profile.toString() == "Build memory profile [GC count: 4, GC time: 150 ms, tenured heap retained: 30% of 1.0 kB]"
+        healthStats.buildMemoryProfiles == [profile]
+    }
+
+    def "records bytes allocated by each build phase"() {
+        def build = new BuildOperationInternal(1, null, null, "Run build", null)
+        def configure = new BuildOperationInternal(2, 1, null, "Configure build", null)
+        def child = new BuildOperationInternal(3, 2, null, "Apply plugin", null)
+        def runTasks = new BuildOperationInternal(4, 1, null, "Run tasks", null)
+        gcMonitor.getGcStrategy() >> GarbageCollectorMonitoringStrategy.UNKNOWN
+        gcInfo.getAllocatedBytes() >>> [1000, 1100, 1500, 2000, 5000, 6000]
+
+        when:
+        healthStats.buildStarted()
+        healthStats.started(build, null)
+        healthStats.started(configure, null)
+        healthStats.started(child, null)
+        healthStats.finished(child, null)
+        healthStats.finished(configure, null)
+        healthStats.started(runTasks, null)
+        healthStats.finished(runTasks, null)
+        healthStats.finished(build, null)
+        def profile = healthStats.buildFinished()
+
+        then:
+        profile.allocatedBytes == 5000
+        profile.phaseAllocatedBytes == ["Configure build": 400L, "Run tasks": 3000L]
+        profile.toString() == "Build memory profile [GC count: 0, GC time: 0 ms, allocated: 5.0 kB, Configure build: 400 B, Run tasks: 3.0 kB]"
+    }
+
+    def "does not record allocated bytes when not known"() {
+        gcMonitor.getGcStrategy() >> GarbageCollectorMonitoringStrategy.UNKNOWN
+        gcInfo.getAllocatedBytes() >> -1
+
+        when:
+        healthStats.buildStarted()
+        def profile = healthStats.buildFinished()
+
+        then:
+        profile.allocatedBytes == -1
+        profile.phaseAllocatedBytes.isEmpty()
+    }
+
+    def "keeps memory profiles of recent builds only"() {
+        gcMonitor.getGcStrategy() >> GarbageCollectorMonitoringStrategy.UNKNOWN
+
+        when:
+        25.times {
+            healthStats.buildStarted()
+            healthStats.buildFinished()
+        }
+
+        then:
+        healthStats.buildMemoryProfiles.size() == 20
+        !healthStats.buildMemoryProfiles[0].hasTenuredUsage()
+    }
+
 }
@@ -26,6 +26,7 @@ import spock.lang.Specification
 import spock.lang.Unroll
 
 import static DaemonMemoryStatus.PERMGEN_USAGE_EXPIRE_AT
+import static DaemonMemoryStatus.TENURED_GROWTH_BUILDS_AHEAD
 import static DaemonMemoryStatus.TENURED_RATE_EXPIRE_AT
 import static DaemonMemoryStatus.TENURED_USAGE_EXPIRE_AT
 import static DaemonMemoryStatus.THRASHING_EXPIRE_AT
@@ -160,6 +161,35 @@ class DaemonMemoryStatusTest extends Specification {
 
         and:
         !status.isThrashing()
+
+        and:
+        !status.isTenuredSpaceGrowing()
+    }
+
+    def "tenured space is growing when retained usage is predicted to exceed threshold"() {
+        System.setProperty(TENURED_USAGE_EXPIRE_AT, "80")
+        System.setProperty(TENURED_GROWTH_BUILDS_AHEAD, "3")
+        _ * stats.getBuildMemoryProfiles() >> (50..70).step(4).collect { new BuildMemoryProfile(1, 1, it, 100) }
+
+        expect:
+        status.isTenuredSpaceGrowing()
+    }
+
+    def "tenured space is not growing when retained usage stays below threshold"() {
+        System.setProperty(TENURED_USAGE_EXPIRE_AT, "80")
+        System.setProperty(TENURED_GROWTH_BUILDS_AHEAD, "3")
+        _ * stats.getBuildMemoryProfiles() >> (20..30).step(2).collect { new BuildMemoryProfile(1, 1, it, 100) }
+
+        expect:
+        !status.isTenuredSpaceGrowing()
+    }
+
+    def "tenured growth check is disabled by default"() {
+        System.setProperty(TENURED_USAGE_EXPIRE_AT, "80")
+        _ * stats.getBuildMemoryProfiles() >> (50..70).step(4).collect { new BuildMemoryProfile(1, 1, it, 100) }
+
+        expect:
+        !status.isTenuredSpaceGrowing()
     }
 
     DaemonMemoryStatus getStatus() {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.health
+
+import spock.lang.Specification
+
+class TenuredGrowthTrendTest extends Specification {
+
+    def "is not growing when there are too few builds"() {
+        def trend = trend(10, 20, 30, 40)
+
+        expect:
+        !trend.growing
+        trend.getPredictedUsage(3) == -1
+    }
+
+    def "is growing when retained usage increases steadily"() {
+        def trend = trend(10, 20, 30, 40, 50)
+
+        expect:
+        trend.growing
+        trend.growthPerBuild == 10
+        trend.getPredictedUsage(3) == 80
+    }
+
+    def "tolerates an occasional drop in retained usage"() {
+        def trend = trend(10, 20, 15, 30, 40, 50)
+
+        expect:
+        trend.growing
+    }
+
+    def "is not growing when retained usage fluctuates"() {
+        def trend = trend(10, 30, 15, 35, 20, 40)
+
+        expect:
+        !trend.growing
+    }
+
+    def "is not growing when retained usage is stable"() {
+        def trend = trend(30, 30, 30, 30, 30, 30)
+
+        expect:
+        !trend.growing
+        trend.getPredictedUsage(3) == 30
+    }
+
+    def "only considers the most recent builds with tenured usage"() {
+        def profiles = [50, 40, 30, 20, 10].collect { profile(it) } + [new BuildMemoryProfile(1, 1, -1, -1)] + (1..10).collect { profile(it) }
+
+        expect:
+        new TenuredGrowthTrend(profiles).growing
+    }
+
+    private static TenuredGrowthTrend trend(long... usages) {
+        return new TenuredGrowthTrend(usages.collect { profile(it) })
+    }
+
+    private static BuildMemoryProfile profile(long usage) {
+        return new BuildMemoryProfile(1, 1, usage, 100)
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.tasks.testing.processors;
 
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
@@ -27,20 +29,35 @@ import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Test classes are queued and each processor pulls the next test class when it has finished
+ * with its previous one, so that a processor that draws a few slow test classes does not hold up test classes that other processors could run.
+ *
+ * <p>A processor that fails to process a test class, for example because its worker process crashed, is given no further test classes, and its
+ * failure is rethrown when it is stopped. Once every processor has failed, the remaining test classes are discarded.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(MaxNParallelTestClassProcessor.class);
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Lock lock = new ReentrantLock();
+    private final Condition queueEmpty = lock.newCondition();
+    private final LinkedList<TestClassRunInfo> pending = new LinkedList<TestClassRunInfo>();
+    private final LinkedList<ProcessorSlot> idle = new LinkedList<ProcessorSlot>();
     private TestResultProcessor resultProcessor;
-    private int pos;
+    private List<ProcessorSlot> slots = new ArrayList<ProcessorSlot>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
+    private int failedSlots;
     private Actor resultProcessorActor;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
@@ -58,27 +75,146 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        lock.lock();
+        try {
+            ProcessorSlot slot = idle.poll();
+            if (slot == null && slots.size() < maxProcessors) {
+                slot = startProcessor();
+            }
+            if (slot == null) {
+                if (failedSlots < maxProcessors) {
+                    pending.add(testClass);
+                }
+            } else {
+                slot.dispatch(testClass);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ProcessorSlot startProcessor() {
+        ProcessorSlot slot = new ProcessorSlot(slots.size() + 1, factory.create());
+        Actor actor = actorFactory.createActor(slot);
+        TestClassProcessor processor = actor.getProxy(TestClassProcessor.class);
+        slot.asyncProcessor = processor;
+        actors.add(actor);
+        processors.add(processor);
+        slots.add(slot);
+        processor.startProcessing(resultProcessor);
+        return slot;
+    }
+
+    private void finished(ProcessorSlot slot) {
+        lock.lock();
+        try {
+            TestClassRunInfo next = pending.poll();
+            if (next != null) {
+                slot.dispatch(next);
+            } else {
+                idle.add(slot);
+                queueEmpty.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failed(ProcessorSlot slot) {
+        lock.lock();
+        try {
+            failedSlots++;
+            if (failedSlots == maxProcessors) {
+                // No processor is left to run the queued test classes. The failures are reported when the processors are stopped
+                LOGGER.info("All test processors have failed, discarding {} queued test classes.", pending.size());
+                pending.clear();
+                queueEmpty.signalAll();
+            }
+        } finally {
+            lock.unlock();
         }
-        processor.processTestClass(testClass);
     }
 
     @Override
     public void stop() {
+        // Hand out the remaining test classes before asking the processors to stop
+        lock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                queueEmpty.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } finally {
+            for (ProcessorSlot slot : slots) {
+                slot.logStats();
+            }
+        }
+    }
+
+    /**
+     * Runs the test classes for a single processor, and asks for the next test class once the current one is finished. Used by one thread at a time.
+     */
+    private class ProcessorSlot implements TestClassProcessor {
+        private final int index;
+        private final TestClassProcessor processor;
+        private final long startTime = System.nanoTime();
+        private TestClassProcessor asyncProcessor;
+        private int testClassCount;
+        private long busyTime;
+        private Throwable failure;
+
+        ProcessorSlot(int index, TestClassProcessor processor) {
+            this.index = index;
+            this.processor = processor;
+        }
+
+        void dispatch(TestClassRunInfo testClass) {
+            asyncProcessor.processTestClass(testClass);
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            processor.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            long start = System.nanoTime();
+            try {
+                processor.processTestClass(testClass);
+            } catch (Throwable throwable) {
+                failure = throwable;
+            } finally {
+                testClassCount++;
+                busyTime += System.nanoTime() - start;
+            }
+            if (failure == null) {
+                finished(this);
+            } else {
+                failed(this);
+            }
+        }
+
+        @Override
+        public void stop() {
+            processor.stop();
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+
+        void logStats() {
+            long busy = TimeUnit.NANOSECONDS.toMillis(busyTime);
+            long total = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            LOGGER.info("Test processor {} ran {} test classes, busy for {} ms, idle for {} ms.", index, testClassCount, busy, Math.max(0, total - busy));
         }
     }
 }
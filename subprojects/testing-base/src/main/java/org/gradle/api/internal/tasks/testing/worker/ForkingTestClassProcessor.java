@@ -17,11 +17,14 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.GradleException;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.worker.WorkerProcess;
@@ -32,6 +35,9 @@ import org.gradle.util.CollectionUtils;
 import java.io.File;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ForkingTestClassProcessor implements TestClassProcessor {
     private final WorkerProcessFactory workerFactory;
@@ -43,6 +49,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
+    final WorkerAcknowledgements acknowledgements = new WorkerAcknowledgements();
 
     public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry) {
         this.workerFactory = workerFactory;
@@ -58,13 +65,22 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.resultProcessor = resultProcessor;
     }
 
+    /**
+     * Blocks until the worker process has finished processing the given test class, so that the caller can hand out test classes as workers become free.
+     *
+     * @throws GradleException when the worker process stopped before it finished processing the test class. No further test classes should be given to this processor.
+     */
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
         if (remoteProcessor == null) {
             remoteProcessor = forkProcess();
         }
 
+        acknowledgements.sent();
         remoteProcessor.processTestClass(testClass);
+        if (!acknowledgements.awaitProcessed()) {
+            throw new GradleException(String.format("Test worker process stopped before it finished processing test class '%s'.", testClass.getTestClassName()));
+        }
     }
 
     RemoteTestClassProcessor forkProcess() {
@@ -81,6 +97,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(RemoteTestClassProcessorListener.class, acknowledgements);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -88,6 +105,10 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     }
 
     List<URL> getTestWorkerImplementationClasspath() {
+        return getTestWorkerImplementationClasspath(moduleRegistry);
+    }
+
+    static List<URL> getTestWorkerImplementationClasspath(ModuleRegistry moduleRegistry) {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-version-info").getImplementationClasspath().getAsURLs(),
             moduleRegistry.getModule("gradle-core").getImplementationClasspath().getAsURLs(),
@@ -116,4 +137,63 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             workerProcess.waitForStop();
         }
     }
+
+    /**
+     * Tracks the test classes that have been sent to the worker process but not yet processed by it.
+     */
+    static class WorkerAcknowledgements implements RemoteTestClassProcessorListener, StreamCompletion {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private int outstanding;
+        private boolean finished;
+
+        void sent() {
+            lock.lock();
+            try {
+                outstanding++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns false when the worker stopped before processing all of the test classes sent to it.
+         */
+        boolean awaitProcessed() {
+            lock.lock();
+            try {
+                while (outstanding > 0 && !finished) {
+                    condition.await();
+                }
+                return outstanding == 0;
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void testClassProcessed() {
+            lock.lock();
+            try {
+                outstanding--;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            // The worker has stopped or crashed, so no further acknowledgements will arrive
+            lock.lock();
+            try {
+                finished = true;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
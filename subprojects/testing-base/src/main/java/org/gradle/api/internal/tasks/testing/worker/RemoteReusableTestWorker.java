@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The protocol of a test worker process that runs the tests of several test tasks, one session at a time.
+ */
+public interface RemoteReusableTestWorker {
+    /**
+     * Starts running the tests of a test task. The given classpath is loaded in a class loader that is discarded when the session stops.
+     */
+    void startSession(WorkerTestClassProcessorFactory processorFactory, List<File> sessionClasspath);
+
+    void processTestClass(TestClassRunInfo testClass);
+
+    /**
+     * Finishes running the tests of the current test task. The worker acknowledges this via {@link TestWorkerSessionResultProcessor#sessionStopped(boolean)}, even when stopping the session fails.
+     */
+    void stopSession();
+
+    /**
+     * Stops the worker process.
+     */
+    void stop();
+}
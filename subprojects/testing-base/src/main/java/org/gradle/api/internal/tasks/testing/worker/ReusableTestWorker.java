@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.time.TimeProvider;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test worker that runs the tests of several test tasks, one after the other. The classpath of each test task is loaded in its own class loader,
+ * on top of the test framework classes that are shared by all sessions of the worker, and the system properties are restored at the end of each session.
+ */
+public class ReusableTestWorker implements Action<WorkerProcessContext>, RemoteReusableTestWorker, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReusableTestWorker.class);
+    private CountDownLatch completed;
+    private WorkerProcessContext workerProcessContext;
+    private DefaultServiceRegistry testServices;
+    private TestWorkerSessionResultProcessor resultProcessor;
+    private RemoteTestClassProcessorListener processorListener;
+    private TestClassProcessor processor;
+    private ClassLoader sessionClassLoader;
+    private Properties systemProperties;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
+
+        completed = new CountDownLatch(1);
+        this.workerProcessContext = workerProcessContext;
+
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
+
+        testServices = new TestWorker.TestFrameworkServiceRegistry(workerProcessContext);
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        resultProcessor = serverConnection.addOutgoing(TestWorkerSessionResultProcessor.class);
+        processorListener = serverConnection.addOutgoing(RemoteTestClassProcessorListener.class);
+        serverConnection.addIncoming(RemoteReusableTestWorker.class, this);
+        serverConnection.connect();
+
+        try {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+        } finally {
+            LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
+            testServices.close();
+        }
+    }
+
+    @Override
+    public void startSession(WorkerTestClassProcessorFactory processorFactory, List<File> sessionClasspath) {
+        Thread.currentThread().setName("Test worker");
+        systemProperties = (Properties) System.getProperties().clone();
+        sessionClassLoader = new VisitableURLClassLoader(workerProcessContext.getApplicationClassLoader(), new DefaultClassPath(sessionClasspath));
+
+        TestClassProcessor targetProcessor = processorFactory.create(testServices);
+        IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(TimeProvider.class));
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+                TestClassProcessor.class, targetProcessor, sessionClassLoader);
+        processor = proxy.getSource();
+        processor.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.processTestClass(testClass);
+        } finally {
+            // Clean the interrupted status
+            Thread.interrupted();
+            processorListener.testClassProcessed();
+        }
+    }
+
+    /**
+     * Stops the current session and resets the state left behind by its tests. Each step is attempted even when an earlier one fails, and the end of the
+     * session is always signalled, so that the build does not wait forever. The worker is not reused when any step failed.
+     */
+    @Override
+    public void stopSession() {
+        Thread.currentThread().setName("Test worker");
+        boolean reusable = false;
+        try {
+            try {
+                processor.stop();
+                reusable = true;
+            } finally {
+                processor = null;
+                // Clean out any security manager and system properties the tests might have installed
+                reusable &= resetSecurityManager();
+                reusable &= resetSystemProperties();
+                closeSessionClassLoader();
+            }
+        } finally {
+            resultProcessor.sessionStopped(reusable);
+        }
+    }
+
+    private boolean resetSecurityManager() {
+        try {
+            System.setSecurityManager(null);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not remove the security manager installed by the tests. The test worker will not be reused.", e);
+            return false;
+        }
+    }
+
+    private boolean resetSystemProperties() {
+        try {
+            System.setProperties(systemProperties);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not restore the system properties changed by the tests. The test worker will not be reused.", e);
+            return false;
+        }
+    }
+
+    private void closeSessionClassLoader() {
+        try {
+            ClassLoaderUtils.tryClose(sessionClassLoader);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not close the class loader of the test session.", e);
+        } finally {
+            sessionClassLoader = null;
+        }
+    }
+
+    @Override
+    public void stop() {
+        completed.countDown();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A handle to a running {@link ReusableTestWorker}. The results and acknowledgements sent by the worker are forwarded to the test task that
+ * currently uses the worker.
+ */
+public class ReusableTestWorkerClient implements Stoppable {
+    private final ReusableTestWorkerSpec spec;
+    private final WorkerProcess workerProcess;
+    private final Session session = new Session();
+    private final RemoteReusableTestWorker remoteWorker;
+    private int uses;
+
+    public ReusableTestWorkerClient(ReusableTestWorkerSpec spec, WorkerProcess workerProcess) {
+        this.spec = spec;
+        this.workerProcess = workerProcess;
+
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(TestWorkerSessionResultProcessor.class, session);
+        connection.addIncoming(RemoteTestClassProcessorListener.class, session);
+        remoteWorker = connection.addOutgoing(RemoteReusableTestWorker.class);
+        connection.connect();
+    }
+
+    public ReusableTestWorkerSpec getSpec() {
+        return spec;
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    public void startSession(TestResultProcessor resultProcessor, RemoteTestClassProcessorListener listener, WorkerTestClassProcessorFactory processorFactory, List<File> sessionClasspath) {
+        uses++;
+        session.start(resultProcessor, listener);
+        remoteWorker.startSession(processorFactory, sessionClasspath);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        remoteWorker.processTestClass(testClass);
+    }
+
+    /**
+     * Stops the current session and waits until the worker has delivered all of its results.
+     *
+     * @return true if the worker can be used for another session, false if the worker process has stopped or could not reset the state left behind by the tests.
+     */
+    public boolean stopSession() {
+        remoteWorker.stopSession();
+        return session.awaitStopped();
+    }
+
+    @Override
+    public void stop() {
+        if (session.isAlive()) {
+            remoteWorker.stop();
+        }
+        workerProcess.waitForStop();
+    }
+
+    private static class Session implements TestWorkerSessionResultProcessor, RemoteTestClassProcessorListener, StreamCompletion {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private TestResultProcessor resultProcessor;
+        private RemoteTestClassProcessorListener listener;
+        private boolean running;
+        private boolean reusable;
+        private boolean finished;
+
+        void start(TestResultProcessor resultProcessor, RemoteTestClassProcessorListener listener) {
+            lock.lock();
+            try {
+                this.resultProcessor = resultProcessor;
+                this.listener = listener;
+                running = true;
+                reusable = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean awaitStopped() {
+            lock.lock();
+            try {
+                while (running && !finished) {
+                    condition.await();
+                }
+                return !finished && reusable;
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isAlive() {
+            lock.lock();
+            try {
+                return !finished;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private TestResultProcessor resultProcessor() {
+            lock.lock();
+            try {
+                return resultProcessor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor().started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor().completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor().output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor().failure(testId, result);
+        }
+
+        @Override
+        public void testClassProcessed() {
+            RemoteTestClassProcessorListener listener;
+            lock.lock();
+            try {
+                listener = this.listener;
+            } finally {
+                lock.unlock();
+            }
+            listener.testClassProcessed();
+        }
+
+        @Override
+        public void sessionStopped(boolean reusable) {
+            lock.lock();
+            try {
+                running = false;
+                this.reusable = reusable;
+                resultProcessor = null;
+                listener = null;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            RemoteTestClassProcessorListener listener;
+            lock.lock();
+            try {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                listener = this.listener;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (listener instanceof StreamCompletion) {
+                ((StreamCompletion) listener).endStream();
+            }
+        }
+    }
+}
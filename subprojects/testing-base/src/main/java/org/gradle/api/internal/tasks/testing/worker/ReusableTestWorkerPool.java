@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Keeps the test worker processes that have finished running the tests of a test task, so that later test tasks with an equal
+ * {@link ReusableTestWorkerSpec} can use them. The most recently used workers are kept, up to a maximum number of idle workers.
+ */
+@ThreadSafe
+public class ReusableTestWorkerPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(ReusableTestWorkerPool.class);
+
+    private final Object lock = new Object();
+    private final LinkedList<ReusableTestWorkerClient> idleWorkers = new LinkedList<ReusableTestWorkerClient>();
+    private final int maxIdleWorkers;
+
+    public ReusableTestWorkerPool(int maxIdleWorkers) {
+        this.maxIdleWorkers = maxIdleWorkers;
+    }
+
+    @Nullable
+    public ReusableTestWorkerClient reserveIdleWorker(ReusableTestWorkerSpec spec) {
+        synchronized (lock) {
+            Iterator<ReusableTestWorkerClient> it = idleWorkers.iterator();
+            while (it.hasNext()) {
+                ReusableTestWorkerClient candidate = it.next();
+                if (candidate.getSpec().equals(spec)) {
+                    it.remove();
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    public void release(ReusableTestWorkerClient worker) {
+        List<ReusableTestWorkerClient> workersToStop = new ArrayList<ReusableTestWorkerClient>();
+        synchronized (lock) {
+            idleWorkers.addFirst(worker);
+            while (idleWorkers.size() > maxIdleWorkers) {
+                workersToStop.add(idleWorkers.removeLast());
+            }
+        }
+        if (!workersToStop.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker(s).", workersToStop.size());
+            CompositeStoppable.stoppable(workersToStop).stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<ReusableTestWorkerClient> workersToStop;
+        synchronized (lock) {
+            workersToStop = new ArrayList<ReusableTestWorkerClient>(idleWorkers);
+            idleWorkers.clear();
+        }
+        if (!workersToStop.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker(s).", workersToStop.size());
+            CompositeStoppable.stoppable(workersToStop).stop();
+            LOGGER.info("Stopped {} idle test worker(s).", workersToStop.size());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configuration of a reusable test worker process. Test tasks can only use an existing worker that was started with an equal configuration.
+ */
+public class ReusableTestWorkerSpec {
+    private final String executable;
+    private final List<String> jvmArgs;
+    private final File workingDir;
+    private final Map<String, String> environment;
+    private final String frameworkType;
+    private final List<File> sharedClasspath;
+    private final List<HashCode> sharedClasspathHashes;
+
+    public ReusableTestWorkerSpec(String executable, List<String> jvmArgs, File workingDir, Map<String, ?> environment, String frameworkType, List<File> sharedClasspath, List<HashCode> sharedClasspathHashes) {
+        this.executable = executable;
+        this.jvmArgs = ImmutableList.copyOf(jvmArgs);
+        this.workingDir = workingDir;
+        ImmutableMap.Builder<String, String> environmentBuilder = ImmutableMap.builder();
+        for (Map.Entry<String, ?> entry : environment.entrySet()) {
+            environmentBuilder.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        this.environment = environmentBuilder.build();
+        this.frameworkType = frameworkType;
+        this.sharedClasspath = ImmutableList.copyOf(sharedClasspath);
+        this.sharedClasspathHashes = ImmutableList.copyOf(sharedClasspathHashes);
+    }
+
+    /**
+     * The classpath that is loaded once by the worker process and used by all test tasks that run in it.
+     */
+    public List<File> getSharedClasspath() {
+        return sharedClasspath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ReusableTestWorkerSpec that = (ReusableTestWorkerSpec) o;
+        return executable.equals(that.executable)
+            && jvmArgs.equals(that.jvmArgs)
+            && workingDir.equals(that.workingDir)
+            && environment.equals(that.environment)
+            && frameworkType.equals(that.frameworkType)
+            && sharedClasspath.equals(that.sharedClasspath)
+            && sharedClasspathHashes.equals(that.sharedClasspathHashes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(executable, jvmArgs, workingDir, environment, frameworkType, sharedClasspath, sharedClasspathHashes);
+    }
+
+    @Override
+    public String toString() {
+        return "executable: " + executable + ", jvmArgs: " + jvmArgs + ", workingDir: " + workingDir + ", framework: " + frameworkType + ", shared classpath: " + sharedClasspath;
+    }
+}
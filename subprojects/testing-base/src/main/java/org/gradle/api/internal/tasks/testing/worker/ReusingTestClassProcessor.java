@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.worker.WorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.gradle.process.internal.worker.WorkerProcessFactory;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Runs test classes in a test worker process from the given pool, or in a new one when there is no compatible idle worker. The worker process is
+ * returned to the pool when processing stops.
+ */
+public class ReusingTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(ReusingTestClassProcessor.class);
+    private final ReusableTestWorkerPool workerPool;
+    private final ReusableTestWorkerSpec spec;
+    private final WorkerProcessFactory workerFactory;
+    private final WorkerTestClassProcessorFactory processorFactory;
+    private final JavaForkOptions options;
+    private final List<File> sessionClasspath;
+    private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final ModuleRegistry moduleRegistry;
+    private ReusableTestWorkerClient worker;
+    private TestResultProcessor resultProcessor;
+    final ForkingTestClassProcessor.WorkerAcknowledgements acknowledgements = new ForkingTestClassProcessor.WorkerAcknowledgements();
+
+    public ReusingTestClassProcessor(ReusableTestWorkerPool workerPool, ReusableTestWorkerSpec spec, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory,
+                                     JavaForkOptions options, List<File> sessionClasspath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry) {
+        this.workerPool = workerPool;
+        this.spec = spec;
+        this.workerFactory = workerFactory;
+        this.processorFactory = processorFactory;
+        this.options = options;
+        this.sessionClasspath = sessionClasspath;
+        this.buildConfigAction = buildConfigAction;
+        this.moduleRegistry = moduleRegistry;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    /**
+     * Blocks until the worker process has finished processing the given test class.
+     *
+     * @throws GradleException when the worker process stopped before it finished processing the test class. No further test classes should be given to this processor.
+     */
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (worker == null) {
+            worker = workerPool.reserveIdleWorker(spec);
+            if (worker == null) {
+                worker = startWorker();
+            } else {
+                LOGGER.info("Reusing test worker that has run the tests of {} test task(s).", worker.getUses());
+            }
+            worker.startSession(resultProcessor, acknowledgements, processorFactory, sessionClasspath);
+        }
+
+        acknowledgements.sent();
+        worker.processTestClass(testClass);
+        if (!acknowledgements.awaitProcessed()) {
+            throw new GradleException(String.format("Test worker process stopped before it finished processing test class '%s'.", testClass.getTestClassName()));
+        }
+    }
+
+    ReusableTestWorkerClient startWorker() {
+        WorkerProcessBuilder builder = workerFactory.create(new ReusableTestWorker());
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(ForkingTestClassProcessor.getTestWorkerImplementationClasspath(moduleRegistry));
+        builder.applicationClasspath(spec.getSharedClasspath());
+        options.copyTo(builder.getJavaCommand());
+        buildConfigAction.execute(builder);
+
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+        return new ReusableTestWorkerClient(spec, workerProcess);
+    }
+
+    @Override
+    public void stop() {
+        if (worker != null) {
+            if (worker.stopSession()) {
+                workerPool.release(worker);
+            } else {
+                // The worker process has stopped or crashed, collect its exit status
+                worker.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Receives the test results of a reusable test worker. The end of a session is signalled through the same channel as the results, so that it
+ * is received after all results of the session.
+ */
+public interface TestWorkerSessionResultProcessor extends TestResultProcessor {
+    /**
+     * Called when the worker has stopped the current session.
+     *
+     * @param reusable whether the worker can be used for another test task. This is not the case when the state left behind by the tests could not be reset.
+     */
+    void sessionStopped(boolean reusable);
+}
@@ -71,7 +71,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -101,7 +101,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
@@ -111,7 +111,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor({ it != resultProcessor }) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
         1 * asyncProcessor2.startProcessing(asyncResultProcessor)
         1 * asyncProcessor2.processTestClass(test)
@@ -124,47 +124,192 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
-        TestClassRunInfo test = Mock()
+    def handsOutQueuedTestClassesToProcessorsAsTheyFinish() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassRunInfo test4 = Mock()
         TestClassProcessor processor1 = Mock()
         TestClassProcessor processor2 = Mock()
         TestClassProcessor asyncProcessor1 = Mock()
         TestClassProcessor asyncProcessor2 = Mock()
         Actor actor1 = Mock()
         Actor actor2 = Mock()
+        TestClassProcessor slot1 = null
+        TestClassProcessor slot2 = null
 
         startProcessor()
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot1 = it[0]; actor1 }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(test1)
+
+        then:
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot2 = it[0]; actor2 }
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.processTestClass(test2)
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        slot2.processTestClass(test2)
+
+        then:
+        1 * processor2.processTestClass(test2)
+        1 * asyncProcessor2.processTestClass(test3)
+
+        when:
+        slot2.processTestClass(test3)
+
+        then:
+        1 * processor2.processTestClass(test3)
+        1 * asyncProcessor2.processTestClass(test4)
+
+        when:
+        slot2.processTestClass(test4)
+        slot1.processTestClass(test1)
+        processor.stop()
+
+        then:
+        1 * processor2.processTestClass(test4)
+        1 * processor1.processTestClass(test1)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def reusesIdleProcessorBeforeStartingAnotherOne() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        TestClassProcessor slot1 = null
+
+        startProcessor()
+
+        when:
+        processor.processTestClass(test1)
+        slot1.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot1 = it[0]; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * processor1.processTestClass(test1)
+        1 * asyncProcessor1.processTestClass(test2)
+        0 * factory.create()
+    }
+
+    def stopsHandingOutTestClassesToProcessorThatFails() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassRunInfo test4 = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        TestClassProcessor slot1 = null
+        TestClassProcessor slot2 = null
+        def failure = new RuntimeException("worker crashed")
+
+        startProcessor()
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
 
         then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot1 = it[0]; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.processTestClass(test1)
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot2 = it[0]; actor2 }
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor2.processTestClass(test2)
 
         when:
-        processor.processTestClass(test)
+        slot1.processTestClass(test1)
 
         then:
-        1 * asyncProcessor1.processTestClass(test)
+        1 * processor1.processTestClass(test1) >> { throw failure }
+        0 * asyncProcessor1.processTestClass(_)
 
         when:
-        processor.processTestClass(test)
+        slot2.processTestClass(test2)
+        slot2.processTestClass(test3)
+        slot2.processTestClass(test4)
+        processor.stop()
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor2.processTestClass(test3)
+        1 * asyncProcessor2.processTestClass(test4)
+        0 * asyncProcessor1.processTestClass(_)
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+
+        when:
+        slot1.stop()
+
+        then:
+        1 * processor1.stop()
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def discardsQueuedTestClassesWhenAllProcessorsFail() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        TestClassProcessor slot1 = null
+        TestClassProcessor slot2 = null
+
+        startProcessor()
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        slot1.processTestClass(test1)
+        slot2.processTestClass(test2)
+        processor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot1 = it[0]; Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor1 } }
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor({ it != resultProcessor }) >> { slot2 = it[0]; Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor2 } }
+        1 * processor1.processTestClass(test1) >> { throw new RuntimeException() }
+        1 * processor2.processTestClass(test2) >> { throw new RuntimeException() }
+        0 * asyncProcessor1.processTestClass(test3)
+        0 * asyncProcessor2.processTestClass(test3)
     }
 }
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.Action
+import org.gradle.api.GradleException
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
@@ -51,11 +52,25 @@ class ForkingTestClassProcessorTest extends Specification {
 
         then:
         1 * processor.forkProcess() >> remoteProcessor
-        1 * remoteProcessor.processTestClass(test1)
-        1 * remoteProcessor.processTestClass(test2)
+        1 * remoteProcessor.processTestClass(test1) >> { processor.acknowledgements.testClassProcessed() }
+        1 * remoteProcessor.processTestClass(test2) >> { processor.acknowledgements.testClassProcessed() }
         0 * remoteProcessor._
     }
 
+    def "fails without waiting for acknowledgement when the worker stops"() {
+        def test = Mock(TestClassRunInfo) { getTestClassName() >> "SomeTest" }
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test) >> { processor.acknowledgements.endStream() }
+        def e = thrown(GradleException)
+        e.message == "Test worker process stopped before it finished processing test class 'SomeTest'."
+    }
+
     def "starts process with a limited implementation classpath"() {
         setup:
         1 * workerProcessFactory.create(_) >> workerProcessBuilder
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import spock.lang.Specification
+
+class ReusableTestWorkerPoolTest extends Specification {
+    def pool = new ReusableTestWorkerPool(2)
+
+    def spec(String jvmArg) {
+        return new ReusableTestWorkerSpec("java", [jvmArg], new File("work"), [:], "framework", [new File("junit.jar")], [])
+    }
+
+    def worker(ReusableTestWorkerSpec spec) {
+        return Mock(ReusableTestWorkerClient) {
+            _ * getSpec() >> spec
+        }
+    }
+
+    def "reserves idle worker with an equal spec"() {
+        def worker1 = worker(spec("-Xmx1g"))
+        def worker2 = worker(spec("-Xmx2g"))
+        pool.release(worker1)
+        pool.release(worker2)
+
+        expect:
+        pool.reserveIdleWorker(spec("-Xmx3g")) == null
+        pool.reserveIdleWorker(spec("-Xmx1g")) == worker1
+        pool.reserveIdleWorker(spec("-Xmx1g")) == null
+        pool.reserveIdleWorker(spec("-Xmx2g")) == worker2
+    }
+
+    def "stops least recently used workers when too many are idle"() {
+        def worker1 = worker(spec("-Xmx1g"))
+        def worker2 = worker(spec("-Xmx1g"))
+        def worker3 = worker(spec("-Xmx1g"))
+
+        when:
+        pool.release(worker1)
+        pool.release(worker2)
+        pool.release(worker3)
+
+        then:
+        1 * worker1.stop()
+        0 * worker2.stop()
+        0 * worker3.stop()
+    }
+
+    def "stops idle workers when stopped"() {
+        def worker1 = worker(spec("-Xmx1g"))
+        def worker2 = worker(spec("-Xmx2g"))
+        pool.release(worker1)
+        pool.release(worker2)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * worker1.stop()
+        1 * worker2.stop()
+        pool.reserveIdleWorker(spec("-Xmx1g")) == null
+    }
+}
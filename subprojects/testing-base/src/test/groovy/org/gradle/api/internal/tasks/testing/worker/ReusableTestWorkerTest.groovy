@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class ReusableTestWorkerTest extends Specification {
+    @Rule SetSystemProperties properties = new SetSystemProperties()
+    def processor = Mock(TestClassProcessor)
+    def resultProcessor = Mock(TestWorkerSessionResultProcessor)
+    def worker = new ReusableTestWorker()
+
+    def setup() {
+        worker.processor = processor
+        worker.resultProcessor = resultProcessor
+        worker.systemProperties = System.properties.clone() as Properties
+    }
+
+    def "restores system properties and signals that the worker can be reused when the session stops"() {
+        given:
+        System.setProperty("changed-by-test", "value")
+
+        when:
+        worker.stopSession()
+
+        then:
+        1 * processor.stop()
+
+        then:
+        1 * resultProcessor.sessionStopped(true)
+        System.getProperty("changed-by-test") == null
+    }
+
+    def "restores system properties and signals that the worker cannot be reused when stopping the processor fails"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        System.setProperty("changed-by-test", "value")
+
+        when:
+        worker.stopSession()
+
+        then:
+        1 * processor.stop() >> { throw failure }
+        1 * resultProcessor.sessionStopped(false)
+        def e = thrown(RuntimeException)
+        e == failure
+        System.getProperty("changed-by-test") == null
+    }
+}
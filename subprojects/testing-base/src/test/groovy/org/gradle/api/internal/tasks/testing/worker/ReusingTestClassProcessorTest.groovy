@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.Action
+import org.gradle.api.GradleException
+import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.worker.WorkerProcessFactory
+import spock.lang.Specification
+import spock.lang.Subject
+
+class ReusingTestClassProcessorTest extends Specification {
+    def spec = new ReusableTestWorkerSpec("java", ["-ea"], new File("work"), [:], "framework", [new File("junit.jar")], [])
+    def workerPool = Mock(ReusableTestWorkerPool)
+    def processorFactory = Mock(WorkerTestClassProcessorFactory)
+    def resultProcessor = Mock(TestResultProcessor)
+    def sessionClasspath = [new File("classes")]
+    def worker = Mock(ReusableTestWorkerClient)
+
+    @Subject
+        processor = Spy(ReusingTestClassProcessor, constructorArgs: [workerPool, spec, Mock(WorkerProcessFactory), processorFactory, Mock(JavaForkOptions), sessionClasspath, Mock(Action), Mock(ModuleRegistry)])
+
+    def "uses idle worker from the pool and returns it when stopped"() {
+        def test1 = Mock(TestClassRunInfo)
+        def test2 = Mock(TestClassRunInfo)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * workerPool.reserveIdleWorker(spec) >> worker
+        0 * processor.startWorker()
+        1 * worker.startSession(resultProcessor, processor.acknowledgements, processorFactory, sessionClasspath)
+        1 * worker.processTestClass(test1) >> { processor.acknowledgements.testClassProcessed() }
+        1 * worker.processTestClass(test2) >> { processor.acknowledgements.testClassProcessed() }
+
+        when:
+        processor.stop()
+
+        then:
+        1 * worker.stopSession() >> true
+        1 * workerPool.release(worker)
+        0 * worker.stop()
+    }
+
+    def "starts worker when there is no compatible idle worker"() {
+        def test = Mock(TestClassRunInfo)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
+
+        then:
+        1 * workerPool.reserveIdleWorker(spec) >> null
+        1 * processor.startWorker() >> worker
+        1 * worker.startSession(resultProcessor, processor.acknowledgements, processorFactory, sessionClasspath)
+        1 * worker.processTestClass(test) >> { processor.acknowledgements.testClassProcessed() }
+    }
+
+    def "fails and does not return worker to the pool when it has stopped"() {
+        def test = Mock(TestClassRunInfo) { getTestClassName() >> "SomeTest" }
+        workerPool.reserveIdleWorker(spec) >> worker
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * worker.processTestClass(test) >> { processor.acknowledgements.endStream() }
+        def e = thrown(GradleException)
+        e.message == "Test worker process stopped before it finished processing test class 'SomeTest'."
+
+        when:
+        processor.stop()
+
+        then:
+        1 * worker.stopSession() >> false
+        1 * worker.stop()
+        0 * workerPool.release(_)
+    }
+
+    def "does nothing when stopped before any test class"() {
+        when:
+        processor.stop()
+
+        then:
+        0 * workerPool._
+    }
+}
@@ -23,6 +23,8 @@ import spock.lang.IgnoreIf
 import spock.lang.Timeout
 import spock.lang.Unroll
 
+import static org.hamcrest.Matchers.containsString
+
 @Timeout(240)
 @IgnoreIf({ GradleContextualExecuter.isParallel() })
 class ParallelTestExecutionIntegrationTest extends AbstractIntegrationSpec {
@@ -101,6 +103,46 @@ class ParallelTestExecutionIntegrationTest extends AbstractIntegrationSpec {
         2              | 3          | 2                | 1
     }
 
+    def "runs the remaining test classes on other workers when a worker crashes"() {
+        given:
+        file("src/test/groovy/pkg/CrashingTest.groovy") << """
+            package pkg
+            import org.junit.Test
+            public class CrashingTest {
+                @Test
+                void crash() {
+                    System.exit(1)
+                }
+            }
+        """.stripIndent()
+        testIndices(6).each { idx ->
+            file("src/test/groovy/pkg/SomeTest_${idx}.groovy") << """
+                package pkg
+                import org.junit.Test
+                public class SomeTest_$idx {
+                    @Test
+                    void test_$idx() {
+                        new File("ran-$idx").createNewFile()
+                    }
+                }
+            """.stripIndent()
+        }
+        buildFile << """
+            test {
+                maxParallelForks = 2
+            }
+        """.stripIndent()
+
+        when:
+        fails 'test'
+
+        then:
+        failure.assertThatCause(containsString("finished with non-zero exit value 1"))
+        testIndices(6).each { idx ->
+            file("ran-$idx").assertExists()
+        }
+    }
+
     private void withJUnitTests(int testCount) {
         testIndices(testCount).each { idx ->
             file("src/test/groovy/pkg/SomeTest_${idx}.groovy") << """
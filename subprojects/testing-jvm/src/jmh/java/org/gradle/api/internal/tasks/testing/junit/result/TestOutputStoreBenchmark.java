@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Measures opening the test output store and looking up the output of single tests and whole classes.
+ */
+@State(Scope.Benchmark)
+public class TestOutputStoreBenchmark {
+    private static final int TESTS_PER_CLASS = 20;
+
+    @Param({"1000", "100000"})
+    int testCount;
+
+    File resultsDir;
+    TestOutputStore store;
+    int classCount;
+    long nextLookup;
+
+    @Setup(Level.Trial)
+    public void writeOutputs() throws IOException {
+        resultsDir = File.createTempFile("jmh", "test-results");
+        resultsDir.delete();
+        resultsDir.mkdirs();
+        store = new TestOutputStore(resultsDir);
+        classCount = testCount / TESTS_PER_CLASS;
+
+        TestOutputStore.Writer writer = store.writer();
+        for (long classId = 1; classId <= classCount; classId++) {
+            writer.onOutput(classId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "class output\n"));
+            for (long testId = 1; testId <= TESTS_PER_CLASS; testId++) {
+                writer.onOutput(classId, testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "test output " + testId + "\n"));
+                writer.onOutput(classId, testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "test error " + testId + "\n"));
+            }
+        }
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputs() {
+        store.getIndexFile().delete();
+        store.getOutputsFile().delete();
+        resultsDir.delete();
+    }
+
+    @Benchmark
+    public void openReader(Blackhole bh) throws IOException {
+        TestOutputStore.Reader reader = store.reader();
+        bh.consume(reader.hasOutput(1, TestOutputEvent.Destination.StdOut));
+        reader.close();
+    }
+
+    @Benchmark
+    public void readTestOutput(Blackhole bh) throws IOException {
+        TestOutputStore.Reader reader = store.reader();
+        try {
+            StringWriter output = new StringWriter();
+            long classId = 1 + (nextLookup++ % classCount);
+            for (long testId = 1; testId <= TESTS_PER_CLASS; testId++) {
+                reader.writeTestOutput(classId, testId, TestOutputEvent.Destination.StdOut, output);
+            }
+            bh.consume(output);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void readAllOutput(Blackhole bh) throws IOException {
+        TestOutputStore.Reader reader = store.reader();
+        try {
+            StringWriter output = new StringWriter();
+            long classId = 1 + (nextLookup++ % classCount);
+            reader.writeAllOutput(classId, TestOutputEvent.Destination.StdErr, output);
+            bh.consume(output);
+        } finally {
+            reader.close();
+        }
+    }
+}
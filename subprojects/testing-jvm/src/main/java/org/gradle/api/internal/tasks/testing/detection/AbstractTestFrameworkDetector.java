@@ -16,10 +16,12 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.hash.HashCode;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
+import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.util.internal.Java9ClassReader;
 import org.objectweb.asm.ClassReader;
@@ -30,11 +32,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -46,7 +48,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
+    private final Object publishLock = new Object();
     private TestClassProcessor testClassProcessor;
+    private TestClassDetectionCache detectionCache;
+    private FileHasher fileHasher;
     private final List<String> knownTestCaseClassNames;
 
     private File testClassesDirectory;
@@ -55,7 +60,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -90,7 +95,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -121,7 +126,29 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
+    /**
+     * Reuses the outcome of scanning class files in earlier builds. Class files are matched by their content hash.
+     */
+    public void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher) {
+        this.detectionCache = detectionCache;
+        this.fileHasher = fileHasher;
+    }
+
     protected TestClassVisitor classVisitor(final File testClassFile) {
+        if (detectionCache == null) {
+            return readClassFile(testClassFile);
+        }
+        HashCode hash = fileHasher.hash(testClassFile);
+        TestClassFileSummary summary = detectionCache.get(getClass(), hash);
+        if (summary != null) {
+            return new CachedTestClassVisitor(this, summary);
+        }
+        TestClassVisitor classVisitor = readClassFile(testClassFile);
+        detectionCache.put(getClass(), hash, TestClassFileSummary.of(classVisitor));
+        return classVisitor;
+    }
+
+    private TestClassVisitor readClassFile(File testClassFile) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
         InputStream classStream = null;
@@ -168,7 +195,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
         if (isTest && !classVisitor.isAbstract() && !superClass) {
             String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            // Class files may be scanned concurrently
+            synchronized (publishLock) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -196,4 +226,33 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
         return isKnownTestCase;
     }
+
+    private static class CachedTestClassVisitor extends TestClassVisitor {
+        private final TestClassFileSummary summary;
+
+        CachedTestClassVisitor(TestFrameworkDetector detector, TestClassFileSummary summary) {
+            super(detector);
+            this.summary = summary;
+        }
+
+        @Override
+        public String getClassName() {
+            return summary.getClassName();
+        }
+
+        @Override
+        public boolean isTest() {
+            return summary.isTest();
+        }
+
+        @Override
+        public boolean isAbstract() {
+            return summary.isAbstract();
+        }
+
+        @Override
+        public String getSuperClassName() {
+            return summary.getSuperClassName();
+        }
+    }
 }
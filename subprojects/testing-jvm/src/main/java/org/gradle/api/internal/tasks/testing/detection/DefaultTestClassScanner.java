@@ -16,29 +16,45 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
- * a detection or filename scan is performed to find test classes.
+ * a detection or filename scan is performed to find test classes. When a build operation processor is available,
+ * class files are scanned for tests in parallel, and test classes are passed on as they are found.
  */
 public class DefaultTestClassScanner implements Runnable {
+    private static final int DETECTION_BATCH_SIZE = 100;
+
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, BuildOperationProcessor buildOperationProcessor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     @Override
@@ -52,11 +68,32 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
-            }
-        });
+        if (buildOperationProcessor == null) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+        } else {
+            buildOperationProcessor.run(new Action<BuildOperationQueue<DetectTestClasses>>() {
+                @Override
+                public void execute(final BuildOperationQueue<DetectTestClasses> queue) {
+                    final List<File> batch = new ArrayList<File>(DETECTION_BATCH_SIZE);
+                    candidateClassFiles.visit(new ClassFileVisitor() {
+                        public void visitClassFile(FileVisitDetails fileDetails) {
+                            batch.add(fileDetails.getFile());
+                            if (batch.size() == DETECTION_BATCH_SIZE) {
+                                queue.add(new DetectTestClasses(testFrameworkDetector, new ArrayList<File>(batch)));
+                                batch.clear();
+                            }
+                        }
+                    });
+                    if (!batch.isEmpty()) {
+                        queue.add(new DetectTestClasses(testFrameworkDetector, batch));
+                    }
+                }
+            });
+        }
     }
 
     private void filenameScan() {
@@ -81,4 +118,26 @@ public class DefaultTestClassScanner implements Runnable {
 
         public abstract void visitClassFile(FileVisitDetails fileDetails);
     }
+
+    private static class DetectTestClasses implements RunnableBuildOperation {
+        private final TestFrameworkDetector detector;
+        private final List<File> classFiles;
+
+        DetectTestClasses(TestFrameworkDetector detector, List<File> classFiles) {
+            this.detector = detector;
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public String getDescription() {
+            return "scanning " + classFiles.size() + " class files for tests";
+        }
+
+        @Override
+        public void run() {
+            for (File classFile : classFiles) {
+                detector.processTestClass(classFile);
+            }
+        }
+    }
 }
@@ -17,51 +17,83 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassExecutionHistory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.processors.WorkerLeaseHolderTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerSpec;
+import org.gradle.api.internal.tasks.testing.worker.ReusingTestClassProcessor;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.internal.time.TrueTimeProvider;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
-
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
+    // The packages of JUnit and of the Hamcrest classes it uses
+    private static final String[] TEST_FRAMEWORK_PACKAGES = {"junit/", "org/junit/", "org/hamcrest/"};
 
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final TestClassDetectionCache detectionCache;
+    private final FileHasher fileHasher;
     private final int maxWorkerCount;
+    private final TestClassExecutionHistory history;
+    private final ReusableTestWorkerPool workerPool;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount) {
+        this(workerFactory, actorFactory, moduleRegistry, workerLeaseRegistry, buildOperationExecutor, null, null, null, maxWorkerCount, TestClassExecutionHistory.EMPTY, null);
+    }
+
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor,
+                               BuildOperationProcessor buildOperationProcessor, TestClassDetectionCache detectionCache, FileHasher fileHasher, int maxWorkerCount, TestClassExecutionHistory history,
+                               ReusableTestWorkerPool workerPool) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.detectionCache = detectionCache;
+        this.fileHasher = fileHasher;
         this.maxWorkerCount = maxWorkerCount;
+        this.history = history;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -70,12 +102,24 @@ public class DefaultTestExecuter implements TestExecuter {
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testTask.getClasspath());
-        final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
-            public TestClassProcessor create() {
-                return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry);
-            }
-        };
+        final Factory<TestClassProcessor> forkingProcessorFactory;
+        final List<File> sessionClasspath = new ArrayList<File>();
+        final ReusableTestWorkerSpec workerSpec = canReuseWorkers(testTask) ? createReusableWorkerSpec(testTask, testInstanceFactory, classpath, sessionClasspath) : null;
+        if (workerSpec != null) {
+            forkingProcessorFactory = new Factory<TestClassProcessor>() {
+                public TestClassProcessor create() {
+                    return new ReusingTestClassProcessor(workerPool, workerSpec, workerFactory, testInstanceFactory, testTask,
+                        sessionClasspath, testFramework.getWorkerConfigurationAction(), moduleRegistry);
+                }
+            };
+        } else {
+            forkingProcessorFactory = new Factory<TestClassProcessor>() {
+                public TestClassProcessor create() {
+                    return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
+                        classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry);
+                }
+            };
+        }
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testTask.getForkEvery());
@@ -89,6 +133,9 @@ public class DefaultTestExecuter implements TestExecuter {
         };
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(getMaxParallelForks(testTask), workerLeaseHolderProcessorFactory, actorFactory);
+        if (!history.isEmpty()) {
+            processor = new HistoryOrderingTestClassProcessor(processor, history, testTask.isLongestTestClassesFirst(), testTask.isFailedTestClassesFirst());
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -97,7 +144,10 @@ public class DefaultTestExecuter implements TestExecuter {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            if (detectionCache != null && testFrameworkDetector instanceof AbstractTestFrameworkDetector) {
+                ((AbstractTestFrameworkDetector) testFrameworkDetector).setDetectionCache(detectionCache, fileHasher);
+            }
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, buildOperationProcessor);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
@@ -107,6 +157,89 @@ public class DefaultTestExecuter implements TestExecuter {
         new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider(), testTaskOperationId, testTask.getPath(), "Gradle Test Run " + testTask.getIdentityPath()).run();
     }
 
+    private boolean canReuseWorkers(Test testTask) {
+        // A worker that has run forkEvery test classes must not be used again, and a worker started for debugging should not outlive the task.
+        // The dependencies of TestNG are not known, so its classes cannot be separated from the classes that are loaded for each task
+        return testTask.isReuseTestWorkers() && testTask.getForkEvery() == 0 && !testTask.getDebug() && workerPool != null && fileHasher != null
+            && testTask.getTestFramework() instanceof JUnitTestFramework;
+    }
+
+    /**
+     * Splits the test runtime classpath into the JUnit and Hamcrest jars, which are loaded once by a reusable worker, and everything else, which is
+     * loaded separately for each test task. Only the classes of the test framework are shared between the tasks that use a worker, so that no
+     * static state of the tested code or of its dependencies leaks from one task to another.
+     *
+     * @return the spec of the worker, or null when the test framework classes cannot be separated from the other classes, for example when a jar bundles both.
+     */
+    @Nullable
+    private ReusableTestWorkerSpec createReusableWorkerSpec(Test testTask, WorkerTestClassProcessorFactory testInstanceFactory, Set<File> classpath, List<File> sessionClasspath) {
+        List<File> sharedClasspath = new ArrayList<File>();
+        List<HashCode> sharedClasspathHashes = new ArrayList<HashCode>();
+        for (File file : classpath) {
+            JarContents contents = file.isFile() ? inspect(file) : JarContents.OTHER;
+            if (contents == JarContents.MIXED) {
+                LOGGER.info("Not reusing test workers for {}, as {} contains test framework classes and other classes.", testTask, file);
+                return null;
+            }
+            if (contents == JarContents.TEST_FRAMEWORK) {
+                sharedClasspath.add(file);
+                sharedClasspathHashes.add(fileHasher.hash(file));
+            } else {
+                sessionClasspath.add(file);
+            }
+        }
+        if (sharedClasspath.isEmpty()) {
+            LOGGER.info("Not reusing test workers for {}, as JUnit is not loaded from a jar.", testTask);
+            return null;
+        }
+        return new ReusableTestWorkerSpec(testTask.getExecutable(), testTask.getAllJvmArgs(), testTask.getWorkingDir(), testTask.getEnvironment(),
+            testInstanceFactory.getClass().getName(), sharedClasspath, sharedClasspathHashes);
+    }
+
+    static JarContents inspect(File jar) {
+        boolean testFrameworkClasses = false;
+        boolean otherClasses = false;
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements() && !(testFrameworkClasses && otherClasses)) {
+                    String name = entries.nextElement().getName();
+                    if (!name.endsWith(".class") || name.startsWith("META-INF/") || name.equals("module-info.class")) {
+                        continue;
+                    }
+                    if (isTestFrameworkClass(name)) {
+                        testFrameworkClasses = true;
+                    } else {
+                        otherClasses = true;
+                    }
+                }
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            // Not a jar that can be shared, leave it to the class loader of the task
+            return JarContents.OTHER;
+        }
+        if (testFrameworkClasses) {
+            return otherClasses ? JarContents.MIXED : JarContents.TEST_FRAMEWORK;
+        }
+        return JarContents.OTHER;
+    }
+
+    private static boolean isTestFrameworkClass(String entryName) {
+        for (String prefix : TEST_FRAMEWORK_PACKAGES) {
+            if (entryName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    enum JarContents {
+        TEST_FRAMEWORK, OTHER, MIXED
+    }
+
     private int getMaxParallelForks(Test testTask) {
         int maxParallelForks = testTask.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
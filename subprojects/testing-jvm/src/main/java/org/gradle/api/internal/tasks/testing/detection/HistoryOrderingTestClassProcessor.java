@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassExecutionHistory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the detected test classes and forwards them ordered by the previous run of the test task. Test classes that failed previously can be
+ * run first to get fast feedback, and the longest running test classes can be started first so that the parallel test processors finish at about
+ * the same time. Test classes that were not run previously come before those with a known duration.
+ *
+ * <p>All detected test classes are held back until detection has finished, so that the ordering holds across the whole test suite.</p>
+ */
+public class HistoryOrderingTestClassProcessor implements TestClassProcessor {
+    private final TestClassProcessor delegate;
+    private final TestClassExecutionHistory history;
+    private final boolean longestFirst;
+    private final boolean failedFirst;
+    private final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+
+    public HistoryOrderingTestClassProcessor(TestClassProcessor delegate, TestClassExecutionHistory history, boolean longestFirst, boolean failedFirst) {
+        this.delegate = delegate;
+        this.history = history;
+        this.longestFirst = longestFirst;
+        this.failedFirst = failedFirst;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        testClasses.add(testClass);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            // A stable sort, so test classes that are otherwise equal keep their detection order
+            Collections.sort(testClasses, new TestClassComparator());
+            for (TestClassRunInfo testClass : testClasses) {
+                delegate.processTestClass(testClass);
+            }
+        } finally {
+            delegate.stop();
+        }
+    }
+
+    private static int compareFlags(boolean left, boolean right) {
+        return left == right ? 0 : left ? -1 : 1;
+    }
+
+    private class TestClassComparator implements Comparator<TestClassRunInfo> {
+        @Override
+        public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+            return compareHistory(left.getTestClassName(), right.getTestClassName());
+        }
+
+        private int compareHistory(String leftName, String rightName) {
+            if (failedFirst) {
+                int result = compareFlags(history.hasFailed(leftName), history.hasFailed(rightName));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            if (!longestFirst) {
+                return 0;
+            }
+            int result = compareFlags(!history.contains(leftName), !history.contains(rightName));
+            if (result != 0) {
+                return result;
+            }
+            long leftDuration = history.getDuration(leftName);
+            long rightDuration = history.getDuration(rightName);
+            return leftDuration > rightDuration ? -1 : leftDuration < rightDuration ? 1 : 0;
+        }
+    }
+}
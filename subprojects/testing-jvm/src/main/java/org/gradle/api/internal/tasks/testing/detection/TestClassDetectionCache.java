@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCache;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
+
+/**
+ * Retains the outcome of scanning test class files across builds, keyed by the detector type and the hash of the class file. Scanning then only
+ * has to read the class files that have changed since the previous build.
+ */
+public class TestClassDetectionCache {
+    private final CrossBuildInMemoryCache<String, TestClassFileSummary> summaries;
+
+    public TestClassDetectionCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.summaries = cacheFactory.newCache();
+    }
+
+    @Nullable
+    public TestClassFileSummary get(Class<?> detectorType, HashCode classFileHash) {
+        return summaries.get(key(detectorType, classFileHash));
+    }
+
+    public void put(Class<?> detectorType, HashCode classFileHash, TestClassFileSummary summary) {
+        summaries.put(key(detectorType, classFileHash), summary);
+    }
+
+    private static String key(Class<?> detectorType, HashCode classFileHash) {
+        return detectorType.getName() + ":" + classFileHash;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The duration and outcome of each test class in the previous run of a test task. This is kept in a small index next to the binary results, holding
+ * only the class name, duration and whether it failed, so that it can be read without loading the full results of the previous run.
+ */
+public class TestClassExecutionHistory {
+    private static final Logger LOGGER = Logging.getLogger(TestClassExecutionHistory.class);
+    private static final int HISTORY_VERSION = 1;
+
+    public static final TestClassExecutionHistory EMPTY = new TestClassExecutionHistory(new HashMap<String, ClassHistory>());
+
+    private final Map<String, ClassHistory> classes;
+
+    TestClassExecutionHistory(Map<String, ClassHistory> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Writes the history index for the given results to the given binary results directory.
+     */
+    public static void write(File binaryResultsDir, Collection<TestClassResult> results) {
+        try {
+            OutputStream outputStream = new FileOutputStream(indexFile(binaryResultsDir));
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(HISTORY_VERSION);
+                encoder.writeSmallInt(results.size());
+                for (TestClassResult result : results) {
+                    encoder.writeString(result.getClassName());
+                    encoder.writeSmallLong(result.getDuration());
+                    encoder.writeBoolean(result.getFailuresCount() > 0);
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the history index from the given binary results directory. Returns an empty history when there is no usable index.
+     */
+    public static TestClassExecutionHistory read(File binaryResultsDir) {
+        File indexFile = indexFile(binaryResultsDir);
+        if (!indexFile.isFile()) {
+            return EMPTY;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(indexFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != HISTORY_VERSION) {
+                    return EMPTY;
+                }
+                int count = decoder.readSmallInt();
+                Map<String, ClassHistory> classes = new HashMap<String, ClassHistory>();
+                for (int i = 0; i < count; i++) {
+                    String className = decoder.readString();
+                    long duration = decoder.readSmallLong();
+                    boolean failed = decoder.readBoolean();
+                    classes.put(className, new ClassHistory(duration, failed));
+                }
+                return new TestClassExecutionHistory(classes);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            // The history is only used to order test classes, so ignore an index that cannot be read
+            LOGGER.debug("Could not read previous test class history from {}.", indexFile, e);
+            return EMPTY;
+        }
+    }
+
+    private static File indexFile(File binaryResultsDir) {
+        return new File(binaryResultsDir, "class-history.bin");
+    }
+
+    public boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    /**
+     * Returns the duration of the given test class in the previous run in milliseconds, or 0 if it was not run.
+     */
+    public long getDuration(String className) {
+        ClassHistory history = classes.get(className);
+        return history == null ? 0 : history.duration;
+    }
+
+    public boolean hasFailed(String className) {
+        ClassHistory history = classes.get(className);
+        return history != null && history.failed;
+    }
+
+    static class ClassHistory {
+        final long duration;
+        final boolean failed;
+
+        ClassHistory(long duration, boolean failed) {
+            this.duration = duration;
+            this.failed = failed;
+        }
+    }
+}
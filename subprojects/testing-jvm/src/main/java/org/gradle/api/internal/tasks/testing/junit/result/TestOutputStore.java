@@ -16,22 +16,25 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class TestOutputStore {
+    private static final int INDEX_VERSION = 2;
+    private static final int INDEX_HEADER_SIZE = 8;
+    private static final int INDEX_RECORD_SIZE = 6 * 8;
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
@@ -72,7 +75,7 @@ public class TestOutputStore {
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Map<Long, TestCaseRegion>> index = new TreeMap<Long, Map<Long, TestCaseRegion>>();
 
         public Writer() {
             try {
@@ -112,7 +115,7 @@ public class TestOutputStore {
 
         private void mark(long classId, long testId, boolean isStdout) {
             if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+                index.put(classId, new TreeMap<Long, TestCaseRegion>());
             }
 
             Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
@@ -133,36 +136,40 @@ public class TestOutputStore {
         }
 
         private void writeIndex() {
-            Output indexOutput;
+            DataOutputStream indexOutput;
             try {
-                indexOutput = new Output(new FileOutputStream(getIndexFile()));
+                indexOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile())));
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
 
-
             try {
-                indexOutput.writeInt(index.size(), true);
-
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
-                    Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
-
-                    indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                try {
+                    int recordCount = 0;
+                    for (Map<Long, TestCaseRegion> regions : index.values()) {
+                        recordCount += regions.size();
+                    }
+                    indexOutput.writeInt(INDEX_VERSION);
+                    indexOutput.writeInt(recordCount);
+
+                    // One fixed-width record per test, sorted by class id and then test id
+                    for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
+                        long classId = classEntry.getKey();
+                        for (Map.Entry<Long, TestCaseRegion> testCaseEntry : classEntry.getValue().entrySet()) {
+                            TestCaseRegion region = testCaseEntry.getValue();
+                            indexOutput.writeLong(classId);
+                            indexOutput.writeLong(testCaseEntry.getKey());
+                            indexOutput.writeLong(region.stdOutRegion.start);
+                            indexOutput.writeLong(region.stdOutRegion.stop);
+                            indexOutput.writeLong(region.stdErrRegion.start);
+                            indexOutput.writeLong(region.stdErrRegion.stop);
+                        }
                     }
+                } finally {
+                    indexOutput.close();
                 }
-            } finally {
-                indexOutput.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
@@ -171,54 +178,117 @@ public class TestOutputStore {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
-
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+    /**
+     * Reads regions from the index file on demand, so that the index does not need to be loaded into memory. Safe to use from multiple threads.
+     */
+    private static class IndexReader implements Closeable {
+        private final RandomAccessFile indexFile;
+        private final FileChannel channel;
+        private final int recordCount;
+
+        IndexReader(File file) throws IOException {
+            indexFile = new RandomAccessFile(file, "r");
+            channel = indexFile.getChannel();
+            ByteBuffer header;
+            try {
+                header = read(0, INDEX_HEADER_SIZE);
+            } catch (IOException e) {
+                indexFile.close();
+                throw e;
+            }
+            int version = header.getInt();
+            if (version != INDEX_VERSION) {
+                indexFile.close();
+                throw new IllegalStateException(String.format("Unexpected test outputs index file version %d found in %s.", version, file));
+            }
+            recordCount = header.getInt();
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        /**
+         * Returns the region covering the output of all tests of the given class.
+         */
+        Region classRegion(long classId, boolean stdout) throws IOException {
+            Region region = new Region();
+            for (int i = lowerBound(classId, Long.MIN_VALUE); i < recordCount; i++) {
+                ByteBuffer record = record(i);
+                if (record.getLong() != classId) {
+                    break;
+                }
+                record.getLong();
+                Region testRegion = readRegion(record, stdout);
+                if (testRegion.start >= 0 && (region.start < 0 || testRegion.start < region.start)) {
+                    region.start = testRegion.start;
+                }
+                if (testRegion.stop > region.stop) {
+                    region.stop = testRegion.stop;
+                }
+            }
+            return region;
         }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
 
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
+        /**
+         * Returns the region covering the output of the given test, or null if there is no output for the test.
+         */
+        Region testRegion(long classId, long testId, boolean stdout) throws IOException {
+            int i = lowerBound(classId, testId);
+            if (i == recordCount) {
+                return null;
             }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
+            ByteBuffer record = record(i);
+            if (record.getLong() != classId || record.getLong() != testId) {
+                return null;
             }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
+            return readRegion(record, stdout);
+        }
+
+        private Region readRegion(ByteBuffer record, boolean stdout) {
+            Region stdOut = new Region(record.getLong(), record.getLong());
+            if (stdout) {
+                return stdOut;
             }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
+            return new Region(record.getLong(), record.getLong());
+        }
+
+        private int lowerBound(long classId, long testId) throws IOException {
+            int low = 0;
+            int high = recordCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                ByteBuffer record = record(mid);
+                long midClassId = record.getLong();
+                long midTestId = record.getLong();
+                if (midClassId < classId || (midClassId == classId && midTestId < testId)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
             }
+            return low;
+        }
 
-            children.put(key, index);
+        private ByteBuffer record(int index) throws IOException {
+            return read(INDEX_HEADER_SIZE + (long) index * INDEX_RECORD_SIZE, INDEX_RECORD_SIZE);
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of test outputs index file.");
+                }
+            }
+            buffer.flip();
+            return buffer;
         }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+        @Override
+        public void close() throws IOException {
+            indexFile.close();
         }
     }
 
     public class Reader implements Closeable {
-        private final Index index;
+        private final IndexReader index;
         private final RandomAccessFile dataFile;
 
         public Reader() {
@@ -230,41 +300,16 @@ public class TestOutputStore {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
                 }
 
-                Input input;
                 try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
+                    index = new IndexReader(indexFile);
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
 
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
+                    CompositeStoppable.stoppable(index).stop();
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -280,7 +325,11 @@ public class TestOutputStore {
         @Override
         public void close() throws IOException {
             if (dataFile != null) {
-                dataFile.close();
+                try {
+                    dataFile.close();
+                } finally {
+                    index.close();
+                }
             }
         }
 
@@ -289,12 +338,10 @@ public class TestOutputStore {
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
+            try {
+                return index.classRegion(classId, destination == TestOutputEvent.Destination.StdOut).start >= 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
 
@@ -315,19 +362,15 @@ public class TestOutputStore {
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-
-            if (targetIndex == null) {
-                return;
-            }
-
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+            Region region;
+            try {
+                region = testId == 0 ? index.classRegion(classId, stdout) : index.testRegion(classId, testId, stdout);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
 
-            if (region.start < 0) {
+            if (region == null || region.start < 0) {
                 return;
             }
 
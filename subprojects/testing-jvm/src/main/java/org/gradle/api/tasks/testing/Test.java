@@ -29,6 +29,7 @@ import org.gradle.api.internal.ClosureBackedAction;
 import org.gradle.api.internal.ConventionTask;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
@@ -36,6 +37,7 @@ import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
@@ -43,6 +45,7 @@ import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
 import org.gradle.api.internal.tasks.testing.junit.result.InMemoryTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassExecutionHistory;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputAssociation;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
@@ -59,6 +62,7 @@ import org.gradle.api.internal.tasks.testing.results.StateTrackingTestResultProc
 import org.gradle.api.internal.tasks.testing.results.TestListenerAdapter;
 import org.gradle.api.internal.tasks.testing.results.TestListenerInternal;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.reporting.DirectoryReport;
 import org.gradle.api.reporting.Reporting;
@@ -172,6 +176,9 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private FileCollection classpath;
     private TestFramework testFramework;
     private boolean scanForTestClasses = true;
+    private boolean longestTestClassesFirst;
+    private boolean failedTestClassesFirst;
+    private boolean reuseTestWorkers;
     private long forkEvery;
     private int maxParallelForks = 1;
     private TestReporter testReporter;
@@ -594,6 +601,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        TestClassExecutionHistory history = isLongestTestClassesFirst() || isFailedTestClassesFirst() ? TestClassExecutionHistory.read(binaryResultsDir) : TestClassExecutionHistory.EMPTY;
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -617,7 +625,11 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
             testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(),
                 getServices().get(WorkerLeaseRegistry.class),
                 getServices().get(BuildOperationExecutor.class),
-                getServices().get(StartParameter.class).getMaxWorkerCount());
+                getBuildOperationProcessor(),
+                getServices().get(TestClassDetectionCache.class),
+                getServices().get(FileHasher.class),
+                getServices().get(StartParameter.class).getMaxWorkerCount(), history,
+                getServices().get(ReusableTestWorkerPool.class));
         }
 
         JavaVersion javaVersion = getJavaVersion();
@@ -636,6 +648,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
+        TestClassExecutionHistory.write(binaryResultsDir, results.values());
 
         TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
 
@@ -1106,6 +1119,76 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.scanForTestClasses = scanForTestClasses;
     }
 
+    /**
+     * Specifies whether the test classes that took longest in the previous run of this task should be executed first. Ordering the test classes this
+     * way helps the forked test processes to finish at about the same time when running tests in parallel. Test classes without a previous run are
+     * executed before those with a known duration. Test classes are started once all of them have been detected. The default value is {@code false}.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    @Internal
+    public boolean isLongestTestClassesFirst() {
+        return longestTestClassesFirst;
+    }
+
+    /**
+     * Sets whether the test classes that took longest in the previous run of this task should be executed first.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    public void setLongestTestClassesFirst(boolean longestTestClassesFirst) {
+        this.longestTestClassesFirst = longestTestClassesFirst;
+    }
+
+    /**
+     * Specifies whether the test classes that failed in the previous run of this task should be executed before any other test classes, for faster
+     * feedback. The default value is {@code false}.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    @Internal
+    public boolean isFailedTestClassesFirst() {
+        return failedTestClassesFirst;
+    }
+
+    /**
+     * Sets whether the test classes that failed in the previous run of this task should be executed before any other test classes.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    public void setFailedTestClassesFirst(boolean failedTestClassesFirst) {
+        this.failedTestClassesFirst = failedTestClassesFirst;
+    }
+
+    /**
+     * Specifies whether the forked test processes should be kept when this task has finished, so that they can run the tests of other test tasks with
+     * the same Java executable, JVM arguments, working directory, environment and version of JUnit. Only the JUnit and Hamcrest classes are shared
+     * between tasks. All other classes and jars of the test runtime classpath are loaded separately for each task, and system properties changed by
+     * the tests are restored. Test processes are never reused for TestNG tests, when {@link #getForkEvery()} is set, when debugging, or when a jar
+     * bundles JUnit or Hamcrest classes with other classes. The default value is {@code false}.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    @Internal
+    public boolean isReuseTestWorkers() {
+        return reuseTestWorkers;
+    }
+
+    /**
+     * Sets whether the forked test processes should be kept when this task has finished, so that they can run the tests of other test tasks.
+     *
+     * @since 4.0
+     */
+    @Incubating
+    public void setReuseTestWorkers(boolean reuseTestWorkers) {
+        this.reuseTestWorkers = reuseTestWorkers;
+    }
+
     /**
      * Returns the maximum number of test classes to execute in a forked test process. The forked test process will be restarted when this limit is reached. The default value is 0 (no maximum).
      *
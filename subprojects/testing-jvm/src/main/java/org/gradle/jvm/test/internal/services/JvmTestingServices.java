@@ -16,6 +16,8 @@
 
 package org.gradle.jvm.test.internal.services;
 
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.test.internal.JUnitTestSuiteBinaryRenderer;
@@ -24,11 +26,12 @@ public class JvmTestingServices implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.add(JUnitTestSuiteBinaryRenderer.class);
+        registration.add(TestClassDetectionCache.class);
     }
 
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
-
+        registration.addProvider(new BuildSessionScopeServices());
     }
 
     @Override
@@ -45,4 +48,10 @@ public class JvmTestingServices implements PluginServiceRegistry {
     public void registerProjectServices(ServiceRegistration registration) {
 
     }
+
+    private static class BuildSessionScopeServices {
+        ReusableTestWorkerPool createReusableTestWorkerPool() {
+            return new ReusableTestWorkerPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
 }
@@ -21,6 +21,8 @@ import org.gradle.api.file.FileTree
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
 import org.junit.Test
 import spock.lang.Specification
 
@@ -52,4 +54,29 @@ public class DefaultTestClassScannerTest extends Specification {
 
         0 * _._
     }
+
+    def passesBatchesOfClassFilesToTestClassDetectorInParallelWhenBuildOperationProcessorIsAvailable() {
+        def operations = []
+        def buildOperationProcessor = Stub(BuildOperationProcessor) {
+            run(_) >> { args ->
+                args[0].execute([add: { operations << it }] as BuildOperationQueue)
+                operations*.run()
+            }
+        }
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, buildOperationProcessor)
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(processor)
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            (1..150).each { index ->
+                visitor.visitFile({ new File("class${index}.class") } as FileVisitDetails)
+            }
+        }
+        150 * detector.processTestClass(_)
+        operations.size() == 2
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import static org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter.JarContents.MIXED
+import static org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter.JarContents.OTHER
+import static org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter.JarContents.TEST_FRAMEWORK
+
+class DefaultTestExecuterTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "jar with #entries contains #contents"() {
+        def jar = tmpDir.file("lib.jar")
+        jar.withOutputStream { outputStream ->
+            def zipStream = new ZipOutputStream(outputStream)
+            entries.each {
+                zipStream.putNextEntry(new ZipEntry(it))
+                zipStream.closeEntry()
+            }
+            zipStream.close()
+        }
+
+        expect:
+        DefaultTestExecuter.inspect(jar) == contents
+
+        where:
+        entries                                                                            | contents
+        ["META-INF/MANIFEST.MF", "org/junit/Test.class", "junit/framework/Assert.class"]   | TEST_FRAMEWORK
+        ["org/hamcrest/Matcher.class", "LICENSE.txt"]                                      | TEST_FRAMEWORK
+        ["org/mockito/Mockito.class", "META-INF/versions/9/org/junit/X.class"]             | OTHER
+        ["org/mockito/Mockito.class", "org/hamcrest/Matcher.class"]                        | MIXED
+    }
+
+    def "file that is not a jar contains other classes"() {
+        def file = tmpDir.file("lib.jar")
+        file.text = "not a jar"
+
+        expect:
+        DefaultTestExecuter.inspect(file) == OTHER
+    }
+}
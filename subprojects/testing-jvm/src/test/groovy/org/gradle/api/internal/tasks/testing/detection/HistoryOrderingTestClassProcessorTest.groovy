@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassExecutionHistory
+import spock.lang.Specification
+
+class HistoryOrderingTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def history = Stub(TestClassExecutionHistory) {
+        contains(_) >> { String name -> name in ['Short', 'Long', 'Failed'] }
+        getDuration('Short') >> 10
+        getDuration('Long') >> 1000
+        getDuration('Failed') >> 100
+        hasFailed('Failed') >> true
+    }
+    def received = []
+
+    def "forwards test classes at end of detection with the longest first"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, true, false)
+        def resultProcessor = Mock(TestResultProcessor)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ['Short', 'Failed', 'New', 'Long'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        0 * delegate._
+
+        when:
+        processor.stop()
+
+        then:
+        4 * delegate.processTestClass(_) >> { received << it[0].testClassName }
+
+        then:
+        1 * delegate.stop()
+        received == ['New', 'Long', 'Failed', 'Short']
+    }
+
+    def "can forward previously failed test classes first"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, true, true)
+
+        when:
+        ['Short', 'Failed', 'New', 'Long'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        4 * delegate.processTestClass(_) >> { received << it[0].testClassName }
+        received == ['Failed', 'New', 'Long', 'Short']
+    }
+
+    def "keeps detection order apart from previously failed test classes when longest first is disabled"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, false, true)
+
+        when:
+        ['Short', 'Failed', 'New', 'Long'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        4 * delegate.processTestClass(_) >> { received << it[0].testClassName }
+        received == ['Failed', 'Short', 'New', 'Long']
+    }
+
+    def "forwards previously failed test classes first however late they are detected"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, false, true)
+        def detected = (1..1000).collect { "Test$it" } + 'Failed'
+
+        when:
+        detected.each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        1001 * delegate.processTestClass(_) >> { received << it[0].testClassName }
+        received.first() == 'Failed'
+        received.tail() == detected.take(1000)
+    }
+}
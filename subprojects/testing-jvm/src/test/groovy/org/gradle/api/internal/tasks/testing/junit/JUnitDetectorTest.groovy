@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory
+import org.gradle.api.internal.hash.FileHasher
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache
+import org.gradle.internal.Factory
+import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import spock.lang.Specification
+
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC
+import static org.objectweb.asm.Opcodes.V1_6
+
+class JUnitDetectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+    def processor = Mock(TestClassProcessor)
+    def hasher = Stub(FileHasher) {
+        hash(_ as File) >> HashCode.fromInt(123)
+    }
+    def cache = new TestClassDetectionCache(new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()))
+
+    def "detects test class annotated with RunWith"() {
+        def detector = detector()
+        detector.startDetection(processor)
+
+        when:
+        def isTest = detector.processTestClass(testClassFile())
+
+        then:
+        isTest
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.SomeTest" })
+    }
+
+    def "reuses outcome of scanning a class file with the same content"() {
+        def classFile = testClassFile()
+        def first = detector()
+        first.setDetectionCache(cache, hasher)
+        first.startDetection(Stub(TestClassProcessor))
+        first.processTestClass(classFile)
+        classFile.delete()
+
+        def second = detector()
+        second.setDetectionCache(cache, hasher)
+        second.startDetection(processor)
+
+        when:
+        second.processTestClass(classFile)
+
+        then:
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.SomeTest" })
+    }
+
+    private JUnitDetector detector() {
+        return new JUnitDetector(new ClassFileExtractionManager({ tmp.createDir("tmp") } as Factory<File>))
+    }
+
+    private File testClassFile() {
+        def writer = new ClassWriter(0)
+        writer.visit(V1_6, ACC_PUBLIC, "org/gradle/SomeTest", null, "java/lang/Object", null)
+        writer.visitAnnotation("Lorg/junit/runner/RunWith;", true).visitEnd()
+        writer.visitEnd()
+        def classFile = tmp.file("classes/org/gradle/SomeTest.class")
+        classFile.parentFile.mkdirs()
+        classFile.bytes = writer.toByteArray()
+        return classFile
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassExecutionHistoryTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def "reads durations and failures of previous run from history index"() {
+        def dir = tmp.createDir("results")
+        def class1 = new TestClassResult(1, 'Class1', 1000)
+        class1.add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 1100))
+        class1.add(new TestMethodResult(2, "method2", TestResult.ResultType.FAILURE, 200, 1300))
+        def class2 = new TestClassResult(2, 'Class2', 2000)
+        class2.add(new TestMethodResult(3, "method1", TestResult.ResultType.SUCCESS, 500, 2500))
+        TestClassExecutionHistory.write(dir, [class1, class2])
+
+        when:
+        def history = TestClassExecutionHistory.read(dir)
+
+        then:
+        !history.empty
+        history.contains('Class1')
+        history.getDuration('Class1') == 300
+        history.hasFailed('Class1')
+        history.getDuration('Class2') == 500
+        !history.hasFailed('Class2')
+        !history.contains('Class3')
+        history.getDuration('Class3') == 0
+    }
+
+    def "history is empty when there are no previous results"() {
+        expect:
+        TestClassExecutionHistory.read(tmp.createDir("results")).empty
+        TestClassExecutionHistory.read(tmp.file("missing")).empty
+    }
+
+    def "ignores history index that cannot be read"() {
+        def dir = tmp.createDir("results")
+        dir.file("class-history.bin").bytes = [99, 1, 2] as byte[]
+
+        expect:
+        TestClassExecutionHistory.read(dir).empty
+    }
+
+    def "does not use full results of previous run"() {
+        def dir = tmp.createDir("results")
+        def class1 = new TestClassResult(1, 'Class1', 1000)
+        class1.add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 1100))
+        new TestResultSerializer(dir).write([class1])
+
+        expect:
+        TestClassExecutionHistory.read(dir).empty
+    }
+}
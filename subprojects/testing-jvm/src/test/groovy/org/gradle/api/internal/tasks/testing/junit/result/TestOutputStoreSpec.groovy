@@ -169,6 +169,45 @@ class TestOutputStoreSpec extends WorkspaceTest {
         thrown(IllegalStateException)
     }
 
+    def "looks up output for many classes and tests"() {
+        when:
+        def writer = output.writer()
+        (1..200).each { classId ->
+            writer.onOutput(classId, output(StdErr, "[class-$classId]"))
+            (1..5).each { testId ->
+                writer.onOutput(classId, testId, output(StdOut, "[$classId-$testId]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[1-1]"
+        collectOutput(reader, 117, 3, StdOut) == "[117-3]"
+        collectOutput(reader, 200, 5, StdOut) == "[200-5]"
+        collectOutput(reader, 117, 6, StdOut) == ""
+        collectAllOutput(reader, 42, StdOut) == "[42-1][42-2][42-3][42-4][42-5]"
+        collectOutput(reader, 42, StdErr) == "[class-42]"
+        reader.hasOutput(200, StdErr)
+        !reader.hasOutput(201, StdOut)
+
+        cleanup:
+        reader.close()
+    }
+
+    def "exception if index file has unexpected version"() {
+        when:
+        output.outputsFile.createNewFile()
+        output.indexFile.withDataOutputStream {
+            it.writeInt(1)
+            it.writeInt(0)
+        }
+        output.reader()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
     String collectAllOutput(TestOutputStore.Reader reader, long classId, TestOutputEvent.Destination destination) {
         def writer = new StringWriter()
         reader.writeAllOutput(classId, destination, writer)
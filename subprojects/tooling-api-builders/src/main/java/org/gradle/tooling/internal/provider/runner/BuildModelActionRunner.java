@@ -19,9 +19,29 @@ package org.gradle.tooling.internal.provider.runner;
 import org.gradle.BuildAdapter;
 import org.gradle.BuildResult;
 import org.gradle.api.BuildCancelledException;
+import org.gradle.api.Nullable;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.DependencyResolutionListener;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.FileCollectionDependency;
+import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.invocation.Gradle;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.file.DefaultFileOperations;
+import org.gradle.api.internal.file.FileResolutionListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.execution.ProjectConfigurer;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.invocation.BuildController;
@@ -35,7 +55,17 @@ import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.UnknownModelException;
 
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class BuildModelActionRunner implements BuildActionRunner {
+    private final ToolingModelCache modelCache;
+
+    public BuildModelActionRunner(ToolingModelCache modelCache) {
+        this.modelCache = modelCache;
+    }
+
     @Override
     public void run(BuildAction action, final BuildController buildController) {
         if (!(action instanceof BuildModelAction)) {
@@ -44,7 +74,21 @@ public class BuildModelActionRunner implements BuildActionRunner {
 
         final BuildModelAction buildModelAction = (BuildModelAction) action;
         final GradleInternal gradle = buildController.getGradle();
-        gradle.addBuildListener(new BuildResultAdapter(gradle, buildController, buildModelAction));
+
+        ModelInputsRecorder inputsRecorder = null;
+        if (modelCache.isCacheable(buildModelAction)) {
+            BuildActionResult cachedResult = modelCache.get(buildModelAction);
+            if (cachedResult != null) {
+                buildController.setResult(cachedResult);
+                return;
+            }
+            inputsRecorder = new ModelInputsRecorder();
+            gradle.addListener(inputsRecorder);
+        } else {
+            // This request may leave the build in a different state than the cached result was built from, for example by refreshing dependencies
+            modelCache.invalidate(buildModelAction);
+        }
+        gradle.addBuildListener(new BuildResultAdapter(gradle, buildController, buildModelAction, modelCache, inputsRecorder));
 
         if (buildModelAction.isRunTasks()) {
             buildController.run();
@@ -53,21 +97,183 @@ public class BuildModelActionRunner implements BuildActionRunner {
         }
     }
 
+    /**
+     * Collects the files that the configuration of the build depends on, for use as the inputs of a cached model. These are the scripts, the files
+     * that build logic resolves using {@code Project.file()}, the properties files, buildSrc and the files of local file dependencies. Files that
+     * build logic reads without going through the project, for example using {@code new File()}, are not recorded.
+     *
+     * <p>A model whose configuration resolved a dependency that can change without any change to the build, such as a dynamic version, a snapshot
+     * or a changing module, or that failed to resolve a dependency, is not cached.</p>
+     */
+    private static class ModelInputsRecorder extends BuildAdapter implements ScriptExecutionListener, FileResolutionListener, DependencyResolutionListener {
+        private final Set<File> inputs = new LinkedHashSet<File>();
+        private boolean cacheable = true;
+
+        @Override
+        public void projectsLoaded(Gradle gradle) {
+            // Only listen to the file operations of the projects while recording, so that other builds do not pay for it
+            for (Project project : gradle.getRootProject().getAllprojects()) {
+                ((ProjectInternal) project).getServices().get(DefaultFileOperations.class).setFileResolutionListener(this);
+            }
+        }
+
+        @Override
+        public void beforeResolve(ResolvableDependencies dependencies) {
+        }
+
+        @Override
+        public void afterResolve(ResolvableDependencies dependencies) {
+            boolean changing = false;
+            for (ExternalModuleDependency dependency : dependencies.getDependencies().withType(ExternalModuleDependency.class)) {
+                changing |= dependency.isChanging();
+            }
+            ResolutionResult resolutionResult = dependencies.getResolutionResult();
+            for (DependencyResult dependency : resolutionResult.getAllDependencies()) {
+                if (dependency instanceof UnresolvedDependencyResult) {
+                    changing = true;
+                } else if (dependency.getRequested() instanceof ModuleComponentSelector) {
+                    changing |= isChangingVersion(((ModuleComponentSelector) dependency.getRequested()).getVersion());
+                }
+            }
+            for (ResolvedComponentResult component : resolutionResult.getAllComponents()) {
+                if (component.getId() instanceof ModuleComponentIdentifier) {
+                    changing |= isChangingVersion(((ModuleComponentIdentifier) component.getId()).getVersion());
+                }
+            }
+            if (changing) {
+                synchronized (inputs) {
+                    cacheable = false;
+                }
+            }
+        }
+
+        /**
+         * Returns true for a version that may resolve to different content over time. Errs on the side of treating a version as changing.
+         */
+        private static boolean isChangingVersion(@Nullable String version) {
+            return version == null
+                || version.endsWith("+")
+                || version.endsWith("-SNAPSHOT")
+                || version.startsWith("latest.")
+                || version.indexOf('[') >= 0
+                || version.indexOf(']') >= 0
+                || version.indexOf('(') >= 0
+                || version.indexOf(')') >= 0;
+        }
+
+        @Override
+        public void scriptClassLoaded(ScriptSource source, Class<? extends Script> scriptClass) {
+            File file = source.getResource().getLocation().getFile();
+            synchronized (inputs) {
+                if (file != null) {
+                    inputs.add(file);
+                } else if (!source.getResource().isContentCached()) {
+                    // A script that is not backed by a file, such as a remote script, cannot be checked for changes
+                    cacheable = false;
+                }
+            }
+        }
+
+        @Override
+        public void fileResolved(File file) {
+            synchronized (inputs) {
+                inputs.add(file);
+            }
+        }
+
+        @Nullable
+        Set<File> collectInputs(GradleInternal gradle) {
+            if (!gradle.getIncludedBuilds().isEmpty()) {
+                // The inputs of included builds are not recorded
+                return null;
+            }
+            Set<File> result;
+            synchronized (inputs) {
+                if (!cacheable) {
+                    return null;
+                }
+                result = new LinkedHashSet<File>(inputs);
+            }
+            File gradleUserHomeDir = gradle.getGradleUserHomeDir();
+            result.add(new File(gradleUserHomeDir, Project.GRADLE_PROPERTIES));
+            result.add(new File(gradleUserHomeDir, "init.d"));
+            ProjectInternal rootProject = gradle.getRootProject();
+            result.add(new File(rootProject.getProjectDir(), Settings.DEFAULT_SETTINGS_FILE));
+            for (Project project : rootProject.getAllprojects()) {
+                result.add(project.getBuildFile());
+                result.add(new File(project.getProjectDir(), Project.GRADLE_PROPERTIES));
+                try {
+                    collectFileDependencyInputs(project, result);
+                } catch (RuntimeException e) {
+                    // The files of a dependency cannot be determined, so there is no way to tell whether they have changed
+                    return null;
+                }
+            }
+            File buildSrcDir = new File(rootProject.getProjectDir(), "buildSrc");
+            result.add(buildSrcDir);
+            collectBuildSrcInputs(buildSrcDir, result);
+            return result;
+        }
+
+        private static void collectFileDependencyInputs(Project project, Set<File> result) {
+            for (Configuration configuration : project.getConfigurations()) {
+                for (FileCollectionDependency dependency : configuration.getDependencies().withType(FileCollectionDependency.class)) {
+                    for (File file : dependency.getFiles()) {
+                        // Track the containing directory as well, so that files added next to the existing ones are noticed
+                        result.add(file);
+                        if (file.getParentFile() != null) {
+                            result.add(file.getParentFile());
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void collectBuildSrcInputs(File dir, Set<File> result) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    if (file.getName().equals(Project.DEFAULT_BUILD_DIR_NAME) || file.getName().equals(".gradle")) {
+                        continue;
+                    }
+                    result.add(file);
+                    collectBuildSrcInputs(file, result);
+                } else {
+                    result.add(file);
+                }
+            }
+        }
+    }
+
     private static class BuildResultAdapter extends BuildAdapter {
         private final GradleInternal gradle;
         private final BuildController buildController;
         private final BuildModelAction buildModelAction;
+        private final ToolingModelCache modelCache;
+        private final ModelInputsRecorder inputsRecorder;
 
-        private BuildResultAdapter(GradleInternal gradle, BuildController buildController, BuildModelAction buildModelAction) {
+        private BuildResultAdapter(GradleInternal gradle, BuildController buildController, BuildModelAction buildModelAction, ToolingModelCache modelCache, @Nullable ModelInputsRecorder inputsRecorder) {
             this.buildController = buildController;
             this.gradle = gradle;
             this.buildModelAction = buildModelAction;
+            this.modelCache = modelCache;
+            this.inputsRecorder = inputsRecorder;
         }
 
         @Override
         public void buildFinished(BuildResult result) {
             if (result.getFailure() == null) {
-                buildController.setResult(buildResult(gradle, buildModelAction));
+                BuildActionResult actionResult = buildResult(gradle, buildModelAction);
+                if (inputsRecorder != null && actionResult.failure == null) {
+                    Set<File> inputs = inputsRecorder.collectInputs(gradle);
+                    if (inputs != null) {
+                        modelCache.put(buildModelAction, inputs, actionResult);
+                    }
+                }
+                buildController.setResult(actionResult);
             }
         }
 
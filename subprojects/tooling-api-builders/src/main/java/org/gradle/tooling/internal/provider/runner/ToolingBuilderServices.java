@@ -16,6 +16,7 @@
 
 package org.gradle.tooling.internal.provider.runner;
 
+import org.gradle.api.internal.hash.DefaultFileHasher;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.progress.BuildOperationService;
 import org.gradle.internal.service.ServiceRegistration;
@@ -29,10 +30,14 @@ public class ToolingBuilderServices implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
 
         registration.addProvider(new Object() {
-            BuildActionRunner createBuildActionRunner(final BuildOperationService buildOperationService) {
+            ToolingModelCache createToolingModelCache() {
+                return new ToolingModelCache(new DefaultFileHasher(), Boolean.getBoolean(ToolingModelCache.ENABLED_PROPERTY));
+            }
+
+            BuildActionRunner createBuildActionRunner(final BuildOperationService buildOperationService, ToolingModelCache toolingModelCache) {
                 return new ChainingBuildActionRunner(
                     Arrays.asList(
-                        new BuildModelActionRunner(),
+                        new BuildModelActionRunner(toolingModelCache),
                         new TestExecutionRequestActionRunner(buildOperationService),
                         new ClientProvidedBuildActionRunner()));
             }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider.runner;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.tooling.internal.provider.BuildActionResult;
+import org.gradle.tooling.internal.provider.BuildModelAction;
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Caches the serialized results of tooling model requests across builds in the same process, so that a request can be answered without configuring
+ * the build when none of the inputs that the previous configuration used have changed.
+ *
+ * <p>Entries are keyed by the model name, the request parameters and the environment variables that Gradle reads when configuring the build, and
+ * are only used when the content of every input file recorded for the entry is still the same. Other environment variables that build logic reads
+ * are not tracked. Requests that subscribe to progress events or that include other builds are not cached, as a cached result cannot replay the
+ * events and the inputs of included builds are not recorded.</p>
+ *
+ * <p>The cache keeps at most {@value #MAX_ENTRIES} entries, and discards the least recently used entries when the serialized results it retains
+ * exceed {@value #MAX_RETAINED_BYTES} bytes.</p>
+ */
+@ThreadSafe
+public class ToolingModelCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.tooling.model-cache";
+    private static final String PROJECT_PROPERTY_ENV_PREFIX = "ORG_GRADLE_PROJECT_";
+    private static final Set<String> TRACKED_ENV_VARIABLES = ImmutableSet.of("JAVA_HOME", "GRADLE_USER_HOME");
+    static final int MAX_ENTRIES = 16;
+    static final long MAX_RETAINED_BYTES = 64 * 1024 * 1024;
+    private static final HashCode MISSING = HashCode.fromInt(0);
+    private static final HashCode DIRECTORY = HashCode.fromInt(1);
+
+    private final FileHasher fileHasher;
+    private final boolean enabled;
+    private final long maxRetainedBytes;
+    private final Map<HashCode, CachedModel> entries = new LinkedHashMap<HashCode, CachedModel>(MAX_ENTRIES, 0.75f, true);
+    private long retainedBytes;
+
+    public ToolingModelCache(FileHasher fileHasher, boolean enabled) {
+        this(fileHasher, enabled, MAX_RETAINED_BYTES);
+    }
+
+    ToolingModelCache(FileHasher fileHasher, boolean enabled, long maxRetainedBytes) {
+        this.fileHasher = fileHasher;
+        this.enabled = enabled;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Returns true if the result of the given action may be taken from or stored in this cache.
+     */
+    public boolean isCacheable(BuildModelAction action) {
+        StartParameter startParameter = action.getStartParameter();
+        return enabled
+            && !action.isRunTasks()
+            && !action.getClientSubscriptions().isSendAnyProgressEvents()
+            && !startParameter.isRefreshDependencies()
+            && !startParameter.isRerunTasks()
+            && startParameter.getIncludedBuilds().isEmpty();
+    }
+
+    /**
+     * Returns the cached result for the given action, or null when there is no entry or any of its inputs have changed.
+     */
+    @Nullable
+    public BuildActionResult get(BuildModelAction action) {
+        HashCode key = keyFor(action);
+        CachedModel cachedModel;
+        synchronized (entries) {
+            cachedModel = entries.get(key);
+        }
+        if (cachedModel == null) {
+            return null;
+        }
+        for (Map.Entry<File, HashCode> entry : cachedModel.inputs.entrySet()) {
+            if (!hash(entry.getKey()).equals(entry.getValue())) {
+                synchronized (entries) {
+                    if (entries.get(key) == cachedModel) {
+                        remove(key);
+                    }
+                }
+                return null;
+            }
+        }
+        return cachedModel.result;
+    }
+
+    /**
+     * Stores the result for the given action, along with the files that were used to build it.
+     */
+    public void put(BuildModelAction action, Iterable<File> inputFiles, BuildActionResult result) {
+        Map<File, HashCode> inputs = new LinkedHashMap<File, HashCode>();
+        for (File inputFile : inputFiles) {
+            inputs.put(inputFile, hash(inputFile));
+        }
+        CachedModel cachedModel = new CachedModel(ImmutableMap.copyOf(inputs), result, sizeOf(result));
+        HashCode key = keyFor(action);
+        synchronized (entries) {
+            remove(key);
+            if (cachedModel.size > maxRetainedBytes) {
+                return;
+            }
+            entries.put(key, cachedModel);
+            retainedBytes += cachedModel.size;
+            Iterator<CachedModel> eldest = entries.values().iterator();
+            while (retainedBytes > maxRetainedBytes || entries.size() > MAX_ENTRIES) {
+                retainedBytes -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Discards the cached result for the given action, if any.
+     */
+    public void invalidate(BuildModelAction action) {
+        if (!enabled) {
+            return;
+        }
+        HashCode key = keyFor(action);
+        synchronized (entries) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by the serialized results in this cache.
+     */
+    long getRetainedBytes() {
+        synchronized (entries) {
+            return retainedBytes;
+        }
+    }
+
+    // Caller must be holding lock
+    private void remove(HashCode key) {
+        CachedModel removed = entries.remove(key);
+        if (removed != null) {
+            retainedBytes -= removed.size;
+        }
+    }
+
+    private static long sizeOf(BuildActionResult result) {
+        return sizeOf(result.result) + sizeOf(result.failure);
+    }
+
+    private static long sizeOf(@Nullable SerializedPayload payload) {
+        long size = 0;
+        if (payload != null) {
+            for (byte[] bytes : payload.getSerializedModel()) {
+                size += bytes.length;
+            }
+        }
+        return size;
+    }
+
+    private HashCode hash(File file) {
+        if (file.isFile()) {
+            return fileHasher.hash(file);
+        }
+        if (file.isDirectory()) {
+            // Track the entries of the directory, not their content
+            String[] names = file.list();
+            if (names == null) {
+                return DIRECTORY;
+            }
+            Arrays.sort(names);
+            Hasher hasher = Hashing.md5().newHasher();
+            for (String name : names) {
+                putString(hasher, name);
+            }
+            return hasher.hash();
+        }
+        return MISSING;
+    }
+
+    private static HashCode keyFor(BuildModelAction action) {
+        StartParameter startParameter = action.getStartParameter();
+        Hasher hasher = Hashing.md5().newHasher();
+        putString(hasher, action.getModelName());
+        putFile(hasher, startParameter.getCurrentDir());
+        putFile(hasher, startParameter.getProjectDir());
+        putFile(hasher, startParameter.getSettingsFile());
+        putFile(hasher, startParameter.getBuildFile());
+        putFile(hasher, startParameter.getGradleUserHomeDir());
+        hasher.putBoolean(startParameter.isSearchUpwards());
+        hasher.putBoolean(startParameter.isOffline());
+        for (File initScript : startParameter.getInitScripts()) {
+            putFile(hasher, initScript);
+        }
+        putMap(hasher, startParameter.getProjectProperties());
+        putMap(hasher, startParameter.getSystemPropertiesArgs());
+        // The daemon runs the request with the environment of the client
+        putMap(hasher, trackedEnvironment(System.getenv()));
+        return hasher.hash();
+    }
+
+    /**
+     * Returns the environment variables that Gradle itself reads when configuring the build: project properties and the locations it uses.
+     */
+    static Map<String, String> trackedEnvironment(Map<String, String> environment) {
+        Map<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            if (entry.getKey().startsWith(PROJECT_PROPERTY_ENV_PREFIX) || TRACKED_ENV_VARIABLES.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static void putMap(Hasher hasher, Map<String, String> map) {
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(map).entrySet()) {
+            putString(hasher, entry.getKey());
+            putString(hasher, entry.getValue());
+        }
+        hasher.putInt(map.size());
+    }
+
+    private static void putFile(Hasher hasher, @Nullable File file) {
+        putString(hasher, file == null ? null : file.getAbsolutePath());
+    }
+
+    private static void putString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putString(value, Charsets.UTF_8);
+        }
+    }
+
+    private static class CachedModel {
+        final Map<File, HashCode> inputs;
+        final BuildActionResult result;
+        final long size;
+
+        CachedModel(Map<File, HashCode> inputs, BuildActionResult result, long size) {
+            this.inputs = inputs;
+            this.result = result;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider.runner
+
+import org.gradle.StartParameter
+import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.tooling.internal.provider.BuildActionResult
+import org.gradle.tooling.internal.provider.BuildClientSubscriptions
+import org.gradle.tooling.internal.provider.BuildModelAction
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
+import org.junit.Rule
+import spock.lang.Specification
+
+class ToolingModelCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cache = new ToolingModelCache(new DefaultFileHasher(), true)
+    def startParameter = new StartParameter()
+    def result = new BuildActionResult(null, null)
+
+    def setup() {
+        startParameter.currentDir = tmpDir.testDirectory
+    }
+
+    def "returns cached result when inputs have not changed"() {
+        def buildFile = tmpDir.file("build.gradle").createFile()
+        def missingFile = tmpDir.file("gradle.properties")
+        def action = action("model")
+
+        when:
+        cache.put(action, [buildFile, missingFile], result)
+
+        then:
+        cache.get(action).is(result)
+        cache.get(action("model")).is(result)
+    }
+
+    def "does not return cached result when input file changes"() {
+        def buildFile = tmpDir.file("build.gradle").createFile()
+        def action = action("model")
+        cache.put(action, [buildFile], result)
+
+        when:
+        buildFile.text = "apply plugin: 'java'"
+
+        then:
+        cache.get(action) == null
+
+        when:
+        buildFile.text = ""
+
+        then:
+        cache.get(action) == null
+    }
+
+    def "does not return cached result when input file is created or directory contents change"() {
+        def propertiesFile = tmpDir.file("gradle.properties")
+        def dir = tmpDir.createDir("buildSrc")
+        def action = action("model")
+
+        when:
+        cache.put(action, [propertiesFile], result)
+        propertiesFile.createFile()
+
+        then:
+        cache.get(action) == null
+
+        when:
+        cache.put(action, [dir], result)
+        dir.file("build.gradle").createFile()
+
+        then:
+        cache.get(action) == null
+    }
+
+    def "does not return cached result for different request"() {
+        def action = action("model")
+        cache.put(action, [], result)
+
+        expect:
+        cache.get(action("other")) == null
+
+        when:
+        startParameter.projectProperties = [prop: "value"]
+
+        then:
+        cache.get(action("model")) == null
+    }
+
+    def "discards cached result when invalidated"() {
+        def action = action("model")
+        cache.put(action, [], result)
+
+        when:
+        startParameter.refreshDependencies = true
+        cache.invalidate(action("model"))
+        startParameter.refreshDependencies = false
+
+        then:
+        cache.get(action("model")) == null
+    }
+
+    def "tracks only the environment variables that Gradle reads"() {
+        expect:
+        ToolingModelCache.trackedEnvironment([PATH: "/bin", JAVA_HOME: "/jdk", ORG_GRADLE_PROJECT_prop: "value", TERM: "xterm"]) == [JAVA_HOME: "/jdk", ORG_GRADLE_PROJECT_prop: "value"]
+    }
+
+    def "only caches model requests that do not run tasks when enabled"() {
+        expect:
+        cache.isCacheable(action("model"))
+        !cache.isCacheable(new BuildModelAction(startParameter, "model", true, new BuildClientSubscriptions(false, false, false)))
+        !new ToolingModelCache(new DefaultFileHasher(), false).isCacheable(action("model"))
+
+        when:
+        startParameter.refreshDependencies = true
+
+        then:
+        !cache.isCacheable(action("model"))
+    }
+
+    def "does not cache requests that subscribe to progress events or include other builds"() {
+        expect:
+        !cache.isCacheable(new BuildModelAction(startParameter, "model", false, new BuildClientSubscriptions(false, false, true)))
+        !cache.isCacheable(new BuildModelAction(startParameter, "model", false, new BuildClientSubscriptions(false, true, false)))
+
+        when:
+        startParameter.includeBuild(tmpDir.createDir("other"))
+
+        then:
+        !cache.isCacheable(action("model"))
+    }
+
+    def "discards least recently used results when retained size exceeds limit"() {
+        def cache = new ToolingModelCache(new DefaultFileHasher(), true, 100)
+        def result1 = result(40)
+        def result2 = result(40)
+        def result3 = result(40)
+
+        when:
+        cache.put(action("model1"), [], result1)
+        cache.put(action("model2"), [], result2)
+        cache.get(action("model1"))
+        cache.put(action("model3"), [], result3)
+
+        then:
+        cache.get(action("model1")).is(result1)
+        cache.get(action("model2")) == null
+        cache.get(action("model3")).is(result3)
+        cache.retainedBytes == 80
+    }
+
+    def "does not retain result larger than limit"() {
+        def cache = new ToolingModelCache(new DefaultFileHasher(), true, 100)
+
+        when:
+        cache.put(action("model"), [], result(40))
+        cache.put(action("model"), [], result(120))
+
+        then:
+        cache.get(action("model")) == null
+        cache.retainedBytes == 0
+    }
+
+    private static BuildActionResult result(int size) {
+        return new BuildActionResult(new SerializedPayload(null, [new byte[size]]), null)
+    }
+
+    private BuildModelAction action(String modelName) {
+        return new BuildModelAction(startParameter, modelName, false, new BuildClientSubscriptions(false, false, false))
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares calling model getters through generated accessors with reflection, and measures adapting and traversing a large model.
+ */
+@State(Scope.Benchmark)
+public class ProtocolToModelAdapterBenchmark {
+    private static final int PROJECT_COUNT = 1000;
+    private static final int DEPENDENCY_COUNT = 50;
+
+    private final ProtocolToModelAdapter adapter = new ProtocolToModelAdapter();
+    private final MethodAccessorFactory accessorFactory = new MethodAccessorFactory();
+    private ProtocolModel model;
+    private MethodAccessor generatedAccessor;
+    private MethodAccessor reflectiveAccessor;
+
+    @Setup
+    public void setup() throws Exception {
+        List<ProtocolProject> projects = new ArrayList<ProtocolProject>();
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            List<ProtocolDependency> dependencies = new ArrayList<ProtocolDependency>();
+            for (int j = 0; j < DEPENDENCY_COUNT; j++) {
+                dependencies.add(new ProtocolDependency("dependency" + j, j % 2 == 0));
+            }
+            projects.add(new ProtocolProject("project" + i, dependencies));
+        }
+        model = new ProtocolModel(projects);
+        generatedAccessor = accessorFactory.create(ProtocolDependency.class.getMethod("getName"));
+        reflectiveAccessor = accessorFactory.reflective(ProtocolDependency.class.getMethod("getName"));
+    }
+
+    @Benchmark
+    public void generatedAccessor(Blackhole bh) throws Throwable {
+        bh.consume(generatedAccessor.invoke(model.getProjects().get(0).getDependencies().get(0), null));
+    }
+
+    @Benchmark
+    public void reflectiveAccessor(Blackhole bh) throws Throwable {
+        bh.consume(reflectiveAccessor.invoke(model.getProjects().get(0).getDependencies().get(0), null));
+    }
+
+    @Benchmark
+    public void adaptAndTraverseModel(Blackhole bh) {
+        Model view = adapter.adapt(Model.class, model);
+        for (Project project : view.getProjects()) {
+            bh.consume(project.getName());
+            for (Dependency dependency : project.getDependencies()) {
+                bh.consume(dependency.getName());
+                bh.consume(dependency.isExported());
+            }
+        }
+    }
+
+    @Benchmark
+    public void traverseSourceModel(Blackhole bh) {
+        for (ProtocolProject project : model.getProjects()) {
+            bh.consume(project.getName());
+            for (ProtocolDependency dependency : project.getDependencies()) {
+                bh.consume(dependency.getName());
+                bh.consume(dependency.isExported());
+            }
+        }
+    }
+
+    public interface Model {
+        List<? extends Project> getProjects();
+    }
+
+    public interface Project {
+        String getName();
+
+        List<? extends Dependency> getDependencies();
+    }
+
+    public interface Dependency {
+        String getName();
+
+        boolean isExported();
+    }
+
+    public static class ProtocolModel {
+        private final List<ProtocolProject> projects;
+
+        public ProtocolModel(List<ProtocolProject> projects) {
+            this.projects = projects;
+        }
+
+        public List<ProtocolProject> getProjects() {
+            return projects;
+        }
+    }
+
+    public static class ProtocolProject {
+        private final String name;
+        private final List<ProtocolDependency> dependencies;
+
+        public ProtocolProject(String name, List<ProtocolDependency> dependencies) {
+            this.name = name;
+            this.dependencies = dependencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<ProtocolDependency> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    public static class ProtocolDependency {
+        private final String name;
+        private final boolean exported;
+
+        public ProtocolDependency(String name, boolean exported) {
+            this.name = name;
+            this.exported = exported;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isExported() {
+            return exported;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter;
+
+/**
+ * Calls a particular method on a target object. This type is public so that generated implementations defined in other class loaders can implement it.
+ */
+public interface MethodAccessor {
+    /**
+     * Invokes the method. Any exception thrown by the method is rethrown as is.
+     */
+    Object invoke(Object target, Object[] params) throws Throwable;
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates {@link MethodAccessor} implementations that call the target method directly, using a class generated for each method. Falls back to
+ * reflection for methods that cannot be called from a generated class, for example methods declared by a non-public type.
+ *
+ * <p>Generated classes are defined in a class loader per target class loader, so they do not keep the target class loader reachable once the
+ * accessors are discarded. That class loader also holds the accessor of each method, so a method shared by many source types, such as a
+ * protocol interface method, gets a single generated class.</p>
+ */
+class MethodAccessorFactory {
+    private static final String ACCESSOR_NAME_PREFIX = MethodAccessor.class.getName() + "$Generated$";
+    private static final String OBJECT_TYPE = Type.getInternalName(Object.class);
+    private static final String ACCESSOR_TYPE = Type.getInternalName(MethodAccessor.class);
+    private static final String INVOKE_METHOD_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(Object.class), Type.getType(Object[].class));
+
+    private final Map<ClassLoader, WeakReference<AccessorClassLoader>> classLoaders = new WeakHashMap<ClassLoader, WeakReference<AccessorClassLoader>>();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public MethodAccessor create(Method method) {
+        if (canGenerate(method)) {
+            try {
+                return generate(method);
+            } catch (LinkageError e) {
+                // Cannot load the generated class, use reflection instead
+            } catch (Exception e) {
+                // Not allowed to define or instantiate the class, use reflection instead
+            }
+        }
+        return reflective(method);
+    }
+
+    public MethodAccessor reflective(Method method) {
+        method.setAccessible(true);
+        return new ReflectionMethodAccessor(method);
+    }
+
+    private static boolean canGenerate(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers()) || !isPublic(method.getDeclaringClass())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isPublic(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    private MethodAccessor generate(Method method) throws Exception {
+        AccessorClassLoader classLoader = classLoaderFor(method.getDeclaringClass().getClassLoader());
+        synchronized (classLoader) {
+            MethodAccessor accessor = classLoader.accessors.get(method);
+            if (accessor == null) {
+                String className = ACCESSOR_NAME_PREFIX + counter.incrementAndGet();
+                byte[] bytes = generateClass(className.replace('.', '/'), method);
+                accessor = (MethodAccessor) classLoader.define(className, bytes).newInstance();
+                classLoader.accessors.put(method, accessor);
+            }
+            return accessor;
+        }
+    }
+
+    private AccessorClassLoader classLoaderFor(ClassLoader targetClassLoader) {
+        synchronized (classLoaders) {
+            WeakReference<AccessorClassLoader> reference = classLoaders.get(targetClassLoader);
+            AccessorClassLoader classLoader = reference == null ? null : reference.get();
+            if (classLoader == null) {
+                classLoader = new AccessorClassLoader(targetClassLoader);
+                classLoaders.put(targetClassLoader, new WeakReference<AccessorClassLoader>(classLoader));
+            }
+            return classLoader;
+        }
+    }
+
+    private static byte[] generateClass(String className, Method method) {
+        ClassWriter visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        visitor.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC, className, null, OBJECT_TYPE, new String[]{ACCESSOR_TYPE});
+
+        MethodVisitor constructor = visitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT_TYPE, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        Class<?> declaringClass = method.getDeclaringClass();
+        String declaringType = Type.getInternalName(declaringClass);
+        MethodVisitor invoke = visitor.visitMethod(Opcodes.ACC_PUBLIC, "invoke", INVOKE_METHOD_DESCRIPTOR, null, null);
+        invoke.visitCode();
+        invoke.visitVarInsn(Opcodes.ALOAD, 1);
+        invoke.visitTypeInsn(Opcodes.CHECKCAST, declaringType);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            invoke.visitVarInsn(Opcodes.ALOAD, 2);
+            invoke.visitLdcInsn(i);
+            invoke.visitInsn(Opcodes.AALOAD);
+            unbox(invoke, Type.getType(parameterTypes[i]));
+        }
+        if (declaringClass.isInterface()) {
+            invoke.visitMethodInsn(Opcodes.INVOKEINTERFACE, declaringType, method.getName(), Type.getMethodDescriptor(method), true);
+        } else {
+            invoke.visitMethodInsn(Opcodes.INVOKEVIRTUAL, declaringType, method.getName(), Type.getMethodDescriptor(method), false);
+        }
+        box(invoke, Type.getType(method.getReturnType()));
+        invoke.visitInsn(Opcodes.ARETURN);
+        invoke.visitMaxs(0, 0);
+        invoke.visitEnd();
+
+        visitor.visitEnd();
+        return visitor.toByteArray();
+    }
+
+    private static void unbox(MethodVisitor visitor, Type type) {
+        Type boxedType = boxedType(type);
+        if (boxedType == null) {
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, type.getInternalName());
+            return;
+        }
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, boxedType.getInternalName());
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxedType.getInternalName(), type.getClassName() + "Value", Type.getMethodDescriptor(type), false);
+    }
+
+    private static void box(MethodVisitor visitor, Type type) {
+        if (type.getSort() == Type.VOID) {
+            visitor.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+        Type boxedType = boxedType(type);
+        if (boxedType != null) {
+            visitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxedType.getInternalName(), "valueOf", Type.getMethodDescriptor(boxedType, type), false);
+        }
+    }
+
+    private static Type boxedType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getType(Boolean.class);
+            case Type.CHAR:
+                return Type.getType(Character.class);
+            case Type.BYTE:
+                return Type.getType(Byte.class);
+            case Type.SHORT:
+                return Type.getType(Short.class);
+            case Type.INT:
+                return Type.getType(Integer.class);
+            case Type.FLOAT:
+                return Type.getType(Float.class);
+            case Type.LONG:
+                return Type.getType(Long.class);
+            case Type.DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                return null;
+        }
+    }
+
+    private static class AccessorClassLoader extends ClassLoader {
+        private final Map<Method, MethodAccessor> accessors = new HashMap<Method, MethodAccessor>();
+
+        AccessorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            // The target class loader may not be able to see this type, or may see a different copy of it
+            if (name.equals(MethodAccessor.class.getName())) {
+                return MethodAccessor.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static class ReflectionMethodAccessor implements MethodAccessor {
+        private final Method method;
+
+        ReflectionMethodAccessor(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(Object target, Object[] params) throws Throwable {
+            try {
+                return method.invoke(target, params);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
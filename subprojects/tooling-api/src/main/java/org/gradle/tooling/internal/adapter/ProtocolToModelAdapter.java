@@ -16,6 +16,7 @@
 package org.gradle.tooling.internal.adapter;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
 import org.gradle.api.Nullable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.reflect.DirectInstantiator;
@@ -33,21 +34,26 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
+import java.util.AbstractList;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -60,7 +66,8 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
             return initialTargetType;
         }
     };
-    private static final ReflectionMethodInvoker REFLECTION_METHOD_INVOKER = new ReflectionMethodInvoker();
+    private static final MethodAccessorFactory METHOD_ACCESSOR_FACTORY = new MethodAccessorFactory();
+    private static final SourceMethodInvoker SOURCE_METHOD_INVOKER = new SourceMethodInvoker();
     private static final TypeInspector TYPE_INSPECTOR = new TypeInspector();
     private static final CollectionMapper COLLECTION_MAPPER = new CollectionMapper();
     private static final Object[] EMPTY = new Object[0];
@@ -212,13 +219,29 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
     }
 
     private static Object convertCollectionInternal(Class<?> collectionClass, Type targetElementType, Iterable<?> sourceObject, ViewDecoration decoration, ViewGraphDetails graphDetails) {
+        // Adapt the elements on demand, so that views are only created for those elements the client actually visits.
+        // A view is equal to another view when their sources are equal, so duplicates can be removed from the source elements before they are adapted
+        if (collectionClass.equals(List.class)) {
+            return new LazyAdaptingList(new LazyElements(targetElementType, sourceObject, decoration, graphDetails));
+        }
+        if (collectionClass.equals(Set.class)) {
+            return new LazyAdaptingSet(new LazyElements(targetElementType, distinct(sourceObject), decoration, graphDetails));
+        }
+        if (collectionClass.equals(DomainObjectSet.class)) {
+            return new LazyAdaptingDomainObjectSet(new LazyElements(targetElementType, distinct(sourceObject), decoration, graphDetails));
+        }
         Collection<Object> convertedElements = COLLECTION_MAPPER.createEmptyCollection(collectionClass);
         convertCollectionInternal(convertedElements, targetElementType, sourceObject, decoration, graphDetails);
-        if (collectionClass.equals(DomainObjectSet.class)) {
-            return new ImmutableDomainObjectSet(convertedElements);
-        } else {
-            return convertedElements;
+        return convertedElements;
+    }
+
+    private static Iterable<?> distinct(Iterable<?> sourceObject) {
+        if (sourceObject instanceof Set) {
+            return sourceObject;
         }
+        Set<Object> distinctElements = new LinkedHashSet<Object>();
+        Iterables.addAll(distinctElements, sourceObject);
+        return distinctElements;
     }
 
     private static void convertCollectionInternal(Collection<Object> targetCollection, Type targetElementType, Iterable<?> sourceObject, ViewDecoration viewDecoration, ViewGraphDetails graphDetails) {
@@ -236,6 +259,214 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         return elementType;
     }
 
+    /**
+     * The elements of a source collection, each adapted the first time it is requested. Adapted elements are published safely to other threads.
+     */
+    private static class LazyElements {
+        private static final Object NOT_ADAPTED = new Object();
+        private final Type targetElementType;
+        private final Object[] sourceElements;
+        private final ViewDecoration decoration;
+        private final ViewGraphDetails graphDetails;
+        private final AtomicReferenceArray<Object> adaptedElements;
+
+        LazyElements(Type targetElementType, Iterable<?> sourceObject, ViewDecoration decoration, ViewGraphDetails graphDetails) {
+            this.targetElementType = targetElementType;
+            this.sourceElements = Iterables.toArray(sourceObject, Object.class);
+            this.decoration = decoration;
+            this.graphDetails = graphDetails;
+            this.adaptedElements = new AtomicReferenceArray<Object>(sourceElements.length);
+            for (int i = 0; i < sourceElements.length; i++) {
+                adaptedElements.set(i, NOT_ADAPTED);
+            }
+        }
+
+        Object get(int index) {
+            Object element = adaptedElements.get(index);
+            if (element == NOT_ADAPTED) {
+                Object sourceElement = sourceElements[index];
+                element = sourceElement == null ? null : convert(targetElementType, sourceElement, decoration, graphDetails);
+                if (!adaptedElements.compareAndSet(index, NOT_ADAPTED, element)) {
+                    // Another thread adapted the element first, use its view
+                    element = adaptedElements.get(index);
+                }
+            }
+            return element;
+        }
+
+        int size() {
+            return sourceElements.length;
+        }
+    }
+
+    /**
+     * A list that adapts its elements on demand. The first modification adapts the remaining elements and copies them into an {@link ArrayList},
+     * so that the list is as mutable as the list that was previously created for a {@code List} property.
+     */
+    private static class LazyAdaptingList extends AbstractList<Object> implements Serializable {
+        private final transient LazyElements elements;
+        private transient volatile List<Object> copy;
+
+        LazyAdaptingList(LazyElements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Object get(int index) {
+            List<Object> copy = this.copy;
+            return copy != null ? copy.get(index) : elements.get(index);
+        }
+
+        @Override
+        public int size() {
+            List<Object> copy = this.copy;
+            return copy != null ? copy.size() : elements.size();
+        }
+
+        @Override
+        public synchronized Object set(int index, Object element) {
+            return copy().set(index, element);
+        }
+
+        @Override
+        public synchronized void add(int index, Object element) {
+            modCount++;
+            copy().add(index, element);
+        }
+
+        @Override
+        public synchronized Object remove(int index) {
+            modCount++;
+            return copy().remove(index);
+        }
+
+        private List<Object> copy() {
+            if (copy == null) {
+                List<Object> copy = new ArrayList<Object>(elements.size());
+                for (int i = 0; i < elements.size(); i++) {
+                    copy.add(elements.get(i));
+                }
+                this.copy = copy;
+            }
+            return copy;
+        }
+
+        private Object writeReplace() {
+            // Serialize the adapted elements, as the conversion state cannot be serialized
+            return new ArrayList<Object>(this);
+        }
+    }
+
+    /**
+     * A set that adapts its elements on demand. The first modification adapts the remaining elements and copies them into a {@link LinkedHashSet},
+     * so that the set is as mutable as the set that was previously created for a {@code Set} property.
+     */
+    private static class LazyAdaptingSet extends AbstractSet<Object> implements Serializable {
+        private final transient LazyElements elements;
+        private transient volatile Set<Object> copy;
+
+        LazyAdaptingSet(LazyElements elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            Set<Object> copy = this.copy;
+            if (copy != null) {
+                return copy.iterator();
+            }
+            return new Iterator<Object>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < elements.size();
+                }
+
+                @Override
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return elements.get(next++);
+                }
+
+                @Override
+                public void remove() {
+                    if (next == 0) {
+                        throw new IllegalStateException();
+                    }
+                    removeAdapted(elements.get(next - 1));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            Set<Object> copy = this.copy;
+            return copy != null ? copy.size() : elements.size();
+        }
+
+        @Override
+        public synchronized boolean add(Object element) {
+            return copy().add(element);
+        }
+
+        Object get(int index) {
+            Set<Object> copy = this.copy;
+            return copy != null ? Iterables.get(copy, index) : elements.get(index);
+        }
+
+        private synchronized void removeAdapted(Object element) {
+            copy().remove(element);
+        }
+
+        private Set<Object> copy() {
+            if (copy == null) {
+                Set<Object> copy = new LinkedHashSet<Object>(elements.size());
+                for (int i = 0; i < elements.size(); i++) {
+                    copy.add(elements.get(i));
+                }
+                this.copy = copy;
+            }
+            return copy;
+        }
+
+        Object writeReplace() {
+            // Serialize the adapted elements, as the conversion state cannot be serialized
+            return new LinkedHashSet<Object>(this);
+        }
+    }
+
+    /**
+     * A {@link DomainObjectSet} that adapts its elements on demand. Like {@link ImmutableDomainObjectSet}, elements cannot be added.
+     */
+    private static class LazyAdaptingDomainObjectSet extends LazyAdaptingSet implements DomainObjectSet<Object> {
+        LazyAdaptingDomainObjectSet(LazyElements elements) {
+            super(elements);
+        }
+
+        @Override
+        public boolean add(Object element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Object> getAll() {
+            return new ArrayList<Object>(this);
+        }
+
+        @Override
+        public Object getAt(int index) throws IndexOutOfBoundsException {
+            return get(index);
+        }
+
+        @Override
+        Object writeReplace() {
+            return new ImmutableDomainObjectSet<Object>(this);
+        }
+    }
+
     /**
      * Unpacks the source object from a given view object.
      */
@@ -310,7 +541,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
 
         private void setup() {
             List<MethodInvoker> invokers = new ArrayList<MethodInvoker>();
-            invokers.add(REFLECTION_METHOD_INVOKER);
+            invokers.add(SOURCE_METHOD_INVOKER);
             decoration.collectInvokers(sourceObject, targetType, invokers);
 
             MethodInvoker mixInMethodInvoker = invokers.size() == 1 ? invokers.get(0) : new ChainedMethodInvoker(invokers);
@@ -402,7 +633,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
     }
 
     private static class MethodInvocationCache {
-        private final Map<MethodInvocationKey, Optional<Method>> store = new HashMap<MethodInvocationKey, Optional<Method>>();
+        private final Map<MethodInvocationKey, Optional<MethodAccessor>> store = new HashMap<MethodInvocationKey, Optional<MethodAccessor>>();
         private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
         private final static long MINIMAL_CLEANUP_INTERVAL = 30000;
 
@@ -484,7 +715,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
             }
         }
 
-        public Method get(MethodInvocation invocation) {
+        public MethodAccessor get(MethodInvocation invocation) {
             Class<?> owner = invocation.getDelegate().getClass();
             String name = invocation.getName();
             Class<?>[] parameterTypes = invocation.getParameterTypes();
@@ -494,7 +725,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
                 parameterTypes
             );
             lock.readLock().lock();
-            Optional<Method> cached = store.get(key);
+            Optional<MethodAccessor> cached = store.get(key);
             if (cached == null) {
                 cacheMiss++;
                 lock.readLock().unlock();
@@ -544,7 +775,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
             }
         }
 
-        private static Optional<Method> lookup(Class<?> sourceClass, String methodName, Class<?>[] parameterTypes) {
+        private static Optional<MethodAccessor> lookup(Class<?> sourceClass, String methodName, Class<?>[] parameterTypes) {
             Method match;
             try {
                 match = sourceClass.getMethod(methodName, parameterTypes);
@@ -568,8 +799,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
                     queue.addFirst(c.getSuperclass());
                 }
             }
-            match.setAccessible(true);
-            return Optional.of(match);
+            return Optional.of(METHOD_ACCESSOR_FACTORY.create(match));
         }
 
         @Override
@@ -578,26 +808,23 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         }
     }
 
-    private static class ReflectionMethodInvoker implements MethodInvoker {
+    /**
+     * Calls the matching method of the source object, using a {@link MethodAccessor} generated for that method. Views are still {@link Proxy}
+     * instances and every call still passes through the invoker chain of the view, so only this final call on the source object avoids reflection.
+     */
+    private static class SourceMethodInvoker implements MethodInvoker {
         private final MethodInvocationCache lookupCache = new MethodInvocationCache();
 
         public void invoke(MethodInvocation invocation) throws Throwable {
-            Method targetMethod = locateMethod(invocation);
-            if (targetMethod == null) {
+            MethodAccessor accessor = locateMethod(invocation);
+            if (accessor == null) {
                 return;
             }
 
-            Object returnValue;
-            try {
-                returnValue = targetMethod.invoke(invocation.getDelegate(), invocation.getParameters());
-            } catch (InvocationTargetException e) {
-                throw e.getCause();
-            }
-
-            invocation.setResult(returnValue);
+            invocation.setResult(accessor.invoke(invocation.getDelegate(), invocation.getParameters()));
         }
 
-        private Method locateMethod(MethodInvocation invocation) {
+        private MethodAccessor locateMethod(MethodInvocation invocation) {
             return lookupCache.get(invocation);
         }
     }
@@ -913,7 +1140,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
 
         @Override
         protected MethodInvoker createInvoker() {
-            return new BeanMixInMethodInvoker(mixIn, REFLECTION_METHOD_INVOKER);
+            return new BeanMixInMethodInvoker(mixIn, SOURCE_METHOD_INVOKER);
         }
     }
 
@@ -941,7 +1168,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
 
         @Override
         protected MethodInvoker createInvoker() {
-            return new ClassMixInMethodInvoker(mixInType, REFLECTION_METHOD_INVOKER);
+            return new ClassMixInMethodInvoker(mixInType, SOURCE_METHOD_INVOKER);
         }
     }
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter
+
+import groovy.transform.PackageScope
+import spock.lang.Specification
+
+class MethodAccessorFactoryTest extends Specification {
+    def factory = new MethodAccessorFactory()
+
+    def "generated accessor calls public method"() {
+        def accessor = factory.create(method)
+
+        expect:
+        accessor.class.name.contains('$Generated$')
+        accessor.invoke(new TestBean(), params as Object[]) == result
+
+        where:
+        method                                       | params                        | result
+        TestBean.getMethod("getName")                | null                          | "name"
+        TestBean.getMethod("isEnabled")              | null                          | true
+        TestBean.getMethod("getCount")               | null                          | 12
+        TestBean.getMethod("add", int, long)         | [1, 2L]                       | 3L
+        TestBean.getMethod("join", String, String[]) | ["a", ["b", "c"] as String[]] | "a:b,c"
+        TestBean.getMethod("doNothing")              | null                          | null
+        Runnable.getMethod("run")                    | null                          | null
+    }
+
+    def "generated accessor rethrows exception thrown by method"() {
+        def accessor = factory.create(TestBean.getMethod("broken"))
+
+        when:
+        accessor.invoke(new TestBean(), null)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "broken"
+    }
+
+    def "reuses the accessor generated for a method"() {
+        expect:
+        factory.create(TestBean.getMethod("getName")).is(factory.create(TestBean.getMethod("getName")))
+        factory.create(Runnable.getMethod("run")).is(factory.create(Runnable.getMethod("run")))
+        !factory.create(TestBean.getMethod("getName")).is(factory.create(TestBean.getMethod("getCount")))
+    }
+
+    def "uses reflection for method of non-public type"() {
+        def accessor = factory.create(PackagePrivateBean.getMethod("getName"))
+
+        expect:
+        !accessor.class.name.contains('$Generated$')
+        accessor.invoke(new PackagePrivateBean(), null) == "name"
+    }
+
+    def "reflective accessor rethrows exception thrown by method"() {
+        def accessor = factory.reflective(TestBean.getMethod("broken"))
+
+        when:
+        accessor.invoke(new TestBean(), null)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "broken"
+    }
+
+    static class TestBean implements Runnable {
+        String getName() {
+            return "name"
+        }
+
+        boolean isEnabled() {
+            return true
+        }
+
+        int getCount() {
+            return 12
+        }
+
+        long add(int a, long b) {
+            return a + b
+        }
+
+        String join(String a, String... b) {
+            return a + ":" + b.join(",")
+        }
+
+        void doNothing() {
+        }
+
+        String broken() {
+            throw new IllegalStateException("broken")
+        }
+
+        @Override
+        void run() {
+        }
+    }
+
+    @PackageScope
+    static class PackagePrivateBean {
+        String getName() {
+            return "name"
+        }
+    }
+}
@@ -110,6 +110,109 @@ class ProtocolToModelAdapterTest extends Specification {
         model.childList[0].name == 'name'
     }
 
+    def adaptsListElementsOnDemand() {
+        TestProtocolModel protocolModel = Mock()
+        TestProtocolProject protocolProject1 = Mock()
+        TestProtocolProject protocolProject2 = Mock()
+        _ * protocolModel.getChildList() >> [protocolProject1, protocolProject2]
+
+        when:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        def childList = model.childList
+
+        then:
+        childList.size() == 2
+        0 * protocolProject1._
+        0 * protocolProject2._
+
+        when:
+        def name = childList[1].name
+
+        then:
+        name == 'name'
+        1 * protocolProject2.getName() >> 'name'
+        0 * protocolProject1._
+        childList[1].is(model.childList[1])
+    }
+
+    def adaptsSetElementsOnDemand() {
+        TestProtocolModel protocolModel = Mock()
+        TestProtocolProject protocolProject1 = Mock()
+        TestProtocolProject protocolProject2 = Mock()
+        _ * protocolModel.getChildren() >> [protocolProject1, protocolProject2, protocolProject1]
+        _ * protocolModel.getChildSet() >> ([protocolProject1, protocolProject2] as LinkedHashSet)
+
+        when:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        def children = model.children
+        def childSet = model.childSet
+
+        then:
+        children.size() == 2
+        childSet.size() == 2
+        0 * protocolProject1._
+        0 * protocolProject2._
+
+        when:
+        def name = children.getAt(1).name
+        def first = childSet.iterator().next()
+
+        then:
+        name == 'name'
+        1 * protocolProject2.getName() >> 'name'
+        0 * protocolProject1._
+        first instanceof TestProject
+        children.all[1].is(children.getAt(1))
+    }
+
+    def adaptedListAndSetCanBeModified() {
+        TestProtocolModel protocolModel = Mock()
+        TestProtocolProject protocolProject1 = Mock()
+        TestProtocolProject protocolProject2 = Mock()
+        _ * protocolModel.getChildList() >> [protocolProject1, protocolProject2]
+        _ * protocolModel.getChildSet() >> ([protocolProject1, protocolProject2] as LinkedHashSet)
+
+        given:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        def childList = model.childList
+        def childSet = model.childSet
+        def first = childList[0]
+        def second = childList[1]
+        def other = adapter.adapt(TestProject.class, Mock(TestProtocolProject))
+
+        when:
+        childList.remove(0)
+        childList.add(other)
+        childSet.remove(first)
+        childSet.add(other)
+
+        then:
+        childList == [second, other]
+        childSet == [second, other] as Set
+    }
+
+    def adaptsEachListElementOnceWhenAccessedConcurrently() {
+        TestProtocolModel protocolModel = Mock()
+        def protocolProjects = (1..100).collect { Mock(TestProtocolProject) }
+        _ * protocolModel.getChildList() >> protocolProjects
+
+        given:
+        def childList = adapter.adapt(TestModel.class, protocolModel).childList
+        def results = Collections.synchronizedList([])
+
+        when:
+        def threads = (1..4).collect {
+            Thread.start {
+                results << (0..<100).collect { childList[it] }
+            }
+        }
+        threads*.join()
+
+        then:
+        results.size() == 4
+        results.every { result -> (0..<100).every { result[it].is(results[0][it]) } }
+    }
+
     def adaptsMapElements() {
         TestProtocolModel protocolModel = Mock()
         TestProtocolProject protocolProject = Mock()
@@ -617,6 +720,8 @@ interface TestModel {
 
     List<TestProject> getChildList()
 
+    Set<TestProject> getChildSet()
+
     Map<TestProject, TestProject> getChildMap()
 
     TestEnum getTestEnum()
@@ -647,6 +752,8 @@ interface TestProtocolModel {
 
     Iterable<? extends TestProtocolProject> getChildList()
 
+    Iterable<? extends TestProtocolProject> getChildSet()
+
     Map<String, ? extends TestProtocolProject> getChildMap()
 
     String getConfig();
@@ -676,6 +783,7 @@ class TestModelImpl implements Serializable {
     String name = "model"
     TestProtocolProjectImpl project = new TestProtocolProjectImpl()
     List<TestProtocolProjectImpl> childList = [project]
+    Set<TestProtocolProjectImpl> childSet = [project] as LinkedHashSet
 }
 
 class TestProtocolProjectImpl implements Serializable {